@@ -0,0 +1,114 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.bench;
+
+import java.io.File;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.MWEIndex;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.JMWEAnnotator;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+
+/**
+ * Measures the throughput of {@link JMWEAnnotator} on a synthetic document.
+ * The document is generated by {@link Workload}, and then tokenized, tagged
+ * and lemmatized by CoreNLP once, during setup, so that only the MWE step is
+ * measured.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class AnnotatorBenchmark {
+
+	@Param({"../src/test/resources/mweindex_wordnet3.0_semcor1.6.data"})
+	public String indexData;
+
+	@Param({"CompositeConsecutiveProperNouns", "Complex"})
+	public String detector;
+
+	@Param({"1", "4"})
+	public int threads;
+
+	@Param({"20"})
+	public int length;
+
+	@Param({"0.3"})
+	public double density;
+
+	@Param({"500"})
+	public int sentences;
+
+	@Param({"42"})
+	public long seed;
+
+	private JMWEAnnotator annotator;
+	private Annotation document;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+
+		// generate the text
+		IMWEIndex index = new MWEIndex(new File(indexData));
+		index.open();
+		List<List<IToken>> sentences = new Workload(index).generate(seed, this.sentences, length, density, 0.3);
+		index.close();
+		document = new Annotation(Workload.toText(sentences));
+
+		// run the preceding annotators once
+		Properties nlp = new Properties();
+		nlp.setProperty("annotators", "tokenize, ssplit, pos, lemma");
+		nlp.setProperty("ssplit.eolonly", "true");
+		new StanfordCoreNLP(nlp).annotate(document);
+
+		Properties props = new Properties();
+		props.setProperty("customAnnotatorClass.jmwe.underscoreReplacement", "-");
+		props.setProperty("customAnnotatorClass.jmwe.indexData", indexData);
+		props.setProperty("customAnnotatorClass.jmwe.detector", detector);
+		props.setProperty("customAnnotatorClass.jmwe.threads", Integer.toString(threads));
+		annotator = new JMWEAnnotator("jmwe", props);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		annotator.release();
+	}
+
+	@Benchmark
+	public Annotation annotate() {
+		annotator.annotate(document);
+		return document;
+	}
+
+}
@@ -0,0 +1,49 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler always attached, so that every run
+ * reports allocation rates alongside times. Accepts the usual JMH command
+ * line options, such as a benchmark name pattern or <code>-p</code>
+ * parameter overrides.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class Benchmarks {
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args
+	 *            JMH command line options
+	 * @throws RunnerException
+	 *             if the benchmarks fail
+	 * @throws CommandLineOptionException
+	 *             if the options are malformed
+	 * @since jMWE 1.0.3
+	 */
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder()
+			.parent(cmd)
+			.addProfiler(GCProfiler.class)
+			.build()).run();
+	}
+
+}
@@ -0,0 +1,136 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.jsemcor.data.ContextParser;
+import edu.mit.jsemcor.data.LegacyContextParser;
+import edu.mit.jsemcor.element.ContextID;
+import edu.mit.jsemcor.element.IContext;
+import edu.mit.jsemcor.element.IContextID;
+import edu.mit.jsemcor.main.BufferToStreamAdapter;
+
+/**
+ * Measures parsing a context file, comparing the word form lines read in
+ * place by {@link ContextParser} with the attribute map of the
+ * {@link LegacyContextParser} in the annotator's test classes. The file is
+ * synthetic but shaped like a Semcor tag file, since the Semcor data is not
+ * shipped with the library. Run through {@link Benchmarks}, the GC profiler
+ * reports the bytes allocated per parse.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContextParserBenchmark {
+
+	// word forms: command, tag, lemma (or null for none), and text
+	private static final String[][] WORDS = {
+		{"ignore", "DT", null, "The"},
+		{"done", "NN", "jury", "jury"},
+		{"done", "VB", "say", "said"},
+		{"done", "JJ", "recent", "recent"},
+		{"ignore", "IN", null, "of"},
+		{"done", "NN", "election", "election"},
+		{"done", "RB", "no_longer", "no_longer"},
+		{"done", "NNP", "person", "Fulton"},
+		{"done", "VBD", "produce", "produced"},
+		{"ignore", "CC", null, "and"},
+	};
+
+	@Param({"tokenizer", "attributeMap"})
+	public String parser;
+
+	@Param({"2000"})
+	public int sentences;
+
+	@Param({"7"})
+	public long seed;
+
+	private ContextParser contextParser;
+	private IContextID id;
+	private byte[] file;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if(parser.equals("tokenizer"))
+			contextParser = ContextParser.getInstance();
+		else if(parser.equals("attributeMap"))
+			contextParser = new LegacyContextParser();
+		else
+			throw new IllegalArgumentException("unknown parser: " + parser);
+		id = new ContextID("br-a01", "brown1");
+		file = contextFile(sentences, seed);
+	}
+
+	@Benchmark
+	public IContext parse() throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new BufferToStreamAdapter(ByteBuffer.wrap(file))));
+		return contextParser.parse(id, reader);
+	}
+
+	/**
+	 * Returns a context file of the specified number of sentences, each of
+	 * ten word forms drawn at random and a closing punctuation mark.
+	 *
+	 * @param sentences
+	 *            the number of sentences
+	 * @param seed
+	 *            the seed for the random choice of words and senses
+	 * @return the bytes of the file
+	 * @throws IOException
+	 *             if the file cannot be encoded
+	 * @since jMWE 1.0.3
+	 */
+	static byte[] contextFile(int sentences, long seed) throws IOException {
+		Random random = new Random(seed);
+		StringBuilder sb = new StringBuilder("<contextfile concordance=brown1>\n<context filename=br-a01 paras=no>\n");
+		String[] word;
+		for(int s = 1; s <= sentences; s++){
+			sb.append("<s snum=").append(s).append(">\n");
+			for(int w = 0; w < WORDS.length; w++){
+				word = WORDS[random.nextInt(WORDS.length)];
+				sb.append("<wf cmd=").append(word[0]).append(" pos=").append(word[1]);
+				if(word[2] != null)
+					sb.append(" lemma=").append(word[2]).append(" wnsn=").append(1 + random.nextInt(3))
+						.append(" lexsn=1:").append(10 + random.nextInt(10)).append(":00::");
+				sb.append('>').append(word[3]).append("</wf>\n");
+			}
+			sb.append("<punc>.</punc>\n</s>\n");
+		}
+		sb.append("</context>\n</contextfile>\n");
+		return sb.toString().getBytes("US-ASCII");
+	}
+
+}
@@ -0,0 +1,113 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.bench;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.detect.DetectorSpec;
+import edu.mit.jmwe.detect.IMWEDetector;
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.MWEIndex;
+
+/**
+ * Measures detector throughput over a synthetic document generated by
+ * {@link Workload}. The detector is given as a {@link DetectorSpec}
+ * specification, so any chain may be measured with <code>-p detector=...</code>.
+ * The score is the time to process the whole document, both one sentence at a
+ * time and as a batch.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectorBenchmark {
+
+	@Param({"../src/test/resources/mweindex_wordnet3.0_semcor1.6.data"})
+	public String indexData;
+
+	@Param({
+		"Consecutive",
+		"ConsecutiveAutomaton",
+		"Exhaustive",
+		"TrulyExhaustive",
+		"ProperNouns",
+		"InflectionPattern(Consecutive)",
+		"MoreFrequentAsMWE(InflectionPattern(Consecutive))"
+	})
+	public String detector;
+
+	@Param({"20"})
+	public int length;
+
+	@Param({"0.1", "0.5"})
+	public double density;
+
+	@Param({"0.3"})
+	public double inflected;
+
+	@Param({"500"})
+	public int sentences;
+
+	@Param({"42"})
+	public long seed;
+
+	private IMWEIndex index;
+	private IMWEDetector mweDetector;
+	private List<List<IToken>> document;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		index = new MWEIndex(new File(indexData));
+		index.open();
+		mweDetector = DetectorSpec.parse(detector, index);
+		document = new Workload(index).generate(seed, sentences, length, density, inflected);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		index.close();
+	}
+
+	@Benchmark
+	public void detect(Blackhole bh) {
+		for(List<IToken> sentence : document)
+			bh.consume(mweDetector.detect(sentence));
+	}
+
+	@Benchmark
+	public List<List<IMWE<IToken>>> detectAll() {
+		return mweDetector.detectAll(document);
+	}
+
+}
@@ -0,0 +1,105 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.mit.jmwe.data.IRootMWEDesc.IRootPart;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.MWEIndex;
+
+/**
+ * Measures loading the text index, and looking up parts in an open index.
+ * Lookups draw a fixed, seeded sample of the part forms in the index, plus
+ * an equal number of words that are not parts of any MWE.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class IndexBenchmark {
+
+	@Param({"../src/test/resources/mweindex_wordnet3.0_semcor1.6.data"})
+	public String indexData;
+
+	@Param({"42"})
+	public long seed;
+
+	private IMWEIndex index;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		index = new MWEIndex(new File(indexData));
+		index.open();
+
+		List<String> forms = new ArrayList<String>();
+		for(IRootMWEDesc root : (Iterable<IRootMWEDesc>)index::getRootIterator)
+			for(IRootPart part : root.getParts())
+				forms.add(part.getForm());
+		Collections.sort(forms);
+
+		Random random = new Random(seed);
+		keys = new String[2048];
+		for(int i = 0; i < keys.length; i++)
+			keys[i] = (i % 2 == 0) ? forms.get(random.nextInt(forms.size())) : "zz" + random.nextInt(100000);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		index.close();
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 3)
+	@Measurement(iterations = 10)
+	public IMWEIndex open() throws IOException {
+		IMWEIndex fresh = new MWEIndex(new File(indexData));
+		fresh.open();
+		fresh.close();
+		return fresh;
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.AverageTime)
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	@Warmup(iterations = 5, time = 1)
+	@Measurement(iterations = 5, time = 1)
+	public void getAll(Blackhole bh) {
+		for(String key : keys)
+			bh.consume(index.getAll(key));
+	}
+
+}
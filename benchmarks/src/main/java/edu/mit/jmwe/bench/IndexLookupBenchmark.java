@@ -0,0 +1,153 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.mit.jmwe.index.IMWEDescSet;
+import edu.mit.jmwe.index.MWEIndex;
+
+/**
+ * Measures the throughput of concurrent lookups in one shared index. The
+ * <code>snapshot</code> read path is the index as it is; the
+ * <code>locked</code> path takes a global lock around each lookup and open
+ * check, as lookups did before they became lock-free. Each thread walks the
+ * part forms of the index in index order, from its own random start. The
+ * thread count defaults to four, and may be changed with JMH's
+ * <code>-t</code> option.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexLookupBenchmark {
+
+	@Param({"../src/test/resources/mweindex_wordnet3.0_semcor1.6.data"})
+	public String indexData;
+
+	@Param({"locked", "snapshot"})
+	public String readPath;
+
+	private MWEIndex index;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		File file = new File(indexData);
+		index = readPath.equals("locked") ? new LockedMWEIndex(file) : new MWEIndex(file);
+		index.open();
+
+		List<String> parts = new ArrayList<String>();
+		for(Iterator<String> i = index.getIndexIterator(); i.hasNext(); )
+			parts.add(i.next());
+		keys = parts.toArray(new String[parts.size()]);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		index.close();
+	}
+
+	@Benchmark
+	public IMWEDescSet getAll(Cursor cursor) {
+		return index.getAll(keys[cursor.next(keys.length)]);
+	}
+
+	/**
+	 * The position of one benchmark thread in the list of keys.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	@State(Scope.Thread)
+	public static class Cursor {
+
+		private int position = -1;
+
+		public int next(int length) {
+			if(position < 0)
+				position = ThreadLocalRandom.current().nextInt(length);
+			else if(++position == length)
+				position = 0;
+			return position;
+		}
+
+	}
+
+	/**
+	 * Index that takes a global lock around each lookup and the open check,
+	 * reproducing the read path used before lookups became lock-free.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	private static class LockedMWEIndex extends MWEIndex {
+
+		// final instance fields
+		private final Lock lock = new ReentrantLock();
+
+		public LockedMWEIndex(File file) {
+			super(file);
+		}
+
+		@Override
+		public boolean isOpen() {
+			try {
+				lock.lock();
+				return super.isOpen();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public IMWEDescSet getAll(String part) {
+			try {
+				lock.lock();
+				if(!isOpen())
+					throw new IllegalStateException("index is closed");
+				return super.getAll(part);
+			} finally {
+				lock.unlock();
+			}
+		}
+
+	}
+
+}
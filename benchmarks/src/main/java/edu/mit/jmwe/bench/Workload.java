@@ -0,0 +1,203 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import edu.mit.jmwe.data.IInfMWEDesc;
+import edu.mit.jmwe.data.IMWEDesc.IPart;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.Token;
+import edu.mit.jmwe.index.IMWEIndex;
+
+/**
+ * Generates a reproducible document of synthetic, tagged and stemmed
+ * sentences from the descriptions in an MWE index. Each sentence is filled
+ * with a mix of filler words and the parts of randomly chosen MWEs; the
+ * fraction of tokens that belong to an MWE and the fraction of MWEs that
+ * appear in an inflected form are controlled by the caller. The same seed
+ * and parameters always produce the same document for the same index.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class Workload {
+
+	// words placed between MWEs
+	private static final String[] FILLERS = {
+		"the", "a", "of", "and", "to", "in", "is", "was", "it", "that",
+		"he", "she", "they", "with", "for", "on", "as", "at", "by", "this",
+		"report", "people", "said", "year", "new", "time", "first", "city", ","
+	};
+	private static final String[] FILLER_TAGS = {
+		"DT", "DT", "IN", "CC", "TO", "IN", "VBZ", "VBD", "PRP", "IN",
+		"PRP", "PRP", "PRP", "IN", "IN", "IN", "IN", "IN", "IN", "DT",
+		"NN", "NNS", "VBD", "NN", "JJ", "NN", "JJ", "NN", ","
+	};
+
+	// final instance fields
+	private final List<IRootMWEDesc> roots;
+	private final List<IRootMWEDesc> inflectable;
+
+	/**
+	 * Creates a workload generator over the root descriptions of the specified
+	 * open index.
+	 *
+	 * @param index
+	 *            the index from which MWEs are drawn; must be open
+	 * @since jMWE 1.0.3
+	 */
+	public Workload(IMWEIndex index) {
+		List<IRootMWEDesc> roots = new ArrayList<IRootMWEDesc>();
+		List<IRootMWEDesc> inflectable = new ArrayList<IRootMWEDesc>();
+		IRootMWEDesc root;
+		for(Iterator<IRootMWEDesc> i = index.getRootIterator(); i.hasNext(); ){
+			root = i.next();
+			roots.add(root);
+			if(!root.getInflected().isEmpty())
+				inflectable.add(root);
+		}
+		// the iteration order of the index is not specified, so fix one
+		Collections.sort(roots, (a, b) -> a.getID().toString().compareTo(b.getID().toString()));
+		Collections.sort(inflectable, (a, b) -> a.getID().toString().compareTo(b.getID().toString()));
+		this.roots = roots;
+		this.inflectable = inflectable;
+	}
+
+	/**
+	 * Generates a document.
+	 *
+	 * @param seed
+	 *            the random seed
+	 * @param sentences
+	 *            the number of sentences
+	 * @param length
+	 *            the number of tokens in each sentence
+	 * @param density
+	 *            the fraction of tokens, between 0 and 1, that belong to an MWE
+	 * @param inflected
+	 *            the fraction of MWEs, between 0 and 1, that appear in an
+	 *            inflected form
+	 * @return the document, as a list of sentences
+	 * @since jMWE 1.0.3
+	 */
+	public List<List<IToken>> generate(long seed, int sentences, int length, double density, double inflected) {
+		Random random = new Random(seed);
+		List<List<IToken>> document = new ArrayList<List<IToken>>(sentences);
+		long offset = 0;
+		for(int s = 0; s < sentences; s++){
+			List<IToken> sentence = new ArrayList<IToken>(length + 8);
+			while(sentence.size() < length){
+				if(random.nextDouble() >= density){
+					int f = random.nextInt(FILLERS.length);
+					sentence.add(new Token(FILLERS[f], FILLER_TAGS[f], offset, FILLERS[f]));
+					offset += FILLERS[f].length() + 1;
+					continue;
+				}
+				if(!inflectable.isEmpty() && random.nextDouble() < inflected){
+					IRootMWEDesc root = inflectable.get(random.nextInt(inflectable.size()));
+					List<IInfMWEDesc> infs = new ArrayList<IInfMWEDesc>(root.getInflected().values());
+					IInfMWEDesc inf = infs.get(random.nextInt(infs.size()));
+					offset = addParts(sentence, inf.getParts(), root, offset, true);
+				} else {
+					IRootMWEDesc root = roots.get(random.nextInt(roots.size()));
+					offset = addParts(sentence, root.getParts(), root, offset, false);
+				}
+			}
+			// terminal punctuation
+			sentence.add(new Token(".", ".", offset, "."));
+			offset += 2;
+			document.add(sentence);
+		}
+		return document;
+	}
+
+	/**
+	 * Appends a token for each of the specified parts to the sentence.
+	 *
+	 * @param sentence
+	 *            the sentence being built
+	 * @param parts
+	 *            the parts, either of the root or of one of its inflections
+	 * @param root
+	 *            the root description, which supplies stems and the POS
+	 * @param offset
+	 *            the character offset of the first new token
+	 * @param inflected
+	 *            whether the parts are those of an inflected form
+	 * @return the character offset following the new tokens
+	 * @since jMWE 1.0.3
+	 */
+	private long addParts(List<IToken> sentence, List<? extends IPart> parts, IRootMWEDesc root, long offset, boolean inflected) {
+		for(int i = 0; i < parts.size(); i++){
+			String form = parts.get(i).getForm();
+			String stem = root.getParts().get(i).getForm();
+			String tag = tagFor(root.getPOS(), i == 0, inflected && !form.equalsIgnoreCase(stem));
+			sentence.add(new Token(form, tag, offset, stem));
+			offset += form.length() + 1;
+		}
+		return offset;
+	}
+
+	/**
+	 * Returns a plausible Penn Treebank tag for a part of an MWE.
+	 *
+	 * @param pos
+	 *            the part of speech of the MWE
+	 * @param head
+	 *            whether the part is the first part
+	 * @param inflected
+	 *            whether the part appears in an inflected form
+	 * @return the tag
+	 * @since jMWE 1.0.3
+	 */
+	private static String tagFor(MWEPOS pos, boolean head, boolean inflected) {
+		if(pos == MWEPOS.PROPER_NOUN)
+			return "NNP";
+		if(!head && pos != MWEPOS.NOUN)
+			return "RP";
+		switch(pos){
+		case VERB:      return inflected ? "VBD" : "VB";
+		case NOUN:      return inflected ? "NNS" : "NN";
+		case ADJECTIVE: return "JJ";
+		case ADVERB:    return "RB";
+		default:        return "IN";
+		}
+	}
+
+	/**
+	 * Joins the forms of the tokens in the document into text, one sentence
+	 * per line, suitable for a CoreNLP pipeline.
+	 *
+	 * @param document
+	 *            the document
+	 * @return the text of the document
+	 * @since jMWE 1.0.3
+	 */
+	public static String toText(List<List<IToken>> document) {
+		StringBuilder sb = new StringBuilder();
+		for(List<IToken> sentence : document){
+			for(int i = 0; i < sentence.size(); i++){
+				if(i > 0 && !sentence.get(i).getForm().equals(".") && !sentence.get(i).getForm().equals(","))
+					sb.append(' ');
+				sb.append(sentence.get(i).getForm());
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+}
@@ -147,7 +147,14 @@ public class MWE<T extends IToken> implements IMWE<T>{
 		this.partMap = Collections.unmodifiableMap(partMap);
 
 
-		this.offset = partMap.keySet().stream().map(t -> (Token) t).map(token -> token.getOffset()).reduce((a,b) -> a<b? a : b).get();
+		// the offset of the earliest token, if the tokens have offsets
+		Long min = null, tokenOffset;
+		for(T token : partMap.keySet()){
+			tokenOffset = token.getOffset();
+			if(tokenOffset != null && (min == null || tokenOffset < min))
+				min = tokenOffset;
+		}
+		this.offset = min;
 
 	}
 	
@@ -17,6 +17,7 @@ import edu.mit.jsemcor.main.Semcor;
 import edu.mit.jwi.Dictionary;
 import edu.mit.jwi.IDictionary;
 import edu.mit.jwi.item.POS;
+import edu.mit.jwi.morph.CachingStemmer;
 import edu.mit.jwi.morph.IStemmer;
 import edu.mit.jwi.morph.WordnetStemmer;
 import edu.stanford.nlp.ling.HasWord;
@@ -31,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.prefs.Preferences;
 
 /**
@@ -62,13 +64,50 @@ public class ConcordanceTagger extends AbstractFileSelector implements Runnable
 	 * </ol>
 	 *
 	 * The resulting file in (4) can be used via the {@link TaggedConcordanceIterator} class.
+	 * <p>
+	 * If arguments are given, the locations are taken from them instead, and
+	 * the user is not prompted, so that the corpus may be tagged in a headless
+	 * environment:
+	 *
+	 * <pre>
+	 * -semcor &lt;dir&gt; -wordnet &lt;dir&gt; -model &lt;file&gt; -output &lt;file&gt;
+	 * </pre>
+	 *
+	 * In that case the process exits with status 2 if the arguments are
+	 * malformed, and with status 1 if the corpus cannot be tagged.
 	 *
 	 * @param args
-	 *            standard main method arguments; ignored
+	 *            standard main method arguments; if empty, the user is
+	 *            prompted for the locations
 	 * @since jMWE 1.0.0
 	 */
 	public static void main(String[] args){
 		ConcordanceTagger tagger = new ConcordanceTagger();
+		if(args.length > 0){
+			Map<String, String> options;
+			try {
+				options = parseOptions(args, "semcor", "wordnet", "model", "output");
+				if(options.size() < 4)
+					throw new IllegalArgumentException("All options are required");
+			} catch(IllegalArgumentException e) {
+				System.err.println(e.getMessage());
+				System.err.println("Usage: ConcordanceTagger -semcor <dir> -wordnet <dir> -model <file> -output <file>");
+				System.exit(2);
+				return;
+			}
+			tagger.setInteractive(false);
+			tagger.setSelection(IConcordanceSet.class, new File(options.get("semcor")));
+			tagger.setSelection(IDictionary.class, new File(options.get("wordnet")));
+			tagger.setSelection(ListProcessor.class, new File(options.get("model")));
+			tagger.setSelection(Writer.class, new File(options.get("output")));
+			try {
+				tagger.tag();
+			} catch (Exception e) {
+				e.printStackTrace();
+				System.exit(1);
+			}
+			return;
+		}
 		tagger.run();
 	}
 
@@ -78,6 +117,24 @@ public class ConcordanceTagger extends AbstractFileSelector implements Runnable
 	 * @see java.lang.Runnable#run()
 	 */
 	public void run() {
+		try {
+			tag();
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Tags the concordance, as {@link #run()} does, but passes on a failure
+	 * rather than printing it. Returns without tagging if a selection is
+	 * cancelled.
+	 *
+	 * @throws Exception
+	 *             if the tagging model cannot be loaded, or there is a problem
+	 *             reading the concordance or writing the output
+	 * @since jMWE 1.0.3
+	 */
+	public void tag() throws Exception {
 
 		// semcor
 		IConcordanceSet semcor = getSemcor();
@@ -88,25 +145,13 @@ public class ConcordanceTagger extends AbstractFileSelector implements Runnable
 		if(stemmer == null)
 			return;
 		// tagger
-		ListProcessor<List<? extends HasWord>,List<TaggedWord>> posTagger;
-		try {
-			posTagger = getPOSTagger();
-			if(posTagger == null)
-				return;
-		} catch (Exception e) {
-			e.printStackTrace();
+		ListProcessor<List<? extends HasWord>,List<TaggedWord>> posTagger = getPOSTagger();
+		if(posTagger == null)
 			return;
-		}
 		// output
-		Writer writer;
-		try {
-			writer = getWriter();
-			if(writer == null)
-				return;
-		} catch (IOException e) {
-			e.printStackTrace();
+		Writer writer = getWriter();
+		if(writer == null)
 			return;
-		}
 
 		// figure out how much work we have to do
 		int num = 0;
@@ -114,18 +159,11 @@ public class ConcordanceTagger extends AbstractFileSelector implements Runnable
 			num += c.getContextIDs().size();
 		IProgressBar pb = new ProgressBar(num);
 
-		// do the actual work
+		// do the actual work, closing the output even if it fails
 		try {
 			process(semcor.values(), posTagger, stemmer, writer, pb);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-
-		// clean up
-		try {
+		} finally {
 			writer.close();
-		} catch (IOException e) {
-			e.printStackTrace();
 		}
 	}
 
@@ -166,7 +204,7 @@ public class ConcordanceTagger extends AbstractFileSelector implements Runnable
 		} catch (IOException e) {
 			throw new IllegalStateException("Unable to open Wordnet",e);
 		}
-		return new WordnetStemmer(wordnet);
+		return new CachingStemmer(new WordnetStemmer(wordnet));
 	}
 
 	/**
@@ -207,7 +245,8 @@ public class ConcordanceTagger extends AbstractFileSelector implements Runnable
 		File file = chooseFileForWriting("Select Output File", Writer.class);
 		if(file == null)
 			return null;
-		setLocation(Writer.class, file);
+		if(isInteractive())
+			setLocation(Writer.class, file);
 		return new BufferedWriter(new FileWriter(file));
 	}
 
@@ -0,0 +1,115 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.data.concordance;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import edu.mit.jmwe.util.StreamAdapter;
+
+/**
+ * A file of tagged concordance sentences that may be read any number of times.
+ * Each call to {@link #iterator()} opens a new
+ * {@link TaggedConcordanceIterator} over the file, which streams the sentences
+ * from disk one line at a time and closes the file when it is exhausted. Local
+ * files are read through a buffer rather than mapped whole into memory, so
+ * files of any size may be read. The length of the file is available so that
+ * progress through it may be reported in bytes.
+ *
+ * @author M.A. Finlayson
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class TaggedConcordance implements Iterable<IConcordanceSentence> {
+
+	/**
+	 * The size of the buffer through which local files are read, in bytes.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int BUFFER_SIZE = 1 << 16;
+
+	// final instance fields
+	private final URL url;
+
+	/**
+	 * Constructs a new tagged concordance backed by the specified file.
+	 *
+	 * @param file
+	 *            the file of tagged sentences; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified file is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public TaggedConcordance(File file) {
+		this(StreamAdapter.toURL(file));
+	}
+
+	/**
+	 * Constructs a new tagged concordance backed by the specified url.
+	 *
+	 * @param url
+	 *            the location of the tagged sentences; may not be
+	 *            <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified url is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public TaggedConcordance(URL url) {
+		if(url == null)
+			throw new NullPointerException();
+		this.url = url;
+	}
+
+	/**
+	 * Returns the location of the tagged sentences.
+	 *
+	 * @return the location of the tagged sentences
+	 * @since jMWE 1.0.3
+	 */
+	public URL getURL() {
+		return url;
+	}
+
+	/**
+	 * Returns the length of the tagged sentences in bytes, or <code>-1</code>
+	 * if the url does not point to a local file.
+	 *
+	 * @return the length of the tagged sentences in bytes, or <code>-1</code>
+	 *         if unknown
+	 * @since jMWE 1.0.3
+	 */
+	public long length() {
+		File file = StreamAdapter.toFile(url);
+		return (file == null || !file.isFile()) ? -1 : file.length();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Iterable#iterator()
+	 */
+	public TaggedConcordanceIterator iterator() {
+		try {
+			File file = StreamAdapter.toFile(url);
+			InputStream in = (file == null) ? 
+					StreamAdapter.make(url) : 
+						new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+			return new TaggedConcordanceIterator(in);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read tagged concordance at " + url, e);
+		}
+	}
+
+}
@@ -12,6 +12,7 @@ package edu.mit.jmwe.data.concordance;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URL;
@@ -19,6 +20,7 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.util.CountingInputStream;
 import edu.mit.jmwe.util.StreamAdapter;
 
 /**
@@ -37,8 +39,9 @@ import edu.mit.jmwe.util.StreamAdapter;
  */
 public class TaggedConcordanceIterator implements Iterator<IConcordanceSentence> {
 	
-	// final instance field
+	// final instance fields
 	protected final BufferedReader source;
+	private final CountingInputStream counter;
 	
 	// dynamic instance fields
 	protected IConcordanceSentence next;
@@ -54,7 +57,7 @@ public class TaggedConcordanceIterator implements Iterator<IConcordanceSentence>
 	 * @since jMWE 1.0.0
 	 */
 	public TaggedConcordanceIterator(File file) throws IOException {
-		this(new InputStreamReader(StreamAdapter.make(file)));
+		this(StreamAdapter.make(file));
 	}
 
 	/**
@@ -72,7 +75,29 @@ public class TaggedConcordanceIterator implements Iterator<IConcordanceSentence>
 	 * @since jMWE 1.0.0
 	 */
 	public TaggedConcordanceIterator(URL url) throws IOException {
-		this(new InputStreamReader(StreamAdapter.make(url)));
+		this(StreamAdapter.make(url));
+	}
+
+	/**
+	 * Constructs the iterator from an input stream of tagged sentences. The
+	 * bytes read from the stream are counted, and may be obtained from
+	 * {@link #getBytesRead()}.
+	 * 
+	 * @param in
+	 *            the stream from which the data is read
+	 * @throws IOException
+	 *             if there is an exception reading from the stream
+	 * @throws NullPointerException
+	 *             if the stream is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public TaggedConcordanceIterator(InputStream in) throws IOException {
+		this(new CountingInputStream(in));
+	}
+	
+	// used to keep a handle on the counting stream
+	private TaggedConcordanceIterator(CountingInputStream in) throws IOException {
+		this(in, new InputStreamReader(in));
 	}
 	
 	/**
@@ -87,10 +112,45 @@ public class TaggedConcordanceIterator implements Iterator<IConcordanceSentence>
 	 * @since jMWE 1.0.0
 	 */
 	public TaggedConcordanceIterator(Reader r) throws IOException {
-		source = new BufferedReader(r);
+		this(null, r);
+	}
+	
+	// the counter may be null
+	private TaggedConcordanceIterator(CountingInputStream counter, Reader r) throws IOException {
+		if(r == null)
+			throw new NullPointerException();
+		this.counter = counter;
+		this.source = new BufferedReader(r);
 		advance();
 	}
 
+	/**
+	 * Returns the number of bytes read so far from the underlying stream, or
+	 * <code>-1</code> if the iterator was constructed from a reader. Because
+	 * the stream is read ahead in blocks, the count may run ahead of the
+	 * sentences returned by {@link #next()} by the size of those blocks; when
+	 * the iterator is exhausted, it is the length of the stream.
+	 * 
+	 * @return the number of bytes read so far, or <code>-1</code> if unknown
+	 * @since jMWE 1.0.3
+	 */
+	public long getBytesRead() {
+		return (counter == null) ? -1 : counter.getCount();
+	}
+
+	/**
+	 * Closes the underlying reader. The iterator has no more elements after
+	 * this method is called.
+	 * 
+	 * @throws IOException
+	 *             if there is a problem closing the reader
+	 * @since jMWE 1.0.3
+	 */
+	public void close() throws IOException {
+		next = null;
+		source.close();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -110,6 +170,8 @@ public class TaggedConcordanceIterator implements Iterator<IConcordanceSentence>
 	 * Internal method used to advance the iterator to the next element in the
 	 * list.
 	 * 
+	 * The reader is closed when its end is reached.
+	 * 
 	 * @throws IOException
 	 *             if the reader reaches the end of the file (there are no
 	 *             elements left)
@@ -121,8 +183,9 @@ public class TaggedConcordanceIterator implements Iterator<IConcordanceSentence>
 		while ((line = source.readLine()) != null)
 			if (!ignoreLine(line)){
 				next = ConcordanceSentence.parse(line);
-				break;
+				return;
 			}
+		source.close();
 	}
 
 	/**
@@ -12,16 +12,21 @@ package edu.mit.jmwe.detect;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import edu.mit.jmwe.data.IMWE;
 import edu.mit.jmwe.data.IToken;
 import edu.mit.jmwe.data.MWEComparator;
+import edu.mit.jmwe.util.ListComparator;
 
 /**
- * A detector composed of multiple simpler detectors.
+ * A detector composed of multiple simpler detectors. The results of the
+ * detectors are merged, and when two detectors find MWEs with the same part of
+ * speech made of the same tokens, only the MWE found by the more-preferred
+ * detector is kept.
  * 
  * @author N. Kulkarni
  * @author M.A. Finlayson
@@ -87,14 +92,78 @@ public class CompositeDetector extends AbstractList<IMWEDetector> implements IMW
 	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(edu.mit.jmwe.data.ISentence)
 	 */
 	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
-		Set<IMWE<T>> resultSet = new LinkedHashSet<IMWE<T>>();
+		Map<T, Integer> indexMap = ListComparator.createIndexMap(sentence);
+		Set<Object> keys = new HashSet<Object>();
+		List<IMWE<T>> results = new ArrayList<IMWE<T>>();
 		for(IMWEDetector d : backingArray)
-			resultSet.addAll(d.detect(sentence));
-		List<IMWE<T>> results = new ArrayList<IMWE<T>>(resultSet);
+			merge(d.detect(sentence), indexMap, keys, results);
 		Collections.sort(results, new MWEComparator<T>(sentence));
 		return results;
 	}
 	
+	/**
+	 * Passes all the sentences to each backing detector at once, so that each
+	 * may amortize its work across the sentences, and then merges the results
+	 * for each sentence as {@link #detect(List)} does.
+	 * 
+	 * @see edu.mit.jmwe.detect.IMWEDetector#detectAll(java.util.List)
+	 * @since jMWE 1.0.3
+	 */
+	public <T extends IToken> List<List<IMWE<T>>> detectAll(List<? extends List<T>> sentences) {
+		
+		// run each detector over the whole batch
+		List<List<List<IMWE<T>>>> found = new ArrayList<List<List<IMWE<T>>>>(backingArray.length);
+		for(IMWEDetector d : backingArray)
+			found.add(d.detectAll(sentences));
+		
+		// merge per sentence
+		List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(sentences.size());
+		Set<Object> keys = new HashSet<Object>();
+		Map<T, Integer> indexMap;
+		List<IMWE<T>> sentResults;
+		for(int i = 0; i < sentences.size(); i++){
+			keys.clear();
+			indexMap = ListComparator.createIndexMap(sentences.get(i));
+			sentResults = new ArrayList<IMWE<T>>();
+			for(List<List<IMWE<T>>> f : found)
+				merge(f.get(i), indexMap, keys, sentResults);
+			Collections.sort(sentResults, new MWEComparator<T>(sentences.get(i)));
+			results.add(sentResults);
+		}
+		return results;
+	}
+	
+	/**
+	 * Adds to the results each of the found MWEs that does not duplicate one
+	 * already there. Two MWEs are duplicates if they have the same part of
+	 * speech and are made of the same tokens, as determined by their
+	 * {@link MWEKey}s, in which case the one found first, by the
+	 * more-preferred detector, is kept.
+	 * 
+	 * @param <T>
+	 *            the type of tokens in the MWEs
+	 * @param found
+	 *            the MWEs found by one detector
+	 * @param indexMap
+	 *            the position of each token in the sentence
+	 * @param keys
+	 *            the keys of the MWEs already in the results
+	 * @param results
+	 *            the results
+	 * @since jMWE 1.0.3
+	 */
+	private static <T extends IToken> void merge(List<IMWE<T>> found, Map<T, Integer> indexMap, Set<Object> keys, List<IMWE<T>> results) {
+		Object key;
+		for(IMWE<T> mwe : found){
+			key = MWEKey.of(mwe, indexMap);
+			// an MWE with a token not in the sentence is its own key
+			if(key == null)
+				key = mwe;
+			if(keys.add(key))
+				results.add(mwe);
+		}
+	}
+	
 	
 	/* 
 	 * (non-Javadoc)
@@ -12,10 +12,12 @@ package edu.mit.jmwe.detect;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import edu.mit.jmwe.data.IMWE;
@@ -36,6 +38,9 @@ import edu.mit.jmwe.util.ListComparator;
  */
 public class Consecutive extends HasMWEIndex implements IMWEDetector {
 
+	// the layouts of the records built for each description
+	private final MWEBuilder.LayoutCache layouts = new MWEBuilder.LayoutCache();
+
 	/**
 	 * Constructs the detector from the given index.
 	 * 
@@ -54,6 +59,39 @@ public class Consecutive extends HasMWEIndex implements IMWEDetector {
 	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
 	 */
 	public <T extends IToken> List<IMWE<T>> detect(List<T> sent) {
+		return detect(sent, null);
+	}
+	
+	/**
+	 * Detects the MWEs in each of the sentences, sharing the index lookups for
+	 * each distinct form and set of stems across all the sentences.
+	 * 
+	 * @see edu.mit.jmwe.detect.IMWEDetector#detectAll(java.util.List)
+	 * @since jMWE 1.0.3
+	 */
+	public <T extends IToken> List<List<IMWE<T>>> detectAll(List<? extends List<T>> sentences) {
+		Map<String, Set<? extends IMWEDesc>> lookups = new HashMap<String, Set<? extends IMWEDesc>>();
+		List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(sentences.size());
+		for(List<T> sent : sentences)
+			results.add(detect(sent, lookups));
+		return results;
+	}
+	
+	/**
+	 * Detects the MWEs in the sentence, using and adding to the specified
+	 * cache of index lookups if it is not <code>null</code>.
+	 * 
+	 * @param <T>
+	 *            the type of the tokens in the sentence
+	 * @param sent
+	 *            the sentence
+	 * @param lookups
+	 *            a cache from lookup keys to MWE descriptions, or
+	 *            <code>null</code> if lookups should not be cached
+	 * @return the MWEs found in the sentence
+	 * @since jMWE 1.0.3
+	 */
+	private <T extends IToken> List<IMWE<T>> detect(List<T> sent, Map<String, Set<? extends IMWEDesc>> lookups) {
 		
 		Set<? extends IMWEDesc> descs;
 		MWEBuilder<T> builder;
@@ -77,10 +115,10 @@ public class Consecutive extends HasMWEIndex implements IMWEDetector {
 			
 			// create a new builder for each mwe desc we have 
 			// whose first slot matches the current token
-			descs = getMWEDescs(t);
+			descs = (lookups == null) ? getMWEDescs(t) : getMWEDescs(t, lookups);
 			if(descs != null)
 				for(IMWEDesc d : descs){
-					builder = new MWEBuilder<T>(d, c);
+					builder = new MWEBuilder<T>(d, c, layouts);
 					if(fillNextSlot(builder, t))
 						inProgress.add(builder);
 				}
@@ -145,5 +183,34 @@ public class Consecutive extends HasMWEIndex implements IMWEDetector {
 		}
 		return results;
 	}
+	
+	/**
+	 * Returns the MWE descriptions for the given token from the specified
+	 * cache, calling {@link #getMWEDescs(IToken)} and caching the result if
+	 * tokens with the same form and stems have not been seen before.
+	 * 
+	 * @param token
+	 *            the token to be looked up
+	 * @param lookups
+	 *            the cache of earlier lookups
+	 * @return a possibly empty set of MWE descriptions in the index that
+	 *         contain the given token or a stem as a part.
+	 * @since jMWE 1.0.3
+	 */
+	private Set<? extends IMWEDesc> getMWEDescs(IToken token, Map<String, Set<? extends IMWEDesc>> lookups){
+		String key = token.getForm().toLowerCase();
+		if(token.getStems() != null && !token.getStems().isEmpty()){
+			StringBuilder sb = new StringBuilder(key);
+			for(String stem : token.getStems())
+				sb.append('\u0000').append(stem);
+			key = sb.toString();
+		}
+		Set<? extends IMWEDesc> descs = lookups.get(key);
+		if(descs == null){
+			descs = getMWEDescs(token);
+			lookups.put(key, descs);
+		}
+		return descs;
+	}
 
 }
@@ -0,0 +1,443 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.detect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc.IPart;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IRootMWEDesc.IRootPart;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWE;
+import edu.mit.jmwe.data.MWEComparator;
+import edu.mit.jmwe.index.HasMWEIndex;
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.IReloadableMWEIndex;
+
+/**
+ * Detector that finds the same MWEs as {@link Consecutive}, but does so in a
+ * single left-to-right pass over the sentence. The parts of every root MWE
+ * description in the index are compiled into a trie when the detector is
+ * constructed. Detection then advances a set of active trie states by the
+ * form and stems of each token in turn, starting a new state at every token,
+ * and reports a match whenever a state reaches the end of a description.
+ * Because a token may match on its form or on any of its stems, the active
+ * states form a set rather than the single state of a classic Aho-Corasick
+ * automaton; the set stays small in practice, and advancing it allocates
+ * nothing until a match is found.
+ * <p>
+ * The trie reflects the contents of the index at the time the detector was
+ * constructed, and so the index must be open at that time. If the index is
+ * an {@link IReloadableMWEIndex}, such as a handle from
+ * {@link edu.mit.jmwe.index.MWEIndexRegistry}, the trie is rebuilt on the
+ * first detection after the contents of the index are replaced. Instances
+ * may be shared between threads.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class ConsecutiveAutomaton extends HasMWEIndex implements IMWEDetector {
+
+	// the root state of the trie
+	private static final int ROOT = 0;
+
+	// dynamic instance fields
+	private volatile Trie trie;
+
+	/**
+	 * Constructs the detector from the given index, compiling the root
+	 * descriptions in the index into a trie.
+	 *
+	 * @param index
+	 *            the index to be used when searching for MWEs. May not be
+	 *            <code>null</code>, and must be open.
+	 * @throws NullPointerException
+	 *             if the specified index is <code>null</code>
+	 * @throws IllegalStateException
+	 *             if the specified index is closed
+	 * @since jMWE 1.0.3
+	 */
+	public ConsecutiveAutomaton(IMWEIndex index) {
+		super(index);
+		this.trie = new Trie(index);
+	}
+
+	/**
+	 * Returns the trie for the current contents of the index, rebuilding it
+	 * first if the contents have been replaced since it was built.
+	 *
+	 * @return the trie for the current contents of the index
+	 * @since jMWE 1.0.3
+	 */
+	private Trie getTrie() {
+		Trie trie = this.trie;
+		IMWEIndex index = getMWEIndex();
+		if(!(index instanceof IReloadableMWEIndex)
+				|| ((IReloadableMWEIndex)index).getGeneration() == trie.generation)
+			return trie;
+		synchronized(this){
+			trie = this.trie;
+			if(((IReloadableMWEIndex)index).getGeneration() != trie.generation)
+				this.trie = trie = new Trie(index);
+			return trie;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 */
+	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
+		return detect(sentence, getTrie(), new Scratch());
+	}
+
+	/**
+	 * Detects the MWEs in each of the sentences, reusing the same working
+	 * buffers for every sentence.
+	 *
+	 * @see edu.mit.jmwe.detect.IMWEDetector#detectAll(java.util.List)
+	 * @since jMWE 1.0.3
+	 */
+	public <T extends IToken> List<List<IMWE<T>>> detectAll(List<? extends List<T>> sentences) {
+		Trie trie = getTrie();
+		Scratch scratch = new Scratch();
+		List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(sentences.size());
+		for(List<T> sentence : sentences)
+			results.add(detect(sentence, trie, scratch));
+		return results;
+	}
+
+	/**
+	 * Detects the MWEs in the sentence using the specified trie and working
+	 * buffers.
+	 *
+	 * @param <T>
+	 *            the type of the tokens in the sentence
+	 * @param sentence
+	 *            the sentence
+	 * @param trie
+	 *            the trie for the contents of the index
+	 * @param scratch
+	 *            the working buffers
+	 * @return the MWEs found in the sentence
+	 * @since jMWE 1.0.3
+	 */
+	private <T extends IToken> List<IMWE<T>> detect(List<T> sentence, Trie trie, Scratch scratch) {
+
+		List<IMWE<T>> results = null;
+
+		// active states, and the token index at which each began
+		int[] states = scratch.states, starts = scratch.starts;
+		int[] nextStates = scratch.nextStates, nextStarts = scratch.nextStarts;
+		int[] syms = scratch.syms;
+		int numActive = 0, numNext, numSyms, state, next, t = 0, tmp[];
+
+		for(Iterator<T> itr = sentence.iterator(); itr.hasNext(); t++){
+			T token = itr.next();
+
+			// the symbols of the token's form and stems
+			numSyms = 0;
+			syms = addSymbol(trie, token.getForm(), syms, numSyms);
+			if(syms[numSyms] >= 0)
+				numSyms++;
+			if(token.getStems() != null)
+				for(String stem : token.getStems()){
+					syms = addSymbol(trie, stem, syms, numSyms);
+					if(syms[numSyms] >= 0 && !contains(syms, numSyms, syms[numSyms]))
+						numSyms++;
+				}
+
+			// advance every active state, plus a new one starting here
+			numNext = 0;
+			for(int a = 0; a <= numActive; a++){
+				state = a < numActive ? states[a] : ROOT;
+				int start = a < numActive ? starts[a] : t;
+				for(int s = 0; s < numSyms; s++){
+					next = trie.transitions.get(state, syms[s]);
+					if(next < 0)
+						continue;
+					if(numNext == nextStates.length){
+						nextStates = Arrays.copyOf(nextStates, numNext*2);
+						nextStarts = Arrays.copyOf(nextStarts, numNext*2);
+					}
+					nextStates[numNext] = next;
+					nextStarts[numNext++] = start;
+					if(trie.outputStarts[next] < trie.outputStarts[next + 1]){
+						if(results == null)
+							results = new ArrayList<IMWE<T>>();
+						for(int o = trie.outputStarts[next]; o < trie.outputStarts[next + 1]; o++)
+							results.add(toMWE(trie.outputs[o], sentence, start));
+					}
+				}
+			}
+
+			// swap the state buffers
+			tmp = states; states = nextStates; nextStates = tmp;
+			tmp = starts; starts = nextStarts; nextStarts = tmp;
+			numActive = numNext;
+		}
+
+		// keep any grown buffers for the next sentence
+		scratch.states = states;
+		scratch.starts = starts;
+		scratch.nextStates = nextStates;
+		scratch.nextStarts = nextStarts;
+		scratch.syms = syms;
+
+		if(results == null)
+			return new ArrayList<IMWE<T>>(0);
+		if(results.size() > 1)
+			Collections.sort(results, new MWEComparator<T>(sentence));
+		return results;
+	}
+
+	/**
+	 * Looks up the symbol for the specified string and stores it at the
+	 * specified position of the symbol buffer, growing the buffer if
+	 * necessary. Stores -1 if the string is not a part of any MWE.
+	 *
+	 * @param trie
+	 *            the trie whose symbols are used
+	 * @param str
+	 *            the form or stem to be looked up
+	 * @param syms
+	 *            the symbol buffer
+	 * @param pos
+	 *            the position at which to store the symbol
+	 * @return the symbol buffer, which may be a new array
+	 * @since jMWE 1.0.3
+	 */
+	private static int[] addSymbol(Trie trie, String str, int[] syms, int pos){
+		if(pos == syms.length)
+			syms = Arrays.copyOf(syms, pos*2);
+		Integer sym = trie.symbols.get(str.toLowerCase());
+		syms[pos] = sym == null ? -1 : sym;
+		return syms;
+	}
+
+	/**
+	 * Returns whether the first <code>len</code> entries of the specified
+	 * array contain the specified value.
+	 *
+	 * @param array
+	 *            the array
+	 * @param len
+	 *            the number of entries to check
+	 * @param value
+	 *            the value to be found
+	 * @return <code>true</code> if the value is found; <code>false</code>
+	 *         otherwise
+	 * @since jMWE 1.0.3
+	 */
+	private static boolean contains(int[] array, int len, int value){
+		for(int i = 0; i < len; i++)
+			if(array[i] == value)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Creates the MWE that assigns the parts of the specified description to
+	 * consecutive tokens of the sentence, beginning at the specified index.
+	 *
+	 * @param <T>
+	 *            the type of token in the sentence
+	 * @param desc
+	 *            the matched description
+	 * @param sentence
+	 *            the sentence
+	 * @param start
+	 *            the index of the token that fills the first part
+	 * @return the MWE
+	 * @since jMWE 1.0.3
+	 */
+	protected <T extends IToken> IMWE<T> toMWE(IRootMWEDesc desc, List<T> sentence, int start){
+		List<? extends IRootPart> parts = desc.getParts();
+		Map<T, IPart> partMap = new LinkedHashMap<T, IPart>(parts.size()*2);
+		for(int i = 0; i < parts.size(); i++)
+			if(partMap.put(sentence.get(start + i), parts.get(i)) != null)
+				throw new IllegalArgumentException("Duplicate token");
+		return new MWE<T>(partMap, false);
+	}
+
+	/**
+	 * The trie compiled from the root descriptions in the index, along with
+	 * the generation of the index it was compiled from.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	private static class Trie {
+
+		// final instance fields
+		final int generation;
+		final Map<String, Integer> symbols;
+		final TransitionTable transitions;
+		final int[] outputStarts;
+		final IRootMWEDesc[] outputs;
+
+		/**
+		 * Compiles the root descriptions in the specified index into a trie.
+		 *
+		 * @param index
+		 *            the index; must be open
+		 * @since jMWE 1.0.3
+		 */
+		Trie(IMWEIndex index){
+			// read the generation first, so a concurrent reload is not missed
+			this.generation = (index instanceof IReloadableMWEIndex)
+					? ((IReloadableMWEIndex)index).getGeneration() : 0;
+
+			Map<String, Integer> symbols = new HashMap<String, Integer>();
+			TransitionTable transitions = new TransitionTable();
+			List<List<IRootMWEDesc>> nodeOutputs = new ArrayList<List<IRootMWEDesc>>();
+			nodeOutputs.add(null);
+
+			// build the trie over the lower-case part forms
+			IRootMWEDesc desc;
+			Integer sym;
+			int state, next;
+			for(Iterator<IRootMWEDesc> i = index.getRootIterator(); i.hasNext(); ){
+				desc = i.next();
+				state = ROOT;
+				for(IRootPart part : desc.getParts()){
+					String form = part.getForm().toLowerCase();
+					sym = symbols.get(form);
+					if(sym == null){
+						sym = symbols.size();
+						symbols.put(form, sym);
+					}
+					next = transitions.get(state, sym);
+					if(next < 0){
+						next = nodeOutputs.size();
+						nodeOutputs.add(null);
+						transitions.put(state, sym, next);
+					}
+					state = next;
+				}
+				if(nodeOutputs.get(state) == null)
+					nodeOutputs.set(state, new ArrayList<IRootMWEDesc>(1));
+				nodeOutputs.get(state).add(desc);
+			}
+
+			// flatten the outputs
+			int[] outputStarts = new int[nodeOutputs.size() + 1];
+			List<IRootMWEDesc> outputs = new ArrayList<IRootMWEDesc>();
+			for(int s = 0; s < nodeOutputs.size(); s++){
+				outputStarts[s] = outputs.size();
+				if(nodeOutputs.get(s) != null)
+					outputs.addAll(nodeOutputs.get(s));
+			}
+			outputStarts[nodeOutputs.size()] = outputs.size();
+
+			this.symbols = symbols;
+			this.transitions = transitions;
+			this.outputStarts = outputStarts;
+			this.outputs = outputs.toArray(new IRootMWEDesc[outputs.size()]);
+		}
+
+	}
+
+	/**
+	 * The working buffers used while scanning a sentence.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	private static class Scratch {
+		int[] states = new int[8], starts = new int[8];
+		int[] nextStates = new int[8], nextStarts = new int[8];
+		int[] syms = new int[4];
+	}
+
+	/**
+	 * An open-addressing hash table from (state, symbol) pairs to states.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	private static class TransitionTable {
+
+		// dynamic instance fields
+		private long[] keys = new long[1 << 16];
+		private int[] values = new int[1 << 16];
+		private int size = 0;
+
+		{
+			Arrays.fill(keys, -1L);
+		}
+
+		/**
+		 * Returns the state reached from the specified state on the specified
+		 * symbol, or -1 if there is no such transition.
+		 */
+		public int get(int state, int sym){
+			long key = key(state, sym);
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			long k;
+			while((k = keys[slot]) != -1L){
+				if(k == key)
+					return values[slot];
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		/**
+		 * Adds a transition; the transition must not already exist.
+		 */
+		public void put(int state, int sym, int next){
+			if(2*(size + 1) > keys.length)
+				grow();
+			insert(key(state, sym), next);
+			size++;
+		}
+
+		private void insert(long key, int value){
+			int mask = keys.length - 1;
+			int slot = hash(key) & mask;
+			while(keys[slot] != -1L)
+				slot = (slot + 1) & mask;
+			keys[slot] = key;
+			values[slot] = value;
+		}
+
+		private void grow(){
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new long[oldKeys.length*2];
+			values = new int[oldValues.length*2];
+			Arrays.fill(keys, -1L);
+			for(int i = 0; i < oldKeys.length; i++)
+				if(oldKeys[i] != -1L)
+					insert(oldKeys[i], oldValues[i]);
+		}
+
+		private static long key(int state, int sym){
+			return ((long)state << 32) | (sym & 0xffffffffL);
+		}
+
+		private static int hash(long key){
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int)(h ^ (h >>> 32));
+		}
+	}
+
+}
@@ -46,12 +46,10 @@ public class Continuous extends HasMWEDetector implements IMWEDetectorFilter {
 	/* 
 	 * (non-Javadoc)
 	 *
-	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#filter(java.util.List, java.util.List)
 	 */
-	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
-		
-		// get raw results from simple lookup detector
-		List<IMWE<T>> results = super.detect(sentence);
+	@Override
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> sentence, List<IMWE<T>> results) {
 		
 		// filter out non-continuous MWEs
 		if(!results.isEmpty()){
@@ -0,0 +1,387 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.detect;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.mit.jmwe.index.IMWEIndex;
+
+/**
+ * Builds a detector from a textual specification, such as
+ * <code>Longest(InflectionPattern(Consecutive))</code>. A specification is
+ * the simple name of a detector class in this package, optionally followed by
+ * a parenthesized, comma-separated list of arguments. An argument is either
+ * another specification, an integer, or <code>true</code> or
+ * <code>false</code>. Whitespace between elements is ignored. The detectors
+ * that may be named, and their arguments, are:
+ * <ul>
+ * <li><code>Consecutive</code>, <code>ConsecutiveAutomaton</code>,
+ * <code>Exhaustive</code>, <code>TrulyExhaustive</code>
+ * and <code>Baseline</code>, which take no arguments and use the index passed
+ * to {@link #parse(String, IMWEIndex)};</li>
+ * <li><code>ProperNouns</code> and <code>StopWords</code>, which take no
+ * arguments;</li>
+ * <li><code>Continuous</code>, <code>InOrder</code>,
+ * <code>InflectionLookup</code>, <code>InflectionPattern</code>,
+ * <code>NoInflection</code>, <code>NoProperNouns</code>, <code>LMLR</code>,
+ * <code>Leftmost</code>, <code>Longest</code>, <code>SmallestVariance</code>
+ * and <code>MoreFrequentAsMWE</code>, which take one detector;</li>
+ * <li><code>ConstrainLength</code>, which takes a detector, a length and
+ * whether the length is a maximum;</li>
+ * <li><code>CompositeDetector</code> (or <code>Composite</code>), which takes
+ * one or more detectors in descending order of preference.</li>
+ * </ul>
+ * The detectors built from a specification hold no per-sentence state, and so
+ * a detector built once may be shared by any number of threads for as long as
+ * its index remains open.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public final class DetectorSpec {
+
+	// final instance fields
+	private final String spec;
+	private final IMWEIndex index;
+
+	// dynamic instance field
+	private int pos = 0;
+
+	/**
+	 * Builds the detector described by the specified specification.
+	 *
+	 * @param spec
+	 *            the specification; may not be <code>null</code>
+	 * @param index
+	 *            the index used by detectors that look up MWEs; may not be
+	 *            <code>null</code>
+	 * @return the detector
+	 * @throws NullPointerException
+	 *             if either argument is <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             if the specification is malformed, names an unknown
+	 *             detector, or gives a detector the wrong arguments
+	 * @since jMWE 1.0.3
+	 */
+	public static IMWEDetector parse(String spec, IMWEIndex index) {
+		if(spec == null || index == null)
+			throw new NullPointerException();
+		DetectorSpec parser = new DetectorSpec(spec, index);
+		IMWEDetector result = parser.parseDetector();
+		parser.skipWhitespace();
+		if(parser.pos < spec.length())
+			throw parser.error("unexpected '" + spec.charAt(parser.pos) + "'");
+		return result;
+	}
+
+	/**
+	 * Constructs a parser over the specified specification.
+	 *
+	 * @param spec
+	 *            the specification
+	 * @param index
+	 *            the index used by detectors that look up MWEs
+	 * @since jMWE 1.0.3
+	 */
+	private DetectorSpec(String spec, IMWEIndex index) {
+		this.spec = spec;
+		this.index = index;
+	}
+
+	/**
+	 * Parses a detector name and its arguments, beginning at the current
+	 * position, and builds the detector.
+	 *
+	 * @return the detector
+	 * @since jMWE 1.0.3
+	 */
+	private IMWEDetector parseDetector() {
+		skipWhitespace();
+		int start = pos;
+		String name = parseName();
+		if(name.isEmpty())
+			throw error("expected a detector name");
+		List<Object> args = new ArrayList<Object>();
+		skipWhitespace();
+		if(pos < spec.length() && spec.charAt(pos) == '('){
+			pos++;
+			skipWhitespace();
+			if(pos < spec.length() && spec.charAt(pos) == ')'){
+				pos++;
+			} else {
+				while(true){
+					args.add(parseArgument());
+					skipWhitespace();
+					if(pos == spec.length())
+						throw error("expected ')'");
+					char c = spec.charAt(pos++);
+					if(c == ')')
+						break;
+					if(c != ',')
+						throw error("expected ',' or ')'");
+				}
+			}
+		}
+		return build(name, args, start);
+	}
+
+	/**
+	 * Parses a single argument, which is an integer, a boolean, or a detector.
+	 *
+	 * @return the argument, an {@link Integer}, {@link Boolean} or
+	 *         {@link IMWEDetector}
+	 * @since jMWE 1.0.3
+	 */
+	private Object parseArgument() {
+		skipWhitespace();
+		int start = pos;
+		if(pos < spec.length() && (spec.charAt(pos) == '-' || Character.isDigit(spec.charAt(pos)))){
+			pos++;
+			while(pos < spec.length() && Character.isDigit(spec.charAt(pos)))
+				pos++;
+			try {
+				return Integer.valueOf(spec.substring(start, pos));
+			} catch(NumberFormatException e) {
+				pos = start;
+				throw error("malformed integer");
+			}
+		}
+		String name = parseName();
+		if(name.equals("true"))
+			return Boolean.TRUE;
+		if(name.equals("false"))
+			return Boolean.FALSE;
+		pos = start;
+		return parseDetector();
+	}
+
+	/**
+	 * Parses a possibly empty Java identifier beginning at the current
+	 * position.
+	 *
+	 * @return the identifier
+	 * @since jMWE 1.0.3
+	 */
+	private String parseName() {
+		int start = pos;
+		if(pos < spec.length() && Character.isJavaIdentifierStart(spec.charAt(pos))){
+			pos++;
+			while(pos < spec.length() && Character.isJavaIdentifierPart(spec.charAt(pos)))
+				pos++;
+		}
+		return spec.substring(start, pos);
+	}
+
+	/**
+	 * Advances the current position past any whitespace.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	private void skipWhitespace() {
+		while(pos < spec.length() && Character.isWhitespace(spec.charAt(pos)))
+			pos++;
+	}
+
+	/**
+	 * Builds the named detector from the specified arguments.
+	 *
+	 * @param name
+	 *            the simple name of the detector
+	 * @param args
+	 *            the arguments
+	 * @param at
+	 *            the position of the name in the specification, for error
+	 *            messages
+	 * @return the detector
+	 * @since jMWE 1.0.3
+	 */
+	private IMWEDetector build(String name, List<Object> args, int at) {
+		switch(name){
+
+		// detectors that use the index
+		case "Consecutive":
+			checkArity(name, args, 0, at);
+			return new Consecutive(index);
+		case "ConsecutiveAutomaton":
+			checkArity(name, args, 0, at);
+			return new ConsecutiveAutomaton(index);
+		case "Exhaustive":
+			checkArity(name, args, 0, at);
+			return new Exhaustive(index);
+		case "TrulyExhaustive":
+			checkArity(name, args, 0, at);
+			return new TrulyExhaustive(index);
+		case "Baseline":
+			checkArity(name, args, 0, at);
+			try {
+				return new Baseline(index);
+			} catch(IOException e) {
+				throw new IllegalArgumentException("unable to build Baseline detector", e);
+			}
+
+		// detectors that need nothing
+		case "ProperNouns":
+			checkArity(name, args, 0, at);
+			return ProperNouns.getInstance();
+		case "StopWords":
+			checkArity(name, args, 0, at);
+			return new StopWords();
+
+		// detectors that wrap a single detector
+		case "Continuous":
+			return new Continuous(detectorArg(name, args, at));
+		case "InOrder":
+			return new InOrder(detectorArg(name, args, at));
+		case "InflectionLookup":
+			return new InflectionLookup(detectorArg(name, args, at));
+		case "InflectionPattern":
+			return new InflectionPattern(detectorArg(name, args, at));
+		case "NoInflection":
+			return new NoInflection(detectorArg(name, args, at));
+		case "NoProperNouns":
+			return new NoProperNouns(detectorArg(name, args, at));
+		case "LMLR":
+			return new LMLR(detectorArg(name, args, at));
+		case "Leftmost":
+			return new Leftmost(detectorArg(name, args, at));
+		case "Longest":
+			return new Longest(detectorArg(name, args, at));
+		case "SmallestVariance":
+			return new SmallestVariance(detectorArg(name, args, at));
+		case "MoreFrequentAsMWE":
+			return new MoreFrequentAsMWE(detectorArg(name, args, at));
+
+		// detectors with other arguments
+		case "ConstrainLength":
+			checkArity(name, args, 3, at);
+			return new ConstrainLength(
+					arg(name, args, 0, IMWEDetector.class, at),
+					arg(name, args, 1, Integer.class, at),
+					arg(name, args, 2, Boolean.class, at));
+		case "Composite":
+		case "CompositeDetector":
+			if(args.isEmpty())
+				throw error(name + " takes at least one detector", at);
+			List<IMWEDetector> ds = new ArrayList<IMWEDetector>(args.size());
+			for(int i = 0; i < args.size(); i++)
+				ds.add(arg(name, args, i, IMWEDetector.class, at));
+			return new CompositeDetector(ds);
+
+		default:
+			throw error("unknown detector " + name, at);
+		}
+	}
+
+	/**
+	 * Returns the single detector argument of the named detector.
+	 *
+	 * @param name
+	 *            the name of the detector being built
+	 * @param args
+	 *            the arguments
+	 * @param at
+	 *            the position of the name, for error messages
+	 * @return the detector argument
+	 * @since jMWE 1.0.3
+	 */
+	private IMWEDetector detectorArg(String name, List<Object> args, int at) {
+		checkArity(name, args, 1, at);
+		return arg(name, args, 0, IMWEDetector.class, at);
+	}
+
+	/**
+	 * Returns the argument at the specified position, checking its type.
+	 *
+	 * @param <A>
+	 *            the expected type of the argument
+	 * @param name
+	 *            the name of the detector being built
+	 * @param args
+	 *            the arguments
+	 * @param i
+	 *            the position of the argument
+	 * @param type
+	 *            the expected type of the argument
+	 * @param at
+	 *            the position of the name, for error messages
+	 * @return the argument
+	 * @since jMWE 1.0.3
+	 */
+	private <A> A arg(String name, List<Object> args, int i, Class<A> type, int at) {
+		Object arg = args.get(i);
+		if(!type.isInstance(arg))
+			throw error("argument " + (i + 1) + " of " + name + " must be " + describe(type), at);
+		return type.cast(arg);
+	}
+
+	/**
+	 * Checks that the named detector was given the specified number of
+	 * arguments.
+	 *
+	 * @param name
+	 *            the name of the detector being built
+	 * @param args
+	 *            the arguments
+	 * @param arity
+	 *            the expected number of arguments
+	 * @param at
+	 *            the position of the name, for error messages
+	 * @since jMWE 1.0.3
+	 */
+	private void checkArity(String name, List<Object> args, int arity, int at) {
+		if(args.size() != arity)
+			throw error(name + " takes " + arity + " argument" + (arity == 1 ? "" : "s") + ", found " + args.size(), at);
+	}
+
+	/**
+	 * Returns a description of an argument type for error messages.
+	 *
+	 * @param type
+	 *            the argument type
+	 * @return a description of the type
+	 * @since jMWE 1.0.3
+	 */
+	private static String describe(Class<?> type) {
+		if(type == Integer.class)
+			return "an integer";
+		if(type == Boolean.class)
+			return "true or false";
+		return "a detector";
+	}
+
+	/**
+	 * Creates an exception describing an error at the current position.
+	 *
+	 * @param msg
+	 *            the error message
+	 * @return the exception
+	 * @since jMWE 1.0.3
+	 */
+	private IllegalArgumentException error(String msg) {
+		return error(msg, pos);
+	}
+
+	/**
+	 * Creates an exception describing an error at the specified position.
+	 *
+	 * @param msg
+	 *            the error message
+	 * @param at
+	 *            the position of the error in the specification
+	 * @return the exception
+	 * @since jMWE 1.0.3
+	 */
+	private IllegalArgumentException error(String msg, int at) {
+		return new IllegalArgumentException(msg + " at position " + at + " of detector specification \"" + spec + "\"");
+	}
+
+}
@@ -9,13 +9,13 @@
 
 package edu.mit.jmwe.detect;
 
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -44,6 +44,9 @@ import edu.mit.jmwe.util.ListComparator;
  */
 public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 	
+	// the layouts of the records built for each description
+	private final MWEBuilder.LayoutCache layouts = new MWEBuilder.LayoutCache();
+	
 	/**
 	 * Constructs the simple lookup detector from the given index of multi-word
 	 * expressions.
@@ -65,11 +68,44 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
 	 */
 	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
+		return detect(sentence, null);
+	}
+	
+	/**
+	 * Detects the MWEs in each of the sentences, sharing the index lookups for
+	 * each distinct form and stem across all the sentences.
+	 * 
+	 * @see edu.mit.jmwe.detect.IMWEDetector#detectAll(java.util.List)
+	 * @since jMWE 1.0.3
+	 */
+	public <T extends IToken> List<List<IMWE<T>>> detectAll(List<? extends List<T>> sentences) {
+		Map<String, Set<? extends IRootMWEDesc>> lookups = new HashMap<String, Set<? extends IRootMWEDesc>>();
+		List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(sentences.size());
+		for(List<T> sentence : sentences)
+			results.add(detect(sentence, lookups));
+		return results;
+	}
+	
+	/**
+	 * Detects the MWEs in the sentence, using and adding to the specified
+	 * cache of index lookups if it is not <code>null</code>.
+	 * 
+	 * @param <T>
+	 *            the type of the tokens in the sentence
+	 * @param sentence
+	 *            the sentence
+	 * @param lookups
+	 *            a cache from forms and stems to the MWE descriptions indexed
+	 *            under them, or <code>null</code> if lookups should not be
+	 *            cached
+	 * @return the MWEs found in the sentence
+	 * @since jMWE 1.0.3
+	 */
+	private <T extends IToken> List<IMWE<T>> detect(List<T> sentence, Map<String, Set<? extends IRootMWEDesc>> lookups) {
 		
-		IMWEIndex index = getMWEIndex();
 		
 		Map<IRootMWEDesc, Set<MWEBuilder<T>>> recordMap = new HashMap<IRootMWEDesc, Set<MWEBuilder<T>>>();
-		Comparator<T> comparator = new ListComparator<T>(sentence);
+		ListComparator<T> comparator = new ListComparator<T>(sentence);
 		
 		// loop variables
 		Set<IRootMWEDesc> entries = new HashSet<IRootMWEDesc>();
@@ -90,13 +126,13 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 			}
 			
 			// retrieve relevant entries
-			entries.addAll(index.get(token.getForm().toLowerCase()));
+			entries.addAll(lookup(token.getForm().toLowerCase(), lookups));
 			// MWEs should be indexed under the stem of the content word
 			// sometimes MWEs are erroneously indexed under the surface form
 			if(token.getStems() != null)
 				for(String stem : token.getStems())
 					if(!stem.equals(token.getForm().toLowerCase()))
-						entries.addAll(index.get(stem)); 
+						entries.addAll(lookup(stem, lookups)); 
 			
 			// for each token, find all possible MWEs of which it could be a part
 			for(IRootMWEDesc entry : entries){
@@ -109,13 +145,13 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 				 }
 				 
 				 // add the new record
-				 records.add(new MWEBuilder<T>(entry, comparator));
+				 records.add(new MWEBuilder<T>(entry, comparator, layouts));
 				 MWEBuilder.fillSlots(records, token);
 			}
 		}
 		
 		// we will return this to the caller
-		List<IMWE<T>> results = new LinkedList<IMWE<T>>();
+		KeyedResults<T> results = new KeyedResults<T>(comparator.getIndexMap());
 		
 		// prune incomplete records
 		// add records with stop words to stop list
@@ -129,7 +165,7 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 				if(rec.isFull() && !containsDuplicate(results, mwe = rec.toMWE())){
 						results.add(mwe);
 				} else if(rec.isContentFull()){
-					for(IPart part : rec.getSlots().keySet()){
+					for(IPart part : rec.getEntry().getParts()){
 						if(foundStopWords.contains(part.getForm())){
 							stopRecords.add(rec);
 							break;
@@ -148,8 +184,33 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 			if (r.isFull() && !containsDuplicate(results, mwe = r.toMWE()))
 				results.add(mwe);
 		
-		Collections.sort(results, new MWEComparator<T>(sentence));
-		return results;
+		List<IMWE<T>> list = results.toList();
+		Collections.sort(list, new MWEComparator<T>(sentence));
+		return list;
+	}
+
+	/**
+	 * Returns the MWE descriptions indexed under the specified form or stem,
+	 * consulting and adding to the specified cache if it is not
+	 * <code>null</code>.
+	 * 
+	 * @param key
+	 *            the form or stem to be looked up
+	 * @param lookups
+	 *            the cache of earlier lookups, or <code>null</code>
+	 * @return the possibly empty set of MWE descriptions indexed under the
+	 *         key
+	 * @since jMWE 1.0.3
+	 */
+	private Set<? extends IRootMWEDesc> lookup(String key, Map<String, Set<? extends IRootMWEDesc>> lookups){
+		if(lookups == null)
+			return getMWEIndex().get(key);
+		Set<? extends IRootMWEDesc> descs = lookups.get(key);
+		if(descs == null){
+			descs = getMWEIndex().get(key);
+			lookups.put(key, descs);
+		}
+		return descs;
 	}
 
 	/**
@@ -165,7 +226,10 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 
 	/**
 	 * Returns true if the given collection of MWEs already contains a
-	 * particular MWE.
+	 * particular MWE, that is, an MWE with the same part of speech made of the
+	 * same tokens. The collections passed by {@link #detect(List)} index their
+	 * MWEs by {@link MWEKey}, and are checked with a single hash lookup; other
+	 * collections are scanned.
 	 * 
 	 * @param <T>
 	 *            the type of tokens in the MWEs
@@ -177,7 +241,10 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 	 *         particular MWE, false otherwise.
 	 * @since jMWE 1.0.0
 	 */
+	@SuppressWarnings("unchecked")
 	protected <T extends IToken> boolean containsDuplicate(Collection<? extends IMWE<T>> results, IMWE<T> mwe){
+		if(results instanceof KeyedResults)
+			return ((KeyedResults<T>)results).containsKeyOf(mwe);
 		for(IMWE<T> result : results)
 			if(result.getEntry().getPOS() == mwe.getEntry().getPOS())
 				if(new HashSet<T>(result.getTokens()).equals(new HashSet<T>(mwe.getTokens())))
@@ -185,6 +252,101 @@ public class Exhaustive extends HasMWEIndex implements IMWEDetector {
 		return false;
 	}
 	
-	
+	/**
+	 * The MWEs found in a sentence, in the order they were found, indexed by
+	 * their {@link MWEKey}s so that duplicates are found in constant time.
+	 * 
+	 * @param <T>
+	 *            the type of tokens in the MWEs
+	 * @since jMWE 1.0.3
+	 */
+	private static class KeyedResults<T extends IToken> extends AbstractCollection<IMWE<T>> {
+		
+		// final instance fields
+		private final Map<T, Integer> indexMap;
+		private final List<IMWE<T>> mwes = new ArrayList<IMWE<T>>();
+		private final Set<Object> keys = new HashSet<Object>();
+		
+		/**
+		 * Constructs an empty collection for the sentence with the specified
+		 * token positions.
+		 * 
+		 * @param indexMap
+		 *            the position of each token in the sentence
+		 * @since jMWE 1.0.3
+		 */
+		public KeyedResults(Map<T, Integer> indexMap){
+			this.indexMap = indexMap;
+		}
+		
+		/**
+		 * Returns the key for the specified MWE. An MWE with a token that is
+		 * not in the sentence is its own key.
+		 * 
+		 * @param mwe
+		 *            the MWE
+		 * @return the key for the MWE
+		 * @since jMWE 1.0.3
+		 */
+		private Object keyOf(IMWE<T> mwe){
+			MWEKey key = MWEKey.of(mwe, indexMap);
+			return key == null ? mwe : key;
+		}
+		
+		/**
+		 * Returns true if this collection contains an MWE with the same key as
+		 * the specified MWE.
+		 * 
+		 * @param mwe
+		 *            the MWE
+		 * @return true if an MWE with the same key has been added
+		 * @since jMWE 1.0.3
+		 */
+		public boolean containsKeyOf(IMWE<T> mwe){
+			return keys.contains(keyOf(mwe));
+		}
+		
+		/* 
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.AbstractCollection#add(java.lang.Object)
+		 */
+		@Override
+		public boolean add(IMWE<T> mwe){
+			keys.add(keyOf(mwe));
+			return mwes.add(mwe);
+		}
+		
+		/* 
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.AbstractCollection#iterator()
+		 */
+		@Override
+		public Iterator<IMWE<T>> iterator(){
+			return Collections.unmodifiableList(mwes).iterator();
+		}
+		
+		/* 
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size(){
+			return mwes.size();
+		}
+		
+		/**
+		 * Returns the MWEs in this collection as a new list.
+		 * 
+		 * @return a new list of the MWEs in this collection
+		 * @since jMWE 1.0.3
+		 */
+		public List<IMWE<T>> toList(){
+			return new ArrayList<IMWE<T>>(mwes);
+		}
+		
+	}
 		
 }
\ No newline at end of file
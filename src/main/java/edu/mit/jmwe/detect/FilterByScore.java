@@ -43,12 +43,10 @@ public abstract class FilterByScore extends HasMWEDetector implements IMWEDetect
 	/* 
 	 * (non-Javadoc)
 	 *
-	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#filter(java.util.List, java.util.List)
 	 */
-	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
-		
-		// raw results
-		List<IMWE<T>> results = super.detect(sentence);
+	@Override
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> sentence, List<IMWE<T>> results) {
 		
 		// filter
 		IScorer<IMWE<T>> scorer = getScorer(sentence);
@@ -9,6 +9,7 @@
 
 package edu.mit.jmwe.detect;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -25,8 +26,9 @@ import edu.mit.jmwe.data.IToken;
  */
 public abstract class HasMWEDetector implements IHasMWEDetector {
 
-	// final instance field
+	// final instance fields
 	private final IMWEDetector detector;
+	private final boolean overridesDetect;
 
 	/**
 	 * Constructs a new MWE detector constraint that wraps the specified MWE Detector.
@@ -41,6 +43,25 @@ public abstract class HasMWEDetector implements IHasMWEDetector {
 		if(detector == null)
 			throw new NullPointerException();
 		this.detector = detector;
+		this.overridesDetect = overridesDetect(getClass());
+	}
+	
+	/**
+	 * Returns <code>true</code> if the specified class, or one of its
+	 * superclasses below this class, overrides {@link #detect(List)}.
+	 * 
+	 * @param cls
+	 *            the class to be checked
+	 * @return <code>true</code> if the class overrides
+	 *         {@link #detect(List)}; <code>false</code> otherwise
+	 * @since jMWE 1.0.3
+	 */
+	private static boolean overridesDetect(Class<?> cls) {
+		try {
+			return cls.getMethod("detect", List.class).getDeclaringClass() != HasMWEDetector.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
 	}
 
 	/* 
@@ -59,7 +80,55 @@ public abstract class HasMWEDetector implements IHasMWEDetector {
 	 */
 	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
 		List<IMWE<T>> results = getWrappedDetector().detect(sentence);
-		return new LinkedList<IMWE<T>>(results);
+		return filter(sentence, new LinkedList<IMWE<T>>(results));
+	}
+
+	/**
+	 * Runs the wrapped detector over all the sentences at once, so that it may
+	 * amortize its work across them, and then passes the results for each
+	 * sentence through {@link #filter(List, List)}. If a subclass overrides
+	 * {@link #detect(List)}, as subclasses written before
+	 * {@link #filter(List, List)} was introduced do, this method instead calls
+	 * {@link #detect(List)} on each sentence in turn, so that the subclass's
+	 * constraint is still applied.
+	 * 
+	 * @see edu.mit.jmwe.detect.IMWEDetector#detectAll(java.util.List)
+	 * @since jMWE 1.0.3
+	 */
+	public <T extends IToken> List<List<IMWE<T>>> detectAll(List<? extends List<T>> sentences) {
+		if(overridesDetect){
+			List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(sentences.size());
+			for(List<T> sentence : sentences)
+				results.add(detect(sentence));
+			return results;
+		}
+		List<List<IMWE<T>>> found = getWrappedDetector().detectAll(sentences);
+		List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(found.size());
+		for(int i = 0; i < found.size(); i++)
+			results.add(filter(sentences.get(i), new LinkedList<IMWE<T>>(found.get(i))));
+		return results;
+	}
+
+	/**
+	 * Constrains the results of the wrapped detector for a single sentence.
+	 * Subclasses override this method, rather than {@link #detect(List)}, so
+	 * that the same constraint is applied whether sentences are processed
+	 * singly or in a batch. The specified list is a modifiable copy, which
+	 * implementations may alter and return. This implementation returns the
+	 * list unchanged.
+	 * 
+	 * @param <T>
+	 *            the type of the tokens in the sentence
+	 * @param sentence
+	 *            the sentence in which the MWEs were found
+	 * @param results
+	 *            a modifiable list of the MWEs found in the sentence by the
+	 *            wrapped detector
+	 * @return the constrained list of MWEs
+	 * @since jMWE 1.0.3
+	 */
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> sentence, List<IMWE<T>> results) {
+		return results;
 	}
 
 }
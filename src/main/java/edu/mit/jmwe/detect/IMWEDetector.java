@@ -9,6 +9,7 @@
 
 package edu.mit.jmwe.detect;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import edu.mit.jmwe.data.IMWE;
@@ -48,4 +49,36 @@ public interface IMWEDetector {
 	 */
 	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence);
 
+	/**
+	 * Searches each sentence in the given list for MWEs, returning one result
+	 * list per sentence, in the same order as the sentences. The result for
+	 * each sentence is the same as that which would be returned by
+	 * {@link #detect(List)}. The default implementation simply calls
+	 * {@link #detect(List)} on each sentence in turn; detectors that can
+	 * amortize work across the sentences of a document, such as by sharing
+	 * index lookups for words that recur, override this method to do so.
+	 * 
+	 * @param <T>
+	 *            the type of the tokens in the sentences
+	 * @param sentences
+	 *            the sentences which the detector should search for
+	 *            multi-word expressions
+	 * @return a list with one entry per sentence, each entry being the
+	 *         possibly empty list of multi-word expressions found in the
+	 *         corresponding sentence; never <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified list is <code>null</code>, or contains a
+	 *             sentence that is <code>null</code> or contains
+	 *             <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             if any of the sentences is empty
+	 * @since jMWE 1.0.3
+	 */
+	public default <T extends IToken> List<List<IMWE<T>>> detectAll(List<? extends List<T>> sentences) {
+		List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(sentences.size());
+		for(List<T> sentence : sentences)
+			results.add(detect(sentence));
+		return results;
+	}
+
 }
@@ -42,12 +42,10 @@ public class InOrder extends HasMWEDetector implements IMWEDetectorFilter {
 	/* 
 	 * (non-Javadoc)
 	 *
-	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#filter(java.util.List, java.util.List)
 	 */
-	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
-		
-		// get raw results
-		List<IMWE<T>> results = super.detect(sentence);
+	@Override
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> sentence, List<IMWE<T>> results) {
 		
 		// filter
 		for(Iterator<IMWE<T>> i = results.iterator(); i.hasNext();)
@@ -0,0 +1,469 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.detect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc.IPart;
+import edu.mit.jmwe.data.IToken;
+
+/**
+ * A deterministic automaton over the part of speech tags of the tokens of an
+ * MWE that decides, in one pass over the tags, which of a set of
+ * {@link InflectionRule}s match the MWE and which of its tokens each matching
+ * rule allows to inflect.
+ * <p>
+ * Each rule is a sequence of elements, one per token, some of them optional,
+ * and each element matches a finite set of tags. The tags that any element
+ * matches are interned into classes of tags that are matched by the same
+ * elements; every other tag falls in a class that matches nothing. The
+ * automaton is built over these classes by subset construction when it is
+ * created. Where an MWE can match a rule in more than one way, the automaton
+ * picks the same way the rule's regular expression does, by preferring to use
+ * each optional element, from left to right.
+ * <p>
+ * Instances are immutable and may be shared between threads.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+final class InflectionAutomaton {
+
+	// the dead state, which has no transitions and accepts nothing
+	private static final int DEAD = 0;
+
+	// the start state
+	private static final int START = 1;
+
+	// final instance fields
+	private final InflectionRule[] rules;
+	private final Map<String, Integer> classes;
+	private final int[][] transitions;
+	private final long[] accepting;
+	private final long[][] allowed;
+
+	/**
+	 * Compiles the specified rules into an automaton.
+	 *
+	 * @param rules
+	 *            the rules; at most 64
+	 * @throws IllegalArgumentException
+	 *             if there are more than 64 rules, a rule has more than 62
+	 *             elements, or an element is not a simple regular expression
+	 *             that matches a finite set of tags
+	 * @since jMWE 1.0.3
+	 */
+	InflectionAutomaton(InflectionRule... rules) {
+		if(rules.length > 64)
+			throw new IllegalArgumentException("too many rules: " + rules.length);
+		this.rules = rules.clone();
+
+		// find the distinct element expressions
+		Map<String, Integer> exprIds = new HashMap<String, Integer>();
+		List<String> exprs = new ArrayList<String>();
+		int[][] elemExprs = new int[rules.length][];
+		for(int r = 0; r < rules.length; r++){
+			String[] elems = rules[r].getElements();
+			if(elems.length > 62)
+				throw new IllegalArgumentException("too many elements in " + rules[r].name());
+			elemExprs[r] = new int[elems.length];
+			for(int e = 0; e < elems.length; e++){
+				Integer id = exprIds.get(elems[e]);
+				if(id == null){
+					id = exprs.size();
+					exprIds.put(elems[e], id);
+					exprs.add(elems[e]);
+				}
+				elemExprs[r][e] = id;
+			}
+		}
+		if(exprs.size() > 64)
+			throw new IllegalArgumentException("too many distinct elements: " + exprs.size());
+
+		// intern the tags matched by any element into classes of tags
+		// matched by the same expressions; class 0 matches nothing
+		Set<String> tags = new LinkedHashSet<String>();
+		for(String expr : exprs)
+			tags.addAll(expand(expr));
+		Map<Long, Integer> classIds = new HashMap<Long, Integer>();
+		List<Long> classExprs = new ArrayList<Long>();
+		classIds.put(0L, 0);
+		classExprs.add(0L);
+		Map<String, Integer> classes = new HashMap<String, Integer>();
+		for(String tag : tags){
+			long mask = 0;
+			for(int x = 0; x < exprs.size(); x++)
+				if(Pattern.matches(exprs.get(x), tag))
+					mask |= 1L << x;
+			Integer id = classIds.get(mask);
+			if(id == null){
+				id = classExprs.size();
+				classIds.put(mask, id);
+				classExprs.add(mask);
+			}
+			classes.put(tag, id);
+		}
+		this.classes = Collections.unmodifiableMap(classes);
+
+		// subset construction, breadth first from the start state
+		List<State> states = new ArrayList<State>();
+		Map<State, Integer> ids = new HashMap<State, Integer>();
+		State dead = new State(-1, Collections.<Config>emptyList());
+		states.add(dead);
+		ids.put(dead, DEAD);
+		List<Config> initial = new ArrayList<Config>();
+		for(int r = 0; r < rules.length; r++)
+			initial.add(new Config(r, 0, 0, 0));
+		State start = new State(0, initial);
+		states.add(start);
+		ids.put(start, START);
+
+		List<int[]> transitions = new ArrayList<int[]>();
+		transitions.add(new int[classExprs.size()]);
+		for(int s = START; s < states.size(); s++){
+			State state = states.get(s);
+			int[] row = new int[classExprs.size()];
+			for(int c = 1; c < classExprs.size(); c++){
+				State next = state.step(classExprs.get(c), elemExprs, rules);
+				if(next.configs.isEmpty())
+					continue;
+				Integer id = ids.get(next);
+				if(id == null){
+					id = states.size();
+					states.add(next);
+					ids.put(next, id);
+				}
+				row[c] = id;
+			}
+			transitions.add(row);
+		}
+		this.transitions = transitions.toArray(new int[transitions.size()][]);
+
+		// record, for each state, the rules it accepts and the tokens each
+		// rule allows to inflect
+		this.accepting = new long[states.size()];
+		this.allowed = new long[states.size()][rules.length];
+		for(int s = START; s < states.size(); s++){
+			long[] best = new long[rules.length];
+			Arrays.fill(best, Long.MAX_VALUE);
+			for(Config c : states.get(s).configs){
+				long choices = c.choices;
+				boolean accepts = true;
+				for(int e = c.next; e < elemExprs[c.rule].length && accepts; e++){
+					accepts = rules[c.rule].isOptional(e);
+					choices |= skip(e);
+				}
+				if(accepts && choices < best[c.rule]){
+					best[c.rule] = choices;
+					accepting[s] |= 1L << c.rule;
+					allowed[s][c.rule] = c.allowed;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the rules, among those of this automaton, that match the
+	 * specified MWE and that it follows. A rule matches if the MWE has the
+	 * part of speech of the rule and its tags have the syntax of the rule; the
+	 * MWE follows the rule if only the tokens the rule allows to inflect are
+	 * inflected.
+	 *
+	 * @param mwe
+	 *            the MWE
+	 * @return a mask of the rules, indexed by their position in this
+	 *         automaton, that match the MWE and that it follows
+	 * @since jMWE 1.0.3
+	 */
+	long getValidRules(IMWE<?> mwe) {
+		return getRules(mwe, true, true);
+	}
+
+	/**
+	 * Returns the rules, among those of this automaton, that match the
+	 * specified MWE, as for {@link IInflectionRule#matches(IMWE)}.
+	 *
+	 * @param mwe
+	 *            the MWE
+	 * @return a mask of the rules, indexed by their position in this
+	 *         automaton, that match the MWE
+	 * @since jMWE 1.0.3
+	 */
+	long getMatchingRules(IMWE<?> mwe) {
+		return getRules(mwe, true, false);
+	}
+
+	/**
+	 * Returns the rules, among those of this automaton, whose syntax the tags
+	 * of the specified MWE match, regardless of the part of speech of the MWE
+	 * and of which of its tokens are inflected.
+	 *
+	 * @param mwe
+	 *            the MWE
+	 * @return a mask of the rules, indexed by their position in this
+	 *         automaton, that match the tags of the MWE
+	 * @since jMWE 1.0.3
+	 */
+	long getSyntacticRules(IMWE<?> mwe) {
+		return getRules(mwe, false, false);
+	}
+
+	/**
+	 * Returns the rules, among those of this automaton, whose syntax the tags
+	 * of the specified MWE match and that the MWE follows, regardless of its
+	 * part of speech.
+	 *
+	 * @param mwe
+	 *            the MWE
+	 * @return a mask of the rules, indexed by their position in this
+	 *         automaton, that match the tags of the MWE and that it follows
+	 * @since jMWE 1.0.3
+	 */
+	long getFollowedRules(IMWE<?> mwe) {
+		return getRules(mwe, false, true);
+	}
+
+	/**
+	 * Runs the automaton over the tags of the specified MWE.
+	 *
+	 * @param <T>
+	 *            the type of tokens in the MWE
+	 * @param mwe
+	 *            the MWE
+	 * @param checkPOS
+	 *            whether to keep only the rules with the part of speech of
+	 *            the MWE
+	 * @param checkInflection
+	 *            whether to keep only the rules that the MWE follows
+	 * @return a mask of the rules that match
+	 * @since jMWE 1.0.3
+	 */
+	private <T extends IToken> long getRules(IMWE<T> mwe, boolean checkPOS, boolean checkInflection) {
+		List<T> tokens = mwe.getTokens();
+		if(tokens.size() > 62)
+			return 0;
+
+		// one pass over the tokens, reading tags and noting inflections
+		int state = START;
+		long inflected = 0;
+		Map<T, IPart> partMap = checkInflection ? mwe.getPartMap() : null;
+		String tag;
+		Integer c;
+		int i = 0;
+		for(T token : tokens){
+			tag = token.getTag();
+			c = (tag == null) ? null : classes.get(tag);
+			state = transitions[state][c == null ? 0 : c];
+			if(state == DEAD)
+				return 0;
+			if(checkInflection && InflectionRule.inflects(token, partMap))
+				inflected |= 1L << i;
+			i++;
+		}
+
+		long result = accepting[state];
+		if(result == 0 || !checkPOS && !checkInflection)
+			return result;
+		for(int r = 0; r < rules.length; r++){
+			if((result & (1L << r)) == 0)
+				continue;
+			if(checkPOS && rules[r].getPOS() != mwe.getEntry().getPOS())
+				result &= ~(1L << r);
+			else if(checkInflection && (inflected & ~allowed[state][r]) != 0)
+				result &= ~(1L << r);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the bit recording that the element at the specified position was
+	 * skipped. Choices are ordered so that, of two ways of matching a rule,
+	 * the one a regular expression prefers has the smaller value.
+	 *
+	 * @param elem
+	 *            the position of the element
+	 * @return the bit for skipping the element
+	 * @since jMWE 1.0.3
+	 */
+	private static long skip(int elem) {
+		return 1L << (62 - elem);
+	}
+
+	/**
+	 * Returns all the strings matched by a simple regular expression made
+	 * only of literal characters, escaped characters, and character classes,
+	 * each optionally followed by <code>?</code>.
+	 *
+	 * @param expr
+	 *            the expression
+	 * @return the strings it matches
+	 * @throws IllegalArgumentException
+	 *             if the expression uses any other syntax
+	 * @since jMWE 1.0.3
+	 */
+	static Set<String> expand(String expr) {
+		List<String> result = new ArrayList<String>();
+		result.add("");
+		int i = 0;
+		while(i < expr.length()){
+
+			// read one atom
+			List<String> alts = new ArrayList<String>();
+			char ch = expr.charAt(i);
+			if(ch == '\\' && i + 1 < expr.length()){
+				alts.add(String.valueOf(expr.charAt(i + 1)));
+				i += 2;
+			} else if(ch == '['){
+				int end = expr.indexOf(']', i);
+				if(end < 0)
+					throw new IllegalArgumentException("unsupported element expression: " + expr);
+				for(int j = i + 1; j < end; j++){
+					if(!Character.isLetterOrDigit(expr.charAt(j)))
+						throw new IllegalArgumentException("unsupported element expression: " + expr);
+					alts.add(String.valueOf(expr.charAt(j)));
+				}
+				i = end + 1;
+			} else if(Character.isLetterOrDigit(ch)){
+				alts.add(String.valueOf(ch));
+				i++;
+			} else {
+				throw new IllegalArgumentException("unsupported element expression: " + expr);
+			}
+			if(i < expr.length() && expr.charAt(i) == '?'){
+				alts.add("");
+				i++;
+			}
+
+			// extend each string so far by each alternative
+			List<String> next = new ArrayList<String>(result.size() * alts.size());
+			for(String prefix : result)
+				for(String alt : alts)
+					next.add(prefix + alt);
+			result = next;
+		}
+		return new LinkedHashSet<String>(result);
+	}
+
+	/**
+	 * One way of partly matching a rule: the rule, the position of the next
+	 * element to match, the elements skipped so far, and the tokens matched so
+	 * far that the rule allows to inflect.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	private static final class Config {
+
+		final int rule;
+		final int next;
+		final long choices;
+		final long allowed;
+
+		Config(int rule, int next, long choices, long allowed) {
+			this.rule = rule;
+			this.next = next;
+			this.choices = choices;
+			this.allowed = allowed;
+		}
+
+		@Override
+		public int hashCode() {
+			return ((31 * rule + next) * 31 + Long.hashCode(choices)) * 31 + Long.hashCode(allowed);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof Config))
+				return false;
+			Config other = (Config)obj;
+			return rule == other.rule && next == other.next && choices == other.choices && allowed == other.allowed;
+		}
+
+	}
+
+	/**
+	 * A state of the automaton: the number of tokens read, and each way of
+	 * partly matching each rule that may still lead to a match.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	private static final class State {
+
+		final int depth;
+		final List<Config> configs;
+
+		State(int depth, List<Config> configs) {
+			this.depth = depth;
+			this.configs = configs;
+		}
+
+		/**
+		 * Returns the state reached by reading a tag matched by the specified
+		 * expressions. Of the ways of reaching the same element of the same
+		 * rule, only the one a regular expression prefers is kept, as it is
+		 * preferred however the rest of the rule is matched.
+		 *
+		 * @param exprs
+		 *            a mask of the expressions that match the tag
+		 * @param elemExprs
+		 *            the expression of each element of each rule
+		 * @param rules
+		 *            the rules
+		 * @return the next state
+		 * @since jMWE 1.0.3
+		 */
+		State step(long exprs, int[][] elemExprs, InflectionRule[] rules) {
+			Map<Long, Config> best = new TreeMap<Long, Config>();
+			for(Config c : configs){
+				long choices = c.choices;
+				for(int e = c.next; e < elemExprs[c.rule].length; e++){
+					if((exprs & (1L << elemExprs[c.rule][e])) != 0){
+						long allowed = c.allowed;
+						if(rules[c.rule].isInflecting(e))
+							allowed |= 1L << depth;
+						Config next = new Config(c.rule, e + 1, choices, allowed);
+						Long key = ((long)c.rule << 32) | (e + 1);
+						Config prev = best.get(key);
+						if(prev == null || next.choices < prev.choices)
+							best.put(key, next);
+					}
+					if(!rules[c.rule].isOptional(e))
+						break;
+					choices |= skip(e);
+				}
+			}
+			return new State(depth + 1, new ArrayList<Config>(best.values()));
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * depth + configs.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if(!(obj instanceof State))
+				return false;
+			State other = (State)obj;
+			return depth == other.depth && configs.equals(other.configs);
+		}
+
+	}
+
+}
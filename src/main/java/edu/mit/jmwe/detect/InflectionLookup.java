@@ -48,12 +48,10 @@ public class InflectionLookup extends HasMWEDetector implements IMWEDetectorFilt
 	/* 
 	 * (non-Javadoc)
 	 *
-	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#filter(java.util.List, java.util.List)
 	 */
-	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
-		
-		// get raw results from backing detector
-		List<IMWE<T>> found = super.detect(sentence);
+	@Override
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> sentence, List<IMWE<T>> found) {
 		
 		IMWE<T> mwe;
 		IMWEDesc base;
@@ -56,12 +56,10 @@ public class InflectionPattern extends HasMWEDetector implements IMWEDetectorFil
 	/* 
 	 * (non-Javadoc)
 	 *
-	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#filter(java.util.List, java.util.List)
 	 */
-	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
-		
-		// get raw results from backing detector
-		List<IMWE<T>> results = super.detect(sentence);
+	@Override
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> sentence, List<IMWE<T>> results) {
 		
 		// remove all inflected mwe's that do not match a pattern
 		IMWE<T> mwe;
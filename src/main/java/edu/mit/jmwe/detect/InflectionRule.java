@@ -9,21 +9,28 @@
 
 package edu.mit.jmwe.detect;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc.IPart;
 import edu.mit.jmwe.data.IToken;
 import edu.mit.jmwe.data.MWEPOS;
 
 /**
  * Enumerates the ways in which MWEs with certain parts of speech are allowed to inflect.
  * All but the last two rules are specified in Arranz, Asterias and Castillo 2005.
+ * <p>
+ * Each rule is given as a regular expression over the tags of an MWE joined by
+ * underscores, with one group per tag, but the rules are checked by a single
+ * automaton compiled from all of them, which reads the tags of an MWE once and
+ * finds every rule that matches.
  *
  * @author N. Kulkarni
  * @version $Id: InflectionRule.java 327 2011-05-08 21:13:58Z markaf $
@@ -74,6 +81,8 @@ public enum InflectionRule implements IInflectionRule {
 	private final Pattern pattern;
 	private final List<Integer> infIdxs;
 	private final MWEPOS pos;
+	private final String[] elements;
+	private final boolean[] optional;
 	private transient String toString;
 	
 	// private constructor
@@ -82,6 +91,38 @@ public enum InflectionRule implements IInflectionRule {
 		infIdxs = Arrays.asList(indicies);
 		Collections.sort(infIdxs);
 		this.pos = pos;
+		
+		// split the expression into one group per tag, each of which may be
+		// optional, separated by underscores inside or between the groups
+		List<String> elements = new ArrayList<String>();
+		List<Boolean> optional = new ArrayList<Boolean>();
+		int i = 0, end;
+		String group;
+		while(i < regex.length()){
+			if(regex.charAt(i) == '_'){
+				i++;
+				continue;
+			}
+			end = regex.indexOf(')', i);
+			if(regex.charAt(i) != '(' || end < 0)
+				throw new IllegalArgumentException(regex);
+			group = regex.substring(i+1, end);
+			if(group.startsWith("_"))
+				group = group.substring(1);
+			if(group.endsWith("_"))
+				group = group.substring(0, group.length()-1);
+			if(group.indexOf('_') != -1 || group.indexOf('(') != -1)
+				throw new IllegalArgumentException(regex);
+			elements.add(group);
+			i = end+1;
+			optional.add(i < regex.length() && regex.charAt(i) == '?');
+			if(optional.get(optional.size()-1))
+				i++;
+		}
+		this.elements = elements.toArray(new String[elements.size()]);
+		this.optional = new boolean[optional.size()];
+		for(int j = 0; j < this.optional.length; j++)
+			this.optional[j] = optional.get(j);
 	}
 
 	/* 
@@ -90,25 +131,11 @@ public enum InflectionRule implements IInflectionRule {
 	 * @see edu.mit.jmwe.detect.inflect.IInflectionRule#isValid(edu.mit.jmwe.data.IMWE)
 	 */
 	public <T extends IToken> boolean isValid(IMWE<T> mwe) {
-		Matcher matcher = pattern.matcher(getTagPattern(mwe));
+		long bit = 1L << ordinal();
 		//if it doesn't match the syntactic pattern, the rule cannot apply
-		if(!matcher.matches()){
-			System.err.println("MWE does not match this rule's syntax. Cannot apply rule");
-			throw new IllegalArgumentException();
-		}
-		//mwe index
-		int j = 0;
-		for(int i = 1; i <= matcher.groupCount(); i++){
-			if(matcher.group(i) == null) continue;
-			if(inflects(mwe.getTokens().get(j),mwe)){
-				if(!infIdxs.contains(i)){
-					return false;
-				}
-			}
-			j++;
-		}
-		//expression is valid for the whole rule
-		return true;
+		if((Automaton.instance.getSyntacticRules(mwe) & bit) == 0)
+			throw new IllegalArgumentException("MWE " + mwe + " does not match the syntax of rule " + this);
+		return (Automaton.instance.getFollowedRules(mwe) & bit) != 0;
 	}
 
 	/* 
@@ -119,8 +146,64 @@ public enum InflectionRule implements IInflectionRule {
 	public <T extends IToken> boolean matches(IMWE<T> mwe) {
 		if(mwe.getEntry().getPOS() != pos)
 			return false;
-		Matcher matcher = pattern.matcher(getTagPattern(mwe));
-		return matcher.matches();
+		return (Automaton.instance.getSyntacticRules(mwe) & (1L << ordinal())) != 0;
+	}
+	
+	/**
+	 * Returns the part of speech of the MWEs to which this rule applies.
+	 * 
+	 * @return the part of speech of the MWEs to which this rule applies
+	 * @since jMWE 1.0.3
+	 */
+	MWEPOS getPOS(){
+		return pos;
+	}
+	
+	/**
+	 * Returns the expressions for the tags of the tokens matched by this rule,
+	 * one for each group of the rule, in order.
+	 * 
+	 * @return the expression for each group of this rule
+	 * @since jMWE 1.0.3
+	 */
+	String[] getElements(){
+		return elements.clone();
+	}
+	
+	/**
+	 * Returns true if the group at the specified position may be absent.
+	 * 
+	 * @param element
+	 *            the position of the group, starting at 0
+	 * @return true if the group may be absent
+	 * @since jMWE 1.0.3
+	 */
+	boolean isOptional(int element){
+		return optional[element];
+	}
+	
+	/**
+	 * Returns true if the token matched by the group at the specified position
+	 * may inflect.
+	 * 
+	 * @param element
+	 *            the position of the group, starting at 0
+	 * @return true if the token matched by the group may inflect
+	 * @since jMWE 1.0.3
+	 */
+	boolean isInflecting(int element){
+		return infIdxs.contains(element+1);
+	}
+	
+	/**
+	 * Returns the regular expression over the tag pattern of an MWE, as given
+	 * by {@link #getTagPattern(IMWE)}, that describes this rule.
+	 * 
+	 * @return the regular expression that describes this rule
+	 * @since jMWE 1.0.3
+	 */
+	Pattern getPattern(){
+		return pattern;
 	}
 	
 	/**
@@ -180,9 +263,25 @@ public enum InflectionRule implements IInflectionRule {
 	 * @since jMWE 1.0.0
 	 */
 	public static <T extends IToken> boolean inflects(T token, IMWE<T> mwe){
-		String partlemma = mwe.getPartMap().get(token).getForm();
+		return inflects(token, mwe.getPartMap());
+	}
+	
+	/**
+	 * Returns true if the text of a token does not equal the lemma of the part
+	 * to which it is mapped.
+	 * 
+	 * @param <T>
+	 *            the type of tokens in the MWE
+	 * @param token
+	 *            the token being checked
+	 * @param partMap
+	 *            the part map of the MWE from which the token is drawn
+	 * @return true if the token is inflected, false otherwise
+	 * @since jMWE 1.0.3
+	 */
+	static <T extends IToken> boolean inflects(T token, Map<T, IPart> partMap){
+		String partlemma = partMap.get(token).getForm();
 		return !token.getForm().equalsIgnoreCase(partlemma);
-			
 	}
 
 	/**
@@ -199,10 +298,7 @@ public enum InflectionRule implements IInflectionRule {
 	 * @since jMWE 1.0.0
 	 */
 	public static boolean isInflectedByPattern(IMWE<?> mwe){
-		for(InflectionRule r : InflectionRule.values())
-			if(r.matches(mwe) && r.isValid(mwe))
-				return true;
-		return false;
+		return Automaton.instance.getValidRules(mwe) != 0;
 	}
 
 	/**
@@ -219,10 +315,32 @@ public enum InflectionRule implements IInflectionRule {
 	 * @since jMWE 1.0.0
 	 */
 	public static boolean isInflectedByPattern(IMWE<?> mwe, Collection<? extends IInflectionRule> rules){
-		for(IInflectionRule r : rules)
-			if(r.matches(mwe) && r.isValid(mwe))
+		// the rules of this enum are checked together, on first need
+		long valid = 0;
+		boolean checked = false;
+		for(IInflectionRule r : rules){
+			if(r instanceof InflectionRule){
+				if(!checked){
+					valid = Automaton.instance.getValidRules(mwe);
+					checked = true;
+				}
+				if((valid & (1L << ((InflectionRule)r).ordinal())) != 0)
+					return true;
+			} else if(r.matches(mwe) && r.isValid(mwe)){
 				return true;
+			}
+		}
 		return false;
 	}
 	
+	/**
+	 * Holds the automaton compiled from all the rules of this enum, built on
+	 * first use.
+	 * 
+	 * @since jMWE 1.0.3
+	 */
+	private static class Automaton {
+		static final InflectionAutomaton instance = new InflectionAutomaton(InflectionRule.values());
+	}
+	
 }
@@ -9,12 +9,13 @@
 
 package edu.mit.jmwe.detect;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 import edu.mit.jmwe.data.IMWE;
 import edu.mit.jmwe.data.IToken;
@@ -47,48 +48,42 @@ public class LMLR extends HasMWEDetector implements IMWEDetectorResolver {
 	/* 
 	 * (non-Javadoc)
 	 *
-	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#filter(java.util.List, java.util.List)
 	 */
-	public <T extends IToken> List<IMWE<T>> detect(List<T> s) {
+	@Override
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> s, List<IMWE<T>> results) {
 		
-		// run embedded detector
-		List<IMWE<T>> results = super.detect(s);
-		
-		// construct a map from tokens to mwes
-		Map<T, IMWE<T>> map = new LinkedHashMap<T, IMWE<T>>(s.size());
-		for(T token : s)
-			map.put(token, null);
-		
-		// insert each mwe into the map under it's first token
+		// file each mwe under the position of its first token
 		// if there's already an mwe in that slot, keep the longest one
-		T first;
-		IMWE<T> filler;
-		Comparator<T> c = new ListComparator<T>(s); 
-		Map<IMWE<T>, T> firstTokens = new HashMap<IMWE<T>, T>(results.size());
+		ListComparator<T> c = new ListComparator<T>(s); 
+		TokenOccupancy<T> occupancy = new TokenOccupancy<T>(c.getIndexMap());
+		List<IMWE<T>> byFirst = new ArrayList<IMWE<T>>(Collections.<IMWE<T>>nCopies(s.size(), null));
+		Set<IMWE<T>> kept = new HashSet<IMWE<T>>();
+		int first;
 		for(IMWE<T> mwe : results){
-			first = getFirstToken(mwe.getTokens(), c);
-			firstTokens.put(mwe, first);  // save first token for later
-			filler = map.get(first);
-			filler = longest(filler, mwe, c);
-			map.put(first, filler);
+			first = occupancy.indexOf(getFirstToken(mwe.getTokens(), c));
+			// mwes that do not start in the sentence cannot conflict
+			if(first < 0)
+				kept.add(mwe);
+			else
+				byFirst.set(first, longest(byFirst.get(first), mwe, c));
 		}
 		
-		// moving from left to right, throw out conflicting MWEs
+		// moving from left to right, keep each mwe whose first token
+		// is not used by an mwe kept before, and throw out the mwes
+		// filed under its other tokens
 		IMWE<T> mwe;
+		int i = 0;
 		for(T token : s){
-			mwe = map.get(token);
-			if(mwe == null)
+			mwe = byFirst.get(i++);
+			if(mwe == null || occupancy.isOccupied(token))
 				continue;
-			first = firstTokens.get(mwe);
-			// clear out mwe's filed under other
-			// tokens (except the first one)
-			for(T mweToken : mwe.getTokens())
-				if(mweToken != first)
-					map.put(mweToken, null);
+			kept.add(mwe);
+			occupancy.occupy(mwe);
 		}
 		
 		// retain original order
-		results.retainAll(map.values());
+		results.retainAll(kept);
 		return results;
 		
 	}
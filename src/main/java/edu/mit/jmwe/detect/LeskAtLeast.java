@@ -15,10 +15,13 @@ import edu.mit.jmwe.data.IMWE;
 import edu.mit.jmwe.data.IToken;
 import edu.mit.jmwe.detect.score.IScorer;
 import edu.mit.jmwe.detect.score.LeskScore;
+import edu.mit.jmwe.detect.score.LeskSignatures;
 import edu.mit.jwi.IDictionary;
 
 /**
  * A filter detector that throws out MWEs whose lesk score is less than some value.
+ * The glosses of the MWEs are taken from a {@link LeskSignatures} store, which
+ * may be shared between filters.
  *
  * @author M.A. Finlayson
  * @version $Id: LeskAtLeast.java 356 2015-11-25 22:36:46Z markaf $
@@ -29,6 +32,7 @@ public class LeskAtLeast extends FilterByScore {
 	// final instance fields
 	protected final int minScore;
 	protected final IDictionary dict;
+	protected final LeskSignatures signatures;
 
 	/**
 	 * Constructs a new filter that filters out MWEs whose lesk score is not at
@@ -46,10 +50,30 @@ public class LeskAtLeast extends FilterByScore {
 	 * @since jMWE 1.0.0
 	 */
 	public LeskAtLeast(IMWEDetector detector, IDictionary dict, int minScore) {
+		this(detector, new LeskSignatures(dict), minScore);
+	}
+
+	/**
+	 * Constructs a new filter that filters out MWEs whose lesk score is not at
+	 * least some value, taking glosses from the specified store.
+	 * 
+	 * @param detector
+	 *            the wrapped detector, may not be <code>null</code>
+	 * @param signatures
+	 *            the store of signatures to use, may not be <code>null</code>
+	 * @param minScore
+	 *            the minimum score to use. If the specified score is less than
+	 *            zero, the score used is zero.
+	 * @throws NullPointerException
+	 *             if the detector or store are <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public LeskAtLeast(IMWEDetector detector, LeskSignatures signatures, int minScore) {
 		super(detector);
-		if(dict == null)
+		if(signatures == null)
 			throw new NullPointerException();
-		this.dict = dict;
+		this.signatures = signatures;
+		this.dict = signatures.getDictionary();
 		this.minScore = Math.max(minScore, 0);
 	}
 
@@ -70,7 +94,7 @@ public class LeskAtLeast extends FilterByScore {
 	 */
 	@Override
 	protected <T extends IToken> IScorer<IMWE<T>> getScorer(List<T> sentence) {
-		return new LeskScore<T>(sentence, dict);
+		return new LeskScore<T>(sentence, signatures);
 	}
 
 }
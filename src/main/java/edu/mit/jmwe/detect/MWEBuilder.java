@@ -6,368 +6,642 @@
  * terms of the jMWE License which accompanies this distribution.  
  * Please check the attached license for more details.
  *******************************************************************************/
-
-package edu.mit.jmwe.detect;
-
-import java.util.Comparator;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
-
-import edu.mit.jmwe.data.AbstractMWEDesc;
-import edu.mit.jmwe.data.IMWE;
-import edu.mit.jmwe.data.IMWEDesc;
-import edu.mit.jmwe.data.IMWEDesc.IPart;
-import edu.mit.jmwe.data.IRootMWEDesc;
-import edu.mit.jmwe.data.IToken;
-import edu.mit.jmwe.data.MWE;
-import edu.mit.jmwe.data.MWEPOS;
-import edu.mit.jmwe.data.RootMWEDesc;
-import edu.mit.jmwe.util.ListComparator;
-
-/**
- * A record that is used to hold tokens as the detector passes over a sentence.
- * Contains empty slots for each part of a multi-word expression. Each slot
- * can be filled by a token that matches the part.
- * 
- * @author M.A. Finlayson
- * @version 1.356, 25 Nov 2015
- * @since jMWE 1.0.0
- */
-public class MWEBuilder<T extends IToken>{
-	
-	private final IMWEDesc entry;
-	private final Comparator<T> comparator;
-	
-	private final SortedMap<IPart, T> slots;
-	private final boolean hasMultiple;
-
-	/**
-	 * Constructs an empty record from the given MWE description and sentence.
-	 * 
-	 * @param entry
-	 *            the description of the MWE associated with this record
-	 * @param sentence
-	 *            the sentence from which the tokens used to fill this record
-	 *            will be drawn
-	 * @since jMWE 1.0.0
-	 */
-	public MWEBuilder(IMWEDesc entry, List<T> sentence){
-		this(entry, new ListComparator<T>(sentence));
-	}
-	
-	/**
-	 * Constructs an empty record from an {@link IRootMWEDesc} object.
-	 * 
-	 * @param entry
-	 *            a multi-word expression description. May not be
-	 *            <code>null</code>.
-	 * @param comparator
-	 *            the comparator to use, may not be <code>null</code>.
-	 * @throws NullPointerException
-	 *             if the description is <code>null</code>.
-	 * @since jMWE 1.0.0
-	 */
-	public MWEBuilder(IMWEDesc entry, Comparator<T> comparator){
-		if(entry == null)
-			throw new NullPointerException();
-		if(comparator == null)
-			throw new NullPointerException();
-		
-		// populate the slot map and check for repeated parts
-		SortedMap<IPart,T> slots = new TreeMap<IPart, T>();
-		Set<String> uniqueParts = new HashSet<String>();
-		for(IPart p : entry.getParts()){
-			slots.put(p, null);
-			uniqueParts.add(p.getForm().toLowerCase());
-		}
-
-		// field assignments
-		this.hasMultiple = uniqueParts.size() < entry.getParts().size();
-		this.entry = entry;
-		this.comparator = comparator;
-		this.slots = slots;
-	}
-			
-	/**
-	 * Returns the multi-word expression description object corresponding to the record.
-	 *
-	 * @return the IMWEDesc corresponding to the record.
-	 *
-	 * @since jMWE 1.0.0
-	 */
-	public IMWEDesc getEntry(){
-		return entry;
-	}
-	
-	/**
-	 * Returns the slots of this record. These slots map each index part of
-	 * the multi-word expression to a token or to <code>null</code> if the slot
-	 * has not yet been filled. 
-	 *
-	 * @return a {@link SortedMap} that maps each index part of
-	 * the multi-word expression to a token or to <code>null</code> if the slot
-	 * has not yet been filled. 
-	 * @since jMWE 1.0.0
-	 */
-	public SortedMap<IPart, T> getSlots(){
-		return slots;
-	}
-	
-	/**
-	 * Returns true if all the slots in this record contain a token.
-	 *
-	 * @return true if all the slots in this record are full.
-	 * @since jMWE 1.0.0
-	 */
-	public boolean isFull(){
-		for(T token : slots.values())
-			if(token == null)
-				return false;
-		return true;
-	}
-	
-	/**
-	 * Returns true if the all of the content words in this record are full.
-	 *
-	 * @return true if the all of the content words in this record are full.
-	 * @since jMWE 1.0.0
-	 */
-	public boolean isContentFull(){
-		for(Entry<IPart, T> slot : slots.entrySet())
-			if(!slot.getKey().isStopWord() && slot.getValue() == null) 
-				return false;
-		return true;
-	}
-
-	/**
-	 * Returns <code>true</code> if at least one token in one slot matches the
-	 * part of speech of the MWE description; <code>false</code> otherwise.
-	 * 
-	 * @return <code>true</code> if at least one token in one slot matches the
-	 *         part of speech of the MWE description; <code>false</code>
-	 *         otherwise.
-	 * @since jMWE 1.0.0
-	 */
-	public boolean isPartOfSpeechSatisfied(){
-		MWEPOS pos = entry.getPOS();
-		for(T token : slots.values())
-			if(token != null)
-				if(token.getTag() != null)
-					if(pos == MWEPOS.toMWEPOS(token.getTag()))
-						return true;
-		return false;
-	}
-
-	/**
-	 * Returns true if the matching slots after the given slot in this record are empty.
-	 * Matching slots have index parts with the same part lemma.
-	 *
-	 * @param slot
-	 * the slot in consideration. May not be <code>null</code>.
-	 * @return true if the matching slots after the given slot in this record are empty.
-	 * @since jMWE 1.0.0
-	 */
-	public boolean hasEmptyMatchingSlots(Entry<IPart, T> slot){
-		if(!hasMultiple) 
-			return true;
-		boolean first = true;
-		for(Entry<IPart, T> later : slots.tailMap(slot.getKey()).entrySet()){
-			if(first){
-				first = false;
-				continue;
-			}
-			if(later.getKey().getForm().equals(slot.getKey().getForm()))
-				if(later.getValue() != null) 
-					return false;
-		}
-		return true;
-	}
-	
-	/**
-	 * Returns true if the record contains two or more slots whose index parts
-	 * have the same part lemma.
-	 * 
-	 * @return true if the record contains any matching slots
-	 * @since jMWE 1.0.0
-	 */
-	public boolean hasMultiple(){
-		return hasMultiple;
-	}
-	
-	/* 
-	 * (non-Javadoc)
-	 *
-	 * @see java.lang.Object#clone()
-	 */
-	public MWEBuilder<T> clone(){
-		MWEBuilder<T> clone = new MWEBuilder<T>(entry, comparator);
-		clone.getSlots().putAll(this.slots);
-		return clone;
-	}
-	
-	/**
-	 * Converts the tokens in a full record into an {@link IMWE} object. If this record is not full,
-	 * returns <code>null</code>.
-	 *
-	 * @return a IMWE object if the record is full, <code>null</code> otherwise.
-	 * @since jMWE 1.0.0
-	 */
-	public IMWE<T> toMWE(){
-		if(!isFull())
-			throw new IllegalStateException();
-		
-		Map<T, IPart> partMap = new TreeMap<T, IPart>(comparator);
-		for(Entry<IPart,T> e : slots.entrySet())
-			if(partMap.put(e.getValue(), e.getKey()) != null)
-				throw new IllegalArgumentException("Duplicate token");
-		
-		return new MWE<T>(partMap, false);
-	}
-	
-	/* 
-	 * (non-Javadoc)
-	 *
-	 * @see java.lang.Object#toString()
-	 */
-	public String toString(){
-		StringBuilder sb = new StringBuilder();
-		sb.append(entry.toString());
-		sb.append('=');
-		sb.append(slots.toString());
-		return sb.toString();
-	}
-
-	/* 
-	 * (non-Javadoc)
-	 *
-	 * @see java.lang.Object#hashCode()
-	 */
-	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + entry.hashCode();
-		result = prime * result + slots.hashCode();
-		return result;
-	}
-
-	/* 
-	 * (non-Javadoc)
-	 *
-	 * @see java.lang.Object#equals(java.lang.Object)
-	 */
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj) return true;
-		if (obj == null) return false;
-		if (getClass() != obj.getClass()) return false;
-		MWEBuilder<?> other = (MWEBuilder<?>) obj;
-		if (!entry.equals(other.entry)) return false;
-		if (!slots.equals(other.slots)) return false;
-		return true;
-	}
-	
-	/**
-	 * Given a set of MWE builders, fills all the slots in the records that can be
-	 * filled by the given token. If necessary, adds new records to the set.
-	 * @param records
-	 *            a set of records whose slots may be filled. May not be
-	 *            <code>null</code>.
-	 * @param token
-	 *            the token that will be used to fill the appropriate slots in
-	 *            the records. May not be <code>null</code>.
-	 * 
-	 * @param <T>
-	 *            type of tokens the records hold
-	 * @throws NullPointerException
-	 *             if either parameter is <code>null</code>.
-	 * @since jMWE 1.0.0
-	 */
-	public static <T extends IToken> void fillSlots(Set<MWEBuilder<T>> records, T token){
-		
-		MWEBuilder<T> record, copy;
-		IPart filledSlot;
-		
-		LinkedList<MWEBuilder<T>> queue = new LinkedList<MWEBuilder<T>>(records);
-		records.clear();
-		
-		while((record = queue.poll()) != null){
-			
-			filledSlot = null;
-			// try to fill a slot in the record
-			for(Entry<IPart, T> slot : record.getSlots().entrySet()){
-				
-				// don't do anything if the token can't fill the slot
-				// or if this token is already in the record
-				if(!RootMWEDesc.isFillerForSlot(token, slot.getKey()) || record.getSlots().containsValue(token)) continue;
-				
-				if(slot.getValue() != null && filledSlot == null){
-					// if the slot isn't empty, copy the record,
-					// clear the slot, and add to the queue
-					copy = record.clone();
-					//only replace token in slot if the matching slots after it are not filled,
-					//because if they are filled they will be filled with tokens that occur earlier in the sentence
-					if(record.hasEmptyMatchingSlots(slot))
-						copy.getSlots().put(slot.getKey(), token);
-					records.add(copy);
-				} else if(filledSlot == null){
-					// otherwise, if we haven't yet filled a slot for this record, fill the slot
-					 slot.setValue(token);
-					 filledSlot = slot.getKey();
-					 records.add(record);
-				 } else{
-					 // if we have filled a slot for this record, 
-					 // copy the record, clear the previously filled 
-					 // slot, and fill the new slot
-					 copy = record.clone();
-					 copy.getSlots().put(filledSlot, null);
-					 copy.getSlots().put(slot.getKey(), token); 
-					 records.add(copy);
-				 }
-			 }
-			records.add(record);
-		}
-		
-	}
-
-	/**
-	 * Fills the first non-null (empty) slot in the given builder. Each slot can
-	 * be filled by a token that matches the part. Returns true if the slot can
-	 * be filled, false otherwise.
-	 * 
-	 * @param builder
-	 *            the builder to be filled
-	 * @param t
-	 *            the token to fill the builder's next open slot with
-	 * @param <T>
-	 *            the type of tokens used in the MWEs to be built.
-	 * @return true if the next open slot can be filled, false otherwise.
-	 * @since jMWE 1.0.0
-	 */
-	public static <T extends IToken> boolean fillNextSlot(MWEBuilder<T> builder, T t) {
-		
-		// find next empty slot
-		Entry<IPart, T> next = null;
-		for(Entry<IPart, T> e : builder.getSlots().entrySet())
-			if(e.getValue() == null){
-				next = e;
-				break;
-			}
-		
-		// fill slot
-		if(AbstractMWEDesc.isFillerForSlot(t, next.getKey())){
-			next.setValue(t);
-			return true;
-		}
-		
-		return false;
-	}
-}
-
-
+
+package edu.mit.jmwe.detect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import edu.mit.jmwe.data.AbstractMWEDesc;
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IMWEDesc.IPart;
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWE;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.RootMWEDesc;
+import edu.mit.jmwe.util.ListComparator;
+
+/**
+ * A record that is used to hold tokens as the detector passes over a sentence.
+ * Contains empty slots for each part of a multi-word expression. Each slot
+ * can be filled by a token that matches the part.
+ * <p>
+ * Slots are held in an array ordered by part index, with a bit mask recording
+ * which are filled. Everything that depends only on the description, such as
+ * the part order and which parts share a form, is computed once and shared by
+ * a record and all its clones, so that cloning a record is an array copy.
+ * Detectors that build many records keep a {@link LayoutCache} so that this
+ * is computed once per description rather than once per record. The hash
+ * code is maintained as slots are filled, so that sets of records compare and
+ * deduplicate them cheaply.
+ *
+ * @author M.A. Finlayson
+ * @version 1.356, 25 Nov 2015
+ * @since jMWE 1.0.0
+ */
+public class MWEBuilder<T extends IToken>{
+
+	private final Layout layout;
+	private final Comparator<T> comparator;
+
+	private final Object[] slots;
+	private long filled;
+	private int hash;
+
+	/**
+	 * Constructs an empty record from the given MWE description and sentence.
+	 *
+	 * @param entry
+	 *            the description of the MWE associated with this record
+	 * @param sentence
+	 *            the sentence from which the tokens used to fill this record
+	 *            will be drawn
+	 * @since jMWE 1.0.0
+	 */
+	public MWEBuilder(IMWEDesc entry, List<T> sentence){
+		this(entry, new ListComparator<T>(sentence));
+	}
+
+	/**
+	 * Constructs an empty record from an {@link IRootMWEDesc} object.
+	 *
+	 * @param entry
+	 *            a multi-word expression description. May not be
+	 *            <code>null</code>.
+	 * @param comparator
+	 *            the comparator to use, may not be <code>null</code>.
+	 * @throws NullPointerException
+	 *             if the description is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if the description has more than 64 parts
+	 * @since jMWE 1.0.0
+	 */
+	public MWEBuilder(IMWEDesc entry, Comparator<T> comparator){
+		this(new Layout(entry), comparator);
+	}
+
+	/**
+	 * Constructs an empty record from a description, taking its layout from
+	 * the specified cache.
+	 *
+	 * @param entry
+	 *            a multi-word expression description. May not be
+	 *            <code>null</code>.
+	 * @param comparator
+	 *            the comparator to use, may not be <code>null</code>.
+	 * @param layouts
+	 *            the cache of layouts, may not be <code>null</code>.
+	 * @throws NullPointerException
+	 *             if any argument is <code>null</code>.
+	 * @throws IllegalArgumentException
+	 *             if the description has more than 64 parts
+	 * @since jMWE 1.0.3
+	 */
+	MWEBuilder(IMWEDesc entry, Comparator<T> comparator, LayoutCache layouts){
+		this(layouts.get(entry), comparator);
+	}
+
+	/**
+	 * Constructs an empty record with the specified layout.
+	 *
+	 * @param layout
+	 *            the layout of the record
+	 * @param comparator
+	 *            the comparator to use, may not be <code>null</code>.
+	 * @throws NullPointerException
+	 *             if the comparator is <code>null</code>.
+	 * @since jMWE 1.0.3
+	 */
+	private MWEBuilder(Layout layout, Comparator<T> comparator){
+		if(comparator == null)
+			throw new NullPointerException();
+		this.layout = layout;
+		this.comparator = comparator;
+		this.slots = new Object[layout.parts.length];
+		this.hash = layout.entry.hashCode();
+	}
+
+	/**
+	 * Constructs a record with the same description and slots as the
+	 * specified record.
+	 *
+	 * @param record
+	 *            the record to copy
+	 * @since jMWE 1.0.3
+	 */
+	private MWEBuilder(MWEBuilder<T> record){
+		this.layout = record.layout;
+		this.comparator = record.comparator;
+		this.slots = record.slots.clone();
+		this.filled = record.filled;
+		this.hash = record.hash;
+	}
+
+	/**
+	 * Returns the multi-word expression description object corresponding to the record.
+	 *
+	 * @return the IMWEDesc corresponding to the record.
+	 *
+	 * @since jMWE 1.0.0
+	 */
+	public IMWEDesc getEntry(){
+		return layout.entry;
+	}
+
+	/**
+	 * Returns the slots of this record. These slots map each index part of
+	 * the multi-word expression to a token or to <code>null</code> if the slot
+	 * has not yet been filled.
+	 * <p>
+	 * Since jMWE 1.0.3 the returned map is an unmodifiable snapshot of the
+	 * slots at the time of the call. Earlier versions returned the record's
+	 * own map, through which slots could be filled; records are now filled
+	 * only through {@link #fillSlots(Set, IToken)} and
+	 * {@link #fillNextSlot(MWEBuilder, IToken)}.
+	 *
+	 * @return a {@link SortedMap} that maps each index part of
+	 * the multi-word expression to a token or to <code>null</code> if the slot
+	 * has not yet been filled.
+	 * @since jMWE 1.0.0
+	 */
+	public SortedMap<IPart, T> getSlots(){
+		SortedMap<IPart, T> result = new TreeMap<IPart, T>();
+		for(int i = 0; i < slots.length; i++)
+			result.put(layout.parts[i], getToken(i));
+		return Collections.unmodifiableSortedMap(result);
+	}
+
+	/**
+	 * Returns the token in the specified slot, or <code>null</code> if the
+	 * slot is empty.
+	 *
+	 * @param slot
+	 *            the index of the slot, in part order
+	 * @return the token in the slot, or <code>null</code> if the slot is
+	 *         empty
+	 * @since jMWE 1.0.3
+	 */
+	@SuppressWarnings("unchecked")
+	private T getToken(int slot){
+		return (T)slots[slot];
+	}
+
+	/**
+	 * Puts the token into the specified slot, which must be empty, updating
+	 * the filled mask and hash code.
+	 *
+	 * @param slot
+	 *            the index of the slot, in part order
+	 * @param token
+	 *            the token
+	 * @since jMWE 1.0.3
+	 */
+	private void fill(int slot, T token){
+		slots[slot] = token;
+		filled |= 1L << slot;
+		hash += slotHash(slot, token);
+	}
+
+	/**
+	 * Replaces the token in the specified slot, which must be filled,
+	 * updating the hash code.
+	 *
+	 * @param slot
+	 *            the index of the slot, in part order
+	 * @param token
+	 *            the new token
+	 * @since jMWE 1.0.3
+	 */
+	private void replace(int slot, T token){
+		hash -= slotHash(slot, slots[slot]);
+		slots[slot] = token;
+		hash += slotHash(slot, token);
+	}
+
+	/**
+	 * Returns the contribution of a filled slot to the hash code.
+	 *
+	 * @param slot
+	 *            the index of the slot
+	 * @param token
+	 *            the token in the slot
+	 * @return the contribution to the hash code
+	 * @since jMWE 1.0.3
+	 */
+	private static int slotHash(int slot, Object token){
+		long h = (token.hashCode() & 0xffffffffL) | ((long)slot << 32);
+		h *= 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 29));
+	}
+
+	/**
+	 * Returns whether the specified token is already in some slot.
+	 *
+	 * @param token
+	 *            the token
+	 * @return <code>true</code> if the token is in some slot;
+	 *         <code>false</code> otherwise
+	 * @since jMWE 1.0.3
+	 */
+	private boolean containsToken(T token){
+		for(long m = filled; m != 0; m &= m - 1)
+			if(token.equals(slots[Long.numberOfTrailingZeros(m)]))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns true if all the slots in this record contain a token.
+	 *
+	 * @return true if all the slots in this record are full.
+	 * @since jMWE 1.0.0
+	 */
+	public boolean isFull(){
+		return filled == layout.fullMask;
+	}
+
+	/**
+	 * Returns true if the all of the content words in this record are full.
+	 *
+	 * @return true if the all of the content words in this record are full.
+	 * @since jMWE 1.0.0
+	 */
+	public boolean isContentFull(){
+		return (filled & layout.contentMask) == layout.contentMask;
+	}
+
+	/**
+	 * Returns <code>true</code> if at least one token in one slot matches the
+	 * part of speech of the MWE description; <code>false</code> otherwise.
+	 *
+	 * @return <code>true</code> if at least one token in one slot matches the
+	 *         part of speech of the MWE description; <code>false</code>
+	 *         otherwise.
+	 * @since jMWE 1.0.0
+	 */
+	public boolean isPartOfSpeechSatisfied(){
+		MWEPOS pos = layout.entry.getPOS();
+		T token;
+		for(long m = filled; m != 0; m &= m - 1){
+			token = getToken(Long.numberOfTrailingZeros(m));
+			if(token.getTag() != null)
+				if(pos == MWEPOS.toMWEPOS(token.getTag()))
+					return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns true if the matching slots after the given slot in this record are empty.
+	 * Matching slots have index parts with the same part lemma.
+	 *
+	 * @param slot
+	 * the slot in consideration. May not be <code>null</code>.
+	 * @return true if the matching slots after the given slot in this record are empty.
+	 * @since jMWE 1.0.0
+	 */
+	public boolean hasEmptyMatchingSlots(Entry<IPart, T> slot){
+		int i = layout.indexOf(slot.getKey());
+		return i < 0 || hasEmptyMatchingSlots(i);
+	}
+
+	/**
+	 * Returns true if the matching slots after the specified slot are empty.
+	 *
+	 * @param slot
+	 *            the index of the slot, in part order
+	 * @return true if the matching slots after the slot are empty
+	 * @since jMWE 1.0.3
+	 */
+	private boolean hasEmptyMatchingSlots(int slot){
+		return (filled & layout.laterSameForm[slot]) == 0;
+	}
+
+	/**
+	 * Returns true if the record contains two or more slots whose index parts
+	 * have the same part lemma.
+	 *
+	 * @return true if the record contains any matching slots
+	 * @since jMWE 1.0.0
+	 */
+	public boolean hasMultiple(){
+		return layout.hasMultiple;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#clone()
+	 */
+	public MWEBuilder<T> clone(){
+		return new MWEBuilder<T>(this);
+	}
+
+	/**
+	 * Converts the tokens in a full record into an {@link IMWE} object. If this record is not full,
+	 * returns <code>null</code>.
+	 *
+	 * @return a IMWE object if the record is full, <code>null</code> otherwise.
+	 * @since jMWE 1.0.0
+	 */
+	public IMWE<T> toMWE(){
+		if(!isFull())
+			throw new IllegalStateException();
+
+		Map<T, IPart> partMap = new TreeMap<T, IPart>(comparator);
+		for(int i = 0; i < slots.length; i++)
+			if(partMap.put(getToken(i), layout.parts[i]) != null)
+				throw new IllegalArgumentException("Duplicate token");
+
+		return new MWE<T>(partMap, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString(){
+		StringBuilder sb = new StringBuilder();
+		sb.append(layout.entry.toString());
+		sb.append('=');
+		sb.append(getSlots().toString());
+		return sb.toString();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+		MWEBuilder<?> other = (MWEBuilder<?>) obj;
+		if (hash != other.hash) return false;
+		if (filled != other.filled) return false;
+		if (layout != other.layout && !layout.entry.equals(other.layout.entry)) return false;
+		if (!Arrays.equals(slots, other.slots)) return false;
+		return true;
+	}
+
+	/**
+	 * Given a set of MWE builders, fills all the slots in the records that can be
+	 * filled by the given token. If necessary, adds new records to the set.
+	 * @param records
+	 *            a set of records whose slots may be filled. May not be
+	 *            <code>null</code>.
+	 * @param token
+	 *            the token that will be used to fill the appropriate slots in
+	 *            the records. May not be <code>null</code>.
+	 *
+	 * @param <T>
+	 *            type of tokens the records hold
+	 * @throws NullPointerException
+	 *             if either parameter is <code>null</code>.
+	 * @since jMWE 1.0.0
+	 */
+	public static <T extends IToken> void fillSlots(Set<MWEBuilder<T>> records, T token){
+		if(token == null)
+			throw new NullPointerException();
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		MWEBuilder<T>[] queue = records.toArray(new MWEBuilder[records.size()]);
+		records.clear();
+
+		// the slots the token can fill, for the most recently seen layout;
+		// the records in a set usually all share one
+		Layout layout = null;
+		long fillable = 0;
+
+		MWEBuilder<T> record, copy;
+		for(int r = 0; r < queue.length; r++){
+			record = queue[r];
+
+			// a token already in the record can fill none of its slots
+			if(record.containsToken(token)){
+				records.add(record);
+				continue;
+			}
+
+			if(record.layout != layout){
+				layout = record.layout;
+				fillable = layout.getFillableSlots(token);
+			}
+
+			for(long m = fillable; m != 0; m &= m - 1){
+				int slot = Long.numberOfTrailingZeros(m);
+				if((record.filled & (1L << slot)) != 0){
+					// if the slot isn't empty, copy the record,
+					// and replace the token in the copy
+					copy = record.clone();
+					//only replace token in slot if the matching slots after it are not filled,
+					//because if they are filled they will be filled with tokens that occur earlier in the sentence
+					if(record.hasEmptyMatchingSlots(slot))
+						copy.replace(slot, token);
+					records.add(copy);
+				} else {
+					// otherwise fill the slot; once the token is in
+					// the record, it can fill no other slot
+					record.fill(slot, token);
+					break;
+				}
+			}
+			records.add(record);
+		}
+
+	}
+
+	/**
+	 * Fills the first non-null (empty) slot in the given builder. Each slot can
+	 * be filled by a token that matches the part. Returns true if the slot can
+	 * be filled, false otherwise.
+	 *
+	 * @param builder
+	 *            the builder to be filled
+	 * @param t
+	 *            the token to fill the builder's next open slot with
+	 * @param <T>
+	 *            the type of tokens used in the MWEs to be built.
+	 * @return true if the next open slot can be filled, false otherwise.
+	 * @throws IllegalStateException
+	 *             if the builder is full
+	 * @since jMWE 1.0.0
+	 */
+	public static <T extends IToken> boolean fillNextSlot(MWEBuilder<T> builder, T t) {
+
+		// find next empty slot
+		if(builder.isFull())
+			throw new IllegalStateException("builder is full");
+		int next = Long.numberOfTrailingZeros(~builder.filled);
+
+		// fill slot
+		if(AbstractMWEDesc.isFillerForSlot(t, builder.layout.parts[next])){
+			builder.fill(next, t);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * A cache of record layouts keyed by description ID, shared by the
+	 * records a detector builds over all the sentences it is given. A cached
+	 * layout is used only for the description object it was computed from, so
+	 * that a description replaced by an index reload gets a fresh layout. The
+	 * cache is safe for use by several threads.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	static final class LayoutCache {
+
+		// final instance field
+		private final ConcurrentMap<IMWEDescID, Layout> layouts = new ConcurrentHashMap<IMWEDescID, Layout>();
+
+		/**
+		 * Returns the layout of the specified description, computing and
+		 * caching it if necessary.
+		 *
+		 * @param entry
+		 *            the description
+		 * @return the layout of the description
+		 * @throws NullPointerException
+		 *             if the description is <code>null</code>
+		 * @throws IllegalArgumentException
+		 *             if the description has more than 64 parts
+		 * @since jMWE 1.0.3
+		 */
+		Layout get(IMWEDesc entry){
+			Layout layout = layouts.get(entry.getID());
+			if(layout == null || layout.entry != entry){
+				layout = new Layout(entry);
+				layouts.put(entry.getID(), layout);
+			}
+			return layout;
+		}
+	}
+
+	/**
+	 * The parts of a description in slot order, together with the masks that
+	 * depend only on the description. A layout is shared by a record and all
+	 * of its clones, and by way of a {@link LayoutCache} by all the records a
+	 * detector builds for the description.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	private static final class Layout {
+
+		// final instance fields
+		final IMWEDesc entry;
+		final IPart[] parts;
+		final long fullMask;
+		final long contentMask;
+		final long[] laterSameForm;
+		final boolean hasMultiple;
+
+		/**
+		 * Computes the layout of the specified description.
+		 *
+		 * @param entry
+		 *            the description
+		 * @throws NullPointerException
+		 *             if the description is <code>null</code>
+		 * @throws IllegalArgumentException
+		 *             if the description has more than 64 parts
+		 * @since jMWE 1.0.3
+		 */
+		Layout(IMWEDesc entry){
+			if(entry == null)
+				throw new NullPointerException();
+
+			// order the parts, dropping any that share an index
+			SortedMap<IPart, Object> sorted = new TreeMap<IPart, Object>();
+			for(IPart p : entry.getParts())
+				sorted.put(p, null);
+			IPart[] parts = sorted.keySet().toArray(new IPart[sorted.size()]);
+			if(parts.length > 64)
+				throw new IllegalArgumentException("too many parts: " + parts.length);
+
+			// compute the masks
+			long contentMask = 0;
+			long[] laterSameForm = new long[parts.length];
+			Set<String> uniqueParts = new HashSet<String>();
+			for(int i = 0; i < parts.length; i++){
+				if(!parts[i].isStopWord())
+					contentMask |= 1L << i;
+				for(int j = i + 1; j < parts.length; j++)
+					if(parts[j].getForm().equals(parts[i].getForm()))
+						laterSameForm[i] |= 1L << j;
+				uniqueParts.add(parts[i].getForm().toLowerCase());
+			}
+
+			this.entry = entry;
+			this.parts = parts;
+			this.fullMask = parts.length == 64 ? -1L : (1L << parts.length) - 1;
+			this.contentMask = contentMask;
+			this.hasMultiple = uniqueParts.size() < entry.getParts().size();
+
+			// matching slots only matter when parts repeat
+			if(!hasMultiple)
+				Arrays.fill(laterSameForm, 0L);
+			this.laterSameForm = laterSameForm;
+		}
+
+		/**
+		 * Returns the slot index of the specified part, or -1 if it is not a
+		 * part of this layout.
+		 *
+		 * @param part
+		 *            the part
+		 * @return the slot index of the part, or -1
+		 * @since jMWE 1.0.3
+		 */
+		int indexOf(IPart part){
+			for(int i = 0; i < parts.length; i++)
+				if(parts[i].compareTo(part) == 0)
+					return i;
+			return -1;
+		}
+
+		/**
+		 * Returns a mask of the slots the specified token can fill.
+		 *
+		 * @param token
+		 *            the token
+		 * @return the mask of slots the token can fill
+		 * @since jMWE 1.0.3
+		 */
+		long getFillableSlots(IToken token){
+			long mask = 0;
+			for(int i = 0; i < parts.length; i++)
+				if(RootMWEDesc.isFillerForSlot(token, parts[i]))
+					mask |= 1L << i;
+			return mask;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.detect;
+
+import java.util.BitSet;
+import java.util.Map;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWEPOS;
+
+/**
+ * A canonical key for an MWE within a sentence, made of the part of speech of
+ * the MWE and the set of the positions of its tokens in the sentence. Two MWEs
+ * in the same sentence have equal keys exactly when they have the same part
+ * of speech and are made of the same tokens, regardless of the description
+ * they were built from or the order of their parts. Detectors use the keys to
+ * suppress duplicate MWEs with a hash lookup rather than by comparing each
+ * new MWE against all those found so far.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+final class MWEKey {
+
+	// final instance fields
+	private final MWEPOS pos;
+	private final BitSet tokens;
+	private final int hash;
+
+	/**
+	 * Constructs a key from a part of speech and a set of token positions.
+	 *
+	 * @param pos
+	 *            the part of speech of the MWE; may be <code>null</code>
+	 * @param tokens
+	 *            the positions of the tokens of the MWE in the sentence; may
+	 *            not be <code>null</code>, and is not copied
+	 * @throws NullPointerException
+	 *             if the set of positions is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	MWEKey(MWEPOS pos, BitSet tokens) {
+		this.pos = pos;
+		this.tokens = tokens;
+		this.hash = 31 * (pos == null ? 0 : pos.ordinal() + 1) + tokens.hashCode();
+	}
+
+	/**
+	 * Returns the key for the specified MWE.
+	 *
+	 * @param <T>
+	 *            the type of the tokens
+	 * @param mwe
+	 *            the MWE; may not be <code>null</code>
+	 * @param indexMap
+	 *            a map from each token of the sentence to its position in the
+	 *            sentence, such as that of a
+	 *            {@link edu.mit.jmwe.util.ListComparator}; may not be
+	 *            <code>null</code>
+	 * @return the key for the MWE, or <code>null</code> if one of its tokens
+	 *         is not in the index map
+	 * @throws NullPointerException
+	 *             if either argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	static <T extends IToken> MWEKey of(IMWE<T> mwe, Map<T, Integer> indexMap) {
+		BitSet tokens = new BitSet();
+		Integer idx;
+		for(T token : mwe.getTokens()){
+			idx = indexMap.get(token);
+			if(idx == null)
+				return null;
+			tokens.set(idx);
+		}
+		return new MWEKey(mwe.getEntry().getPOS(), tokens);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if(this == obj)
+			return true;
+		if(!(obj instanceof MWEKey))
+			return false;
+		MWEKey other = (MWEKey)obj;
+		return hash == other.hash && pos == other.pos && tokens.equals(other.tokens);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return pos + tokens.toString();
+	}
+
+}
@@ -0,0 +1,157 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.detect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IToken;
+
+/**
+ * A detector that splits a batch of sentences into chunks and runs its backing
+ * detector over the chunks concurrently, using a caller-supplied executor. The
+ * results are returned in the order of the sentences, and are the same as
+ * those of the backing detector. Single sentences are passed straight through
+ * to the backing detector.
+ * <p>
+ * The backing detector must be safe for use by multiple threads at once. The
+ * detectors in this package are, provided the index they use is open and not
+ * concurrently closed. The executor is not shut down by this detector.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class Parallel extends HasMWEDetector implements IMWEDetector {
+
+	/**
+	 * The default number of sentences in each chunk submitted to the executor.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 32;
+
+	// final instance fields
+	private final ExecutorService executor;
+	private final int chunkSize;
+
+	/**
+	 * Constructs a new parallel detector that uses the default chunk size.
+	 *
+	 * @param detector
+	 *            the detector to run in parallel; may not be <code>null</code>
+	 * @param executor
+	 *            the executor on which to run the chunks; may not be
+	 *            <code>null</code>
+	 * @throws NullPointerException
+	 *             if either argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public Parallel(IMWEDetector detector, ExecutorService executor) {
+		this(detector, executor, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Constructs a new parallel detector.
+	 *
+	 * @param detector
+	 *            the detector to run in parallel; may not be <code>null</code>
+	 * @param executor
+	 *            the executor on which to run the chunks; may not be
+	 *            <code>null</code>
+	 * @param chunkSize
+	 *            the number of sentences in each chunk; must be positive
+	 * @throws NullPointerException
+	 *             if the detector or executor is <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             if the chunk size is not positive
+	 * @since jMWE 1.0.3
+	 */
+	public Parallel(IMWEDetector detector, ExecutorService executor, int chunkSize) {
+		super(detector);
+		if(executor == null)
+			throw new NullPointerException();
+		if(chunkSize < 1)
+			throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+		this.executor = executor;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Returns the executor on which chunks are run.
+	 *
+	 * @return the executor on which chunks are run
+	 * @since jMWE 1.0.3
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Returns the number of sentences in each chunk.
+	 *
+	 * @return the number of sentences in each chunk
+	 * @since jMWE 1.0.3
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#detectAll(java.util.List)
+	 */
+	@Override
+	public <T extends IToken> List<List<IMWE<T>>> detectAll(List<? extends List<T>> sentences) {
+
+		// not worth the hand-off
+		if(sentences.size() <= chunkSize)
+			return getWrappedDetector().detectAll(sentences);
+
+		// submit the chunks
+		List<Future<List<List<IMWE<T>>>>> futures = new ArrayList<Future<List<List<IMWE<T>>>>>();
+		for(int start = 0; start < sentences.size(); start += chunkSize){
+			final List<? extends List<T>> chunk = sentences.subList(start, Math.min(start + chunkSize, sentences.size()));
+			futures.add(executor.submit(new Callable<List<List<IMWE<T>>>>() {
+				public List<List<IMWE<T>>> call() {
+					return getWrappedDetector().detectAll(chunk);
+				}
+			}));
+		}
+
+		// collect the results in order
+		List<List<IMWE<T>>> results = new ArrayList<List<IMWE<T>>>(sentences.size());
+		try {
+			for(Future<List<List<IMWE<T>>>> future : futures)
+				results.addAll(future.get());
+		} catch(InterruptedException e) {
+			for(Future<?> future : futures)
+				future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while detecting MWEs", e);
+		} catch(ExecutionException e) {
+			for(Future<?> future : futures)
+				future.cancel(true);
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if(cause instanceof Error)
+				throw (Error)cause;
+			throw new IllegalStateException(cause);
+		}
+		return results;
+	}
+
+}
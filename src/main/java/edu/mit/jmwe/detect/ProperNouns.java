@@ -36,8 +36,24 @@ import edu.mit.jmwe.data.MWEPOS;
  */
 public class ProperNouns implements IMWEDetector { 
 	
+	/**
+	 * The number of proper noun descriptions cached by each detector.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int CACHE_SIZE = 4096;
+	
 	// the singleton instance
 	private static ProperNouns instance = null;
+	
+	// the most recently used descriptions, by form
+	private final Map<String, IRootMWEDesc> descriptions = new LinkedHashMap<String, IRootMWEDesc>(64, 0.75f, true){
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, IRootMWEDesc> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
 
 	/**
 	 * Returns the singleton instance of this class, instantiating if necessary.
@@ -66,15 +82,15 @@ public class ProperNouns implements IMWEDetector {
 	 */
 	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
 		
-		List<IMWE<T>> result = new LinkedList<IMWE<T>>();
+		List<IMWE<T>> result = new ArrayList<IMWE<T>>();
 		LinkedList<T> tokens = null;
-		List<String> parts;
-		Map<T,IPart> idxparts;
-		IRootMWEDesc mweDesc;
-		boolean foundEnd = false;
+		boolean foundEnd;
+		int last = sentence.size() - 1;
+		int idx = 0;
 		
 		for(T token: sentence){
-			if(sentence.indexOf(token) == (sentence.size()-1)) foundEnd = true;
+			// the run ends at the last token of the sentence
+			foundEnd = (idx++ == last);
 			if(isProperNoun(token)){
 				if(tokens == null) tokens = new LinkedList<T>();
 				tokens.add(token);
@@ -88,29 +104,80 @@ public class ProperNouns implements IMWEDetector {
 					foundEnd = true;
 					if(tokens.isEmpty()||tokens.size()==1){
 						tokens = null;
-						foundEnd = false;
 						continue;	
 					}
 				}
 			}
 			
 			if(foundEnd && tokens.size()>1){
-				parts = new ArrayList<String>(tokens.size());
-				for(T t : tokens)
-					parts.add(t.getForm());
-				mweDesc = new RootMWEDesc(parts, MWEPOS.PROPER_NOUN);
-				idxparts = new LinkedHashMap<T, IPart>();
-				for(int i = 0; i < tokens.size(); i++)
-					idxparts.put(tokens.get(i), mweDesc.getParts().get(i));
-				result.add(new MWE<T>(idxparts));
+				result.add(toMWE(tokens));
 				tokens = null;
-				foundEnd = false;
 			}
 		}
 		
 		Collections.sort(result, new MWEComparator<T>(sentence));
 		return result;
 	}
+	
+	/**
+	 * Creates a proper noun MWE from a run of tokens.
+	 * 
+	 * @param <T>
+	 *            the type of token
+	 * @param tokens
+	 *            the tokens, in sentence order
+	 * @return the MWE made of the tokens
+	 * @since jMWE 1.0.3
+	 */
+	protected <T extends IToken> IMWE<T> toMWE(List<T> tokens){
+		IRootMWEDesc mweDesc = getDescription(tokens);
+		Map<T,IPart> idxparts = new LinkedHashMap<T, IPart>();
+		int i = 0;
+		for(T t : tokens)
+			idxparts.put(t, mweDesc.getParts().get(i++));
+		return new MWE<T>(idxparts, false);
+	}
+	
+	/**
+	 * Returns the proper noun description whose parts are the forms of the
+	 * specified tokens. Descriptions are immutable, so the same description
+	 * is returned for each run of tokens with the same lower case form, for as
+	 * long as it remains among the {@link #CACHE_SIZE} most recently used.
+	 * 
+	 * @param tokens
+	 *            the tokens, in sentence order
+	 * @return the description of the proper noun made of the tokens
+	 * @throws IllegalArgumentException
+	 *             if a token form contains an underscore
+	 * @since jMWE 1.0.3
+	 */
+	protected IRootMWEDesc getDescription(List<? extends IToken> tokens){
+		StringBuilder sb = new StringBuilder();
+		for(IToken t : tokens){
+			if(sb.length() > 0)
+				sb.append('_');
+			sb.append(t.getForm().toLowerCase());
+		}
+		String form = sb.toString();
+		
+		IRootMWEDesc mweDesc;
+		synchronized(descriptions){
+			mweDesc = descriptions.get(form);
+		}
+		// a form with an underscore inside a part may match a description
+		// with a different number of parts; such forms are rejected when the
+		// description is built
+		if(mweDesc == null || mweDesc.getParts().size() != tokens.size()){
+			List<String> parts = new ArrayList<String>(tokens.size());
+			for(IToken t : tokens)
+				parts.add(t.getForm());
+			mweDesc = new RootMWEDesc(parts, MWEPOS.PROPER_NOUN);
+			synchronized(descriptions){
+				descriptions.put(form, mweDesc);
+			}
+		}
+		return mweDesc;
+	}
 
 	/**
 	 * Checks if a token that is not a proper noun may still be a part of a
@@ -10,18 +10,15 @@
 package edu.mit.jmwe.detect;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Set;
 
 import edu.mit.jmwe.data.IMWE;
 import edu.mit.jmwe.data.IToken;
-import edu.mit.jmwe.data.MWE;
 import edu.mit.jmwe.data.MWEComparator;
+import edu.mit.jmwe.detect.score.AbstractScorer;
 import edu.mit.jmwe.detect.score.IScorer;
 import edu.mit.jmwe.util.CompositeComparator;
 
@@ -60,42 +57,75 @@ public abstract class ResolveByScore extends HasMWEDetector implements IMWEDetec
 	/* 
 	 * (non-Javadoc)
 	 *
-	 * @see edu.mit.jmwe.detect.IMWEDetector#detect(java.util.List)
+	 * @see edu.mit.jmwe.detect.HasMWEDetector#filter(java.util.List, java.util.List)
 	 */
-	public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
-		
-		// run embedded detector
-		List<IMWE<T>> results = super.detect(sentence);
+	@Override
+	protected <T extends IToken> List<IMWE<T>> filter(List<T> sentence, List<IMWE<T>> results) {
 		
 		// get comparators
-		Comparator<IMWE<T>> scoreComp = getScorer(sentence);
-		if(chooseLargest)
-			scoreComp = Collections.reverseOrder(scoreComp);
-		Comparator<IMWE<T>> mweComp = new MWEComparator<T>(sentence);
-		Comparator<IMWE<T>> c = new CompositeComparator<IMWE<T>>(scoreComp, mweComp);
+		IScorer<IMWE<T>> scorer = getScorer(sentence);
+		MWEComparator<T> mweComp = new MWEComparator<T>(sentence);
 		
-		// sort first score (best score first), then leftmost mwe index
-		Collections.sort(results, c);
-		LinkedList<IMWE<T>> queue = new LinkedList<IMWE<T>>(results);
+		// sort first score (best score first), then leftmost mwe index;
+		// scorers that compare by score are asked for each score only once
+		IMWE<T>[] queue = sort(results, scorer, mweComp);
 
-		// pick the best scoring MWE, and then throw away everything
-		// that conflicts with it.  Repeat until done.
-		IMWE<T> mwe;
-		Set<IMWE<T>> resultSet = new LinkedHashSet<IMWE<T>>();
-		while(!queue.isEmpty()){
-			mwe = queue.removeFirst();
-			if(resultSet.add(mwe))
-				for(Iterator<IMWE<T>> i = queue.iterator(); i.hasNext(); )
-					if(MWE.overlap(mwe, i.next()) > 0)
-						i.remove();
-		}
+		// take the best scoring MWE, and then each next best that does not
+		// conflict with those already taken
+		TokenOccupancy<T> occupancy = new TokenOccupancy<T>(mweComp.getIndexMap());
+		results = new ArrayList<IMWE<T>>();
+		for(IMWE<T> mwe : queue)
+			if(occupancy.claim(mwe))
+				results.add(mwe);
 		
 		// dump to result list
-		results = new ArrayList<IMWE<T>>(resultSet);
 		Collections.sort(results, mweComp);
 		return results;
 	}
-
+	
+	/**
+	 * Sorts the candidates by score, best first, and then by their position
+	 * in the sentence. If the scorer is an {@link AbstractScorer}, which
+	 * compares objects by their scores, each candidate is scored once;
+	 * otherwise the scorer is used as a comparator.
+	 * 
+	 * @param <T>
+	 *            the type of tokens in the MWEs
+	 * @param candidates
+	 *            the candidates
+	 * @param scorer
+	 *            the scorer
+	 * @param mweComp
+	 *            the comparator for MWEs with equal scores
+	 * @return an array of the sorted candidates
+	 * @since jMWE 1.0.3
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private <T extends IToken> IMWE<T>[] sort(List<IMWE<T>> candidates, IScorer<IMWE<T>> scorer, final Comparator<IMWE<T>> mweComp) {
+		IMWE<T>[] sorted = candidates.toArray(new IMWE[candidates.size()]);
+		if(!(scorer instanceof AbstractScorer)){
+			Comparator<IMWE<T>> scoreComp = chooseLargest ? Collections.reverseOrder(scorer) : scorer;
+			Arrays.sort(sorted, new CompositeComparator<IMWE<T>>(scoreComp, mweComp));
+			return sorted;
+		}
+		
+		// pair each candidate with its score
+		Scored<T>[] scored = new Scored[sorted.length];
+		for(int i = 0; i < sorted.length; i++)
+			scored[i] = new Scored<T>(sorted[i], scorer.score(sorted[i]));
+		Arrays.sort(scored, new Comparator<Scored<T>>(){
+			public int compare(Scored<T> one, Scored<T> two) {
+				int cmp = chooseLargest ? 
+						Double.compare(two.score, one.score) :
+							Double.compare(one.score, two.score);
+				return cmp != 0 ? cmp : mweComp.compare(one.mwe, two.mwe);
+			}
+		});
+		for(int i = 0; i < sorted.length; i++)
+			sorted[i] = scored[i].mwe;
+		return sorted;
+	}
+	
 	/**
 	 * Returns the scoring function for this filter.
 	 * 
@@ -108,4 +138,33 @@ public abstract class ResolveByScore extends HasMWEDetector implements IMWEDetec
 	 */
 	protected abstract <T extends IToken> IScorer<IMWE<T>> getScorer(List<T> sentence);
 
+	/**
+	 * A candidate MWE and its score.
+	 * 
+	 * @param <T>
+	 *            the type of tokens in the MWE
+	 * @since jMWE 1.0.3
+	 */
+	private static class Scored<T extends IToken> {
+		
+		// final instance fields
+		final IMWE<T> mwe;
+		final double score;
+		
+		/**
+		 * Pairs a candidate with its score.
+		 * 
+		 * @param mwe
+		 *            the candidate
+		 * @param score
+		 *            its score
+		 * @since jMWE 1.0.3
+		 */
+		Scored(IMWE<T> mwe, double score){
+			this.mwe = mwe;
+			this.score = score;
+		}
+		
+	}
+
 }
@@ -54,8 +54,9 @@ public class StopWords implements IMWEDetector {
 			"this_and_that_R", "such_and_such_J", "in_the_R", "on_the_R", "such_as_R", "is_there_V", "was_there_V", "as_it_R",
 			"of_a_N", "to_the_R"));
 	
-	// final instance field
+	// final instance fields
 	private final IMWEIndex index;
+	private final MWEBuilder.LayoutCache layouts = new MWEBuilder.LayoutCache();
 	
 	/**
 	 * Constructs this detector from the default stop word MWE index.
@@ -116,7 +117,7 @@ public class StopWords implements IMWEDetector {
 				 }
 				 
 				 // add the new record
-				 records.add(new MWEBuilder<T>(entry, comparator));
+				 records.add(new MWEBuilder<T>(entry, comparator, layouts));
 				 MWEBuilder.fillSlots(records, token);
 			}
 		}
@@ -0,0 +1,158 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.detect;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.util.ListComparator;
+
+/**
+ * Records which tokens of a sentence are used by the MWEs that a resolver has
+ * accepted so far, so that each further candidate can be accepted or
+ * rejected by looking only at its own tokens, rather than by comparing it
+ * against every other candidate. Tokens are tracked by their position in the
+ * sentence; tokens that are not in the sentence are tracked by identity.
+ * <p>
+ * Instances are meant to be used for a single sentence by a single thread.
+ *
+ * @param <T>
+ *            the type of tokens in the sentence
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class TokenOccupancy<T extends IToken> {
+
+	// final instance fields
+	private final Map<T, Integer> indexMap;
+	private final BitSet occupied;
+
+	// tokens outside the sentence, created on first need
+	private Set<Object> others = null;
+
+	/**
+	 * Constructs an empty occupancy for the specified sentence.
+	 *
+	 * @param sentence
+	 *            the sentence; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the sentence is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public TokenOccupancy(List<T> sentence) {
+		this(ListComparator.createIndexMap(sentence));
+	}
+
+	/**
+	 * Constructs an empty occupancy for the sentence with the specified map of
+	 * tokens to their positions, such as that of a {@link ListComparator}.
+	 *
+	 * @param indexMap
+	 *            the position of each token in the sentence; may not be
+	 *            <code>null</code>
+	 * @throws NullPointerException
+	 *             if the map is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public TokenOccupancy(Map<T, Integer> indexMap) {
+		if(indexMap == null)
+			throw new NullPointerException();
+		this.indexMap = indexMap;
+		this.occupied = new BitSet(indexMap.size());
+	}
+
+	/**
+	 * Returns the position of the specified token in the sentence.
+	 *
+	 * @param token
+	 *            the token
+	 * @return the position of the token, or -1 if it is not in the sentence
+	 * @since jMWE 1.0.3
+	 */
+	public int indexOf(T token) {
+		Integer idx = indexMap.get(token);
+		return idx == null ? -1 : idx;
+	}
+
+	/**
+	 * Returns true if the specified token is used by an MWE occupied so far.
+	 *
+	 * @param token
+	 *            the token
+	 * @return true if the token is occupied
+	 * @since jMWE 1.0.3
+	 */
+	public boolean isOccupied(T token) {
+		int idx = indexOf(token);
+		if(idx >= 0)
+			return occupied.get(idx);
+		return others != null && others.contains(token);
+	}
+
+	/**
+	 * Returns true if any token of the specified MWE is occupied.
+	 *
+	 * @param mwe
+	 *            the MWE
+	 * @return true if the MWE overlaps an MWE occupied so far
+	 * @since jMWE 1.0.3
+	 */
+	public boolean overlaps(IMWE<T> mwe) {
+		for(T token : mwe.getTokens())
+			if(isOccupied(token))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Marks the tokens of the specified MWE as occupied.
+	 *
+	 * @param mwe
+	 *            the MWE
+	 * @since jMWE 1.0.3
+	 */
+	public void occupy(IMWE<T> mwe) {
+		int idx;
+		for(T token : mwe.getTokens()){
+			idx = indexOf(token);
+			if(idx >= 0){
+				occupied.set(idx);
+			} else {
+				if(others == null)
+					others = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+				others.add(token);
+			}
+		}
+	}
+
+	/**
+	 * Occupies the tokens of the specified MWE if none of them is occupied
+	 * already.
+	 *
+	 * @param mwe
+	 *            the MWE
+	 * @return true if the MWE was free and its tokens are now occupied;
+	 *         false if it overlaps an MWE occupied before
+	 * @since jMWE 1.0.3
+	 */
+	public boolean claim(IMWE<T> mwe) {
+		if(overlaps(mwe))
+			return false;
+		occupy(mwe);
+		return true;
+	}
+
+}
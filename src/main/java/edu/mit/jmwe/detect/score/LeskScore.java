@@ -10,12 +10,8 @@
 package edu.mit.jmwe.detect.score;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -34,6 +30,11 @@ import edu.mit.jwi.morph.WordnetStemmer;
 
 /**
  * Scores an object with its lesk-score overlap with dictionary glosses.
+ * <p>
+ * A scorer constructed with a {@link LeskSignatures} store takes the stemmed
+ * content words of each gloss from the store, and counts the overlap as the
+ * intersection of two sorted arrays of word identifiers, rather than
+ * processing the glosses again for every sentence.
  * 
  * @param <T>
  *            the type of token used by this scorer
@@ -47,6 +48,12 @@ public class LeskScore<T extends IToken> extends AbstractScorer<IMWE<T>> {
 	protected final Set<String> contextWords;
 	protected final IDictionary dict;
 	protected final IStemmer stemmer;
+	protected final LeskSignatures signatures;
+	
+	// the context words as identifiers in the store, and the vocabulary size
+	// of the store when they were looked up
+	private int[] contextIDs = null;
+	private int contextVocabSize = -1;
 
 	/**
 	 * Constructs a new lesk scorer for the specified sentence and dictionary.
@@ -65,13 +72,48 @@ public class LeskScore<T extends IToken> extends AbstractScorer<IMWE<T>> {
 			throw new NullPointerException();
 		this.dict = dict;
 		this.stemmer = new WordnetStemmer(dict);
-		
+		this.signatures = null;
+		this.contextWords = getContextWords(sentence);
+	}
+	
+	/**
+	 * Constructs a new lesk scorer for the specified sentence that takes the
+	 * glosses of MWEs from the specified store of signatures.
+	 * 
+	 * @param sentence
+	 *            the sentence for the scorer
+	 * @param signatures
+	 *            the store of signatures to be used by the scorer; may not be
+	 *            <code>null</code>
+	 * @throws NullPointerException
+	 *             if either argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public LeskScore(List<T> sentence, LeskSignatures signatures){
+		if(signatures == null)
+			throw new NullPointerException();
+		this.dict = signatures.getDictionary();
+		this.stemmer = signatures.getStemmer();
+		this.signatures = signatures;
+		this.contextWords = getContextWords(sentence);
+	}
+	
+	/**
+	 * Returns the stemmed content words of the specified sentence.
+	 * 
+	 * @param sentence
+	 *            the sentence
+	 * @return an unmodifiable set of the content words of the sentence and
+	 *         their stems
+	 * @since jMWE 1.0.3
+	 */
+	private Set<String> getContextWords(List<T> sentence){
 		StringBuilder sb = new StringBuilder();
 		for(T token: sentence)
 			sb.append(token.getForm()+" ");
 		List<String> contextWords = getContentWords(sb.toString());
 		Set<String> contextSet = getStemmedWords(contextWords);
-		this.contextWords = Collections.unmodifiableSet(contextSet);
+		return Collections.unmodifiableSet(contextSet);
 	}
 
 	/* 
@@ -80,6 +122,8 @@ public class LeskScore<T extends IToken> extends AbstractScorer<IMWE<T>> {
 	 * @see edu.mit.jmwe.detect.score.IScorer#score(java.lang.Object)
 	 */
 	public double score(IMWE<T> mwe) {
+		if(signatures != null)
+			return scoreBySignature(mwe);
 		List<String> glosses = getGlosses(mwe.getEntry().getForm(), mwe.getEntry().getPOS());
 		if(glosses.isEmpty())
 			return 0.0;
@@ -99,6 +143,37 @@ public class LeskScore<T extends IToken> extends AbstractScorer<IMWE<T>> {
 		return bestScore;
 	}
 	
+	/**
+	 * Scores the specified MWE against the glosses in the store of
+	 * signatures.
+	 * 
+	 * @param mwe
+	 *            the MWE to be scored
+	 * @return the best overlap of a gloss of the MWE with the sentence
+	 * @since jMWE 1.0.3
+	 */
+	protected double scoreBySignature(IMWE<T> mwe) {
+		int[][] glosses = signatures.getSignature(mwe.getEntry().getForm(), mwe.getEntry().getPOS());
+		if(glosses.length == 0)
+			return 0.0;
+		
+		// words added to the store since the last lookup may be context words
+		int size = signatures.getVocabularySize();
+		if(size != contextVocabSize){
+			contextIDs = signatures.lookup(contextWords);
+			contextVocabSize = size;
+		}
+		
+		int bestScore = 0;
+		int overlap;
+		for(int[] gloss : glosses){
+			overlap = LeskSignatures.overlap(gloss, contextIDs);
+			if(overlap > bestScore)
+				bestScore = overlap;
+		}
+		return bestScore;
+	}
+	
 	protected static final Pattern whitespace = Pattern.compile("\\s+");
 	protected static final Pattern punctuation = Pattern.compile("\\p{Punct}");
 
@@ -112,22 +187,7 @@ public class LeskScore<T extends IToken> extends AbstractScorer<IMWE<T>> {
 	 * @since jMWE 1.0.0
 	 */
 	protected List<String> getContentWords(String str){
-		
-		// normalize, getting rid of punctuation
-		str = punctuation.matcher(str.toLowerCase()).replaceAll("");
-		
-		// split on whitespace into words
-		String[] wordArray = whitespace.split(str);
-		List<String> wordList = new LinkedList<String>(Arrays.asList(wordArray));
-		
-		// get rid of stop words
-		Set<String> stopWords = getStopWords();
-		for(Iterator<String> i = wordList.iterator(); i.hasNext();)
-			if(stopWords.contains(i.next()))
-					i.remove();
-		
-		// return result
-		return wordList;
+		return LeskSignatures.getContentWords(str, getStopWords());
 	}
 
 	/**
@@ -197,10 +257,6 @@ public class LeskScore<T extends IToken> extends AbstractScorer<IMWE<T>> {
 	 * @since jMWE 1.0.0
 	 */
 	protected Set<String> getStemmedWords(Collection<String> words) {
-		Set<String> result = new HashSet<String>(words);
-		result.removeAll(getStopWords());
-		for(String word : words)
-			result.addAll(stemmer.findStems(word, null));
-		return result;
+		return LeskSignatures.getStemmedWords(words, getStopWords(), stemmer);
 	}
 }
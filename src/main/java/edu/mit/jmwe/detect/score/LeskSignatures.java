@@ -0,0 +1,489 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.detect.score;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.StopWords;
+import edu.mit.jmwe.util.JWIPOS;
+import edu.mit.jwi.IDictionary;
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.IWordID;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.morph.CachingStemmer;
+import edu.mit.jwi.morph.IStemmer;
+import edu.mit.jwi.morph.WordnetStemmer;
+
+/**
+ * A store of Lesk signatures for use by {@link LeskScore}. The signature of a
+ * lemma and part of speech has one entry for each sense of the lemma: the set
+ * of content words of the sense's gloss, together with their stems, as
+ * computed by {@link LeskScore}. Each word is interned as an integer, and each
+ * set is held as a sorted array of integers, so the overlap of a gloss with a
+ * sentence is the intersection of two sorted arrays.
+ * <p>
+ * Signatures are computed from the dictionary on first use and then kept, so
+ * each gloss is processed once however many sentences are scored. All
+ * signatures may be computed ahead of time with {@link #buildAll()}, and a
+ * store may be written with {@link #save(OutputStream)} and read back with
+ * {@link #load(InputStream, IDictionary)}.
+ * <p>
+ * This class is thread-safe if its dictionary is.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class LeskSignatures {
+
+	// header of the serialized form
+	private static final int MAGIC = 0x4C45534B; // "LESK"
+	private static final int VERSION = 1;
+
+	// the signature of a lemma that is not in the dictionary
+	private static final int[][] EMPTY = new int[0][];
+
+	// final instance fields
+	private final IDictionary dict;
+	private final IStemmer stemmer;
+	private final Map<String, Integer> vocabulary = new ConcurrentHashMap<String, Integer>();
+	private final AtomicInteger nextID = new AtomicInteger();
+	private final ConcurrentHashMap<String, int[][]> signatures = new ConcurrentHashMap<String, int[][]>();
+
+	/**
+	 * Constructs an empty store whose signatures are computed from the
+	 * specified dictionary.
+	 *
+	 * @param dict
+	 *            the dictionary; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the dictionary is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public LeskSignatures(IDictionary dict) {
+		if(dict == null)
+			throw new NullPointerException();
+		this.dict = dict;
+		this.stemmer = new CachingStemmer(new WordnetStemmer(dict));
+	}
+
+	/**
+	 * Returns the dictionary from which the signatures are computed.
+	 *
+	 * @return the dictionary
+	 * @since jMWE 1.0.3
+	 */
+	public IDictionary getDictionary() {
+		return dict;
+	}
+
+	/**
+	 * Returns the stemmer used for glosses and sentences. The stemmer caches
+	 * its results, since scorers sharing this store stem the same words for
+	 * many sentences.
+	 *
+	 * @return the stemmer
+	 * @since jMWE 1.0.3
+	 */
+	public IStemmer getStemmer() {
+		return stemmer;
+	}
+
+	/**
+	 * Returns the signature of the specified lemma and part of speech,
+	 * computing it if necessary.
+	 *
+	 * @param lemma
+	 *            the lemma of the word or MWE
+	 * @param pos
+	 *            the part of speech; proper nouns are looked up as nouns
+	 * @return one sorted array of word identifiers for each gloss of the
+	 *         lemma, in the order of the dictionary's senses; empty if the
+	 *         lemma is not in the dictionary. The arrays must not be modified.
+	 * @since jMWE 1.0.3
+	 */
+	public int[][] getSignature(String lemma, MWEPOS pos) {
+		POS p = (pos.getIdentifier() == 'P') ? POS.NOUN : JWIPOS.toPOS(pos);
+		if(p == null)
+			return EMPTY;
+		return getSignature(lemma, p);
+	}
+
+	/**
+	 * Returns the signature of the specified lemma and part of speech,
+	 * computing it if necessary.
+	 *
+	 * @param lemma
+	 *            the lemma
+	 * @param pos
+	 *            the part of speech
+	 * @return one sorted array of word identifiers for each gloss of the lemma
+	 * @since jMWE 1.0.3
+	 */
+	protected int[][] getSignature(String lemma, POS pos) {
+		String key = toKey(lemma, pos);
+		int[][] signature = signatures.get(key);
+		if(signature == null){
+			signature = computeSignature(lemma, pos);
+			int[][] prev = signatures.putIfAbsent(key, signature);
+			if(prev != null)
+				signature = prev;
+		}
+		return signature;
+	}
+
+	/**
+	 * Computes the signature of the specified lemma from the dictionary.
+	 *
+	 * @param lemma
+	 *            the lemma
+	 * @param pos
+	 *            the part of speech
+	 * @return one sorted array of word identifiers for each gloss of the lemma
+	 * @since jMWE 1.0.3
+	 */
+	protected int[][] computeSignature(String lemma, POS pos) {
+		IIndexWord word = dict.getIndexWord(lemma, pos);
+		if(word == null)
+			return EMPTY;
+		List<IWordID> ids = word.getWordIDs();
+		int[][] signature = new int[ids.size()][];
+		String gloss;
+		for(int i = 0; i < signature.length; i++){
+			gloss = dict.getWord(ids.get(i)).getSynset().getGloss();
+			signature[i] = intern(getStemmedWords(getContentWords(gloss, StopWords.get()), StopWords.get(), stemmer));
+		}
+		return signature;
+	}
+
+	/**
+	 * Computes the signature of every lemma of every part of speech in the
+	 * dictionary that does not already have one.
+	 *
+	 * @return the number of signatures in the store
+	 * @since jMWE 1.0.3
+	 */
+	public int buildAll() {
+		IIndexWord word;
+		for(POS pos : POS.values())
+			for(Iterator<IIndexWord> i = dict.getIndexWordIterator(pos); i.hasNext(); ){
+				word = i.next();
+				getSignature(word.getLemma(), pos);
+			}
+		return signatures.size();
+	}
+
+	/**
+	 * Returns the identifier of the specified word, adding the word to the
+	 * vocabulary of this store if necessary.
+	 *
+	 * @param word
+	 *            the word
+	 * @return the identifier of the word
+	 * @since jMWE 1.0.3
+	 */
+	protected int intern(String word) {
+		Integer id = vocabulary.get(word);
+		if(id == null){
+			synchronized(vocabulary){
+				id = vocabulary.get(word);
+				if(id == null){
+					// add the word before the size that counts it grows,
+					// so that a caller that sees the size can look it up
+					id = nextID.get();
+					vocabulary.put(word, id);
+					nextID.set(id + 1);
+				}
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the identifiers of the specified words as a sorted array,
+	 * adding the words to the vocabulary of this store if necessary.
+	 *
+	 * @param words
+	 *            the distinct words
+	 * @return the sorted identifiers of the words
+	 * @since jMWE 1.0.3
+	 */
+	protected int[] intern(Collection<String> words) {
+		int[] result = new int[words.size()];
+		int i = 0;
+		for(String word : words)
+			result[i++] = intern(word);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the identifiers of those of the specified words that are in the
+	 * vocabulary of this store, as a sorted array. Words that are not in the
+	 * vocabulary are in no signature computed so far.
+	 *
+	 * @param words
+	 *            the distinct words
+	 * @return the sorted identifiers of the words in the vocabulary
+	 * @since jMWE 1.0.3
+	 */
+	public int[] lookup(Collection<String> words) {
+		int[] result = new int[words.size()];
+		int n = 0;
+		Integer id;
+		for(String word : words){
+			id = vocabulary.get(word);
+			if(id != null)
+				result[n++] = id;
+		}
+		result = Arrays.copyOf(result, n);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Returns the number of words in the vocabulary of this store. The number
+	 * only grows, so a caller that has looked up words may tell whether it
+	 * needs to look them up again. Every word counted in the returned number
+	 * is found by a later call to {@link #lookup(Collection)}.
+	 *
+	 * @return the number of words in the vocabulary
+	 * @since jMWE 1.0.3
+	 */
+	public int getVocabularySize() {
+		return nextID.get();
+	}
+
+	/**
+	 * Returns the number of signatures in this store.
+	 *
+	 * @return the number of signatures in this store
+	 * @since jMWE 1.0.3
+	 */
+	public int size() {
+		return signatures.size();
+	}
+
+	/**
+	 * Returns the number of elements two sorted arrays of distinct integers
+	 * have in common.
+	 *
+	 * @param one
+	 *            the first array
+	 * @param two
+	 *            the second array
+	 * @return the size of the intersection of the arrays
+	 * @since jMWE 1.0.3
+	 */
+	public static int overlap(int[] one, int[] two) {
+		int i = 0, j = 0, count = 0;
+		while(i < one.length && j < two.length){
+			if(one[i] < two[j]){
+				i++;
+			} else if(one[i] > two[j]){
+				j++;
+			} else {
+				count++;
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the vocabulary and signatures of this store to the specified
+	 * stream. The stream is not closed.
+	 *
+	 * @param out
+	 *            the stream
+	 * @throws IOException
+	 *             if there is a problem writing to the stream
+	 * @since jMWE 1.0.3
+	 */
+	public void save(OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+
+		// words, in identifier order
+		String[] words;
+		synchronized(vocabulary){
+			words = new String[nextID.get()];
+			for(Map.Entry<String, Integer> e : vocabulary.entrySet())
+				words[e.getValue()] = e.getKey();
+		}
+		data.writeInt(words.length);
+		for(String word : words)
+			data.writeUTF(word);
+
+		// signatures, skipping any whose words were added after the
+		// vocabulary was written
+		Map<String, int[][]> snapshot = new HashMap<String, int[][]>(signatures);
+		for(Iterator<int[][]> i = snapshot.values().iterator(); i.hasNext(); )
+			if(!isCovered(i.next(), words.length))
+				i.remove();
+		data.writeInt(snapshot.size());
+		for(Map.Entry<String, int[][]> e : snapshot.entrySet()){
+			data.writeUTF(e.getKey());
+			data.writeInt(e.getValue().length);
+			for(int[] gloss : e.getValue()){
+				data.writeInt(gloss.length);
+				for(int id : gloss)
+					data.writeInt(id);
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Returns true if every identifier in the signature is less than the
+	 * specified vocabulary size.
+	 *
+	 * @param signature
+	 *            the signature
+	 * @param size
+	 *            the vocabulary size
+	 * @return true if the signature uses only the first words of the
+	 *         vocabulary
+	 * @since jMWE 1.0.3
+	 */
+	private static boolean isCovered(int[][] signature, int size) {
+		for(int[] gloss : signature)
+			if(gloss.length > 0 && gloss[gloss.length-1] >= size)
+				return false;
+		return true;
+	}
+
+	/**
+	 * Reads a store written by {@link #save(OutputStream)}. Signatures that
+	 * were not written are computed from the specified dictionary, which
+	 * should be the one from which the store was built. The stream is not
+	 * closed.
+	 *
+	 * @param in
+	 *            the stream
+	 * @param dict
+	 *            the dictionary; may not be <code>null</code>
+	 * @return the store
+	 * @throws IOException
+	 *             if there is a problem reading the stream, or it does not
+	 *             hold a store
+	 * @throws NullPointerException
+	 *             if either argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public static LeskSignatures load(InputStream in, IDictionary dict) throws IOException {
+		LeskSignatures result = new LeskSignatures(dict);
+		DataInputStream data = new DataInputStream(in);
+		if(data.readInt() != MAGIC)
+			throw new IOException("not a Lesk signature store");
+		int version = data.readInt();
+		if(version != VERSION)
+			throw new IOException("unsupported Lesk signature store version: " + version);
+
+		int size = data.readInt();
+		for(int i = 0; i < size; i++)
+			result.vocabulary.put(data.readUTF(), i);
+		result.nextID.set(size);
+
+		int count = data.readInt();
+		String key;
+		int[][] signature;
+		for(int i = 0; i < count; i++){
+			key = data.readUTF();
+			signature = new int[data.readInt()][];
+			for(int j = 0; j < signature.length; j++){
+				signature[j] = new int[data.readInt()];
+				for(int k = 0; k < signature[j].length; k++)
+					signature[j][k] = data.readInt();
+			}
+			result.signatures.put(key, signature);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the key of a lemma and part of speech in this store.
+	 *
+	 * @param lemma
+	 *            the lemma
+	 * @param pos
+	 *            the part of speech
+	 * @return the key
+	 * @since jMWE 1.0.3
+	 */
+	private static String toKey(String lemma, POS pos) {
+		return pos.getTag() + lemma.toLowerCase();
+	}
+
+	/**
+	 * Given a string representation of a sentence, removes all punctuation and
+	 * stop words. Returns a list of the remaining content words, assuming
+	 * words are delimited by whitespace.
+	 *
+	 * @param str
+	 *            the string from which the content words will be extracted
+	 * @param stopWords
+	 *            the stop words to remove
+	 * @return a list of all the content words in the string, in lower case
+	 * @since jMWE 1.0.3
+	 */
+	public static List<String> getContentWords(String str, Set<String> stopWords) {
+
+		// normalize, getting rid of punctuation
+		str = LeskScore.punctuation.matcher(str.toLowerCase()).replaceAll("");
+
+		// split on whitespace into words, dropping stop words and the
+		// empty word left by leading whitespace
+		List<String> wordList = new LinkedList<String>();
+		for(String word : LeskScore.whitespace.split(str))
+			if(word.length() > 0 && !stopWords.contains(word))
+				wordList.add(word);
+		return wordList;
+	}
+
+	/**
+	 * Returns a set containing all the strings in the specified collection
+	 * that are not stop words, as well as all the stems of those strings.
+	 *
+	 * @param words
+	 *            the strings to be stemmed
+	 * @param stopWords
+	 *            the stop words to remove
+	 * @param stemmer
+	 *            the stemmer
+	 * @return all the words and all of their stems
+	 * @since jMWE 1.0.3
+	 */
+	public static Set<String> getStemmedWords(Collection<String> words, Set<String> stopWords, IStemmer stemmer) {
+		Set<String> result = new HashSet<String>(words);
+		result.removeAll(stopWords);
+		for(String word : words)
+			result.addAll(stemmer.findStems(word, null));
+		return result;
+	}
+
+}
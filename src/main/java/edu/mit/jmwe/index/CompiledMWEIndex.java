@@ -0,0 +1,581 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.mit.jmwe.data.IInfMWEDesc;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.InfMWEDesc.InfMWEDescBuilder;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.RootMWEDesc;
+
+/**
+ * An implementation of {@link IMWEIndex} that reads an index compiled by
+ * {@link IndexCompiler}. The file is memory-mapped when the index is opened,
+ * so opening requires no parsing and the index data stays off the Java heap.
+ * Description objects are created the first time they are requested and are
+ * reused thereafter.
+ * <p>
+ * Lookups take no lock, and may be made from any number of threads.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class CompiledMWEIndex implements IMWEIndex {
+
+	/**
+	 * The magic number at the start of every compiled index file.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int MAGIC = 0x4A4D5745;
+
+	/**
+	 * The version of the compiled index format read by this class.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int VERSION = 1;
+
+	// the number of integers in the file header
+	private static final int HEADER_INTS = 8;
+
+	// final instance fields
+	private final File file;
+	private final Lock lifecycleLock = new ReentrantLock();
+
+	// dynamic instance fields
+	private volatile Data data;
+
+	/**
+	 * Constructs a new index that reads the specified compiled file.
+	 *
+	 * @param file
+	 *            the compiled index file; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified file is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public CompiledMWEIndex(File file){
+		if(file == null)
+			throw new NullPointerException();
+		this.file = file;
+	}
+
+	/**
+	 * Returns whether the specified file starts with the magic number of a
+	 * compiled index file.
+	 *
+	 * @param file
+	 *            the file to be checked; may not be <code>null</code>
+	 * @return <code>true</code> if the file appears to be a compiled index;
+	 *         <code>false</code> otherwise
+	 * @throws IOException
+	 *             if there is a problem reading the file
+	 * @since jMWE 1.0.3
+	 */
+	public static boolean isCompiled(File file) throws IOException {
+		if(file.length() < HEADER_INTS*4)
+			return false;
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			return raf.readInt() == MAGIC;
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Returns the compiled file used by this index.
+	 *
+	 * @return the compiled file, non-<code>null</code>, used by this index
+	 * @since jMWE 1.0.3
+	 */
+	public File getSource(){
+		return file;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#open()
+	 */
+	public boolean open() throws IOException {
+		try {
+			lifecycleLock.lock();
+			if(isOpen())
+				return true;
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = raf.getChannel();
+				ByteBuffer buf = channel.map(MapMode.READ_ONLY, 0, channel.size());
+				Data dat = new Data(buf);
+				if(dat.numRoots == 0)
+					return false;
+				data = dat;
+				return true;
+			} finally {
+				raf.close();
+			}
+		} finally {
+			lifecycleLock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#isOpen()
+	 */
+	public boolean isOpen() {
+		return data != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#close()
+	 */
+	public void close() {
+		try {
+			lifecycleLock.lock();
+			data = null;
+		} finally {
+			lifecycleLock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#get(edu.mit.jmwe.data.IMWEDescID)
+	 */
+	public IMWEDesc get(IMWEDescID id) {
+		IRootMWEDesc root = getRootMWEDesc(id.getForm(), id.getPOS());
+		if(root == null || id.getInflectedForm() == null)
+			return root;
+		return root.getInflected().get(id.getInflectedForm());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#getRootMWEDesc(java.lang.String, edu.mit.jmwe.data.MWEPOS)
+	 */
+	public IRootMWEDesc getRootMWEDesc(String lemma, MWEPOS pos) {
+		if(pos == null)
+			throw new NullPointerException();
+		Data dat = checkOpen();
+		int root = dat.findRoot(IndexCompiler.encode(lemma.trim().toLowerCase()), pos.getIdentifier());
+		return root < 0 ? null : dat.getRoot(root);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#getInflectedMWEDesc(java.lang.String, edu.mit.jmwe.data.MWEPOS, java.lang.String)
+	 */
+	public IInfMWEDesc getInflectedMWEDesc(String lemma, MWEPOS pos, String inflected) {
+		IRootMWEDesc root = getRootMWEDesc(lemma, pos);
+		if(root == null)
+			return null;
+		return root.getInflected().get(inflected.trim().toLowerCase());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#get(java.lang.String)
+	 */
+	public Set<? extends IRootMWEDesc> get(String part) {
+		return getAll(part).getRootMWEDescs();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#getAll(java.lang.String)
+	 */
+	public IMWEDescSet getAll(String part) {
+		Data dat = checkOpen();
+		if(part.indexOf('_') > -1)
+			throw new IllegalArgumentException();
+		int key = dat.findKey(IndexCompiler.encode(part.toLowerCase()));
+		return key < 0 ? MWEDescSet.emptySet() : dat.getPosting(key);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#getRootIterator()
+	 */
+	public Iterator<IRootMWEDesc> getRootIterator() {
+		final Data dat = checkOpen();
+		return new Iterator<IRootMWEDesc>() {
+			int next = 0;
+			public boolean hasNext() {
+				return next < dat.numRoots;
+			}
+			public IRootMWEDesc next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return dat.getRoot(next++);
+			}
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jmwe.index.IMWEIndex#getIndexIterator()
+	 */
+	public Iterator<String> getIndexIterator() {
+		final Data dat = checkOpen();
+		return new Iterator<String>() {
+			int next = 0;
+			public boolean hasNext() {
+				return next < dat.numKeys;
+			}
+			public String next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				return dat.getString(dat.getInt(dat.keysOff + 3*next++));
+			}
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns the currently mapped data, or throws an
+	 * {@link IllegalStateException} if the index is closed.
+	 *
+	 * @return the currently mapped data
+	 * @throws IllegalStateException
+	 *             if the index is closed
+	 * @since jMWE 1.0.3
+	 */
+	protected Data checkOpen(){
+		Data dat = data;
+		if(dat == null)
+			throw new IllegalStateException("index is closed");
+		return dat;
+	}
+
+	/**
+	 * The mapped contents of a compiled index file, along with the description
+	 * objects materialized from it so far. All reads from the buffer are
+	 * absolute, so the buffer may be shared between threads.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	protected static class Data {
+
+		// final instance fields
+		private final ByteBuffer buf;
+		private final int numStrings, numRoots, numInfs, numKeys;
+		private final int strOffsOff, rootOffsOff, infOffsOff, lookupOff, keysOff, postingsOff, recordsOff, stringsOff;
+		private final AtomicReferenceArray<IRootMWEDesc> roots;
+		private final AtomicReferenceArray<IMWEDescSet> postings;
+
+		/**
+		 * Reads the header of the specified buffer.
+		 *
+		 * @param buf
+		 *            the mapped file
+		 * @throws IOException
+		 *             if the buffer does not contain a compiled index of a
+		 *             supported version
+		 * @since jMWE 1.0.3
+		 */
+		protected Data(ByteBuffer buf) throws IOException {
+			this.buf = buf;
+			if(buf.capacity() < HEADER_INTS*4 || buf.getInt(0) != MAGIC)
+				throw new IOException("not a compiled jMWE index");
+			if(buf.getInt(4) != VERSION)
+				throw new IOException("unsupported compiled index version " + buf.getInt(4));
+			numStrings = buf.getInt(8);
+			numRoots = buf.getInt(12);
+			numInfs = buf.getInt(16);
+			numKeys = buf.getInt(20);
+			int numPostings = buf.getInt(24);
+			int numRecords = buf.getInt(28);
+
+			// section offsets, in ints
+			strOffsOff = HEADER_INTS;
+			rootOffsOff = strOffsOff + numStrings + 1;
+			infOffsOff = rootOffsOff + numRoots;
+			lookupOff = infOffsOff + numInfs;
+			keysOff = lookupOff + numRoots;
+			postingsOff = keysOff + 3*numKeys;
+			recordsOff = postingsOff + numPostings;
+			stringsOff = (recordsOff + numRecords)*4;
+			if(stringsOff + getInt(strOffsOff + numStrings) > buf.capacity())
+				throw new IOException("truncated compiled index");
+
+			roots = new AtomicReferenceArray<IRootMWEDesc>(numRoots);
+			postings = new AtomicReferenceArray<IMWEDescSet>(numKeys);
+		}
+
+		/**
+		 * Returns the integer at the specified int offset.
+		 *
+		 * @param off
+		 *            the offset, in ints, from the start of the file
+		 * @return the integer at the offset
+		 * @since jMWE 1.0.3
+		 */
+		protected int getInt(int off){
+			return buf.getInt(off << 2);
+		}
+
+		/**
+		 * Decodes the string with the specified number.
+		 *
+		 * @param id
+		 *            the string number
+		 * @return the decoded string
+		 * @since jMWE 1.0.3
+		 */
+		protected String getString(int id){
+			int start = getInt(strOffsOff + id);
+			int end = getInt(strOffsOff + id + 1);
+			byte[] bytes = new byte[end - start];
+			for(int i = 0; i < bytes.length; i++)
+				bytes[i] = buf.get(stringsOff + start + i);
+			return new String(bytes, IndexCompiler.UTF8);
+		}
+
+		/**
+		 * Compares the string with the specified number to the specified
+		 * bytes, in unsigned byte order, without decoding the string.
+		 *
+		 * @param id
+		 *            the string number
+		 * @param bytes
+		 *            the UTF-8 bytes to compare against
+		 * @return a negative number, zero, or a positive number as the string
+		 *         is less than, equal to, or greater than the bytes
+		 * @since jMWE 1.0.3
+		 */
+		protected int compareString(int id, byte[] bytes){
+			int start = stringsOff + getInt(strOffsOff + id);
+			int len = stringsOff + getInt(strOffsOff + id + 1) - start;
+			int min = Math.min(len, bytes.length);
+			int cmp;
+			for(int i = 0; i < min; i++){
+				cmp = (buf.get(start + i) & 0xff) - (bytes[i] & 0xff);
+				if(cmp != 0)
+					return cmp;
+			}
+			return len - bytes.length;
+		}
+
+		/**
+		 * Returns the key number for the specified part, or a negative number
+		 * if the part is not in the index.
+		 *
+		 * @param part
+		 *            the UTF-8 bytes of the part
+		 * @return the key number, or a negative number if not found
+		 * @since jMWE 1.0.3
+		 */
+		protected int findKey(byte[] part){
+			int lo = 0, hi = numKeys - 1, mid, cmp;
+			while(lo <= hi){
+				mid = (lo + hi) >>> 1;
+				cmp = compareString(getInt(keysOff + 3*mid), part);
+				if(cmp < 0)
+					lo = mid + 1;
+				else if(cmp > 0)
+					hi = mid - 1;
+				else
+					return mid;
+			}
+			return -1;
+		}
+
+		/**
+		 * Returns the root number for the specified form and part of speech,
+		 * or a negative number if there is no such root.
+		 *
+		 * @param form
+		 *            the UTF-8 bytes of the root form
+		 * @param pos
+		 *            the part of speech identifier
+		 * @return the root number, or a negative number if not found
+		 * @since jMWE 1.0.3
+		 */
+		protected int findRoot(byte[] form, char pos){
+			int lo = 0, hi = numRoots - 1, mid, root, cmp;
+			while(lo <= hi){
+				mid = (lo + hi) >>> 1;
+				root = getInt(lookupOff + mid);
+				int rec = recordsOff + getInt(rootOffsOff + root);
+				cmp = compareString(getInt(rec), form);
+				if(cmp == 0)
+					cmp = getInt(rec + 1) - pos;
+				if(cmp < 0)
+					lo = mid + 1;
+				else if(cmp > 0)
+					hi = mid - 1;
+				else
+					return root;
+			}
+			return -1;
+		}
+
+		/**
+		 * Returns the root description with the specified number, creating it
+		 * if necessary.
+		 *
+		 * @param root
+		 *            the root number
+		 * @return the root description
+		 * @since jMWE 1.0.3
+		 */
+		protected IRootMWEDesc getRoot(int root){
+			IRootMWEDesc desc = roots.get(root);
+			if(desc != null)
+				return desc;
+
+			// root record
+			int rec = recordsOff + getInt(rootOffsOff + root);
+			MWEPOS pos = MWEPOS.fromChar((char)getInt(rec + 1));
+			rec += 2;
+			List<String> parts = readParts(rec);
+			rec += 1 + parts.size();
+			int[] counts = readCounts(rec);
+			rec += 1 + counts.length;
+			int numInf = getInt(rec);
+			int firstInf = getInt(rec + 1);
+
+			// inflected records
+			List<InfMWEDescBuilder> infs = new ArrayList<InfMWEDescBuilder>(numInf);
+			for(int i = firstInf; i < firstInf + numInf; i++){
+				int infRec = recordsOff + getInt(infOffsOff + i);
+				InfMWEDescBuilder b = new InfMWEDescBuilder();
+				b.form = getString(getInt(infRec + 1));
+				infRec += 2;
+				infRec += 1 + getInt(infRec);
+				b.counts = readCounts(infRec);
+				infs.add(b);
+			}
+
+			desc = new RootMWEDesc(parts, pos, infs, counts);
+			if(roots.compareAndSet(root, null, desc))
+				return desc;
+			return roots.get(root);
+		}
+
+		/**
+		 * Returns the description with the specified posting number.
+		 *
+		 * @param num
+		 *            the description number; roots come first, followed by
+		 *            inflected descriptions
+		 * @return the description
+		 * @since jMWE 1.0.3
+		 */
+		protected IMWEDesc getDesc(int num){
+			if(num < numRoots)
+				return getRoot(num);
+			int infRec = recordsOff + getInt(infOffsOff + num - numRoots);
+			IRootMWEDesc root = getRoot(getInt(infRec));
+			return root.getInflected().get(getString(getInt(infRec + 1)));
+		}
+
+		/**
+		 * Returns the set of descriptions filed under the specified key,
+		 * creating it if necessary.
+		 *
+		 * @param key
+		 *            the key number
+		 * @return the unmodifiable set of descriptions
+		 * @since jMWE 1.0.3
+		 */
+		protected IMWEDescSet getPosting(int key){
+			IMWEDescSet set = postings.get(key);
+			if(set != null)
+				return set;
+			int start = postingsOff + getInt(keysOff + 3*key + 1);
+			int len = getInt(keysOff + 3*key + 2);
+			Set<IRootMWEDesc> rootSet = new LinkedHashSet<IRootMWEDesc>();
+			Set<IInfMWEDesc> infSet = new LinkedHashSet<IInfMWEDesc>();
+			IMWEDesc desc;
+			for(int i = start; i < start + len; i++){
+				desc = getDesc(getInt(i));
+				if(desc instanceof IRootMWEDesc)
+					rootSet.add((IRootMWEDesc)desc);
+				else
+					infSet.add((IInfMWEDesc)desc);
+			}
+			set = new MWEDescSet(rootSet, infSet);
+			set.makeUnmodifiable();
+			if(postings.compareAndSet(key, null, set))
+				return set;
+			return postings.get(key);
+		}
+
+		/**
+		 * Reads a part list starting at the specified offset.
+		 *
+		 * @param off
+		 *            the offset of the part count
+		 * @return the part forms
+		 * @since jMWE 1.0.3
+		 */
+		private List<String> readParts(int off){
+			int num = getInt(off);
+			List<String> parts = new ArrayList<String>(num);
+			for(int i = 1; i <= num; i++)
+				parts.add(getString(getInt(off + i)));
+			return parts;
+		}
+
+		/**
+		 * Reads a count array starting at the specified offset.
+		 *
+		 * @param off
+		 *            the offset of the count length
+		 * @return the counts
+		 * @since jMWE 1.0.3
+		 */
+		private int[] readCounts(int off){
+			int[] counts = new int[getInt(off)];
+			for(int i = 0; i < counts.length; i++)
+				counts[i] = getInt(off + 1 + i);
+			return counts;
+		}
+	}
+
+}
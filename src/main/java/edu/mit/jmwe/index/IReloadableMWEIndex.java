@@ -0,0 +1,35 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.index;
+
+/**
+ * An index whose contents may be replaced while it is open, as the handles
+ * handed out by {@link MWEIndexRegistry} are by
+ * {@link MWEIndexRegistry#reload(java.net.URL)}. Objects that cache
+ * information derived from the contents of such an index should compare its
+ * generation with the one they cached, and rebuild their cache when it has
+ * changed.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public interface IReloadableMWEIndex extends IMWEIndex {
+
+	/**
+	 * Returns the generation of the contents of this index. The generation
+	 * changes each time the contents are replaced, and is changed only after
+	 * the new contents are visible through this index.
+	 *
+	 * @return the generation of the contents of this index
+	 * @since jMWE 1.0.3
+	 */
+	public int getGeneration();
+
+}
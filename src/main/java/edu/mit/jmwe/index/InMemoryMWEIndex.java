@@ -15,18 +15,15 @@ import java.io.Reader;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
 import edu.mit.jmwe.data.IInfMWEDesc;
-import edu.mit.jmwe.data.IInfMWEDesc.IInfPart;
 import edu.mit.jmwe.data.IMWEDesc;
 import edu.mit.jmwe.data.IMWEDescID;
 import edu.mit.jmwe.data.IRootMWEDesc;
-import edu.mit.jmwe.data.IRootMWEDesc.IRootPart;
 import edu.mit.jmwe.data.MWEDescID;
 import edu.mit.jmwe.data.MWEPOS;
 import edu.mit.jmwe.data.RootMWEDesc;
@@ -35,6 +32,11 @@ import edu.mit.jmwe.data.RootMWEDesc;
  * The default abstract implementation of {@link IMWEIndex}. Loads the entire index into
  * memory.  Subclasses must implement the {@link #createData()} method to actually create
  * the index data object.
+ * <p>
+ * Lookups do not take any lock: the loaded data is published as an immutable
+ * snapshot, and {@link #open()}, {@link #close()} and {@link #reload()} replace
+ * that snapshot atomically. Any number of threads may therefore query the index
+ * concurrently.
  * 
  * @author Nidhi Kulkarni
  * @author M.A. Finlayson
@@ -46,9 +48,9 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	// final instance fields
 	protected final Lock lifecycleLock = new ReentrantLock();
 	
-	// data
-	private Map<IMWEDescID, ? extends IRootMWEDesc> data;
-	private Map<String, ? extends IMWEDescSet> index;
+	// data, published as a single immutable snapshot so that lookups
+	// need not take the lifecycle lock
+	private volatile Snapshot snapshot;
 	
 	/* 
 	 * (non-Javadoc)
@@ -60,27 +62,65 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 			lifecycleLock.lock();
 			if(isOpen())
 				return true;
-			
-			// create data and index
-			Map<IMWEDescID, ? extends IRootMWEDesc> dat = createData();
-			if(dat.isEmpty())
+			Snapshot snap = createSnapshot();
+			if(snap == null)
 				return false;
-			Map<String, ? extends IMWEDescSet> idx = createIndex(dat);
-			
-			// assign fields if all is well
-			this.data = dat;
-			this.index = idx;
+			snapshot = snap;
 			return true;
 		} finally {
 			lifecycleLock.unlock();
 		}
 	}
 	
+	/**
+	 * Rebuilds the index data and replaces the current data with it in a
+	 * single atomic step. Lookups in progress on other threads continue to see
+	 * the old data; lookups started after this method returns see the new
+	 * data. If the index is closed, this method is equivalent to
+	 * {@link #open()}. If the new data is empty, the current data is retained.
+	 * 
+	 * @return <code>true</code> if the index is open with the new data;
+	 *         <code>false</code> otherwise
+	 * @throws IOException
+	 *             if an IO exception is thrown while creating the data
+	 * @since jMWE 1.0.3
+	 */
+	public boolean reload() throws IOException {
+		try {
+			lifecycleLock.lock();
+			Snapshot snap = createSnapshot();
+			if(snap == null)
+				return false;
+			snapshot = snap;
+			return true;
+		} finally {
+			lifecycleLock.unlock();
+		}
+	}
+	
+	/**
+	 * Creates the data and index for a new snapshot. Returns
+	 * <code>null</code> if the data is empty.
+	 * 
+	 * @return the new snapshot, or <code>null</code> if there is no data
+	 * @throws IOException
+	 *             if an IO exception is thrown while creating the data
+	 * @since jMWE 1.0.3
+	 */
+	private Snapshot createSnapshot() throws IOException {
+		Map<IMWEDescID, ? extends IRootMWEDesc> dat = createData();
+		if(dat.isEmpty())
+			return null;
+		return new Snapshot(dat, createIndex(dat));
+	}
+	
 	protected abstract Map<IMWEDescID, ? extends IRootMWEDesc> createData() throws IOException;
 	
 	/**
 	 * Uses the given map of description IDs to root descriptions in order to
-	 * create the index. Makes all the entries in the index unmodifiable.
+	 * create the index. The default implementation returns a
+	 * {@link PostingTable}, which stores each description once and finds parts
+	 * by hashing. The entries in the index are unmodifiable.
 	 * 
 	 * @param data
 	 *            the map of IMWEDescID objects to IRootMWEDesc objects used to
@@ -90,27 +130,16 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 * @since jMWE 1.0.0
 	 */
 	protected Map<String, ? extends IMWEDescSet> createIndex(Map<IMWEDescID, ? extends IRootMWEDesc> data){
-		
-		// the default mode is to create the index from the data
-		Map<String, IMWEDescSet> index = new TreeMap<String, IMWEDescSet>();
-		for(Entry<IMWEDescID, ? extends IRootMWEDesc> e : data.entrySet()){
-			for(IRootPart rootPart : e.getValue().getParts())
-				insert(rootPart.getForm(), e.getValue(), index);
-			for(IInfMWEDesc infDesc : e.getValue().getInflected().values())
-				for(IInfPart infPart : infDesc.getParts())
-					insert(infPart.getForm(), infDesc, index);
-		}
-		
-		// make everything unmodifiable
-		for(Entry<String, IMWEDescSet> e : index.entrySet())
-			e.getValue().makeUnmodifiable();
-		
-		return Collections.unmodifiableMap(index);
+		return new PostingTable(data);
 	}
 	
 	/**
 	 * Adds the specified object to the set indexed under the specified key in
 	 * the given map.  If no such set exists, the method creates one.
+	 * <p>
+	 * The default index is a {@link PostingTable} and no longer uses this
+	 * method; it is kept for subclasses that override
+	 * {@link #createIndex(Map)} to build a map of their own.
 	 * 
 	 * @param key
 	 *            the key under which the object is to be filed; may be
@@ -139,12 +168,7 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 * @see edu.mit.jmwe.index.IMWEIndex#isOpen()
 	 */
 	public boolean isOpen() {
-		try {
-			lifecycleLock.lock();
-			return data != null;
-		} finally {
-			lifecycleLock.unlock();
-		}
+		return snapshot != null;
 	}
 	
 	/* 
@@ -155,10 +179,7 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	public void close(){
 		try {
 			lifecycleLock.lock();
-			if(isOpen()){
-				data = null;
-				index = null;
-			}
+			snapshot = null;
 		} finally {
 			lifecycleLock.unlock();
 		}
@@ -171,7 +192,7 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 */
 	public IMWEDesc get(IMWEDescID id) {
 		IMWEDescID rootID = id.getRootID();
-		IRootMWEDesc rootDesc = data.get(rootID);
+		IRootMWEDesc rootDesc = getSnapshot().data.get(rootID);
 		if(rootDesc == null || rootID == id)
 			return rootDesc;
 		return rootDesc.getInflected().get(id.getInflectedForm());
@@ -183,7 +204,7 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 * @see edu.mit.jmwe.index.IMWEIndex#getRootMWEDesc(java.lang.String, edu.mit.jmwe.data.MWEPOS)
 	 */
 	public IRootMWEDesc getRootMWEDesc(String lemma, MWEPOS pos) {
-		return data.get(new MWEDescID(lemma, pos));
+		return getSnapshot().data.get(new MWEDescID(lemma, pos));
 	}
 
 	/* 
@@ -214,18 +235,13 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 * @see edu.mit.jmwe.index.IMWEIndex#getAll(java.lang.String)
 	 */
 	public IMWEDescSet getAll(String part) {
-		try {
-			lifecycleLock.lock();
-			checkOpen();
-			if(part.indexOf('_') > -1) 
-				throw new IllegalArgumentException();
-			IMWEDescSet entries = index.get(part.toLowerCase());
-			return entries == null ? 
-					MWEDescSet.emptySet() : 
-						entries;
-		} finally {
-			lifecycleLock.unlock();
-		}
+		Snapshot snap = getSnapshot();
+		if(part.indexOf('_') > -1) 
+			throw new IllegalArgumentException();
+		IMWEDescSet entries = snap.index.get(part.toLowerCase());
+		return entries == null ? 
+				MWEDescSet.emptySet() : 
+					entries;
 	}
 
 	/* 
@@ -235,7 +251,7 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 */
 	@SuppressWarnings("unchecked")
 	public Iterator<IRootMWEDesc> getRootIterator() {
-		return (Iterator<IRootMWEDesc>)data.values().iterator();
+		return (Iterator<IRootMWEDesc>)getSnapshot().data.values().iterator();
 	}
 
 	/* 
@@ -244,7 +260,7 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 * @see edu.mit.jmwe.index.IMWEIndex#getIndexIterator()
 	 */
 	public Iterator<String> getIndexIterator() {
-		return index.keySet().iterator();
+		return getSnapshot().index.keySet().iterator();
 	}
 
 	/**
@@ -253,8 +269,55 @@ public abstract class InMemoryMWEIndex implements IMWEIndex {
 	 * @since jMWE 1.0.0
 	 */
 	protected void checkOpen(){
-		if(!isOpen())
+		getSnapshot();
+	}
+	
+	/**
+	 * Returns the current snapshot of the index data. The snapshot is read
+	 * once from a volatile field, so callers should hold on to the returned
+	 * object for the duration of a lookup rather than calling this method
+	 * repeatedly.
+	 *
+	 * @return the current snapshot of the index data; never
+	 *         <code>null</code>
+	 * @throws IllegalStateException
+	 *             if the index is closed
+	 * @since jMWE 1.0.3
+	 */
+	protected Snapshot getSnapshot(){
+		Snapshot snap = snapshot;
+		if(snap == null)
 			throw new IllegalStateException("index is closed");
+		return snap;
+	}
+	
+	/**
+	 * An immutable pairing of the index data and the part index built from
+	 * it. Instances are published through a volatile field, so a reader that
+	 * obtains a snapshot always sees a consistent data/index pair.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	protected static final class Snapshot {
+		
+		// final instance fields
+		protected final Map<IMWEDescID, ? extends IRootMWEDesc> data;
+		protected final Map<String, ? extends IMWEDescSet> index;
+		
+		/**
+		 * Creates a new snapshot from the specified data and index.
+		 * 
+		 * @param data
+		 *            the map from description ids to root descriptions
+		 * @param index
+		 *            the map from parts to the descriptions containing them
+		 * @since jMWE 1.0.3
+		 */
+		protected Snapshot(Map<IMWEDescID, ? extends IRootMWEDesc> data, Map<String, ? extends IMWEDescSet> index){
+			this.data = data;
+			this.index = index;
+		}
 	}
 	
 	/**
@@ -13,21 +13,35 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JOptionPane;
 
+import edu.mit.jmwe.data.IInfMWEDesc;
 import edu.mit.jmwe.data.IMWE;
 import edu.mit.jmwe.data.IMWEDesc;
 import edu.mit.jmwe.data.IMWEDescID;
@@ -40,6 +54,7 @@ import edu.mit.jmwe.data.MWEPOS;
 import edu.mit.jmwe.data.RootMWEDesc;
 import edu.mit.jmwe.data.concordance.IConcordanceSentence;
 import edu.mit.jmwe.data.concordance.IConcordanceToken;
+import edu.mit.jmwe.data.concordance.TaggedConcordance;
 import edu.mit.jmwe.data.concordance.TaggedConcordanceIterator;
 import edu.mit.jmwe.detect.Consecutive;
 import edu.mit.jmwe.detect.IMWEDetector;
@@ -71,16 +86,139 @@ import edu.mit.jwi.item.POS;
  */
 public class IndexBuilder extends AbstractFileSelector implements Runnable {
 
+	/**
+	 * The number of sentences taken at a time by each thread when counting
+	 * unmarked occurrences.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int CHUNK_SIZE = 64;
+
+	// positions of the counts in a mutable description
+	public static final int MARKED_CONTINUOUS  = 0;
+	public static final int MARKED_SPLIT       = 1;
+	public static final int UNMARKED_EXACT     = 2;
+	public static final int UNMARKED_PATTERN   = 3;
+	public static final int UNMARKED_INFLECTED = 4; // roots only
+	public static final int MARKED_PATTERN     = 4; // inflected forms only
+
+	/**
+	 * The default number of sentences held in memory between reading the
+	 * concordance and counting unmarked occurrences.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int DEFAULT_SENTENCE_CACHE_SIZE = 1 << 16;
+
+	/**
+	 * The number of sentences between progress reports when the size of the
+	 * concordance is not known ahead of time.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final int REPORT_INTERVAL = 10000;
+
 	/**
 	 * Constructs the MWE index from Wordnet and Semcor and writes it to a file.
+	 * With no arguments, the files are chosen with file choosers. Otherwise,
+	 * the files are given as options, and no choosers are shown, so that the
+	 * index may be built in a headless environment:
+	 * 
+	 * <pre>
+	 * -wordnet &lt;dir&gt; -data &lt;file&gt; [-semcor &lt;dir&gt; -tagged &lt;file&gt;] [-threads &lt;n&gt;] [-cache &lt;n&gt;]
+	 * </pre>
+	 * 
+	 * To add the counts of a new concordance to an existing data file
+	 * instead, give the existing file in place of Wordnet (see
+	 * {@link #update(File, Iterable, IConcordanceSet, File)}):
+	 * 
+	 * <pre>
+	 * -update &lt;file&gt; -semcor &lt;dir&gt; -tagged &lt;file&gt; -data &lt;file&gt; [-threads &lt;n&gt;] [-cache &lt;n&gt;]
+	 * </pre>
+	 * 
+	 * When options are given, the process exits with status 2 if they are
+	 * malformed, and with status 1 if the index cannot be built.
 	 * 
 	 * @param args
-	 *            standard main arguments; ignored
+	 *            standard main arguments; if empty, the user is prompted for
+	 *            the files
 	 * @since jMWE 1.0.0
 	 */
 	public static void main(String[] args){
-		IndexBuilder builder = new IndexBuilder();
-		builder.run();
+		if(args.length == 0){
+			new IndexBuilder().run();
+			return;
+		}
+		
+		Map<String, String> options;
+		final int threads, cacheSize;
+		try {
+			options = parseOptions(args, "wordnet", "update", "semcor", "tagged", "data", "threads", "cache");
+			if(options.containsKey("wordnet") == options.containsKey("update"))
+				throw new IllegalArgumentException("Exactly one of the wordnet and update options is required");
+			if(!options.containsKey("data"))
+				throw new IllegalArgumentException("The data option is required");
+			if(options.containsKey("semcor") != options.containsKey("tagged"))
+				throw new IllegalArgumentException("The semcor and tagged options must be given together");
+			if(options.containsKey("update") && !options.containsKey("semcor"))
+				throw new IllegalArgumentException("The update option requires the semcor and tagged options");
+			threads = options.containsKey("threads") ? parsePositive("threads", options.get("threads")) : Runtime.getRuntime().availableProcessors();
+			cacheSize = options.containsKey("cache") ? parsePositive("cache", options.get("cache")) : DEFAULT_SENTENCE_CACHE_SIZE;
+		} catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: IndexBuilder -wordnet <dir> -data <file> [-semcor <dir> -tagged <file>] [-threads <n>] [-cache <n>]");
+			System.err.println("   or: IndexBuilder -update <file> -semcor <dir> -tagged <file> -data <file> [-threads <n>] [-cache <n>]");
+			System.exit(2);
+			return;
+		}
+		
+		IndexBuilder builder = new IndexBuilder(){
+			@Override
+			protected int getThreadCount() { return threads; }
+			@Override
+			protected int getSentenceCacheSize() { return cacheSize; }
+		};
+		builder.setInteractive(false);
+		builder.setSelection(IMWEDesc.class, new File(options.get("data")));
+		if(options.containsKey("semcor")){
+			builder.setSelection(IConcordanceSet.class, new File(options.get("semcor")));
+			builder.setSelection(TaggedConcordanceIterator.class, new File(options.get("tagged")));
+		}
+		try {
+			if(options.containsKey("wordnet")){
+				builder.setSelection(IDictionary.class, new File(options.get("wordnet")));
+				builder.build();
+			} else {
+				builder.update(new File(options.get("update")), builder.getTaggedIterator(), builder.getConcordance(), builder.getDataFile());
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Parses the value of a numeric option, which must be a positive integer.
+	 * 
+	 * @param name
+	 *            the name of the option
+	 * @param value
+	 *            the value of the option
+	 * @return the value as an integer
+	 * @throws IllegalArgumentException
+	 *             if the value is not a positive integer
+	 * @since jMWE 1.0.3
+	 */
+	private static int parsePositive(String name, String value){
+		int result;
+		try {
+			result = Integer.parseInt(value);
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("The " + name + " option must be an integer: " + value, e);
+		}
+		if(result < 1)
+			throw new IllegalArgumentException("The " + name + " option must be positive: " + value);
+		return result;
 	}
 	
 	/* 
@@ -89,6 +227,23 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 	 * @see java.lang.Runnable#run()
 	 */
 	public void run() {
+		try {
+			build();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Builds the index from the selected files, as {@link #run()} does, but
+	 * passes on a failure to read or write them rather than printing it.
+	 * Returns without building if a selection is cancelled.
+	 * 
+	 * @throws IOException
+	 *             if there is a problem reading or writing the files
+	 * @since jMWE 1.0.3
+	 */
+	public void build() throws IOException {
 		
 		// wordnet
 		IDictionary dict = getDictionary();
@@ -108,14 +263,12 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 		File indexFile;
 		do {
 			indexFile = getIndexFile();
-		} while(descFile.equals(indexFile));
+		} while(isInteractive() && descFile.equals(indexFile));
+		if(descFile.equals(indexFile))
+			throw new IllegalArgumentException("The data and index files must be different");
 
 		// do the actual work
-		try {
-			process(dict, itr, semcor, descFile, indexFile);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		process(dict, itr, semcor, descFile, indexFile);
 	}
 
 	/**
@@ -181,7 +334,8 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 	}
 	
 	/**
-	 * Gets an iterator over the tagged semcor sentences.
+	 * Gets an iterator over the tagged semcor sentences. The sentences are
+	 * streamed from the file each time they are iterated over.
 	 * 
 	 * @return the iterator over tagged semcor sentences. Will return
 	 *         <code>null</code> if the tagged concordance file cannot be found
@@ -190,19 +344,8 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 	 * @since jMWE 1.0.0
 	 */
 	protected Iterable<IConcordanceSentence> getTaggedIterator() {
-		final File file = getTaggedConcordanceFile();
-		if(file == null)
-			return null;
-		return new Iterable<IConcordanceSentence>() {
-			public Iterator<IConcordanceSentence> iterator() {
-				try {
-					return new TaggedConcordanceIterator(file);
-				} catch (IOException e) {
-					e.printStackTrace();
-					return null;
-				}
-			}
-		};
+		File file = getTaggedConcordanceFile();
+		return (file == null) ? null : new TaggedConcordance(file);
 	}
 	
 	/**
@@ -278,15 +421,15 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 	}
 
 	/**
-	 * Constructs the index in five steps:
+	 * Constructs the index in four steps:
 	 *
 	 *  <p>1. Extracts the MWEs from the given dictionary</p>
-	 *  <p>2. Finds the MWEs in the concordance that are missing from the dictionary.</p>
-	 *  <p>3. Counts the number of times this MWE was marked as a continuous run of tokens, non-continuous run, appeared with a known inflection pattern, etc.</p>
-	 *  <p>4. Records the counts for unmarked sequences of MWE parts</p>
-	 *  <p>5. Writes the index to the data and index files </p>
+	 *  <p>2. Reads the concordance once, computing the answers for each sentence, finding the MWEs in the concordance that are missing from the dictionary, and counting the number of times each MWE was marked as a continuous run of tokens, non-continuous run, appeared with a known inflection pattern, etc.</p>
+	 *  <p>3. Records the counts for unmarked sequences of MWE parts, sharing the sentences among {@link #getThreadCount()} threads</p>
+	 *  <p>4. Writes the index to the data and index files </p>
 	 * 
-	 * If the concordance set provided is <code>null</code>, skips steps 2-4.
+	 * See {@link #build(IDictionary, Iterable, IConcordanceSet)} for the
+	 * first three steps.
 	 *
 	 * @param dict
 	 *            the dictionary containing the MWEs
@@ -303,97 +446,402 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 	 * @since jMWE 1.0.0
 	 */
 	public void process(IDictionary dict, Iterable<? extends IConcordanceSentence> itr, IConcordanceSet cs, File dataFile, File indexFile) throws IOException {
+		if(dataFile == null)
+			throw new NullPointerException();
+		
+		Map<IMWEDescID, MutableRootMWEDesc> data = build(dict, itr, cs);
+		IMWEIndex index = new MWEIndex(data);
+		index.open();
+
+		// write to file
+		System.out.print("\n(4 of 4) Writing file(s)...");
+		
+		// write data file
+		dataFile = getWritableFile(dataFile, new FileGetter(){public File get() { return getDataFile(); }});
+		if(dataFile != null)
+			writeDataFile(index, new FileOutputStream(dataFile), getDataHeaderLines());
+		
+		// write index file
+		// XXX: do not generate index right now: no class uses it
+//		indexFile = getWritableFile(indexFile, new FileGetter(){public File get() { return getIndexFile(); }});
+//		if(indexFile != null)
+//			writeIndexFile(index, new FileOutputStream(indexFile), getIndexHeaderLines());
+		
+		System.out.println("done.");
+		printTotals(data);
+	}
+
+	/**
+	 * Constructs the index as for
+	 * {@link #process(IDictionary, Iterable, IConcordanceSet, File, File)},
+	 * but writes the data to the specified stream, which is closed when
+	 * writing is done. No index is written.
+	 * 
+	 * @param dict
+	 *            the dictionary containing the MWEs
+	 * @param itr
+	 *            the iterator over the sentences in the reference concordance
+	 * @param cs
+	 *            the possibly <code>null</code> reference concordance set.
+	 * @param out
+	 *            the stream to which the descriptions and counts will be
+	 *            written
+	 * @throws IOException
+	 *             if there is a problem when reading the concordance or
+	 *             writing to the stream
+	 * @throws NullPointerException
+	 *             if the dictionary or stream is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public void process(IDictionary dict, Iterable<? extends IConcordanceSentence> itr, IConcordanceSet cs, OutputStream out) throws IOException {
+		if(out == null)
+			throw new NullPointerException();
+		Map<IMWEDescID, MutableRootMWEDesc> data = build(dict, itr, cs);
+		IMWEIndex index = new MWEIndex(data);
+		index.open();
+		System.out.print("\n(4 of 4) Writing data...");
+		writeDataFile(index, out, getDataHeaderLines());
+		System.out.println("done.");
+		printTotals(data);
+	}
+
+	/**
+	 * Carries out the first three steps of constructing the index: extracts
+	 * the MWEs from the dictionary, then counts their occurrences in the
+	 * concordance with {@link #count(Map, Iterable, IConcordanceSet)}. If the
+	 * concordance set provided is <code>null</code>, only the first step is
+	 * done.
+	 * 
+	 * @param dict
+	 *            the dictionary containing the MWEs
+	 * @param itr
+	 *            the iterator over the sentences in the reference concordance;
+	 *            may be <code>null</code> only if the concordance set is
+	 * @param cs
+	 *            the possibly <code>null</code> reference concordance set.
+	 * @return the descriptions of the MWEs, with their counts
+	 * @throws IOException
+	 *             if the concordance cannot be read, or does not have the
+	 *             same sentences when read a second time
+	 * @throws NullPointerException
+	 *             if the dictionary is <code>null</code>, or the iterable is
+	 *             <code>null</code> and the concordance set is not
+	 * @since jMWE 1.0.3
+	 */
+	public Map<IMWEDescID, MutableRootMWEDesc> build(IDictionary dict, Iterable<? extends IConcordanceSentence> itr, IConcordanceSet cs) throws IOException {
 		if(dict == null)
 			throw new NullPointerException();
-		if(dataFile == null)
+		if(cs != null && itr == null)
 			throw new NullPointerException();
 		
 		// construct list 
-		System.out.print("(1 of 5) Extracting MWEs from dictionary...");
+		System.out.print("(1 of 4) Extracting MWEs from dictionary...");
 		Map<IMWEDescID, MutableRootMWEDesc> data = extractMWEs(dict);
 		System.out.println("done.");
 		
-		IMWEIndex index = null;
-		
 		// process inflected forms
 		if(cs == null){
-			System.out.println("\nSkipping steps 2-4 because no concordance was provided");
-		} else {
+			System.out.println("\nSkipping steps 2-3 because no concordance was provided");
+			return data;
+		}
+		count(data, itr, cs);
+		return data;
+	}
 
-			int sentCnt = getEstimatedSentenceCount();
-			IProgressBar pb;
-			ConcordanceAnswerKey key = new ConcordanceAnswerKey(cs);
-			key.setIgnoreProperNouns(true);
-			
-			// find MWEs listed in concordance but missing from dictionary
-			System.out.println("\n(2 of 5) Finding missing MWEs...");
-			Set<MutableRootMWEDesc> missing = new TreeSet<MutableRootMWEDesc>();
-			pb = new ProgressBar(sentCnt);
-			sentCnt = 0;
-			for(IConcordanceSentence s : itr){
-				sentCnt++;
-				findMissingMWEs(key.getAnswers(s), data, missing);
-				pb.increment();
-			}
-			pb.finish();
-			System.out.println("Found " + missing.size() + " missing MWE entries in concordances.");
-			
-			// Counting marked occurences
-			System.out.println("\n(3 of 5) Counting marked occurences...");
-			pb = new ProgressBar(sentCnt);
-			for(IConcordanceSentence ss : itr){
-				countMarked(key.getAnswers(ss), data);
-				pb.increment();
-			}
-			pb.finish();
-			
-			// generate index with inflected forms
-			index = new MWEIndex(data);
-			index.open();
-			
-			// get all observed isolated token sequences that match a known MWE
-			System.out.println("\n(4 of 5) Counting unmarked occurences...");
-			pb = new ProgressBar(sentCnt);
-			IMWEDetector d = getUmarkedDetector(index);
-			for(IConcordanceSentence ss : itr){
-				countUnmarked(d, ss, key.getAnswers(ss));
-				pb.increment();
+	/**
+	 * Reads the concordance, adding to the specified descriptions the MWEs
+	 * and inflected forms marked in the concordance but missing from them,
+	 * and adding to their counts the marked and unmarked occurrences in the
+	 * concordance. The counts already in the descriptions are kept, so this
+	 * method may be used to add the counts of new sentences to an existing
+	 * index.
+	 * <p>
+	 * Memory use does not grow with the size of the concordance beyond
+	 * {@link #getSentenceCacheSize()} sentences. If the concordance has no
+	 * more sentences than that, the sentences and their answers are held in
+	 * memory between counting marked and unmarked occurrences, so that
+	 * neither is computed twice. Otherwise, the concordance is read a second
+	 * time to count unmarked occurrences, one batch of that many sentences at
+	 * a time, and so the iterable must return a new iterator over the same
+	 * sentences each time it is asked. Progress is reported in bytes if the
+	 * iterable is a {@link TaggedConcordance} that is a local file, and in
+	 * sentences otherwise.
+	 * 
+	 * @param data
+	 *            the descriptions to which the counts are added; may not be
+	 *            <code>null</code>
+	 * @param itr
+	 *            the iterator over the sentences in the concordance; may not
+	 *            be <code>null</code>
+	 * @param cs
+	 *            the concordance set that marks the MWEs in the sentences;
+	 *            may not be <code>null</code>
+	 * @throws IOException
+	 *             if the concordance cannot be read, or does not have the
+	 *             same sentences when read a second time
+	 * @throws NullPointerException
+	 *             if any argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public void count(Map<IMWEDescID, MutableRootMWEDesc> data, Iterable<? extends IConcordanceSentence> itr, IConcordanceSet cs) throws IOException {
+		if(data == null || itr == null)
+			throw new NullPointerException();
+		ConcordanceAnswerKey key = new ConcordanceAnswerKey(cs);
+		key.setIgnoreProperNouns(true);
+		int cacheSize = Math.max(1, getSentenceCacheSize());
+		
+		// read the concordance once: find MWEs listed in concordance 
+		// but missing from dictionary, and count marked occurrences
+		System.out.println("\n(2 of 4) Finding missing MWEs and counting marked occurences...");
+		Set<MutableRootMWEDesc> missing = new TreeSet<MutableRootMWEDesc>();
+		List<IConcordanceSentence> sents = new ArrayList<IConcordanceSentence>();
+		List<List<IMWE<IConcordanceToken>>> answers = new ArrayList<List<IMWE<IConcordanceToken>>>();
+		List<IMWE<IConcordanceToken>> sentAnswers;
+		IConcordanceSentence s;
+		Iterator<? extends IConcordanceSentence> i = itr.iterator();
+		ReadProgress progress = new ReadProgress(itr, i, 0);
+		while(i.hasNext()){
+			s = i.next();
+			sentAnswers = key.getAnswers(s);
+			findMissingMWEs(sentAnswers, data, missing);
+			countMarked(sentAnswers, data);
+			if(sents != null){
+				if(sents.size() < cacheSize){
+					sents.add(s);
+					answers.add(sentAnswers);
+				} else {
+					// too many to hold: read again in step 3
+					sents = null;
+					answers = null;
+				}
 			}
-			pb.finish();
+			progress.increment();
 		}
+		progress.finish();
+		int total = progress.getSentenceCount();
+		System.out.println("Found " + missing.size() + " missing MWE entries in concordances.");
 		
-		// generate index if needed
-		if(index == null)
-			index = new MWEIndex(data);
-
-		// write to file
-		System.out.print("\n(5 of 5) Writing file(s)...");
+		// generate index with inflected forms
+		IMWEIndex index = new MWEIndex(data);
+		index.open();
 		
-		// write data file
-		dataFile = deleteFile(dataFile, new FileGetter(){public File get() { return getDataFile(); }});
-		if(dataFile != null)
-			writeDataFile(index, new FileOutputStream(dataFile), getDataHeaderLines());
+		// get all observed isolated token sequences that match a known MWE
+		System.out.println("\n(3 of 4) Counting unmarked occurences...");
+		if(total == 0)
+			return;
+		if(sents != null){
+			IProgressBar pb = new ProgressBar(sents.size());
+			countUnmarked(index, sents, answers, pb);
+			pb.finish();
+			return;
+		}
 		
-		// write index file
-		// XXX: do not generate index right now: no class uses it
-//		indexFile = deleteFile(indexFile, new FileGetter(){public File get() { return getIndexFile(); }});
-//		if(indexFile != null)
-//			writeIndexFile(index, new FileOutputStream(indexFile), getIndexHeaderLines());
+		// read the concordance again, one batch at a time
+		System.out.println("Reading concordance again in batches of " + cacheSize + " sentences");
+		sents = new ArrayList<IConcordanceSentence>(cacheSize);
+		answers = new ArrayList<List<IMWE<IConcordanceToken>>>(cacheSize);
+		i = itr.iterator();
+		progress = new ReadProgress(itr, i, total);
+		while(i.hasNext()){
+			s = i.next();
+			sents.add(s);
+			answers.add(key.getAnswers(s));
+			progress.increment();
+			if(sents.size() == cacheSize || !i.hasNext()){
+				countUnmarked(index, sents, answers, null);
+				sents.clear();
+				answers.clear();
+			}
+		}
+		progress.finish();
+		if(progress.getSentenceCount() != total)
+			throw new IOException("Concordance changed between readings: read " + total + " sentences, then " + progress.getSentenceCount());
+	}
+	
+	/**
+	 * Adds the counts of a new concordance to the index in an existing data
+	 * file, or a file compiled by {@link IndexCompiler}, and writes the merged
+	 * index to the specified data file. The
+	 * merged data is written to a temporary file that then replaces the data
+	 * file in one step, so the data file may be the existing file, and may be
+	 * read by other processes throughout. If an index for the data file is
+	 * loaded in the {@link MWEIndexRegistry}, it is then swapped for the
+	 * merged index without interrupting lookups on it.
+	 * 
+	 * @param existingData
+	 *            the data file holding the existing index; may not be
+	 *            <code>null</code>
+	 * @param itr
+	 *            the iterator over the sentences in the new concordance; may
+	 *            not be <code>null</code>
+	 * @param cs
+	 *            the new concordance set; may not be <code>null</code>
+	 * @param dataFile
+	 *            the file to which the merged index is written; may not be
+	 *            <code>null</code>
+	 * @throws IOException
+	 *             if the existing index cannot be read, or the merged index
+	 *             cannot be written
+	 * @throws NullPointerException
+	 *             if any argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public void update(File existingData, Iterable<? extends IConcordanceSentence> itr, IConcordanceSet cs, File dataFile) throws IOException {
+		if(dataFile == null)
+			throw new NullPointerException();
 		
+		System.out.print("(1 of 4) Reading existing index...");
+		IMWEIndex existing = CompiledMWEIndex.isCompiled(existingData) ? 
+				new CompiledMWEIndex(existingData) : 
+					new MWEIndex(existingData);
+		if(!existing.open())
+			throw new IOException("Unable to open index at " + existingData);
+		Map<IMWEDescID, MutableRootMWEDesc> data = update(existing, itr, cs);
+		existing.close();
+		IMWEIndex merged = new MWEIndex(data);
+		merged.open();
+		
+		System.out.print("\n(4 of 4) Writing merged file...");
+		replaceDataFile(merged, dataFile, getDataHeaderLines());
 		System.out.println("done.");
+		if(MWEIndexRegistry.getInstance().reload(dataFile))
+			System.out.println("Swapped loaded index for " + dataFile);
 		printTotals(data);
 	}
-	
+
+	/**
+	 * Copies the descriptions and counts of the specified index, and adds to
+	 * them the counts of the specified concordance, as for
+	 * {@link #count(Map, Iterable, IConcordanceSet)}. MWEs and inflected forms
+	 * marked in the concordance but missing from the index are added. The
+	 * specified index is not changed.
+	 * 
+	 * @param existing
+	 *            the existing index; may not be <code>null</code>
+	 * @param itr
+	 *            the iterator over the sentences in the new concordance; may
+	 *            not be <code>null</code>
+	 * @param cs
+	 *            the new concordance set; may not be <code>null</code>
+	 * @return the merged descriptions
+	 * @throws IOException
+	 *             if the concordance cannot be read
+	 * @throws NullPointerException
+	 *             if any argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public Map<IMWEDescID, MutableRootMWEDesc> update(IMWEIndex existing, Iterable<? extends IConcordanceSentence> itr, IConcordanceSet cs) throws IOException {
+		if(cs == null)
+			throw new NullPointerException();
+		Map<IMWEDescID, MutableRootMWEDesc> data = copy(existing);
+		System.out.println("done.");
+		count(data, itr, cs);
+		return data;
+	}
+
+	/**
+	 * Returns mutable copies of the descriptions in the specified index,
+	 * keeping their counts and inflected forms, so that further counts may be
+	 * added to them.
+	 * 
+	 * @param index
+	 *            the index to be copied; may not be <code>null</code>
+	 * @return a map of the copied descriptions, sorted by their ids
+	 * @throws NullPointerException
+	 *             if the specified index is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public static Map<IMWEDescID, MutableRootMWEDesc> copy(IMWEIndex index) {
+		Map<IMWEDescID, MutableRootMWEDesc> result = new TreeMap<IMWEDescID, MutableRootMWEDesc>();
+		IRootMWEDesc root;
+		MutableRootMWEDesc rootCopy;
+		MutableInfMWEDesc infCopy;
+		for(Iterator<IRootMWEDesc> i = index.getRootIterator(); i.hasNext(); ){
+			root = i.next();
+			rootCopy = new MutableRootMWEDesc(root.getForm(), root.getID().getPOS());
+			rootCopy.addCounts(root.getCounts());
+			for(IInfMWEDesc inf : root.getInflected().values()){
+				infCopy = new MutableInfMWEDesc(rootCopy, inf.getForm());
+				infCopy.addCounts(inf.getCounts());
+				rootCopy.getInflected().put(infCopy.getForm(), infCopy);
+			}
+			result.put(rootCopy.getID(), rootCopy);
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the data of the specified index to a temporary file beside the
+	 * specified file, and then replaces the specified file with it, atomically
+	 * if the file system allows. Readers of the file therefore see either the
+	 * old data or the new, never a partly written file.
+	 * 
+	 * @param index
+	 *            the MWE index whose data should be written
+	 * @param file
+	 *            the file to be replaced; may not be <code>null</code>
+	 * @param headerLines
+	 *            comment lines to be inserted at the beginning of the file, as
+	 *            for {@link #writeDataFile(IMWEIndex, OutputStream, Iterable)};
+	 *            may be <code>null</code>
+	 * @throws IOException
+	 *             if there is an error writing or moving the file
+	 * @since jMWE 1.0.3
+	 */
+	public static void replaceDataFile(IMWEIndex index, File file, Iterable<String> headerLines) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		File temp = File.createTempFile(file.getName(), ".tmp", dir);
+		try {
+			writeDataFile(index, new FileOutputStream(temp), headerLines);
+			try {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			temp.delete();
+		}
+	}
+
 	/**
 	 * Returns the estimated number of sentences being used from the reference concordance (Semcor).
 	 *
 	 * @return the estimated number of sentences being used from Semcor.
 	 * @since jMWE 1.0.0
+	 * @deprecated no longer used; progress is reported against the actual
+	 *             size of the concordance
 	 */
+	@Deprecated
 	protected int getEstimatedSentenceCount() {
 		return 20138;
 	}
 
+	/**
+	 * Returns the largest number of sentences held in memory at once while
+	 * counting. If the concordance has more sentences than this, it is read
+	 * twice rather than held in memory. This implementation returns
+	 * {@link #DEFAULT_SENTENCE_CACHE_SIZE}; subclasses may override.
+	 *
+	 * @return the largest number of sentences held in memory at once
+	 * @since jMWE 1.0.3
+	 */
+	protected int getSentenceCacheSize() {
+		return DEFAULT_SENTENCE_CACHE_SIZE;
+	}
+
+	/**
+	 * Returns the number of threads among which the sentences are shared when
+	 * counting unmarked occurrences. This implementation returns the number of
+	 * available processors; subclasses may override.
+	 *
+	 * @return the number of threads used to count unmarked occurrences; at
+	 *         least one
+	 * @since jMWE 1.0.3
+	 */
+	protected int getThreadCount() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
 	/**
 	 * Retrieves multi-word expressions from the specified {@code IDictionary}
 	 * object and returns them as a map. Multi-word expressions are indexed in
@@ -632,8 +1080,119 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 	 * @since jMWE 1.0.0
 	 */
 	public void countUnmarked(IMWEDetector detector, IConcordanceSentence sent, List<IMWE<IConcordanceToken>> answers) {
+		CountTable counts = new CountTable();
+		countUnmarked(detector.detect(sent), answers, counts);
+		counts.addTo();
+	}
+
+	/**
+	 * Counts the number of MWEs in the specified sentences that are detected by
+	 * the unmarked detector, but not marked in the answers for the sentence.
+	 * The sentences are split into chunks which are shared among
+	 * {@link #getThreadCount()} threads. Each thread keeps its own
+	 * {@link CountTable}; the tables are merged and added to the descriptions
+	 * of the index when all the sentences have been counted, so the counts are
+	 * the same as if the sentences had been counted one by one.
+	 *
+	 * @param index
+	 *            the open index of the mutable descriptions to be counted; may
+	 *            not be <code>null</code>
+	 * @param sents
+	 *            the sentences; may not be <code>null</code>
+	 * @param answers
+	 *            the answers for each sentence, in the same order; may not be
+	 *            <code>null</code>
+	 * @param pb
+	 *            the progress bar to be incremented for each sentence; may be
+	 *            <code>null</code>
+	 * @throws InterruptedIOException
+	 *             if the thread is interrupted while waiting for the counts
+	 * @throws NullPointerException
+	 *             if the index, sentences or answers are <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             if there are not as many answers as sentences
+	 * @since jMWE 1.0.3
+	 */
+	public void countUnmarked(final IMWEIndex index, final List<? extends IConcordanceSentence> sents, final List<List<IMWE<IConcordanceToken>>> answers, final IProgressBar pb) throws InterruptedIOException {
+		if(index == null)
+			throw new NullPointerException();
+		if(sents.size() != answers.size())
+			throw new IllegalArgumentException("expected " + sents.size() + " answer lists, found " + answers.size());
 		
-		List<IMWE<IConcordanceToken>> found = detector.detect(sent);
+		final AtomicInteger next = new AtomicInteger();
+		int threads = Math.max(1, Math.min(getThreadCount(), (sents.size() + CHUNK_SIZE - 1) / CHUNK_SIZE));
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<CountTable>> futures = new ArrayList<Future<CountTable>>(threads);
+		try {
+			for(int i = 0; i < threads; i++){
+				futures.add(executor.submit(new Callable<CountTable>() {
+					public CountTable call() {
+						IMWEDetector detector = getUmarkedDetector(index);
+						CountTable counts = new CountTable();
+						List<List<IMWE<IConcordanceToken>>> found;
+						int start, end;
+						while((start = next.getAndAdd(CHUNK_SIZE)) < sents.size()){
+							end = Math.min(start + CHUNK_SIZE, sents.size());
+							found = detector.detectAll(sents.subList(start, end));
+							for(int j = start; j < end; j++)
+								countUnmarked(found.get(j - start), answers.get(j), counts);
+							if(pb != null){
+								synchronized(pb){
+									pb.increment(end - start);
+								}
+							}
+						}
+						return counts;
+					}
+				}));
+			}
+			
+			// reduce
+			CountTable total = new CountTable();
+			for(Future<CountTable> future : futures)
+				total.addAll(future.get());
+			total.addTo();
+		} catch(InterruptedException e) {
+			for(Future<?> future : futures)
+				future.cancel(true);
+			Thread.currentThread().interrupt();
+			InterruptedIOException ex = new InterruptedIOException("interrupted while counting unmarked MWEs");
+			ex.initCause(e);
+			throw ex;
+		} catch(ExecutionException e) {
+			for(Future<?> future : futures)
+				future.cancel(true);
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException)
+				throw (RuntimeException)cause;
+			if(cause instanceof Error)
+				throw (Error)cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Records in the specified table the MWEs that were found by the unmarked
+	 * detector in a sentence, but are not marked in the answers for the
+	 * sentence. The descriptions themselves are not changed, so this method
+	 * may be called by several threads at once, each with its own table.
+	 *
+	 * @param found
+	 *            the MWEs found by the unmarked detector; may not be
+	 *            <code>null</code>
+	 * @param answers
+	 *            the actual set of MWEs for the sentence; may not be
+	 *            <code>null</code>
+	 * @param counts
+	 *            the table in which to record the counts; may not be
+	 *            <code>null</code>
+	 * @throws NullPointerException
+	 *             if any argument is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	protected void countUnmarked(List<IMWE<IConcordanceToken>> found, List<IMWE<IConcordanceToken>> answers, CountTable counts) {
 		
 		MutableRootMWEDesc rootDesc;
 		MutableInfMWEDesc infDesc;
@@ -653,11 +1212,11 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 					// toward the root's inflected form count
 					if(rootDesc.getInflected().get(mwe.getForm()) != null)
 						continue;
-					rootDesc.incrementUnmarkedInflected();
+					counts.increment(rootDesc, UNMARKED_INFLECTED);
 					if(InflectionRule.isInflectedByPattern(mwe))
-						rootDesc.incrementUnmarkedPattern();
+						counts.increment(rootDesc, UNMARKED_PATTERN);
 				} else {
-					rootDesc.incrementUnmarkedExact();
+					counts.increment(rootDesc, UNMARKED_EXACT);
 				}
 			} 
 			// for inflected forms
@@ -665,9 +1224,9 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 				infDesc = (MutableInfMWEDesc)mwe.getEntry();
 				if(mwe.isInflected())
 					throw new IllegalStateException();
-				infDesc.incrementUnmarkedExact();
+				counts.increment(infDesc, UNMARKED_EXACT);
 				if(InflectionRule.isInflectedByPattern(mwe))
-					infDesc.incrementUnmarkedPattern();
+					counts.increment(infDesc, UNMARKED_PATTERN);
 				
 			} 
 			// fail otherwise
@@ -835,6 +1394,50 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 		w.close();
 	}
 	
+	/**
+	 * Writes the specified index in the compiled binary format that is read by
+	 * {@link CompiledMWEIndex}. See {@link IndexCompiler} for a description of
+	 * the format.
+	 * 
+	 * @param index
+	 *            the open index to be written; may not be <code>null</code>
+	 * @param out
+	 *            the output stream to which the compiled index should be
+	 *            written; may not be <code>null</code>
+	 * @throws IOException
+	 *             if there is a problem writing to the stream
+	 * @since jMWE 1.0.3
+	 */
+	public static void writeCompiledFile(IMWEIndex index, OutputStream out) throws IOException {
+		IndexCompiler.compile(index, out);
+		out.close();
+	}
+	
+	/**
+	 * Gets a pointer to a file that does not exist, as for
+	 * {@link #deleteFile(File, FileGetter)}, if this builder is interactive.
+	 * Otherwise, the specified file is deleted if it exists, and an exception
+	 * is thrown if that fails, rather than asking for another file.
+	 * 
+	 * @param file
+	 *            the file to be deleted
+	 * @param fg
+	 *            the file getter that supplies an alternative file in case the
+	 *            specified file cannot be deleted
+	 * @return the non-existant file finally selected
+	 * @throws IOException
+	 *             if this builder is not interactive and the file cannot be
+	 *             deleted
+	 * @since jMWE 1.0.3
+	 */
+	protected File getWritableFile(File file, FileGetter fg) throws IOException {
+		if(isInteractive())
+			return deleteFile(file, fg);
+		if(file != null && file.exists() && !file.delete())
+			throw new IOException("Unable to delete the following file: " + file.getAbsolutePath());
+		return file;
+	}
+	
 	/**
 	 * Gets a pointer to a file that does not exist. If the specified file does
 	 * not exist, this is returned. Otherwise, the file is deleted. If that
@@ -910,6 +1513,7 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 		public void incrementMarkedSplit();
 		public void incrementUnmarkedExact();
 		public void incrementUnmarkedPattern();
+		public void addCounts(int[] amounts);
 	}
 	
 	/**
@@ -948,6 +1552,7 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 		public void incrementUnmarkedExact()     { counts[2]++; }
 		public void incrementUnmarkedPattern()   { counts[3]++;	}
 		public void incrementUnmarkedInflected() { counts[4]++; }
+		public void addCounts(int[] amounts)     { for(int i = 0; i < amounts.length; i++) counts[i] += amounts[i]; }
 
 		/* 
 		 * (non-Javadoc)
@@ -987,7 +1592,214 @@ public class IndexBuilder extends AbstractFileSelector implements Runnable {
 		public void incrementUnmarkedExact()    { counts[2]++; }
 		public void incrementUnmarkedPattern()  { counts[3]++; }
 		public void incrementMarkedPattern()    { counts[4]++; }
+		public void addCounts(int[] amounts)    { for(int i = 0; i < amounts.length; i++) counts[i] += amounts[i]; }
+		
+	}
+
+	/**
+	 * A table of increments to the counts of mutable descriptions. A table is
+	 * filled by one thread without touching the descriptions; tables from
+	 * several threads may then be merged with {@link #addAll(CountTable)}, and
+	 * the totals added to the descriptions with {@link #addTo()}.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	public static class CountTable {
+		
+		// final instance fields
+		private final Map<IMutableMWEDesc, int[]> table = new HashMap<IMutableMWEDesc, int[]>();
+		
+		/**
+		 * Increments the count at the specified position for the specified
+		 * description.
+		 *
+		 * @param desc
+		 *            the description; may not be <code>null</code>
+		 * @param position
+		 *            the position of the count, one of the position constants
+		 *            of {@link IndexBuilder}
+		 * @throws NullPointerException
+		 *             if the description is <code>null</code>
+		 * @since jMWE 1.0.3
+		 */
+		public void increment(IMutableMWEDesc desc, int position){
+			getCounts(desc)[position]++;
+		}
+		
+		/**
+		 * Returns the increment recorded at the specified position for the
+		 * specified description.
+		 *
+		 * @param desc
+		 *            the description
+		 * @param position
+		 *            the position of the count
+		 * @return the increment recorded in this table
+		 * @since jMWE 1.0.3
+		 */
+		public int get(IMutableMWEDesc desc, int position){
+			int[] counts = table.get(desc);
+			return (counts == null) ? 0 : counts[position];
+		}
+		
+		/**
+		 * Adds the increments of the specified table to this table.
+		 *
+		 * @param other
+		 *            the table to be merged into this one; may not be
+		 *            <code>null</code>
+		 * @throws NullPointerException
+		 *             if the table is <code>null</code>
+		 * @since jMWE 1.0.3
+		 */
+		public void addAll(CountTable other){
+			int[] counts;
+			for(Entry<IMutableMWEDesc, int[]> e : other.table.entrySet()){
+				counts = getCounts(e.getKey());
+				for(int i = 0; i < counts.length; i++)
+					counts[i] += e.getValue()[i];
+			}
+		}
+		
+		/**
+		 * Adds the increments in this table to the counts of the descriptions,
+		 * and empties the table.
+		 *
+		 * @since jMWE 1.0.3
+		 */
+		public void addTo(){
+			for(Entry<IMutableMWEDesc, int[]> e : table.entrySet())
+				e.getKey().addCounts(e.getValue());
+			table.clear();
+		}
+		
+		/**
+		 * Returns the number of descriptions with increments in this table.
+		 *
+		 * @return the number of descriptions in this table
+		 * @since jMWE 1.0.3
+		 */
+		public int size(){
+			return table.size();
+		}
+		
+		/**
+		 * Returns the increments for the specified description, creating them
+		 * if necessary.
+		 *
+		 * @since jMWE 1.0.3
+		 */
+		private int[] getCounts(IMutableMWEDesc desc){
+			int[] counts = table.get(desc);
+			if(counts == null){
+				counts = new int[IRootMWEDesc.EXPECTED_COUNT_LENGTH];
+				table.put(desc, counts);
+			}
+			return counts;
+		}
+	}
+	
+	/**
+	 * Reports progress through one reading of a concordance. If the iterable
+	 * is a {@link TaggedConcordance} backed by a local file, and the iterator
+	 * counts its bytes, progress is reported in kilobytes read against the
+	 * length of the file. Otherwise, if the number of sentences is known,
+	 * progress is reported in sentences against that number; if not, the
+	 * number of sentences read so far is printed every
+	 * {@link IndexBuilder#REPORT_INTERVAL} sentences.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	public static class ReadProgress {
+		
+		// final instance fields
+		private final TaggedConcordanceIterator counted;
+		private final IProgressBar pb;
 		
+		// dynamic instance fields
+		private int sentences = 0;
+		private int kilobytes = 0;
+		
+		/**
+		 * Creates a new progress report for the specified reading of the
+		 * specified concordance.
+		 *
+		 * @param itr
+		 *            the concordance being read; may not be <code>null</code>
+		 * @param i
+		 *            the iterator reading it; may not be <code>null</code>
+		 * @param expected
+		 *            the number of sentences expected, or zero if not known
+		 * @throws NullPointerException
+		 *             if either argument is <code>null</code>
+		 * @since jMWE 1.0.3
+		 */
+		public ReadProgress(Iterable<?> itr, Iterator<?> i, int expected){
+			if(i == null)
+				throw new NullPointerException();
+			long length = (itr instanceof TaggedConcordance) ? ((TaggedConcordance)itr).length() : -1;
+			if(length > 0 && i instanceof TaggedConcordanceIterator && ((TaggedConcordanceIterator)i).getBytesRead() >= 0){
+				counted = (TaggedConcordanceIterator)i;
+				System.out.println("Reading " + length + " bytes; progress in kilobytes");
+				pb = new ProgressBar(toKilobytes(length));
+			} else {
+				counted = null;
+				pb = (expected > 0) ? new ProgressBar(expected) : null;
+			}
+		}
+		
+		/**
+		 * Records that one more sentence has been read.
+		 *
+		 * @since jMWE 1.0.3
+		 */
+		public void increment(){
+			sentences++;
+			if(counted != null){
+				int read = Math.min(toKilobytes(counted.getBytesRead()), pb.getExpected());
+				if(read > kilobytes){
+					pb.increment(read - kilobytes);
+					kilobytes = read;
+				}
+			} else if(pb != null){
+				pb.increment();
+			} else if(sentences % REPORT_INTERVAL == 0){
+				System.out.println("Read " + sentences + " sentences");
+			}
+		}
+		
+		/**
+		 * Finishes the progress report.
+		 *
+		 * @since jMWE 1.0.3
+		 */
+		public void finish(){
+			if(pb != null)
+				pb.finish();
+			System.out.println("Read " + sentences + " sentences");
+		}
+		
+		/**
+		 * Returns the number of sentences read so far.
+		 *
+		 * @return the number of sentences read so far
+		 * @since jMWE 1.0.3
+		 */
+		public int getSentenceCount(){
+			return sentences;
+		}
+		
+		/**
+		 * Converts a number of bytes to kilobytes, rounding up, and capping
+		 * the result at the largest integer.
+		 *
+		 * @since jMWE 1.0.3
+		 */
+		private static int toKilobytes(long bytes){
+			return (int)Math.min(Integer.MAX_VALUE, (bytes + 1023) / 1024);
+		}
 	}
 	
 }
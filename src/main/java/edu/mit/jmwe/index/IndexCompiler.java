@@ -0,0 +1,386 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.mit.jmwe.data.IInfMWEDesc;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IMWEDesc.IPart;
+import edu.mit.jmwe.data.IRootMWEDesc;
+
+/**
+ * Compiles the contents of an {@link IMWEIndex} into the binary format read by
+ * {@link CompiledMWEIndex}. The compiled file contains an interned string
+ * table, the parts and counts of every root and inflected description, and a
+ * prebuilt table that maps each part to the descriptions containing it, so
+ * that opening the index requires no parsing.
+ * <p>
+ * The file consists of a header of eight integers (magic number, format
+ * version, and the sizes of the string table, root table, inflected table,
+ * key table, posting table and record area), followed by these sections, all
+ * stored as big-endian integers except the last:
+ * <ol>
+ * <li>string offsets: <code>numStrings+1</code> byte offsets into the string
+ * data</li>
+ * <li>root offsets: offset of each root record in the record area</li>
+ * <li>inflected offsets: offset of each inflected record in the record
+ * area</li>
+ * <li>root lookup: root numbers ordered by form and part of speech</li>
+ * <li>keys: triples of (string number, first posting, posting count), ordered
+ * by string number</li>
+ * <li>postings: description numbers; roots are numbered from zero, and
+ * inflected descriptions follow the roots</li>
+ * <li>records: root records of the form <code>form, pos, numParts, parts...,
+ * numCounts, counts..., numInflected, firstInflected</code>, and inflected
+ * records of the form <code>root, form, numParts, parts..., numCounts,
+ * counts...</code></li>
+ * <li>string data: the UTF-8 bytes of every string, ordered by byte value</li>
+ * </ol>
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class IndexCompiler {
+
+	/**
+	 * Compiles the index data in the first file argument into the binary index
+	 * file named by the second argument.
+	 *
+	 * @param args
+	 *            the text data file and the binary output file
+	 * @throws IOException
+	 *             if there is a problem reading or writing either file
+	 * @since jMWE 1.0.3
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length != 2){
+			System.err.println("Usage: IndexCompiler <data file> <compiled file>");
+			System.exit(1);
+		}
+		compile(new File(args[0]), new File(args[1]));
+	}
+
+	/**
+	 * Reads the text index data in the specified file and writes the compiled
+	 * form to the specified output file.
+	 *
+	 * @param dataFile
+	 *            the text data file; may not be <code>null</code>
+	 * @param compiledFile
+	 *            the file to which the compiled index should be written; may
+	 *            not be <code>null</code>
+	 * @throws IOException
+	 *             if there is a problem reading or writing either file
+	 * @since jMWE 1.0.3
+	 */
+	public static void compile(File dataFile, File compiledFile) throws IOException {
+		IMWEIndex index = new MWEIndex(dataFile);
+		if(!index.open())
+			throw new IOException("Unable to open index data " + dataFile);
+		try {
+			OutputStream out = new FileOutputStream(compiledFile);
+			try {
+				compile(index, out);
+			} finally {
+				out.close();
+			}
+		} finally {
+			index.close();
+		}
+	}
+
+	/**
+	 * Writes the compiled form of the specified open index to the specified
+	 * stream. The stream is flushed but not closed.
+	 *
+	 * @param index
+	 *            the open index to be compiled; may not be <code>null</code>
+	 * @param out
+	 *            the stream to which the compiled index should be written;
+	 *            may not be <code>null</code>
+	 * @throws IOException
+	 *             if there is a problem writing to the stream
+	 * @since jMWE 1.0.3
+	 */
+	public static void compile(IMWEIndex index, OutputStream out) throws IOException {
+		if(index == null)
+			throw new NullPointerException();
+		if(out == null)
+			throw new NullPointerException();
+
+		// number the descriptions: roots first, then each root's inflected
+		// forms in a contiguous run
+		List<IRootMWEDesc> roots = new ArrayList<IRootMWEDesc>();
+		List<IInfMWEDesc> infs = new ArrayList<IInfMWEDesc>();
+		Map<IMWEDesc, Integer> numbers = new HashMap<IMWEDesc, Integer>();
+		for(Iterator<IRootMWEDesc> i = index.getRootIterator(); i.hasNext(); ){
+			IRootMWEDesc root = i.next();
+			numbers.put(root, roots.size());
+			roots.add(root);
+		}
+		for(IRootMWEDesc root : roots)
+			for(IInfMWEDesc inf : root.getInflected().values()){
+				numbers.put(inf, roots.size() + infs.size());
+				infs.add(inf);
+			}
+
+		// collect the postings for every part
+		List<String> keys = new ArrayList<String>();
+		List<int[]> postings = new ArrayList<int[]>();
+		for(Iterator<String> i = index.getIndexIterator(); i.hasNext(); ){
+			String key = i.next();
+			List<IMWEDesc> descs = new ArrayList<IMWEDesc>(index.getAll(key));
+			int[] posting = new int[descs.size()];
+			for(int j = 0; j < posting.length; j++)
+				posting[j] = numbers.get(descs.get(j));
+			keys.add(key);
+			postings.add(posting);
+		}
+
+		// intern every string, in byte order
+		Map<byte[], Integer> pool = new TreeMap<byte[], Integer>(BYTE_ORDER);
+		for(IRootMWEDesc root : roots)
+			intern(root, pool);
+		for(IInfMWEDesc inf : infs)
+			intern(inf, pool);
+		for(String key : keys)
+			pool.put(encode(key), null);
+		int n = 0;
+		for(Map.Entry<byte[], Integer> e : pool.entrySet())
+			e.setValue(n++);
+		Map<String, Integer> strIDs = new HashMap<String, Integer>(pool.size()*2);
+		for(Map.Entry<byte[], Integer> e : pool.entrySet())
+			strIDs.put(new String(e.getKey(), UTF8), e.getValue());
+
+		// build the record area
+		IntBuffer records = new IntBuffer();
+		int[] rootOffsets = new int[roots.size()];
+		int[] infOffsets = new int[infs.size()];
+		int nextInf = roots.size();
+		for(int i = 0; i < rootOffsets.length; i++){
+			IRootMWEDesc root = roots.get(i);
+			rootOffsets[i] = records.size();
+			records.add(strIDs.get(root.getForm()));
+			records.add(root.getPOS().getIdentifier());
+			addParts(root.getParts(), strIDs, records);
+			addCounts(root.getCounts(), records);
+			records.add(root.getInflected().size());
+			records.add(nextInf - roots.size());
+			nextInf += root.getInflected().size();
+		}
+		for(int i = 0; i < infOffsets.length; i++){
+			IInfMWEDesc inf = infs.get(i);
+			infOffsets[i] = records.size();
+			records.add(numbers.get(inf.getRootMWEDesc()));
+			records.add(strIDs.get(inf.getForm()));
+			addParts(inf.getParts(), strIDs, records);
+			addCounts(inf.getCounts(), records);
+		}
+
+		// order roots by form and part of speech for lookup
+		final byte[][] rootForms = new byte[roots.size()][];
+		final char[] rootPOS = new char[roots.size()];
+		Integer[] lookup = new Integer[roots.size()];
+		for(int i = 0; i < lookup.length; i++){
+			rootForms[i] = encode(roots.get(i).getForm());
+			rootPOS[i] = roots.get(i).getPOS().getIdentifier();
+			lookup[i] = i;
+		}
+		Arrays.sort(lookup, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				int cmp = BYTE_ORDER.compare(rootForms[a], rootForms[b]);
+				return cmp != 0 ? cmp : rootPOS[a] - rootPOS[b];
+			}
+		});
+
+		// order keys by string number, which is byte order
+		Integer[] keyOrder = new Integer[keys.size()];
+		final int[] keyIDs = new int[keys.size()];
+		for(int i = 0; i < keyOrder.length; i++){
+			keyOrder[i] = i;
+			keyIDs[i] = strIDs.get(keys.get(i));
+		}
+		Arrays.sort(keyOrder, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return keyIDs[a] - keyIDs[b];
+			}
+		});
+		int numPostings = 0;
+		for(int[] posting : postings)
+			numPostings += posting.length;
+
+		// write everything out
+		DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+		dos.writeInt(CompiledMWEIndex.MAGIC);
+		dos.writeInt(CompiledMWEIndex.VERSION);
+		dos.writeInt(pool.size());
+		dos.writeInt(roots.size());
+		dos.writeInt(infs.size());
+		dos.writeInt(keys.size());
+		dos.writeInt(numPostings);
+		dos.writeInt(records.size());
+
+		int offset = 0;
+		for(byte[] bytes : pool.keySet()){
+			dos.writeInt(offset);
+			offset += bytes.length;
+		}
+		dos.writeInt(offset);
+		for(int rootOffset : rootOffsets)
+			dos.writeInt(rootOffset);
+		for(int infOffset : infOffsets)
+			dos.writeInt(infOffset);
+		for(Integer root : lookup)
+			dos.writeInt(root);
+		int postStart = 0;
+		for(Integer key : keyOrder){
+			dos.writeInt(keyIDs[key]);
+			dos.writeInt(postStart);
+			dos.writeInt(postings.get(key).length);
+			postStart += postings.get(key).length;
+		}
+		for(Integer key : keyOrder)
+			for(int desc : postings.get(key))
+				dos.writeInt(desc);
+		for(int i = 0; i < records.size(); i++)
+			dos.writeInt(records.get(i));
+		for(byte[] bytes : pool.keySet())
+			dos.write(bytes);
+		dos.flush();
+	}
+
+	/**
+	 * Adds the form and parts of the specified description to the string pool.
+	 *
+	 * @param desc
+	 *            the description whose strings should be pooled
+	 * @param pool
+	 *            the pool
+	 * @since jMWE 1.0.3
+	 */
+	private static void intern(IMWEDesc desc, Map<byte[], Integer> pool){
+		pool.put(encode(desc.getForm()), null);
+		for(IPart part : desc.getParts())
+			pool.put(encode(part.getForm()), null);
+	}
+
+	/**
+	 * Appends the part count followed by the string numbers of the specified
+	 * parts to the record area.
+	 *
+	 * @param parts
+	 *            the parts to be written
+	 * @param strIDs
+	 *            the string numbers
+	 * @param records
+	 *            the record area
+	 * @since jMWE 1.0.3
+	 */
+	private static void addParts(List<? extends IPart> parts, Map<String, Integer> strIDs, IntBuffer records){
+		records.add(parts.size());
+		for(IPart part : parts)
+			records.add(strIDs.get(part.getForm()));
+	}
+
+	/**
+	 * Appends the count length followed by the counts to the record area.
+	 *
+	 * @param counts
+	 *            the counts to be written
+	 * @param records
+	 *            the record area
+	 * @since jMWE 1.0.3
+	 */
+	private static void addCounts(int[] counts, IntBuffer records){
+		records.add(counts.length);
+		for(int count : counts)
+			records.add(count);
+	}
+
+	/**
+	 * Returns the UTF-8 encoding of the specified string.
+	 *
+	 * @param str
+	 *            the string to be encoded
+	 * @return the UTF-8 encoding of the string
+	 * @since jMWE 1.0.3
+	 */
+	protected static byte[] encode(String str){
+		return str.getBytes(UTF8);
+	}
+
+	/**
+	 * The character set of the string data.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Orders byte arrays by unsigned byte value, which for UTF-8 is the same as
+	 * ordering by code point.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public static final Comparator<byte[]> BYTE_ORDER = new Comparator<byte[]>() {
+		public int compare(byte[] a, byte[] b) {
+			int len = Math.min(a.length, b.length);
+			int cmp;
+			for(int i = 0; i < len; i++){
+				cmp = (a[i] & 0xff) - (b[i] & 0xff);
+				if(cmp != 0)
+					return cmp;
+			}
+			return a.length - b.length;
+		}
+	};
+
+	/**
+	 * A growable array of primitive integers.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	private static class IntBuffer {
+
+		private int[] data = new int[1024];
+		private int size = 0;
+
+		public void add(int value){
+			if(size == data.length)
+				data = Arrays.copyOf(data, size*2);
+			data[size++] = value;
+		}
+
+		public int get(int i){
+			return data[i];
+		}
+
+		public int size(){
+			return size;
+		}
+	}
+
+}
@@ -133,21 +133,20 @@ public class MWEDescSet extends CompositeCollection<IMWEDesc> implements IMWEDes
 		isUnmodifiable = true;
 	}
 
-	private static MWEDescSet emptySet;
+	private static final MWEDescSet emptySet = new MWEDescSet();
+	
+	static {
+		emptySet.makeUnmodifiable();
+	}
 
 	/**
-	 * Returns an unmodifiable empty description set. If the static field is
-	 * <code>null</code>, initializes it so that subsequent calls to this method
-	 * return the static instance.
+	 * Returns an unmodifiable empty description set. The set is created
+	 * eagerly so that it may be safely shared between threads.
 	 * 
 	 * @return an unmodifiable empty description set.
 	 * @since jMWE 1.0.0
 	 */
 	public static IMWEDescSet emptySet() {
-		if(emptySet == null){
-			emptySet = new MWEDescSet();
-			emptySet.makeUnmodifiable();
-		}
 		return emptySet;
 	}
 
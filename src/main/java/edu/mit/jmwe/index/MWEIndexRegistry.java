@@ -0,0 +1,690 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.mit.jmwe.data.IInfMWEDesc;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.util.StreamAdapter;
+
+/**
+ * A process-wide registry of open MWE indexes, keyed by the location of their
+ * data. The first call to {@link #acquire(URL)} for a given location loads the
+ * index; subsequent calls share the same loaded index. Each acquisition
+ * returns its own handle, and closing a handle releases one reference. The
+ * underlying index is closed when the last reference is released, unless the
+ * index was loaded via {@link #warmUp(URL)}, in which case it remains resident
+ * until {@link #closeAll()} is called.
+ * <p>
+ * Indexes are loaded outside the registry's lock, so that acquiring an index
+ * that is already loaded never waits for another index to load. Callers that
+ * ask for an index while it is being loaded wait for that load to finish.
+ * <p>
+ * Handles returned by this registry may not be reopened once closed; callers
+ * that need the index again should acquire a new handle.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class MWEIndexRegistry {
+
+	// the singleton instance
+	private static MWEIndexRegistry instance = null;
+
+	/**
+	 * Returns the singleton instance of this class, instantiating it if
+	 * necessary.
+	 *
+	 * @return the singleton instance of this class
+	 * @since jMWE 1.0.3
+	 */
+	public static synchronized MWEIndexRegistry getInstance() {
+		if(instance == null)
+			instance = new MWEIndexRegistry();
+		return instance;
+	}
+
+	// final instance fields
+	private final Lock lock = new ReentrantLock();
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+	// dynamic instance fields
+	private Thread shutdownHook = null;
+
+	/**
+	 * This constructor is marked protected so that the class may be
+	 * sub-classed, but not directly instantiated. Obtain instances of this
+	 * class via the static {@link #getInstance()} method.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	protected MWEIndexRegistry() {}
+
+	/**
+	 * Acquires a handle on the shared index whose data is found in the
+	 * specified file. See {@link #acquire(URL)}.
+	 *
+	 * @param file
+	 *            the file containing the index data; may not be
+	 *            <code>null</code>
+	 * @return an open handle on the shared index
+	 * @throws NullPointerException
+	 *             if the specified file is <code>null</code>
+	 * @throws IOException
+	 *             if the index could not be opened
+	 * @since jMWE 1.0.3
+	 */
+	public IMWEIndex acquire(File file) throws IOException {
+		return acquire(toURL(file));
+	}
+
+	/**
+	 * Acquires a handle on the shared index whose data is found at the
+	 * specified URL. If no index for that location is currently loaded, a new
+	 * one is created by {@link #createIndex(URL)} and opened. The returned
+	 * handle is open; it should be closed when it is no longer needed so that
+	 * the reference it holds is released.
+	 *
+	 * @param url
+	 *            the location of the index data; may not be <code>null</code>
+	 * @return an open handle on the shared index
+	 * @throws NullPointerException
+	 *             if the specified url is <code>null</code>
+	 * @throws IOException
+	 *             if the index could not be opened
+	 * @since jMWE 1.0.3
+	 */
+	public IMWEIndex acquire(URL url) throws IOException {
+		return new Handle(load(url, false));
+	}
+
+	/**
+	 * Loads the index whose data is found in the specified file, and keeps it
+	 * resident regardless of how many handles are outstanding. See
+	 * {@link #warmUp(URL)}.
+	 *
+	 * @param file
+	 *            the file containing the index data; may not be
+	 *            <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified file is <code>null</code>
+	 * @throws IOException
+	 *             if the index could not be opened
+	 * @since jMWE 1.0.3
+	 */
+	public void warmUp(File file) throws IOException {
+		warmUp(toURL(file));
+	}
+
+	/**
+	 * Loads the index whose data is found at the specified URL, and keeps it
+	 * resident regardless of how many handles are outstanding. This allows the
+	 * cost of loading the index to be paid up front, before any documents are
+	 * processed. Pinned indexes are closed only by {@link #closeAll()}.
+	 *
+	 * @param url
+	 *            the location of the index data; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified url is <code>null</code>
+	 * @throws IOException
+	 *             if the index could not be opened
+	 * @since jMWE 1.0.3
+	 */
+	public void warmUp(URL url) throws IOException {
+		load(url, true);
+	}
+
+	/**
+	 * Returns whether an index for the specified location is currently
+	 * loaded.
+	 *
+	 * @param url
+	 *            the location of the index data; may not be <code>null</code>
+	 * @return <code>true</code> if an index for the location is loaded;
+	 *         <code>false</code> otherwise, including while it is still
+	 *         being loaded
+	 * @throws NullPointerException
+	 *             if the specified url is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public boolean isLoaded(URL url) {
+		String key = url.toExternalForm();
+		Entry entry;
+		try {
+			lock.lock();
+			entry = entries.get(key);
+		} finally {
+			lock.unlock();
+		}
+		return entry != null && entry.isLoaded();
+	}
+
+	/**
+	 * Reloads the index whose data is found in the specified file, if it is
+	 * loaded. See {@link #reload(URL)}.
+	 *
+	 * @param file
+	 *            the file containing the index data; may not be
+	 *            <code>null</code>
+	 * @return <code>true</code> if the index was loaded and has been
+	 *         replaced; <code>false</code> if it was not loaded
+	 * @throws NullPointerException
+	 *             if the specified file is <code>null</code>
+	 * @throws IOException
+	 *             if the new index could not be opened
+	 * @since jMWE 1.0.3
+	 */
+	public boolean reload(File file) throws IOException {
+		return reload(toURL(file));
+	}
+
+	/**
+	 * Replaces the loaded index for the specified location with a new index
+	 * created from the data now found there, if an index for the location is
+	 * loaded. The new index is created and opened before it replaces the old
+	 * one, so outstanding handles switch to the new data without any lookup
+	 * failing or waiting: lookups started before the swap finish on the old
+	 * index, and lookups started after it use the new one. The old index is
+	 * not closed, as lookups may still be in progress on it; neither index
+	 * implementation holds a file open once loaded, so the old index is
+	 * simply reclaimed when no longer used.
+	 * <p>
+	 * The data at the location should be replaced in one step, as by
+	 * {@link IndexBuilder#replaceDataFile(IMWEIndex, File, Iterable)}, rather
+	 * than rewritten in place.
+	 * <p>
+	 * Handles are {@link IReloadableMWEIndex reloadable}, and the generation
+	 * of every handle on the index is advanced by the reload. Objects that
+	 * derive data from the contents of a handle when they are built, such as
+	 * the trie of {@link edu.mit.jmwe.detect.ConsecutiveAutomaton}, see the
+	 * new contents only if they check that generation;
+	 * <code>ConsecutiveAutomaton</code> does so and rebuilds its trie.
+	 *
+	 * @param url
+	 *            the location of the index data; may not be <code>null</code>
+	 * @return <code>true</code> if the index was loaded and has been
+	 *         replaced; <code>false</code> if it was not loaded
+	 * @throws NullPointerException
+	 *             if the specified url is <code>null</code>
+	 * @throws IOException
+	 *             if the new index could not be opened
+	 * @since jMWE 1.0.3
+	 */
+	public boolean reload(URL url) throws IOException {
+		String key = url.toExternalForm();
+		Entry entry;
+		try {
+			lock.lock();
+			entry = entries.get(key);
+		} finally {
+			lock.unlock();
+		}
+		if(entry == null)
+			return false;
+		entry.await();
+		
+		// load outside the lock, so other indexes may be acquired meanwhile
+		IMWEIndex index = createIndex(url);
+		if(!index.open())
+			throw new IOException("unable to open index at " + key);
+		try {
+			lock.lock();
+			if(entries.get(key) != entry){
+				index.close();
+				return false;
+			}
+			entry.index = index;
+			entry.generation++;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes all indexes held by this registry, whether pinned or not.
+	 * Outstanding handles become closed, and will throw an
+	 * {@link IllegalStateException} if used.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public void closeAll() {
+		List<IMWEIndex> closing = new ArrayList<IMWEIndex>();
+		try {
+			lock.lock();
+			// indexes still being loaded are closed by their loaders
+			for(Entry entry : entries.values())
+				if(entry.index != null)
+					closing.add(entry.index);
+			entries.clear();
+		} finally {
+			lock.unlock();
+		}
+		for(IMWEIndex index : closing)
+			index.close();
+	}
+
+	/**
+	 * Registers a JVM shutdown hook that calls {@link #closeAll()}. Calling
+	 * this method more than once has no additional effect.
+	 *
+	 * @since jMWE 1.0.3
+	 */
+	public void registerShutdownHook() {
+		try {
+			lock.lock();
+			if(shutdownHook != null)
+				return;
+			shutdownHook = new Thread("jmwe-index-registry-shutdown"){
+				@Override
+				public void run() {
+					closeAll();
+				}
+			};
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the loaded entry for the specified location, either taking a
+	 * reference on it or pinning it. If no entry exists, one is registered
+	 * under the lock and its index is created and opened outside it, as
+	 * {@link #reload(URL)} does; callers asking for the same location in the
+	 * meantime wait for the load to finish. If the load fails, the entry is
+	 * removed, and every caller waiting on it receives the failure.
+	 *
+	 * @param url
+	 *            the location of the index data; may not be <code>null</code>
+	 * @param pin
+	 *            <code>true</code> to pin the entry; <code>false</code> to
+	 *            take a reference on it
+	 * @return the loaded entry for the specified location
+	 * @throws IOException
+	 *             if the index could not be opened
+	 * @since jMWE 1.0.3
+	 */
+	protected Entry load(URL url, boolean pin) throws IOException {
+		String key = url.toExternalForm();
+		Entry entry;
+		boolean loader = false;
+		try {
+			lock.lock();
+			entry = entries.get(key);
+			if(entry == null){
+				entry = new Entry(key, null);
+				entries.put(key, entry);
+				loader = true;
+			}
+			if(pin)
+				entry.pinned = true;
+			else
+				entry.refs++;
+		} finally {
+			lock.unlock();
+		}
+		if(!loader){
+			entry.await();
+			return entry;
+		}
+		
+		// load outside the lock, so other indexes may be acquired meanwhile
+		IMWEIndex index;
+		try {
+			index = createIndex(url);
+			if(!index.open())
+				throw new IOException("unable to open index at " + key);
+		} catch(IOException e) {
+			fail(entry, e);
+			throw e;
+		} catch(RuntimeException e) {
+			fail(entry, new IOException("unable to open index at " + key, e));
+			throw e;
+		}
+		boolean registered;
+		try {
+			lock.lock();
+			entry.index = index;
+			registered = entries.get(key) == entry;
+		} finally {
+			lock.unlock();
+		}
+		entry.loaded.countDown();
+		// the registry was closed while the index was loading
+		if(!registered)
+			index.close();
+		return entry;
+	}
+
+	/**
+	 * Removes an entry whose index could not be loaded, and passes the
+	 * failure to the callers waiting on it.
+	 *
+	 * @param entry
+	 *            the entry
+	 * @param failure
+	 *            the reason the index could not be loaded
+	 * @since jMWE 1.0.3
+	 */
+	private void fail(Entry entry, IOException failure) {
+		try {
+			lock.lock();
+			if(entries.get(entry.key) == entry)
+				entries.remove(entry.key);
+		} finally {
+			lock.unlock();
+		}
+		entry.failure = failure;
+		entry.loaded.countDown();
+	}
+
+	/**
+	 * Creates a new, unopened index for the specified location. Local files
+	 * produced by {@link IndexCompiler} are opened as a
+	 * {@link CompiledMWEIndex}; all other data is loaded by an
+	 * {@link MWEIndex}. Subclasses may override this method to substitute a
+	 * different index implementation.
+	 *
+	 * @param url
+	 *            the location of the index data; will not be <code>null</code>
+	 * @return a new, unopened index
+	 * @throws IOException
+	 *             if there is a problem inspecting the index data
+	 * @since jMWE 1.0.3
+	 */
+	protected IMWEIndex createIndex(URL url) throws IOException {
+		File file = StreamAdapter.toFile(url);
+		if(file != null && CompiledMWEIndex.isCompiled(file))
+			return new CompiledMWEIndex(file);
+		return new MWEIndex(url);
+	}
+
+	/**
+	 * Releases one reference on the specified entry, closing and evicting the
+	 * index if that was the last reference and the entry is not pinned.
+	 *
+	 * @param entry
+	 *            the entry to be released
+	 * @since jMWE 1.0.3
+	 */
+	protected void release(Entry entry) {
+		try {
+			lock.lock();
+			entry.refs--;
+			if(entry.refs > 0 || entry.pinned)
+				return;
+			if(entries.get(entry.key) == entry)
+				entries.remove(entry.key);
+		} finally {
+			lock.unlock();
+		}
+		entry.index.close();
+	}
+
+	/**
+	 * Converts the specified file to the canonical URL used as a registry key,
+	 * so that different paths to the same file share one index.
+	 *
+	 * @param file
+	 *            the file to be converted; may not be <code>null</code>
+	 * @return the canonical URL for the file
+	 * @throws IOException
+	 *             if the canonical path cannot be determined
+	 * @since jMWE 1.0.3
+	 */
+	protected static URL toURL(File file) throws IOException {
+		if(file == null)
+			throw new NullPointerException();
+		URL url = StreamAdapter.toURL(file.getCanonicalFile());
+		if(url == null)
+			throw new IOException("unable to convert " + file + " to a URL");
+		return url;
+	}
+
+	/**
+	 * A loaded index, along with the number of handles outstanding on it. An
+	 * entry is registered before its index is loaded; until then its index is
+	 * <code>null</code>, and callers wait for it with {@link #await()}. The
+	 * generation counts the times the index has been reloaded.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	protected static class Entry {
+
+		// final instance fields
+		protected final String key;
+
+		protected final CountDownLatch loaded;
+
+		// dynamic instance fields
+		protected volatile IMWEIndex index;
+		protected volatile IOException failure = null;
+		protected volatile int generation = 0;
+		protected int refs = 0;
+		protected boolean pinned = false;
+
+		/**
+		 * Creates a new entry for the specified key and open index.
+		 *
+		 * @param key
+		 *            the registry key
+		 * @param index
+		 *            the open index, or <code>null</code> if it is yet to be
+		 *            loaded
+		 * @since jMWE 1.0.3
+		 */
+		protected Entry(String key, IMWEIndex index){
+			this.key = key;
+			this.index = index;
+			this.loaded = new CountDownLatch(index == null ? 1 : 0);
+		}
+
+		/**
+		 * Returns whether the index of this entry has been loaded.
+		 *
+		 * @return <code>true</code> if the index is loaded;
+		 *         <code>false</code> if it is being loaded or could not be
+		 * @since jMWE 1.0.3
+		 */
+		protected boolean isLoaded() {
+			return loaded.getCount() == 0 && failure == null;
+		}
+
+		/**
+		 * Waits until the index of this entry has been loaded.
+		 *
+		 * @throws IOException
+		 *             if the index could not be loaded, or the wait was
+		 *             interrupted
+		 * @since jMWE 1.0.3
+		 */
+		protected void await() throws IOException {
+			try {
+				loaded.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("interrupted while loading index at " + key);
+			}
+			if(failure != null)
+				throw new IOException("unable to open index at " + key, failure);
+		}
+	}
+
+	/**
+	 * A handle on a shared index. All read methods delegate to the shared
+	 * index; closing the handle releases its reference in the registry, and
+	 * leaves the shared index open for other handles.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	protected class Handle implements IReloadableMWEIndex {
+
+		// final instance fields
+		private final Entry entry;
+		private final AtomicBoolean released = new AtomicBoolean(false);
+
+		/**
+		 * Creates a new handle on the specified entry.
+		 *
+		 * @param entry
+		 *            the entry on which the handle is held
+		 * @since jMWE 1.0.3
+		 */
+		protected Handle(Entry entry){
+			this.entry = entry;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#open()
+		 */
+		public boolean open() throws IOException {
+			return isOpen();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#isOpen()
+		 */
+		public boolean isOpen() {
+			return !released.get() && entry.index.isOpen();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IReloadableMWEIndex#getGeneration()
+		 */
+		public int getGeneration() {
+			return entry.generation;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#close()
+		 */
+		public void close() {
+			if(released.compareAndSet(false, true))
+				release(entry);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#get(edu.mit.jmwe.data.IMWEDescID)
+		 */
+		public IMWEDesc get(IMWEDescID id) {
+			return delegate().get(id);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#getRootMWEDesc(java.lang.String, edu.mit.jmwe.data.MWEPOS)
+		 */
+		public IRootMWEDesc getRootMWEDesc(String lemma, MWEPOS pos) {
+			return delegate().getRootMWEDesc(lemma, pos);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#getInflectedMWEDesc(java.lang.String, edu.mit.jmwe.data.MWEPOS, java.lang.String)
+		 */
+		public IInfMWEDesc getInflectedMWEDesc(String lemma, MWEPOS pos, String inflected) {
+			return delegate().getInflectedMWEDesc(lemma, pos, inflected);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#get(java.lang.String)
+		 */
+		public Set<? extends IRootMWEDesc> get(String part) {
+			return delegate().get(part);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#getAll(java.lang.String)
+		 */
+		public Set<? extends IMWEDesc> getAll(String part) {
+			return delegate().getAll(part);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#getRootIterator()
+		 */
+		public Iterator<IRootMWEDesc> getRootIterator() {
+			return delegate().getRootIterator();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEIndex#getIndexIterator()
+		 */
+		public Iterator<String> getIndexIterator() {
+			return delegate().getIndexIterator();
+		}
+
+		/**
+		 * Returns the shared index, or throws an exception if this handle has
+		 * been released.
+		 *
+		 * @return the shared index
+		 * @throws IllegalStateException
+		 *             if this handle has been closed
+		 * @since jMWE 1.0.3
+		 */
+		protected IMWEIndex delegate() {
+			if(released.get())
+				throw new IllegalStateException("index handle is closed");
+			return entry.index;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return entry.key;
+		}
+	}
+
+}
@@ -0,0 +1,473 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.index;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import edu.mit.jmwe.data.IInfMWEDesc;
+import edu.mit.jmwe.data.IInfMWEDesc.IInfPart;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IRootMWEDesc.IRootPart;
+
+/**
+ * An unmodifiable map from MWE parts to the descriptions that contain them,
+ * built for fast lookup and a small footprint. Every description is stored
+ * once in a flat array and referred to by its position in that array; each
+ * part maps to a packed posting list of those positions. Parts are found
+ * through an open-addressing hash table, so a lookup costs one string hash
+ * and, usually, one string comparison.
+ * <p>
+ * The sets returned by {@link #get(Object)} are unmodifiable views over the
+ * posting lists. Each contains the same descriptions, in the same order, as
+ * an {@link MWEDescSet} filled by adding every root description and then each
+ * of its inflected forms under the forms of their parts, which is how the
+ * index was built before this class replaced it.
+ *
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class PostingTable extends AbstractMap<String, IMWEDescSet> {
+
+	// final instance fields
+	private final IMWEDesc[] descs;
+	private final String[] keys;
+	private final int[] starts;
+	private final int[] rootEnds;
+	private final int[] postings;
+	private final int[] slots;
+	private final PostingSet[] sets;
+
+	// dynamic instance fields
+	private transient Set<String> keySet;
+	private transient Set<Entry<String, IMWEDescSet>> entrySet;
+
+	/**
+	 * Builds a new posting table that indexes the parts of every root and
+	 * inflected description in the specified data.
+	 *
+	 * @param data
+	 *            the map of IMWEDescID objects to IRootMWEDesc objects to be
+	 *            indexed; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified map is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public PostingTable(Map<IMWEDescID, ? extends IRootMWEDesc> data){
+
+		// number the descriptions and gather the raw postings
+		List<IMWEDesc> all = new ArrayList<IMWEDesc>(data.size());
+		Map<String, IntList> raw = new HashMap<String, IntList>();
+		for(IRootMWEDesc root : data.values()){
+			for(IRootPart part : root.getParts())
+				add(part.getForm(), all.size(), raw);
+			all.add(root);
+			for(IInfMWEDesc inf : root.getInflected().values()){
+				for(IInfPart part : inf.getParts())
+					add(part.getForm(), all.size(), raw);
+				all.add(inf);
+			}
+		}
+		this.descs = all.toArray(new IMWEDesc[all.size()]);
+
+		// sort the keys so they iterate in order
+		this.keys = raw.keySet().toArray(new String[raw.size()]);
+		Arrays.sort(keys);
+
+		// pack the postings: roots first, then inflected forms, each in
+		// description order and without duplicates
+		int total = 0;
+		for(IntList list : raw.values())
+			total += list.size;
+		int[] packed = new int[total];
+		this.starts = new int[keys.length + 1];
+		this.rootEnds = new int[keys.length];
+		int next = 0;
+		for(int k = 0; k < keys.length; k++){
+			starts[k] = next;
+			IntList list = raw.get(keys[k]);
+			next = pack(list, true, packed, next);
+			rootEnds[k] = next;
+			next = pack(list, false, packed, next);
+		}
+		starts[keys.length] = next;
+		this.postings = next == packed.length ? packed : Arrays.copyOf(packed, next);
+
+		// hash the keys; slots hold key number plus one, zero is empty
+		int capacity = Integer.highestOneBit(Math.max(keys.length, 1) * 2) << 1;
+		this.slots = new int[capacity];
+		int mask = capacity - 1;
+		for(int k = 0; k < keys.length; k++){
+			int slot = hash(keys[k]) & mask;
+			while(slots[slot] != 0)
+				slot = (slot + 1) & mask;
+			slots[slot] = k + 1;
+		}
+
+		// one immutable set per key
+		this.sets = new PostingSet[keys.length];
+		for(int k = 0; k < keys.length; k++)
+			sets[k] = new PostingSet(k);
+	}
+
+	/**
+	 * Copies the root or inflected entries of the specified raw posting list
+	 * into the packed array, sorted in description order and without
+	 * descriptions that compare equal to one already copied.
+	 *
+	 * @param list
+	 *            the raw posting list
+	 * @param roots
+	 *            <code>true</code> to copy roots, <code>false</code> to copy
+	 *            inflected descriptions
+	 * @param packed
+	 *            the packed array
+	 * @param next
+	 *            the next free position in the packed array
+	 * @return the new next free position
+	 * @since jMWE 1.0.3
+	 */
+	private int pack(IntList list, boolean roots, int[] packed, int next){
+		List<IMWEDesc> found = new ArrayList<IMWEDesc>(list.size);
+		List<Integer> ids = new ArrayList<Integer>(list.size);
+		for(int i = 0; i < list.size; i++){
+			IMWEDesc desc = descs[list.data[i]];
+			if((desc instanceof IRootMWEDesc) != roots)
+				continue;
+			// insertion sort keeps the first of any equal descriptions,
+			// as a TreeSet would
+			int pos = found.size();
+			int cmp = 1;
+			while(pos > 0 && (cmp = found.get(pos - 1).compareTo(desc)) > 0)
+				pos--;
+			if(pos > 0 && cmp == 0)
+				continue;
+			found.add(pos, desc);
+			ids.add(pos, list.data[i]);
+		}
+		for(Integer id : ids)
+			packed[next++] = id;
+		return next;
+	}
+
+	/**
+	 * Adds the specified description number to the raw posting list for the
+	 * specified key, creating the list if necessary.
+	 *
+	 * @param key
+	 *            the part form
+	 * @param id
+	 *            the description number
+	 * @param raw
+	 *            the raw posting lists
+	 * @since jMWE 1.0.3
+	 */
+	private static void add(String key, int id, Map<String, IntList> raw){
+		IntList list = raw.get(key);
+		if(list == null){
+			list = new IntList();
+			raw.put(key, list);
+		}
+		list.add(id);
+	}
+
+	/**
+	 * Spreads the bits of the string hash code so that keys with similar hash
+	 * codes do not cluster in the table.
+	 *
+	 * @param key
+	 *            the key to be hashed
+	 * @return the spread hash code
+	 * @since jMWE 1.0.3
+	 */
+	private static int hash(String key){
+		int h = key.hashCode() * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the number of the specified key, or -1 if the key is not in the
+	 * table.
+	 *
+	 * @param key
+	 *            the key to be found
+	 * @return the key number, or -1 if not found
+	 * @since jMWE 1.0.3
+	 */
+	protected int indexOf(Object key){
+		if(!(key instanceof String))
+			return -1;
+		String str = (String)key;
+		int mask = slots.length - 1;
+		int slot = hash(str) & mask;
+		int k;
+		while((k = slots[slot]) != 0){
+			if(keys[k - 1].equals(str))
+				return k - 1;
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the number of descriptions indexed by this table.
+	 *
+	 * @return the number of root and inflected descriptions indexed by this
+	 *         table
+	 * @since jMWE 1.0.3
+	 */
+	public int getDescriptionCount(){
+		return descs.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public IMWEDescSet get(Object key) {
+		int k = indexOf(key);
+		return k < 0 ? null : sets[k];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size() {
+		return keys.length;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractMap#keySet()
+	 */
+	@Override
+	public Set<String> keySet() {
+		if(keySet == null)
+			keySet = new AbstractSet<String>() {
+				public Iterator<String> iterator() {
+					return Arrays.asList(keys).iterator();
+				}
+				public int size() {
+					return keys.length;
+				}
+				public boolean contains(Object o) {
+					return containsKey(o);
+				}
+			};
+		return keySet;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Entry<String, IMWEDescSet>> entrySet() {
+		if(entrySet == null)
+			entrySet = new AbstractSet<Entry<String, IMWEDescSet>>() {
+				public Iterator<Entry<String, IMWEDescSet>> iterator() {
+					return new Iterator<Entry<String, IMWEDescSet>>() {
+						int next = 0;
+						public boolean hasNext() {
+							return next < keys.length;
+						}
+						public Entry<String, IMWEDescSet> next() {
+							if(!hasNext())
+								throw new NoSuchElementException();
+							int k = next++;
+							return new SimpleImmutableEntry<String, IMWEDescSet>(keys[k], sets[k]);
+						}
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+				public int size() {
+					return keys.length;
+				}
+			};
+		return entrySet;
+	}
+
+	/**
+	 * An unmodifiable view of a contiguous range of a posting list.
+	 *
+	 * @param <E>
+	 *            the type of description in the range
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	protected class RangeSet<E extends IMWEDesc> extends AbstractSet<E> {
+
+		// final instance fields
+		private final int from;
+		private final int to;
+
+		/**
+		 * Creates a view of the postings between the specified positions.
+		 *
+		 * @param from
+		 *            the first position, inclusive
+		 * @param to
+		 *            the last position, exclusive
+		 * @since jMWE 1.0.3
+		 */
+		protected RangeSet(int from, int to){
+			this.from = from;
+			this.to = to;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.AbstractCollection#iterator()
+		 */
+		@Override
+		public Iterator<E> iterator() {
+			return new Iterator<E>() {
+				int next = from;
+				public boolean hasNext() {
+					return next < to;
+				}
+				@SuppressWarnings("unchecked")
+				public E next() {
+					if(next >= to)
+						throw new NoSuchElementException();
+					return (E)descs[postings[next++]];
+				}
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size() {
+			return to - from;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.AbstractCollection#contains(java.lang.Object)
+		 */
+		@Override
+		public boolean contains(Object o) {
+			for(int i = from; i < to; i++)
+				if(descs[postings[i]].equals(o))
+					return true;
+			return false;
+		}
+	}
+
+	/**
+	 * The unmodifiable set of descriptions filed under one key.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	protected class PostingSet extends RangeSet<IMWEDesc> implements IMWEDescSet {
+
+		// final instance fields
+		private final Set<IRootMWEDesc> rootDescs;
+		private final Set<IInfMWEDesc> infDescs;
+
+		/**
+		 * Creates the set for the specified key.
+		 *
+		 * @param key
+		 *            the key number
+		 * @since jMWE 1.0.3
+		 */
+		protected PostingSet(int key){
+			super(starts[key], starts[key + 1]);
+			this.rootDescs = new RangeSet<IRootMWEDesc>(starts[key], rootEnds[key]);
+			this.infDescs = new RangeSet<IInfMWEDesc>(rootEnds[key], starts[key + 1]);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEDescSet#makeUnmodifiable()
+		 */
+		public void makeUnmodifiable() {
+			// always unmodifiable
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEDescSet#getRootMWEDescs()
+		 */
+		public Set<IRootMWEDesc> getRootMWEDescs() {
+			return rootDescs;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see edu.mit.jmwe.index.IMWEDescSet#getInflectedMWEDescs()
+		 */
+		public Set<IInfMWEDesc> getInflectedMWEDescs() {
+			return infDescs;
+		}
+	}
+
+	/**
+	 * A growable array of primitive integers.
+	 *
+	 * @version $Id$
+	 * @since jMWE 1.0.3
+	 */
+	private static class IntList {
+
+		private int[] data = new int[4];
+		private int size = 0;
+
+		public void add(int value){
+			if(size == data.length)
+				data = Arrays.copyOf(data, size*2);
+			data[size++] = value;
+		}
+	}
+
+}
@@ -9,7 +9,11 @@
 
 package edu.mit.jmwe.util;
 
+import java.awt.GraphicsEnvironment;
 import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.prefs.Preferences;
 
 import javax.swing.JFileChooser;
@@ -17,12 +21,79 @@ import javax.swing.JFileChooser;
 /**
  * Abstract base class that allows interaction with the user, saving and
  * selecting files and directories.
+ * <p>
+ * Files may also be selected ahead of time with
+ * {@link #setSelection(Class, File)}, in which case no chooser is shown for
+ * them. A selector that is not interactive (by default, one running in a
+ * headless environment) shows no choosers at all: files that have not been
+ * selected ahead of time are treated as if the user had chosen Cancel.
  * 
  * @author M.A. Finlayson
  * @version $Id: AbstractFileSelector.java 323 2011-05-07 01:00:47Z markaf $
  * @since jMWE 1.0.0
  */
 public abstract class AbstractFileSelector {
+	
+	// dynamic instance fields
+	private final Map<Class<?>, File> selections = new HashMap<Class<?>, File>();
+	private boolean interactive = !GraphicsEnvironment.isHeadless();
+
+	/**
+	 * Returns whether this selector shows file choosers for files that have
+	 * not been selected ahead of time. By default, this is <code>true</code>
+	 * unless the environment is headless.
+	 * 
+	 * @return <code>true</code> if this selector prompts the user;
+	 *         <code>false</code> otherwise
+	 * @since jMWE 1.0.3
+	 */
+	public boolean isInteractive() {
+		return interactive;
+	}
+
+	/**
+	 * Sets whether this selector shows file choosers for files that have not
+	 * been selected ahead of time.
+	 * 
+	 * @param interactive
+	 *            <code>true</code> if this selector should prompt the user;
+	 *            <code>false</code> otherwise
+	 * @since jMWE 1.0.3
+	 */
+	public void setInteractive(boolean interactive) {
+		this.interactive = interactive;
+	}
+
+	/**
+	 * Selects a file ahead of time for the specified key, so that it is
+	 * returned without showing a chooser. Selections are not saved as
+	 * locations.
+	 * 
+	 * @param key
+	 *            the class used as a key for the file
+	 * @param file
+	 *            the file to select, or <code>null</code> to select none, as
+	 *            if the user had chosen Cancel
+	 * @throws NullPointerException
+	 *             if the specified key is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public void setSelection(Class<?> key, File file) {
+		if(key == null)
+			throw new NullPointerException();
+		selections.put(key, file);
+	}
+
+	/**
+	 * Removes the file selected ahead of time for the specified key, if any.
+	 * 
+	 * @param key
+	 *            the class used as a key for the file
+	 * @since jMWE 1.0.3
+	 */
+	public void clearSelection(Class<?> key) {
+		selections.remove(key);
+	}
 
 	/**
 	 * Gets a location indexed by the specified class as a key.
@@ -105,6 +176,9 @@ public abstract class AbstractFileSelector {
 	/**
 	 * Choose a file, opening a file chooser at the location already associated
 	 * with the class (if any), and saving the selected location with the class.
+	 * If a file has been selected ahead of time for the class, it is returned
+	 * instead; if there is none and this selector is not interactive,
+	 * <code>null</code> is returned.
 	 * 
 	 * @param msg
 	 *            the message to display
@@ -121,6 +195,10 @@ public abstract class AbstractFileSelector {
 	 * @since jMWE 1.0.0
 	 */
 	protected File choose(String msg, Class<?> key, int dialogType, int selMode){
+		if(selections.containsKey(key))
+			return selections.get(key);
+		if(!isInteractive())
+			return null;
 		File location = getLocation(key);
 		JFileChooser chooser = getFileChooser();
 		chooser.setDialogTitle(msg);
@@ -148,6 +226,36 @@ public abstract class AbstractFileSelector {
 		return chooser;
 	}
 
-
+	/**
+	 * Parses command-line arguments of the form <code>-name value</code> into
+	 * a map from option names (without the leading dash) to values, in the
+	 * order given.
+	 * 
+	 * @param args
+	 *            the command-line arguments
+	 * @param names
+	 *            the names of the options that are allowed
+	 * @return a map from option names to values
+	 * @throws IllegalArgumentException
+	 *             if an argument is not an allowed option, or an option is
+	 *             missing its value or is given twice
+	 * @since jMWE 1.0.3
+	 */
+	public static Map<String, String> parseOptions(String[] args, String... names) {
+		Map<String, String> options = new LinkedHashMap<String, String>();
+		for(int i = 0; i < args.length; i += 2){
+			String name = args[i].startsWith("-") ? args[i].substring(1) : null;
+			boolean allowed = false;
+			for(String allowedName : names)
+				allowed |= allowedName.equals(name);
+			if(!allowed)
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			if(i + 1 == args.length)
+				throw new IllegalArgumentException("Missing value for option: " + args[i]);
+			if(options.put(name, args[i + 1]) != null)
+				throw new IllegalArgumentException("Option given twice: " + args[i]);
+		}
+		return options;
+	}
 
 }
@@ -0,0 +1,103 @@
+/********************************************************************************
+ * Java MWE Library (jMWE) v1.0.2
+ * Copyright (c) 2008-2015 Mark A. Finlayson & Nidhi Kulkarni
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the jMWE License which accompanies this distribution.
+ * Please check the attached license for more details.
+ *******************************************************************************/
+
+package edu.mit.jmwe.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An input stream that counts the bytes read or skipped from the stream it
+ * wraps. The count may be read from any thread while the stream is in use.
+ *
+ * @author M.A. Finlayson
+ * @version $Id$
+ * @since jMWE 1.0.3
+ */
+public class CountingInputStream extends FilterInputStream {
+
+	// dynamic instance fields
+	private volatile long count;
+
+	/**
+	 * Constructs a new counting input stream that wraps the specified stream.
+	 *
+	 * @param in
+	 *            the stream to be wrapped; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified stream is <code>null</code>
+	 * @since jMWE 1.0.3
+	 */
+	public CountingInputStream(InputStream in) {
+		super(in);
+		if(in == null)
+			throw new NullPointerException();
+	}
+
+	/**
+	 * Returns the number of bytes read or skipped so far.
+	 *
+	 * @return the number of bytes read or skipped so far
+	 * @since jMWE 1.0.3
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.FilterInputStream#read()
+	 */
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if(b >= 0)
+			count++;
+		return b;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.FilterInputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = in.read(b, off, len);
+		if(n > 0)
+			count += n;
+		return n;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.FilterInputStream#skip(long)
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(n);
+		if(skipped > 0)
+			count += skipped;
+		return skipped;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.FilterInputStream#markSupported()
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+}
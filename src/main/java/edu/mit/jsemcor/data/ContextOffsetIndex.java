@@ -0,0 +1,296 @@
+/********************************************************************************
+ * MIT JSemcor Library (JSemcor) v1.0.1
+ * Copyright (c) 2008-2011 Massachusetts Institute of Technology
+  * 
+ * This program and the accompanying materials are made available by MIT under 
+ * the terms of the MIT JSemcor License. Refer to the license document included 
+ * with this distribution, or contact markaf@alum.mit.edu for further details.
+ *******************************************************************************/
+
+package edu.mit.jsemcor.data;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import edu.mit.jsemcor.element.IContext;
+
+/**
+ * An index of the byte offsets of the contexts in a single context file. Each
+ * context is recorded by its filename, with the offset of the first byte of
+ * its opening {@code <context ...>} line and the offset just past its closing
+ * {@code </context>} line. With the index, a single context can be parsed
+ * from just the region of the file that holds it, via
+ * {@link ContextParser#parseContext(edu.mit.jsemcor.element.IContextID, String, java.io.Reader)},
+ * without scanning the contexts that come before it.
+ * <p>
+ * Indexes are built with a single pass over the bytes of a file by
+ * {@link #build(ByteBuffer)}, and may be stored in a small text file next to
+ * the context file with {@link #store(File, File)}, so that the pass need not
+ * be repeated. A stored index records the length and modification time of
+ * the context file it was built from, and {@link #load(File, File)} ignores
+ * it if the context file has since changed.
+ * 
+ * @author M.A. Finlayson
+ * @version 1.502, 29 Jan 2011
+ * @since JSemcor 1.0.2
+ */
+public class ContextOffsetIndex {
+	
+	/**
+	 * The suffix appended to the name of a context file to give the name of
+	 * the file in which its offset index is stored.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public static final String SUFFIX = ".offsets";
+	
+	/**
+	 * The first word of a stored offset index.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public static final String HEADER = "jsemcor-offsets";
+	
+	/**
+	 * The version of the stored offset index format.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public static final int VERSION = 1;
+	
+	private final String concordance;
+	private final Map<String, int[]> offsets;
+	
+	/**
+	 * Constructs a new offset index with the specified concordance name and
+	 * offsets, which map context filenames to two-element arrays holding the
+	 * start and end offsets of the context.
+	 * 
+	 * @throws NullPointerException
+	 *             if the offset map is <code>null</code>
+	 * @since JSemcor 1.0.2
+	 */
+	protected ContextOffsetIndex(String concordance, Map<String, int[]> offsets){
+		if(offsets == null) throw new NullPointerException();
+		this.concordance = concordance;
+		this.offsets = offsets;
+	}
+	
+	/**
+	 * Returns the concordance name given by the {@code <contextfile ...>}
+	 * line of the indexed file, or <code>null</code> if none was given.
+	 * 
+	 * @return the concordance name of the indexed file
+	 * @since JSemcor 1.0.2
+	 */
+	public String getConcordanceName(){
+		return concordance;
+	}
+	
+	/**
+	 * Returns the filenames of the indexed contexts, in the order in which they
+	 * appear in the file.
+	 * 
+	 * @return the unmodifiable set of context filenames in the index
+	 * @since JSemcor 1.0.2
+	 */
+	public Set<String> getContextNames(){
+		return Collections.unmodifiableSet(offsets.keySet());
+	}
+	
+	/**
+	 * Returns <code>true</code> if the index holds the offsets of the context
+	 * with the specified filename.
+	 * 
+	 * @return <code>true</code> if the context is indexed; <code>false</code>
+	 *         otherwise
+	 * @since JSemcor 1.0.2
+	 */
+	public boolean contains(String contextName){
+		return offsets.containsKey(contextName);
+	}
+	
+	/**
+	 * Returns the offset of the first byte of the opening line of the specified
+	 * context, or <code>-1</code> if the context is not indexed.
+	 * 
+	 * @return the start offset of the context, or <code>-1</code>
+	 * @since JSemcor 1.0.2
+	 */
+	public int getStart(String contextName){
+		int[] range = offsets.get(contextName);
+		return (range == null) ? -1 : range[0];
+	}
+	
+	/**
+	 * Returns the offset just past the closing line of the specified context,
+	 * or <code>-1</code> if the context is not indexed.
+	 * 
+	 * @return the end offset of the context, or <code>-1</code>
+	 * @since JSemcor 1.0.2
+	 */
+	public int getEnd(String contextName){
+		int[] range = offsets.get(contextName);
+		return (range == null) ? -1 : range[1];
+	}
+	
+	/**
+	 * Stores this index in the specified file, recording the length and
+	 * modification time of the specified context file.
+	 * 
+	 * @throws IOException
+	 *             if the index could not be written
+	 * @throws NullPointerException
+	 *             if either file is <code>null</code>
+	 * @since JSemcor 1.0.2
+	 */
+	public void store(File contextFile, File indexFile) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexFile), "US-ASCII"));
+		try{
+			writer.write(HEADER + ' ' + VERSION + ' ' + contextFile.length() + ' ' + contextFile.lastModified() + '\n');
+			if(concordance != null) writer.write(IContext.ATTR_CONCORDANCE + ' ' + concordance + '\n');
+			for(Map.Entry<String, int[]> entry : offsets.entrySet())
+				writer.write(entry.getKey() + ' ' + entry.getValue()[0] + ' ' + entry.getValue()[1] + '\n');
+		} finally {
+			writer.close();
+		}
+	}
+	
+	/**
+	 * Loads the index stored in the specified file. If the index file does not
+	 * exist, is not a stored index, or was stored for a context file with a
+	 * different length or modification time than the specified context file,
+	 * this method returns <code>null</code>.
+	 * 
+	 * @return the stored index, or <code>null</code> if there is no current
+	 *         stored index
+	 * @throws IOException
+	 *             if the index file could not be read
+	 * @throws NullPointerException
+	 *             if either file is <code>null</code>
+	 * @since JSemcor 1.0.2
+	 */
+	public static ContextOffsetIndex load(File contextFile, File indexFile) throws IOException {
+		if(!indexFile.isFile()) return null;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), "US-ASCII"));
+		try{
+			String line = reader.readLine();
+			if(line == null) return null;
+			String[] fields = line.split(" ");
+			if(fields.length != 4 || !HEADER.equals(fields[0])) return null;
+			if(Integer.parseInt(fields[1]) != VERSION) return null;
+			if(Long.parseLong(fields[2]) != contextFile.length()) return null;
+			if(Long.parseLong(fields[3]) != contextFile.lastModified()) return null;
+			
+			String concordance = null;
+			Map<String, int[]> offsets = new LinkedHashMap<String, int[]>();
+			while((line = reader.readLine()) != null){
+				fields = line.split(" ");
+				if(fields.length == 2 && IContext.ATTR_CONCORDANCE.equals(fields[0])){
+					concordance = fields[1];
+				} else if(fields.length == 3){
+					offsets.put(fields[0], new int[]{Integer.parseInt(fields[1]), Integer.parseInt(fields[2])});
+				} else {
+					return null;
+				}
+			}
+			return new ContextOffsetIndex(concordance, offsets);
+		} catch(NumberFormatException e){
+			return null;
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Builds an index of the contexts in the specified buffer, which holds the
+	 * bytes of a context file. The buffer is read with absolute gets from its
+	 * position to its limit, and offsets are relative to its position; its
+	 * position is not changed. Only the opening and closing lines of the
+	 * context file and of each context are examined.
+	 * 
+	 * @return the index of the contexts in the buffer
+	 * @throws MalformedLineException
+	 *             if a context does not name its file, or is not closed
+	 * @throws NullPointerException
+	 *             if the specified buffer is <code>null</code>
+	 * @since JSemcor 1.0.2
+	 */
+	public static ContextOffsetIndex build(ByteBuffer buf){
+		
+		String concordance = null;
+		Map<String, int[]> offsets = new LinkedHashMap<String, int[]>();
+		StringBuilder sb = new StringBuilder(64);
+		
+		int base = buf.position(), limit = buf.limit();
+		int lineStart = base, lineEnd, next;
+		String open = null;
+		int openStart = -1;
+		while(lineStart < limit){
+			
+			// find end of line
+			lineEnd = lineStart;
+			while(lineEnd < limit && buf.get(lineEnd) != '\n') lineEnd++;
+			next = (lineEnd < limit) ? lineEnd+1 : limit;
+			
+			// only lines that open or close a context are of interest
+			if(buf.get(lineStart) == '<' && startsWith(buf, lineStart, lineEnd, IContext.TAG_CONTEXT_LEFT)){
+				if(startsWith(buf, lineStart, lineEnd, IContext.TAG_CONTEXTFILE_LEFT)){
+					concordance = ContextParser.extractAttributeValue(IContext.ATTR_CONCORDANCE, load(buf, lineStart, lineEnd, sb));
+				} else {
+					if(open != null) throw new MalformedLineException("Missing " + IContext.TAG_CONTEXT_RIGHT + " for " + open);
+					open = ContextParser.extractAttributeValue(IContext.ATTR_FILENAME, load(buf, lineStart, lineEnd, sb));
+					if(open == null) throw new MalformedLineException("Missing attribute: " + IContext.ATTR_FILENAME);
+					openStart = lineStart-base;
+				}
+			} else if(open != null && buf.get(lineStart) == '<' && startsWith(buf, lineStart, lineEnd, IContext.TAG_CONTEXT_RIGHT)){
+				offsets.put(open, new int[]{openStart, next-base});
+				open = null;
+			}
+			lineStart = next;
+		}
+		if(open != null) throw new MalformedLineException("Missing " + IContext.TAG_CONTEXT_RIGHT + " for " + open);
+		
+		return new ContextOffsetIndex(concordance, offsets);
+	}
+	
+	/**
+	 * Returns <code>true</code> if the bytes of the buffer between the
+	 * specified offsets begin with the specified ASCII prefix.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	protected static boolean startsWith(ByteBuffer buf, int start, int end, String prefix){
+		if(end-start < prefix.length()) return false;
+		for(int i = 0; i < prefix.length(); i++)
+			if(buf.get(start+i) != prefix.charAt(i)) return false;
+		return true;
+	}
+	
+	/**
+	 * Loads the ASCII bytes of the buffer between the specified offsets into
+	 * the specified string builder, replacing its contents, and returns the
+	 * builder.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	protected static StringBuilder load(ByteBuffer buf, int start, int end, StringBuilder sb){
+		sb.setLength(0);
+		for(int i = start; i < end; i++)
+			sb.append((char)(buf.get(i) & 0xFF));
+		return sb;
+	}
+	
+}
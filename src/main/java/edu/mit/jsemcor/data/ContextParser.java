@@ -107,8 +107,6 @@ public class ContextParser implements IContextParser {
 		// parse all contexts 
 		IContext result = null;
 		String filename;
-		boolean hasParas;
-		List<? extends IElement> elementList;
 		
 		while(loadLine(source, sb) && result == null){
 			
@@ -119,17 +117,7 @@ public class ContextParser implements IContextParser {
 			if(filename == null) throwMissingAttribute(IContext.ATTR_FILENAME);
 			
 			if(id.getContextName().equals(filename)){
-				
-				// extract content
-				hasParas = IContext.VALUE_YES.equals(extractAttributeValue(IContext.ATTR_PARAS, sb));
-				elementList = hasParas ? parseContextParagraphs(id, source, sb) : parseContextSentences(id, 0, source, sb);
-				
-				// make context
-				result = new Context(id, corpus, filename, elementList, hasParas);
-				
-				// check for </context>, should already be in buffer
-				if(sb.indexOf(IContext.TAG_CONTEXT_RIGHT) != 0) throwMissingClosingTag(IContext.TAG_CONTEXT_RIGHT);
-				
+				result = parseContext(id, corpus, filename, source, sb);
 			} else {
 				// forward to next </context>
 				while(loadLine(source, sb)){
@@ -144,6 +132,73 @@ public class ContextParser implements IContextParser {
 		return result;
 	}
 	
+	/**
+	 * Parses a single context from the specified {@link Reader}, which must be
+	 * positioned at the opening {@code <context ...>} line of the context,
+	 * rather than at the {@code <contextfile ...>} line that opens a whole
+	 * context file. This allows a context to be parsed from just the region
+	 * of a file that holds it, as found by a {@link ContextOffsetIndex}.
+	 * 
+	 * @param id
+	 *            the id of the context to be parsed
+	 * @param corpus
+	 *            the concordance name given by the enclosing context file
+	 * @param source
+	 *            the reader, which must support marking
+	 * @return the context, or <code>null</code> if the context at the
+	 *         beginning of the reader does not have the specified id
+	 * @throws IOException
+	 *             if the underlying reader throws an {@link IOException}
+	 * @throws MalformedLineException
+	 *             if there is a problem with parsing the data
+	 * @throws IllegalArgumentException
+	 *             if the reader does not support marking
+	 * @since JSemcor 1.0.2
+	 */
+	public IContext parseContext(IContextID id, String corpus, Reader source) throws IOException {
+		
+		if(!source.markSupported()) throw new IllegalArgumentException();
+		
+		StringBuilder sb = new StringBuilder(1024);
+		
+		// check first line for <context
+		if(!loadLine(source, sb) || sb.indexOf(IContext.TAG_CONTEXT_LEFT) != 0 || sb.indexOf(IContext.TAG_CONTEXTFILE_LEFT) == 0) throwMissingOpeningTag(IContext.TAG_CONTEXT);
+		
+		// get filename
+		String filename = extractAttributeValue(IContext.ATTR_FILENAME, sb);
+		if(filename == null) throwMissingAttribute(IContext.ATTR_FILENAME);
+		
+		return id.getContextName().equals(filename) ? parseContext(id, corpus, filename, source, sb) : null;
+	}
+	
+	/**
+	 * Parses the content of a context whose opening {@code <context ...>}
+	 * line is in the specified buffer, leaving the closing
+	 * {@code </context>} line in the buffer.
+	 * 
+	 * @return the context
+	 * @throws IOException
+	 *             if the underlying reader throws an {@link IOException}
+	 * @throws MalformedLineException
+	 *             if there is a problem with parsing the data
+	 * @since JSemcor 1.0.2
+	 */
+	protected IContext parseContext(IContextID id, String corpus, String filename, Reader source, StringBuilder sb) throws IOException {
+		
+		// extract content
+		boolean hasParas = IContext.VALUE_YES.equals(extractAttributeValue(IContext.ATTR_PARAS, sb));
+		SGMLLineTokenizer tokens = new SGMLLineTokenizer();
+		List<? extends IElement> elementList = hasParas ? parseContextParagraphs(id, source, sb, tokens) : parseContextSentences(id, 0, source, sb, tokens);
+		
+		// make context
+		IContext result = new Context(id, corpus, filename, elementList, hasParas);
+		
+		// check for </context>, should already be in buffer
+		if(sb.indexOf(IContext.TAG_CONTEXT_RIGHT) != 0) throwMissingClosingTag(IContext.TAG_CONTEXT_RIGHT);
+		
+		return result;
+	}
+	
 	/**
 	 * This method returns a list of {@link IParagraph} objects extracted from
 	 * the specified {@link Reader}, in the order they were encountered. The
@@ -159,6 +214,23 @@ public class ContextParser implements IContextParser {
 	 * @since JSemcor 1.0.0
 	 */
 	public List<IParagraph> parseContextParagraphs(IContextID id, Reader source, StringBuilder sb) throws IOException {
+		return parseContextParagraphs(id, source, sb, new SGMLLineTokenizer());
+	}
+	
+	/**
+	 * This method returns a list of {@link IParagraph} objects extracted from
+	 * the specified {@link Reader}, as {@link #parseContextParagraphs(IContextID, Reader, StringBuilder)}
+	 * does, using the specified tokenizer to parse the token lines.
+	 * 
+	 * @return A list of {@link IParagraph} objects corresponding to the
+	 *         characters in the {@link Reader} input.
+	 * @throws IOException
+	 *             if the underlying reader throws an {@link IOException}
+	 * @throws MalformedLineException
+	 *             if there is a problem with parsing the data
+	 * @since JSemcor 1.0.2
+	 */
+	public List<IParagraph> parseContextParagraphs(IContextID id, Reader source, StringBuilder sb, SGMLLineTokenizer tokens) throws IOException {
 		ArrayList<IParagraph> result = new ArrayList<IParagraph>();
 		
 		String numStr;
@@ -180,7 +252,7 @@ public class ContextParser implements IContextParser {
 			if(pnum != result.size()+1) logUnexpectedParaNum(id.toString(), result.size()+1, pnum);
 			
 			// parse <s>...</s>
-			p = new Paragraph(pnum, parseContextSentences(id, numSents, source, sb));
+			p = new Paragraph(pnum, parseContextSentences(id, numSents, source, sb, tokens));
 			result.add(p); 
 			numSents += p.size();
 			
@@ -209,6 +281,23 @@ public class ContextParser implements IContextParser {
 	 * @since JSemcor 1.0.0
 	 */
 	public List<ISentence> parseContextSentences(IContextID id, int numOffset, Reader source, StringBuilder sb) throws IOException {
+		return parseContextSentences(id, numOffset, source, sb, new SGMLLineTokenizer());
+	}
+	
+	/**
+	 * This method returns a list of {@link ISentence} objects extracted from
+	 * the specified {@link Reader}, as {@link #parseContextSentences(IContextID, int, Reader, StringBuilder)}
+	 * does, using the specified tokenizer to parse the token lines.
+	 * 
+	 * @return A list of {@link ISentence} objects corresponding to the
+	 *         characters in the {@link Reader} input.
+	 * @throws IOException
+	 *             if the underlying reader throws an {@link IOException}
+	 * @throws MalformedLineException
+	 *             if there is a problem with parsing the data
+	 * @since JSemcor 1.0.2
+	 */
+	public List<ISentence> parseContextSentences(IContextID id, int numOffset, Reader source, StringBuilder sb, SGMLLineTokenizer tokens) throws IOException {
 		ArrayList<ISentence> result = new ArrayList<ISentence>();
 		
 		numOffset++;
@@ -230,7 +319,7 @@ public class ContextParser implements IContextParser {
 			if(snum != numOffset+result.size()) logUnexpectedSentNum(id.toString(), numOffset+result.size(), snum);
 			
 			// parse tokens
-			result.add(new Sentence(snum, parseTokens(source, sb))); 
+			result.add(new Sentence(snum, parseTokens(source, sb, tokens))); 
 			
 			// checks for </s>, the line should already be loaded in the buffer
 			if(sb.indexOf(ISentence.TAG_SENT_RIGHT) != 0) throwMissingClosingTag(IParagraph.TAG_PARA_RIGHT);
@@ -250,6 +339,20 @@ public class ContextParser implements IContextParser {
 	 * @since JSemcor 1.0.0
 	 */
 	public List<IToken> parseTokens(Reader source, StringBuilder sb) throws IOException {
+		return parseTokens(source, sb, new SGMLLineTokenizer());
+	}
+	
+	/**
+	 * Parses the lines representing sets of tokens in a sentence into a list of
+	 * {@link IToken} objects, using the specified {@link StringBuilder} object
+	 * as a buffer, and the specified tokenizer to parse each line.
+	 * 
+	 * @return a non-null but possible empty list of tokens extracted from the
+	 *         specified reader
+	 * @throws IOException
+	 * @since JSemcor 1.0.2
+	 */
+	public List<IToken> parseTokens(Reader source, StringBuilder sb, SGMLLineTokenizer tokens) throws IOException {
 		
 		ArrayList<IToken> result = new ArrayList<IToken>();
 
@@ -257,10 +360,10 @@ public class ContextParser implements IContextParser {
 		int wordCount = 1;
 		while(loadLine(source, sb)){
 			if(sb.indexOf(IWordform.TAG_WF_START) == 0){
-				token = parseWordFormLine(wordCount, result.size(), sb);
+				token = parseWordFormLine(wordCount, result.size(), sb, tokens);
 				wordCount++;
 			} else if(sb.indexOf(IPunc.TAG_PUNC_START) == 0){
-				token = parsePuncLine(sb);
+				token = parsePuncLine(sb, tokens);
 			} else {
 				break;
 			}
@@ -284,51 +387,93 @@ public class ContextParser implements IContextParser {
 	 * @since JSemcor 1.0.0
 	 */
 	public IWordform parseWordFormLine(int wordNum, int tokIdx, CharSequence line) {
-		Map<String, String> attrs = parseSGMLLine(line);
-		
-		String cmdStr = attrs.get(ICommand.ATTR_CMD);
-		ICommand cmd = resolveCommand(cmdStr);
-		if(cmd == null) throw new MalformedLineException("cmd is null");
+		return parseWordFormLine(wordNum, tokIdx, line, new SGMLLineTokenizer());
+	}
+	
+	/**
+	 * Parses the specified string into an {@link IWordform} object, if
+	 * possible, reading its attributes in place with the specified tokenizer
+	 * rather than through an attribute map. If not possible, throws a
+	 * MisformattedLineException.
+	 * 
+	 * @throws NullPointerException
+	 *             if the specified line or tokenizer is <code>null</code>
+	 * @throws MalformedLineException
+	 *             if the specified line is not a valid word form line.
+	 * @since JSemcor 1.0.2
+	 */
+	public IWordform parseWordFormLine(int wordNum, int tokIdx, CharSequence line, SGMLLineTokenizer tokens) {
+		tokens.reset(line);
 		
+		String cmdStr = null, redef = null, sep = null, posSym = null;
+		String lemma = null, wnsn = null, lexsn = null, pn = null;
+		String ot = null, tagnote = null, noteMsg = null;
 		int distance = IWordform.DEFAULT_DC;
-		if(attrs.containsKey(IWordform.ATTR_DC)){
-			try{
-				distance = Integer.parseInt(attrs.get(IWordform.ATTR_DC));
-			} catch(NumberFormatException e){
-				throw new MalformedLineException("problem parsing distance", e);
+		
+		int seen = 0, bit;
+		while(tokens.nextAttribute()){
+			if(tokens.isKey(ICommand.ATTR_CMD)){
+				bit = 1; cmdStr = tokens.getValue();
+			} else if(tokens.isKey(IPOSTag.ATTR_POS)){
+				bit = 1 << 1; posSym = tokens.getValue();
+			} else if(tokens.isKey(ISemanticTag.ATTR_LEMMA)){
+				bit = 1 << 2; lemma = tokens.getValue();
+			} else if(tokens.isKey(ISemanticTag.ATTR_WNSN)){
+				bit = 1 << 3; wnsn = tokens.getValue();
+			} else if(tokens.isKey(ISemanticTag.ATTR_LEXSN)){
+				bit = 1 << 4; lexsn = tokens.getValue();
+			} else if(tokens.isKey(IWordform.ATTR_DC)){
+				bit = 1 << 5;
+				try{
+					distance = tokens.getIntValue();
+				} catch(NumberFormatException e){
+					throw new MalformedLineException("problem parsing distance", e);
+				}
+			} else if(tokens.isKey(IWordform.ATTR_RDF)){
+				bit = 1 << 6; redef = tokens.getValue();
+			} else if(tokens.isKey(IWordform.ATTR_SEP)){
+				bit = 1 << 7; sep = tokens.getValue();
+			} else if(tokens.isKey(ICategory.ATTR_PN)){
+				bit = 1 << 8; pn = tokens.getValue();
+			} else if(tokens.isKey(IOtherTag.ATTR_OT)){
+				bit = 1 << 9; ot = tokens.getValue();
+			} else if(tokens.isKey(INoteType.ATTR_TAGNOTE)){
+				bit = 1 << 10; tagnote = tokens.getValue();
+			} else if(tokens.isKey(INote.ATTR)){
+				bit = 1 << 11; noteMsg = tokens.getValue();
+			} else {
+				continue;
 			}
+			if((seen & bit) != 0) throw new MalformedLineException("Multiple attributes of same type: " + tokens.getKey());
+			seen |= bit;
 		}
 		
-		String redef = attrs.get(IWordform.ATTR_RDF);
+		ICommand cmd = resolveCommand(cmdStr);
+		if(cmd == null) throw new MalformedLineException("cmd is null");
+		
 		redef = checkAttribute(redef, IWordform.ATTR_RDF);
 
-		String sep = attrs.get(IWordform.ATTR_SEP);
 		sep = checkAttribute(sep, IWordform.ATTR_SEP);
 		sep = trimQuotes(sep);
 		
-		String posSym = attrs.get(IPOSTag.ATTR_POS);
 		IPOSTag pos = resolvePOSTag(posSym);
 		
 		if(pos == null) throw new MalformedLineException("pos is null");
 		
 		ISemanticTag semTag = null;
-		String lemma = attrs.get(ISemanticTag.ATTR_LEMMA);
-		String wnsn = attrs.get(ISemanticTag.ATTR_WNSN);
-		String lexsn = attrs.get(ISemanticTag.ATTR_LEXSN);
-		ICategory category = resolveCategory(attrs.get(ICategory.ATTR_PN));
+		ICategory category = resolveCategory(pn);
 		if(lemma != null && wnsn != null && lexsn != null){
 			semTag = new SemanticTag(lemma, wnsn, lexsn, category);
 		}
 		
-		IOtherTag otherTag = resolveOtherTag(attrs.get(IOtherTag.ATTR_OT));
+		IOtherTag otherTag = resolveOtherTag(ot);
 		
-		INoteType type = resolveNoteType(attrs.get(INoteType.ATTR_TAGNOTE));
-		String noteMsg = attrs.get(INote.ATTR);
+		INoteType type = resolveNoteType(tagnote);
 		noteMsg = checkAttribute(noteMsg, INote.ATTR);
 		noteMsg = trimQuotes(noteMsg);
 		INote note = (type != null) ? new Note(noteMsg, type) : null;
 		
-		String word = attrs.get(IWordform.TAG_WF_VALUE);
+		String word = tokens.isTag(IWordform.TAG_WF_VALUE) ? tokens.getText() : null;
 		
 		return new Wordform(wordNum, tokIdx, cmd, distance, redef, sep, pos, semTag, otherTag, note, word);
 		
@@ -346,6 +491,23 @@ public class ContextParser implements IContextParser {
 	 * @since JSemcor 1.0.0
 	 */
 	public IPunc parsePuncLine(CharSequence line){
+		return parsePuncLine(line, null);
+	}
+	
+	/**
+	 * Parses a line representing a punctuation entry and returns the
+	 * corresponding {@link IPunc} object, using the specified tokenizer, if
+	 * not <code>null</code>, to avoid making a new string for the punctuation
+	 * mark.
+	 * 
+	 * @return an {@link IPunc} object representing the specified line, or
+	 *         <code>null</code> if line cannot be interpreted as an
+	 *         {@link IPunc} object.
+	 * @throws NullPointerException
+	 *             if the specified line is <code>null</code>.
+	 * @since JSemcor 1.0.2
+	 */
+	public IPunc parsePuncLine(CharSequence line, SGMLLineTokenizer tokens){
     	
     	int start = 0;
     	
@@ -381,7 +543,8 @@ public class ContextParser implements IContextParser {
     		}
     	}
 
-    	return start == end ? null : resolvePunc(line.subSequence(start, end-found).toString());
+    	if(start == end) return null;
+    	return resolvePunc(tokens == null ? line.subSequence(start, end-found).toString() : tokens.toString(line, start, end-found));
     }
 	
 	/**
@@ -0,0 +1,303 @@
+/********************************************************************************
+ * MIT JSemcor Library (JSemcor) v1.0.1
+ * Copyright (c) 2008-2011 Massachusetts Institute of Technology
+  * 
+ * This program and the accompanying materials are made available by MIT under 
+ * the terms of the MIT JSemcor License. Refer to the license document included 
+ * with this distribution, or contact markaf@alum.mit.edu for further details.
+ *******************************************************************************/
+
+package edu.mit.jsemcor.data;
+
+import java.util.Arrays;
+
+import edu.mit.jsemcor.element.IElement;
+
+/**
+ * A streaming tokenizer for lines of the form
+ * {@code <tag attr1=val1 attr2=val2 ... >text</tag>}. It reads the attributes
+ * of a line one at a time, in place, and so does not build the attribute map
+ * of {@link ContextParser#parseSGMLLine(CharSequence)}. Attributes are
+ * recognized by comparing their names with {@link #isKey(String)}, and values
+ * are returned through a small table of strings that have been seen before,
+ * so that the many repeated values of a concordance (commands, part of speech
+ * tags, lemmas, words) do not allocate a new string each time they are read.
+ * <p>
+ * The tokenizer splits lines in exactly the same way as
+ * {@link ContextParser#parseSGMLLine(CharSequence)} and
+ * {@link ContextParser#parseAttributeList(CharSequence)}. Instances are meant
+ * to be reused for every line of a context, and are not thread-safe.
+ * 
+ * @author M.A. Finlayson
+ * @version 1.502, 29 Jan 2011
+ * @since JSemcor 1.0.2
+ */
+public class SGMLLineTokenizer {
+	
+	/**
+	 * The default number of slots in the table of remembered strings.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public static final int DEFAULT_SYMBOL_CAPACITY = 1 << 12;
+	
+	// symbol table
+	private final String[] symbols;
+	private final int[] hashes;
+	private int symbolCount;
+	
+	// current line
+	private CharSequence line;
+	private int tagStart, tagEnd, attrEnd, textStart, textEnd;
+	
+	// current attribute
+	private int next, keyStart, keyEnd, valueStart, valueEnd;
+	
+	/**
+	 * Constructs a new tokenizer with the default symbol table capacity.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public SGMLLineTokenizer(){
+		this(DEFAULT_SYMBOL_CAPACITY);
+	}
+	
+	/**
+	 * Constructs a new tokenizer whose table of remembered strings has at
+	 * least the specified number of slots. The table is emptied whenever it
+	 * becomes half full.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the capacity is less than one
+	 * @since JSemcor 1.0.2
+	 */
+	public SGMLLineTokenizer(int capacity){
+		if(capacity < 1) throw new IllegalArgumentException();
+		int size = Integer.highestOneBit(Math.max(capacity, 2)-1) << 1;
+		symbols = new String[size];
+		hashes = new int[size];
+	}
+	
+	/**
+	 * Sets the tokenizer to the start of the attribute list of the specified
+	 * line.
+	 * 
+	 * @throws NullPointerException
+	 *             if the line is <code>null</code>
+	 * @throws MalformedLineException
+	 *             if the line does not have matching opening and closing tags
+	 * @since JSemcor 1.0.2
+	 */
+	public void reset(CharSequence line){
+		int len = line.length();
+		int leftStart = indexOf(line, IElement.LEFT_ANGLE_BRACKET, 0, len);
+		int leftSpace = indexOf(line, IElement.SPACE, leftStart, len);
+		int leftEnd = indexOf(line, IElement.RIGHT_ANGLE_BRACKET, leftSpace, len);
+		int rightStart = indexOf(line, IElement.LEFT_ANGLE_BRACKET, leftEnd, len);
+		int rightSlash = indexOf(line, IElement.FORWARD_SLASH, rightStart, len);
+		int rightEnd = indexOf(line, IElement.RIGHT_ANGLE_BRACKET, rightSlash, len);
+		
+		// make sure we found all the characters
+		if(leftStart == -1 || leftSpace == -1 || leftEnd == -1 || rightStart == -1 || rightSlash == -1 || rightEnd == -1){
+			throw new MalformedLineException("Tags not properly closed");
+		}
+		
+		// make sure the opening and closing tag match
+		if(!regionMatches(line, leftStart+1, leftSpace, line, rightSlash+1, rightEnd)) throw new MalformedLineException("Tags don't match");
+		
+		this.line = line;
+		this.tagStart = leftStart+1;
+		this.tagEnd = leftSpace;
+		this.attrEnd = leftEnd;
+		this.textStart = leftEnd+1;
+		this.textEnd = rightStart;
+		this.next = leftSpace+1;
+		keyStart = keyEnd = valueStart = valueEnd = -1;
+	}
+	
+	/**
+	 * Advances to the next attribute of the current line.
+	 * 
+	 * @return <code>true</code> if there is another attribute;
+	 *         <code>false</code> if the attributes are exhausted
+	 * @throws IllegalStateException
+	 *             if the tokenizer has not been reset to a line
+	 * @since JSemcor 1.0.2
+	 */
+	public boolean nextAttribute(){
+		if(line == null) throw new IllegalStateException();
+		if(next >= attrEnd) return false;
+		
+		// forward 'begin' to next non-whitespace character
+		int begin = next;
+		while(begin < attrEnd && Character.isWhitespace(line.charAt(begin))) begin++;
+		
+		// forward 'equals' to next equals character
+		int equals = begin+1;
+		while(equals < attrEnd && line.charAt(equals) != IElement.EQUALS) equals++;
+		
+		// forward 'end' to next whitespace character not enclosed by quotes
+		int end = equals+1;
+		boolean hasQuotes = end < attrEnd && line.charAt(end) == IElement.OPEN_QUOTE;
+		if(hasQuotes) end++;
+		while(end < attrEnd){
+			if(hasQuotes){
+				if(line.charAt(end) == IElement.CLOSE_QUOTE) break;
+			} else {
+				if(Character.isWhitespace(line.charAt(end))) break;
+			}
+			end++;
+		}
+		
+		if(attrEnd <= begin || attrEnd <= equals || attrEnd < end){
+			next = attrEnd;
+			return false;
+		}
+		
+		keyStart = begin;
+		keyEnd = equals;
+		valueStart = hasQuotes ? equals+2 : equals+1;
+		valueEnd = end;
+		next = hasQuotes ? end+2 : end+1;
+		return true;
+	}
+	
+	/**
+	 * Returns <code>true</code> if the tag of the current line has the
+	 * specified name.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public boolean isTag(String name){
+		return regionMatches(line, tagStart, tagEnd, name, 0, name.length());
+	}
+	
+	/**
+	 * Returns <code>true</code> if the current attribute has the specified
+	 * name.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public boolean isKey(String name){
+		return keyStart != -1 && regionMatches(line, keyStart, keyEnd, name, 0, name.length());
+	}
+	
+	/**
+	 * Returns the name of the current attribute. This always creates a new
+	 * string, and is meant for error messages.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public String getKey(){
+		return line.subSequence(keyStart, keyEnd).toString();
+	}
+	
+	/**
+	 * Returns the value of the current attribute, with enclosing quotes
+	 * removed.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public String getValue(){
+		return toString(line, valueStart, valueEnd);
+	}
+	
+	/**
+	 * Returns the value of the current attribute as an integer, reading the
+	 * digits in place where possible.
+	 * 
+	 * @throws NumberFormatException
+	 *             if the value is not an integer
+	 * @since JSemcor 1.0.2
+	 */
+	public int getIntValue(){
+		int len = valueEnd-valueStart;
+		if(len > 0 && len < 10){
+			int result = 0;
+			char c;
+			for(int i = valueStart; i < valueEnd; i++){
+				c = line.charAt(i);
+				if(c < '0' || c > '9') return Integer.parseInt(getValue());
+				result = 10*result + (c-'0');
+			}
+			return result;
+		}
+		return Integer.parseInt(getValue());
+	}
+	
+	/**
+	 * Returns the text between the opening and closing tags of the current
+	 * line.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	public String getText(){
+		return toString(line, textStart, textEnd);
+	}
+	
+	/**
+	 * Returns a string equal to the characters of the specified sequence
+	 * between the specified offsets. If an equal string has been returned
+	 * recently, that same string is returned again; otherwise a new string is
+	 * made and remembered.
+	 * 
+	 * @throws NullPointerException
+	 *             if the sequence is <code>null</code>
+	 * @throws IndexOutOfBoundsException
+	 *             if the offsets are not within the sequence
+	 * @since JSemcor 1.0.2
+	 */
+	public String toString(CharSequence seq, int start, int end){
+		int hash = 0;
+		for(int i = start; i < end; i++) hash = 31*hash + seq.charAt(i);
+		
+		int mask = symbols.length-1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		String symbol;
+		while((symbol = symbols[slot]) != null){
+			if(hashes[slot] == hash && regionMatches(seq, start, end, symbol, 0, symbol.length())) return symbol;
+			slot = (slot+1) & mask;
+		}
+		
+		// empty the table when half full
+		if(2*(symbolCount+1) > symbols.length){
+			Arrays.fill(symbols, null);
+			symbolCount = 0;
+			slot = (hash ^ (hash >>> 16)) & mask;
+		}
+		symbol = seq.subSequence(start, end).toString();
+		symbols[slot] = symbol;
+		hashes[slot] = hash;
+		symbolCount++;
+		return symbol;
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of the specified character in
+	 * the sequence between the specified offsets, or <code>-1</code> if it
+	 * does not occur or the start offset is <code>-1</code>.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	protected static int indexOf(CharSequence seq, char c, int start, int end){
+		if(start == -1) return -1;
+		for(int i = start; i < end; i++)
+			if(seq.charAt(i) == c) return i;
+		return -1;
+	}
+	
+	/**
+	 * Returns <code>true</code> if the characters of the first sequence
+	 * between the specified offsets are the same as those of the second
+	 * sequence between the specified offsets.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	protected static boolean regionMatches(CharSequence a, int aStart, int aEnd, CharSequence b, int bStart, int bEnd){
+		if(aEnd-aStart != bEnd-bStart) return false;
+		for(int i = aStart, j = bStart; i < aEnd; i++, j++)
+			if(a.charAt(i) != b.charAt(j)) return false;
+		return true;
+	}
+	
+}
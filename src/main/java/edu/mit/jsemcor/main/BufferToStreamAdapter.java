@@ -79,7 +79,23 @@ public class BufferToStreamAdapter extends InputStream {
 	@Override
 	public int read() throws IOException {
 		if(buf.position() == buf.limit()) return -1;
-		return buf.get();
+		return buf.get() & 0xFF;
+	}
+	
+	/* 
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.InputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(off < 0 || len < 0 || len > b.length-off) throw new IndexOutOfBoundsException();
+		if(len == 0) return 0;
+		int remaining = buf.limit()-buf.position();
+		if(remaining == 0) return -1;
+		len = Math.min(len, remaining);
+		buf.get(b, off, len);
+		return len;
 	}
 
 	/* 
@@ -200,7 +216,12 @@ public class BufferToStreamAdapter extends InputStream {
 	 */
 	public static ByteBuffer makeByteBuffer(File file) throws IOException {
 		FileInputStream is = new FileInputStream(file);
-		return is.getChannel().map(MapMode.READ_ONLY, 0, file.length());
+		try{
+			// the mapping remains valid after the channel is closed
+			return is.getChannel().map(MapMode.READ_ONLY, 0, file.length());
+		} finally {
+			is.close();
+		}
 	}
 	
 }
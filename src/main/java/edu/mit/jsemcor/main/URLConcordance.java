@@ -10,15 +10,19 @@
 package edu.mit.jsemcor.main;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import edu.mit.jsemcor.data.ContextOffsetIndex;
 import edu.mit.jsemcor.data.ContextParser;
 import edu.mit.jsemcor.data.IContextParser;
 import edu.mit.jsemcor.element.ContextID;
@@ -32,6 +36,13 @@ import edu.mit.jsemcor.tags.ITagIndex;
  * implementation has basic facilities for a size-limited LRU cache. Caching,
  * the cache size limit, can be set with the constructors, or the appropriate
  * methods.
+ * <p>
+ * Contexts in files on the local file system are, by default, read through a
+ * {@link ContextOffsetIndex}, so that a request for a context maps its file
+ * once and parses only the region of the file that holds the context. The
+ * offset index of each file is stored beside it, as given by
+ * {@link #getOffsetFile(File)}. Indexing can be turned off with
+ * {@link #setIndexing(boolean)}.
  * 
  * @author M.A. Finlayson
  * @version 1.156, 16 Dec 2008
@@ -69,10 +80,19 @@ public abstract class URLConcordance implements IConcordance {
 	 */
 	protected Map<IContextID, IContext> cache;
 	
+	/**
+	 * The mapped, indexed context files from which contexts have been read,
+	 * keyed by the external form of their URLs.
+	 * 
+	 * @since JSemcor 1.0.2
+	 */
+	protected final Map<String, IndexedContextFile> indexedFiles = new HashMap<String, IndexedContextFile>();
+	
 	private final URL url;
 	private final String name;
 	private ITagIndex tagIndex;
 	private boolean isCaching;
+	private boolean isIndexing = true;
 	private int cacheLimit;
 	
 	/**
@@ -270,6 +290,7 @@ public abstract class URLConcordance implements IConcordance {
 	 */
 	public void close() {
 		contextMap.clear();
+		indexedFiles.clear();
 		tagIndex = null;
 		cache = null;
 	}
@@ -318,9 +339,7 @@ public abstract class URLConcordance implements IConcordance {
 			if(url == null) return null;
 			
 			try{
-				Reader reader = new InputStreamReader(BufferToStreamAdapter.makeStream(url));
-				reader = new BufferedReader(reader);
-				result = getParser().parse(id, reader);
+				result = parseContext(id, url);
 			} catch(IOException e){
 				throw new RuntimeException(e);
 			}
@@ -332,6 +351,133 @@ public abstract class URLConcordance implements IConcordance {
 		return result;
 	}
 	
+	/**
+	 * Reads and parses the context with the specified id from the specified
+	 * {@link URL}. If indexing is on, the parser is a {@link ContextParser},
+	 * and the URL points to a local file, only the region of the file holding
+	 * the context is parsed, as found by the file's offset index. Otherwise
+	 * the whole resource is passed to the parser.
+	 * 
+	 * @return the context, or <code>null</code> if the resource does not
+	 *         contain the context
+	 * @throws IOException
+	 *             if there is a problem reading the resource
+	 * @since JSemcor 1.0.2
+	 */
+	protected IContext parseContext(IContextID id, URL url) throws IOException {
+		IContextParser parser = getParser();
+		IndexedContextFile file = (isIndexing && parser instanceof ContextParser) ? getIndexedFile(url) : null;
+		if(file != null){
+			ContextOffsetIndex index = file.getIndex();
+			int start = index.getStart(id.getContextName());
+			if(start == -1) return null;
+			
+			// parse just the region of the context
+			ByteBuffer region = file.getBuffer().duplicate();
+			region.limit(index.getEnd(id.getContextName()));
+			region.position(start);
+			Reader reader = new InputStreamReader(new BufferToStreamAdapter(region.slice()));
+			reader = new BufferedReader(reader);
+			return ((ContextParser)parser).parseContext(id, index.getConcordanceName(), reader);
+		}
+		
+		Reader reader = new InputStreamReader(BufferToStreamAdapter.makeStream(url));
+		reader = new BufferedReader(reader);
+		return parser.parse(id, reader);
+	}
+	
+	/**
+	 * Returns the mapped, indexed context file for the specified {@link URL},
+	 * mapping and indexing it if this has not been done since the concordance
+	 * was opened. If there is a current offset index stored beside the file,
+	 * it is loaded; otherwise the index is built from the mapped file and
+	 * stored. A failure to store the index is ignored. If the URL does not
+	 * point to a local file, this method returns <code>null</code>.
+	 * 
+	 * @return the indexed context file, or <code>null</code> if the URL does
+	 *         not point to a local file
+	 * @throws IOException
+	 *             if there is a problem mapping the file
+	 * @since JSemcor 1.0.2
+	 */
+	protected IndexedContextFile getIndexedFile(URL url) throws IOException {
+		String key = url.toExternalForm();
+		IndexedContextFile result = indexedFiles.get(key);
+		if(result != null) return result;
+		
+		File file = BufferToStreamAdapter.toFile(url);
+		if(file == null || !file.isFile()) return null;
+		ByteBuffer buf = BufferToStreamAdapter.makeByteBuffer(file);
+		
+		// load the stored index, or build and store it
+		File offsetFile = getOffsetFile(file);
+		ContextOffsetIndex index = null;
+		if(offsetFile != null){
+			try{
+				index = ContextOffsetIndex.load(file, offsetFile);
+			} catch(IOException e){
+				// rebuild the index
+			}
+		}
+		if(index == null){
+			index = ContextOffsetIndex.build(buf);
+			if(offsetFile != null){
+				try{
+					index.store(file, offsetFile);
+				} catch(IOException e){
+					// the index will be built again next time
+					offsetFile.delete();
+				}
+			}
+		}
+		
+		result = new IndexedContextFile(buf, index);
+		indexedFiles.put(key, result);
+		return result;
+	}
+	
+	/**
+	 * Returns the file in which the offset index of the specified context file
+	 * is stored. This implementation returns a file in the same directory,
+	 * whose name is that of the context file with the suffix
+	 * {@link ContextOffsetIndex#SUFFIX}. Subclasses may return
+	 * <code>null</code> to keep offset indexes only in memory.
+	 * 
+	 * @return the file for the offset index, or <code>null</code> if the
+	 *         index should not be stored
+	 * @since JSemcor 1.0.2
+	 */
+	protected File getOffsetFile(File contextFile){
+		return new File(contextFile.getPath() + ContextOffsetIndex.SUFFIX);
+	}
+	
+	/**
+	 * Returns whether this concordance reads contexts in local files through
+	 * their offset indexes.
+	 * 
+	 * @return <code>true</code> if indexing is on; <code>false</code>
+	 *         otherwise
+	 * @since JSemcor 1.0.2
+	 */
+	public boolean isIndexing() {
+		return isIndexing;
+	}
+	
+	/**
+	 * Turns on or off the reading of contexts in local files through their
+	 * offset indexes. Returns a flag indicating whether this call actually
+	 * changed the setting.
+	 * 
+	 * @return <code>true</code> if the setting was changed;
+	 *         <code>false</code> otherwise
+	 * @since JSemcor 1.0.2
+	 */
+	public boolean setIndexing(boolean value){
+		if(isIndexing == value) return false;
+		isIndexing = value;
+		return true;
+	}
+	
 	/* (non-Javadoc) @see edu.mit.jsemcor.main.IConcordance#iterator() */
 	public Iterator<IContext> iterator() {
 		checkOpen();
@@ -422,6 +568,54 @@ public abstract class URLConcordance implements IConcordance {
 		}
 	}
 	
+	/**
+	 * A context file mapped into memory, together with its offset index.
+	 *
+	 * @author M.A. Finlayson
+	 * @version 1.502, 29 Jan 2011
+	 * @since JSemcor 1.0.2
+	 */
+	protected static class IndexedContextFile {
+		
+		private final ByteBuffer buffer;
+		private final ContextOffsetIndex index;
+		
+		/**
+		 * Constructs a new indexed context file.
+		 * 
+		 * @throws NullPointerException
+		 *             if either argument is <code>null</code>
+		 * @since JSemcor 1.0.2
+		 */
+		public IndexedContextFile(ByteBuffer buffer, ContextOffsetIndex index){
+			if(buffer == null || index == null) throw new NullPointerException();
+			this.buffer = buffer;
+			this.index = index;
+		}
+		
+		/**
+		 * Returns the mapped bytes of the file. Callers should read from a
+		 * duplicate of the buffer, so that its position is not disturbed.
+		 * 
+		 * @return the mapped bytes of the file
+		 * @since JSemcor 1.0.2
+		 */
+		public ByteBuffer getBuffer(){
+			return buffer;
+		}
+		
+		/**
+		 * Returns the offset index of the file.
+		 * 
+		 * @return the offset index of the file
+		 * @since JSemcor 1.0.2
+		 */
+		public ContextOffsetIndex getIndex(){
+			return index;
+		}
+		
+	}
+	
 	/**
 	 * Delivers context objects in order from this concordance.
 	 *
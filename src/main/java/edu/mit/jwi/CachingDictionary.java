@@ -12,8 +12,9 @@ package edu.mit.jwi;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -366,7 +367,10 @@ public class CachingDictionary implements ICachingDictionary {
 	}
 	
 	/**
-	 * An LRU cache for objects in JWI.
+	 * An LRU cache for objects in JWI. Items are held in
+	 * {@link SegmentedLRUMap}s, which may be read and written by several
+	 * threads at once, and which count hits, misses and evictions. The
+	 * capacity may be given as a number of items or as a memory budget.
 	 * 
 	 * @author Mark A. Finlayson
 	 * @version 2.4.0
@@ -379,6 +383,14 @@ public class CachingDictionary implements ICachingDictionary {
 		public static final int DEFAULT_MAXIMUM_CAPACITY = 512;
 		public static final float DEFAULT_LOAD_FACTOR = 0.75f;
 		
+		/**
+		 * A rough estimate of the memory, in bytes, taken by a cached item and
+		 * the objects it refers to, used by {@link #setMemoryBudget(long)}.
+		 * 
+		 * @since JWI 2.4.1
+		 */
+		public static final int ESTIMATED_ITEM_SIZE = 1024;
+		
 		protected Lock lifecycleLock = new ReentrantLock();
 
 		/**
@@ -453,7 +465,11 @@ public class CachingDictionary implements ICachingDictionary {
 		}
 
 		/**
-		 * Creates the map that backs this cache.
+		 * Creates the map that backs this cache. By default this is a
+		 * {@link SegmentedLRUMap} bounded by the maximum capacity of this
+		 * cache, which is safe for concurrent use and evicts by recency and
+		 * frequency of use. Subclasses may return another map; if it is not a
+		 * {@code SegmentedLRUMap}, this cache trims it after each addition.
 		 * 
 		 * @param <K>
 		 *            the key type
@@ -465,7 +481,7 @@ public class CachingDictionary implements ICachingDictionary {
 		 * @since JWI 2.2.0
 		 */
 		protected <K,V> Map<K,V> makeCache(int initialCapacity){
-			return new LinkedHashMap<K,V>(initialCapacity, DEFAULT_LOAD_FACTOR, true);
+			return new SegmentedLRUMap<K,V>(maximumCapacity);
 		}
 
 		/* 
@@ -582,6 +598,9 @@ public class CachingDictionary implements ICachingDictionary {
 		public void setMaximumCapacity(int capacity) {
 			int oldCapacity = maximumCapacity;
 			maximumCapacity = capacity;
+			for(Map<?,?> cache : getCaches())
+				if(cache instanceof SegmentedLRUMap)
+					((SegmentedLRUMap<?,?>)cache).setMaximumSize(capacity);
 			if(maximumCapacity < 1 || oldCapacity <= maximumCapacity)
 				return;
 			reduceCacheSize(itemCache);
@@ -589,6 +608,100 @@ public class CachingDictionary implements ICachingDictionary {
 			reduceCacheSize(senseCache);
 		}
 
+		/**
+		 * Sets the maximum capacity of this cache so that its contents take
+		 * roughly the specified amount of memory, assuming each item takes
+		 * {@link #ESTIMATED_ITEM_SIZE} bytes. The budget is shared equally by
+		 * the caches of items, words by sense key, and sense entries.
+		 * 
+		 * @param bytes
+		 *            the number of bytes the cache may use
+		 * @throws IllegalArgumentException
+		 *             if the budget is not positive
+		 * @since JWI 2.4.1
+		 */
+		public void setMemoryBudget(long bytes){
+			if(bytes < 1)
+				throw new IllegalArgumentException("memory budget must be positive: " + bytes);
+			long capacity = bytes / (3L * ESTIMATED_ITEM_SIZE);
+			setMaximumCapacity((int)Math.max(1, Math.min(Integer.MAX_VALUE, capacity)));
+		}
+		
+		/**
+		 * Returns the number of lookups answered by this cache since it was
+		 * opened or its statistics were reset. Lookups in maps that are not
+		 * {@link SegmentedLRUMap}s are not counted.
+		 * 
+		 * @return the number of lookups that found an entry
+		 * @since JWI 2.4.1
+		 */
+		public long getHitCount(){
+			long count = 0;
+			for(Map<?,?> cache : getCaches())
+				if(cache instanceof SegmentedLRUMap)
+					count += ((SegmentedLRUMap<?,?>)cache).getHitCount();
+			return count;
+		}
+		
+		/**
+		 * Returns the number of lookups not answered by this cache since it was
+		 * opened or its statistics were reset. Lookups in maps that are not
+		 * {@link SegmentedLRUMap}s are not counted.
+		 * 
+		 * @return the number of lookups that found no entry
+		 * @since JWI 2.4.1
+		 */
+		public long getMissCount(){
+			long count = 0;
+			for(Map<?,?> cache : getCaches())
+				if(cache instanceof SegmentedLRUMap)
+					count += ((SegmentedLRUMap<?,?>)cache).getMissCount();
+			return count;
+		}
+		
+		/**
+		 * Returns the number of entries evicted from this cache to make room
+		 * for others since it was opened or its statistics were reset.
+		 * Evictions from maps that are not {@link SegmentedLRUMap}s are not
+		 * counted.
+		 * 
+		 * @return the number of entries evicted
+		 * @since JWI 2.4.1
+		 */
+		public long getEvictionCount(){
+			long count = 0;
+			for(Map<?,?> cache : getCaches())
+				if(cache instanceof SegmentedLRUMap)
+					count += ((SegmentedLRUMap<?,?>)cache).getEvictionCount();
+			return count;
+		}
+		
+		/**
+		 * Sets the hit, miss and eviction counts of this cache to zero.
+		 * 
+		 * @since JWI 2.4.1
+		 */
+		public void resetStatistics(){
+			for(Map<?,?> cache : getCaches())
+				if(cache instanceof SegmentedLRUMap)
+					((SegmentedLRUMap<?,?>)cache).resetStatistics();
+		}
+		
+		/**
+		 * Returns the maps that back this cache, skipping any that have not
+		 * been created.
+		 * 
+		 * @return the maps that back this cache
+		 * @since JWI 2.4.1
+		 */
+		private List<Map<?,?>> getCaches(){
+			List<Map<?,?>> caches = new ArrayList<Map<?,?>>(3);
+			for(Map<?,?> cache : new Map<?,?>[]{itemCache, keyCache, senseCache})
+				if(cache != null)
+					caches.add(cache);
+			return caches;
+		}
+
 		/* 
 		 * (non-Javadoc) 
 		 *
@@ -647,7 +760,7 @@ public class CachingDictionary implements ICachingDictionary {
 		 * @since JWI 2.2.0
 		 */
 		protected void reduceCacheSize(Map<?,?> cache){
-			if(!isOpen() || maximumCapacity < 1 || cache.size() < maximumCapacity)
+			if(!isOpen() || maximumCapacity < 1 || cache instanceof SegmentedLRUMap || cache.size() < maximumCapacity)
 				return;
 			synchronized(cache){
 				int remove = cache.size() - maximumCapacity;
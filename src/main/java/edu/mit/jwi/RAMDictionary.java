@@ -525,6 +525,36 @@ public class RAMDictionary implements IRAMDictionary {
 
 	}
 
+	/**
+	 * Writes the in-memory contents of this dictionary to the specified output
+	 * stream as a snapshot that may be opened, memory-mapped, with a
+	 * {@link SnapshotDictionary}. A snapshot opens much faster, and takes much
+	 * less heap, than the image written by {@link #export(OutputStream)}. The
+	 * stream is flushed but not closed.
+	 *
+	 * @param out
+	 *            the output stream to which the snapshot will be written; may
+	 *            not be <code>null</code>
+	 * @throws IOException
+	 *             if there is a problem writing the snapshot to the output
+	 *             stream
+	 * @throws IllegalStateException
+	 *             if the dictionary has not been loaded into memory
+	 * @throws NullPointerException
+	 *             if the output stream is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public void exportSnapshot(OutputStream out) throws IOException {
+		try{
+			loadLock.lock();
+			if(!isLoaded())
+				throw new IllegalStateException("RAMDictionary not loaded into memory");
+			SnapshotDictionary.export(this, out);
+		} finally {
+			loadLock.unlock();
+		}
+	}
+
 	/* 
 	 * (non-Javadoc) 
 	 *
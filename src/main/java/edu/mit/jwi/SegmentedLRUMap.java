@@ -0,0 +1,404 @@
+/********************************************************************************
+ * Java Wordnet Interface Library (JWI) v2.4.0
+ * Copyright (c) 2007-2015 Mark A. Finlayson
+ *
+ * JWI is distributed under the terms of the Creative Commons Attribution 4.0 
+ * International Public License, which means it may be freely used for all 
+ * purposes, as long as proper acknowledgment is made.  See the license file 
+ * included with this distribution for more details.
+ *******************************************************************************/
+
+package edu.mit.jwi;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, thread-safe map for use as a cache. The map is split into
+ * stripes, each guarded by its own lock, so that threads using different keys
+ * seldom wait on one another.
+ * <p>
+ * Each stripe evicts by segmented LRU. A new entry goes into a probationary
+ * segment, and is promoted to a protected segment, which may hold up to four
+ * fifths of the stripe, when it is read again. Entries are evicted from the
+ * least recently used end of the probationary segment, so a stream of keys
+ * that are each used once, as in a scan, cannot push out entries that are
+ * used repeatedly. When the protected segment is full, its least recently
+ * used entry goes back to the probationary segment.
+ * <p>
+ * Reads through {@link #get(Object)} are counted as hits or misses, and
+ * entries dropped to make room are counted as evictions. The collection views
+ * are unmodifiable snapshots. Neither keys nor values may be
+ * <code>null</code>.
+ * 
+ * @param <K>
+ *            the type of keys
+ * @param <V>
+ *            the type of values
+ * @version 2.4.0
+ * @since JWI 2.4.1
+ */
+public class SegmentedLRUMap<K, V> extends AbstractMap<K, V> {
+	
+	// largest number of stripes, and the fewest entries a stripe should hold
+	// before another stripe is added; the number of stripes is a power of two
+	private static final int MAXIMUM_STRIPES = 16;
+	private static final int MINIMUM_STRIPE_SIZE = 32;
+	
+	// final instance fields
+	private final Stripe[] stripes;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+	
+	// maximum number of entries; less than one means unbounded
+	private volatile int maximumSize;
+	
+	/**
+	 * Constructs an empty map holding at most the specified number of entries.
+	 * 
+	 * @param maximumSize
+	 *            the maximum number of entries; if less than one, the map is
+	 *            unbounded
+	 * @since JWI 2.4.1
+	 */
+	public SegmentedLRUMap(int maximumSize){
+		int count = MAXIMUM_STRIPES;
+		if(maximumSize > 0)
+			count = Math.max(1, Math.min(MAXIMUM_STRIPES, Integer.highestOneBit(maximumSize / MINIMUM_STRIPE_SIZE)));
+		
+		// generic arrays cannot be created; the stripes all hold keys of type K
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Stripe[] array = new SegmentedLRUMap.Stripe[count];
+		stripes = array;
+		for(int i = 0; i < count; i++)
+			stripes[i] = new Stripe();
+		setMaximumSize(maximumSize);
+	}
+	
+	/**
+	 * Returns the maximum number of entries in this map.
+	 * 
+	 * @return the maximum number of entries, or a number less than one if the
+	 *         map is unbounded
+	 * @since JWI 2.4.1
+	 */
+	public int getMaximumSize(){
+		return maximumSize;
+	}
+	
+	/**
+	 * Sets the maximum number of entries in this map, evicting entries if
+	 * there are now too many.
+	 * 
+	 * @param maximumSize
+	 *            the maximum number of entries; if less than one, the map is
+	 *            unbounded
+	 * @since JWI 2.4.1
+	 */
+	public void setMaximumSize(int maximumSize){
+		this.maximumSize = maximumSize;
+		
+		// spread the entries over the stripes, giving the remainder to the
+		// first; every stripe of a bounded map holds at least one entry
+		int n = stripes.length;
+		int capacity;
+		for(int i = 0; i < n; i++){
+			capacity = (maximumSize < 1) ? 0 : Math.max(1, maximumSize / n + (i < maximumSize % n ? 1 : 0));
+			synchronized(stripes[i]){
+				stripes[i].setCapacity(capacity);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the stripe that holds the specified key.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the stripe for the key
+	 * @throws NullPointerException
+	 *             if the key is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	private Stripe stripeFor(Object key){
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return stripes[h & (stripes.length - 1)];
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	@Override
+	public V get(Object key){
+		Stripe stripe = stripeFor(key);
+		V value;
+		synchronized(stripe){
+			value = stripe.get(key);
+		}
+		if(value == null){
+			misses.incrementAndGet();
+		} else {
+			hits.incrementAndGet();
+		}
+		return value;
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	@Override
+	public V put(K key, V value){
+		if(value == null)
+			throw new NullPointerException();
+		Stripe stripe = stripeFor(key);
+		synchronized(stripe){
+			return stripe.put(key, value);
+		}
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	@Override
+	public boolean containsKey(Object key){
+		Stripe stripe = stripeFor(key);
+		synchronized(stripe){
+			return stripe.probation.containsKey(key) || stripe.protect.containsKey(key);
+		}
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	@Override
+	public V remove(Object key){
+		Stripe stripe = stripeFor(key);
+		synchronized(stripe){
+			V value = stripe.probation.remove(key);
+			return (value == null) ? stripe.protect.remove(key) : value;
+		}
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see java.util.AbstractMap#size()
+	 */
+	@Override
+	public int size(){
+		int size = 0;
+		for(Stripe stripe : stripes)
+			synchronized(stripe){
+				size += stripe.size();
+			}
+		return size;
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see java.util.AbstractMap#clear()
+	 */
+	@Override
+	public void clear(){
+		for(Stripe stripe : stripes)
+			synchronized(stripe){
+				stripe.probation.clear();
+				stripe.protect.clear();
+			}
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	@Override
+	public Set<Map.Entry<K, V>> entrySet(){
+		Map<K, V> snapshot = new LinkedHashMap<K, V>();
+		for(Stripe stripe : stripes)
+			synchronized(stripe){
+				snapshot.putAll(stripe.probation);
+				snapshot.putAll(stripe.protect);
+			}
+		return Collections.unmodifiableMap(snapshot).entrySet();
+	}
+	
+	/**
+	 * Returns the number of reads that found a value.
+	 * 
+	 * @return the number of reads that found a value
+	 * @since JWI 2.4.1
+	 */
+	public long getHitCount(){
+		return hits.get();
+	}
+	
+	/**
+	 * Returns the number of reads that found no value.
+	 * 
+	 * @return the number of reads that found no value
+	 * @since JWI 2.4.1
+	 */
+	public long getMissCount(){
+		return misses.get();
+	}
+	
+	/**
+	 * Returns the number of entries dropped to make room for others.
+	 * 
+	 * @return the number of entries evicted from this map
+	 * @since JWI 2.4.1
+	 */
+	public long getEvictionCount(){
+		return evictions.get();
+	}
+	
+	/**
+	 * Sets the hit, miss and eviction counts to zero.
+	 * 
+	 * @since JWI 2.4.1
+	 */
+	public void resetStatistics(){
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+	}
+	
+	/**
+	 * One independently locked part of the map. Callers synchronize on the
+	 * stripe.
+	 * 
+	 * @since JWI 2.4.1
+	 */
+	private class Stripe {
+		
+		// the segments, each in least recently used order
+		final Map<K, V> probation = new LinkedHashMap<K, V>(16, 0.75f, true);
+		final Map<K, V> protect = new LinkedHashMap<K, V>(16, 0.75f, true);
+		
+		// maximum entries in the stripe and in its protected segment; zero
+		// means unbounded
+		private int capacity;
+		private int protectCapacity;
+		
+		/**
+		 * Sets the maximum number of entries in this stripe, evicting entries
+		 * if there are now too many.
+		 * 
+		 * @param capacity
+		 *            the maximum number of entries, or zero if unbounded
+		 * @since JWI 2.4.1
+		 */
+		void setCapacity(int capacity){
+			this.capacity = capacity;
+			this.protectCapacity = (capacity == 0) ? 0 : Math.max(1, capacity * 4 / 5);
+			if(capacity == 0)
+				return;
+			while(protect.size() > protectCapacity)
+				demote();
+			while(size() > capacity)
+				evict();
+		}
+		
+		/**
+		 * Returns the number of entries in this stripe.
+		 * 
+		 * @return the number of entries in this stripe
+		 * @since JWI 2.4.1
+		 */
+		int size(){
+			return probation.size() + protect.size();
+		}
+		
+		/**
+		 * Returns the value for the specified key, promoting a probationary
+		 * entry to the protected segment.
+		 * 
+		 * @param key
+		 *            the key
+		 * @return the value, or <code>null</code> if there is none
+		 * @since JWI 2.4.1
+		 */
+		V get(Object key){
+			V value = protect.get(key);
+			if(value != null)
+				return value;
+			value = probation.remove(key);
+			if(value == null)
+				return null;
+			
+			// the cast is safe, as only keys of type K are put in the map
+			@SuppressWarnings("unchecked")
+			K k = (K)key;
+			protect.put(k, value);
+			if(capacity > 0 && protect.size() > protectCapacity)
+				demote();
+			return value;
+		}
+		
+		/**
+		 * Sets the value for the specified key, adding a new entry to the
+		 * probationary segment and evicting an entry if the stripe is full.
+		 * 
+		 * @param key
+		 *            the key
+		 * @param value
+		 *            the value
+		 * @return the previous value, or <code>null</code> if there was none
+		 * @since JWI 2.4.1
+		 */
+		V put(K key, V value){
+			if(protect.containsKey(key))
+				return protect.put(key, value);
+			V old = probation.put(key, value);
+			if(old == null && capacity > 0)
+				while(size() > capacity)
+					evict();
+			return old;
+		}
+		
+		/**
+		 * Moves the least recently used protected entry to the most recently
+		 * used end of the probationary segment.
+		 * 
+		 * @since JWI 2.4.1
+		 */
+		private void demote(){
+			Iterator<Map.Entry<K, V>> i = protect.entrySet().iterator();
+			Map.Entry<K, V> eldest = i.next();
+			i.remove();
+			probation.put(eldest.getKey(), eldest.getValue());
+		}
+		
+		/**
+		 * Removes the least recently used probationary entry, or, if there are
+		 * none, the least recently used protected entry.
+		 * 
+		 * @since JWI 2.4.1
+		 */
+		private void evict(){
+			Map<K, V> segment = probation.isEmpty() ? protect : probation;
+			Iterator<K> i = segment.keySet().iterator();
+			i.next();
+			i.remove();
+			evictions.incrementAndGet();
+		}
+	}
+
+}
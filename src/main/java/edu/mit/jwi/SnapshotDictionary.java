@@ -0,0 +1,1543 @@
+/********************************************************************************
+ * Java Wordnet Interface Library (JWI) v2.4.0
+ * Copyright (c) 2007-2015 Mark A. Finlayson
+ *
+ * JWI is distributed under the terms of the Creative Commons Attribution 4.0
+ * International Public License, which means it may be freely used for all
+ * purposes, as long as proper acknowledgment is made.  See the license file
+ * included with this distribution for more details.
+ *******************************************************************************/
+
+package edu.mit.jwi;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.mit.jwi.item.AdjMarker;
+import edu.mit.jwi.item.ExceptionEntry;
+import edu.mit.jwi.item.ExceptionEntryID;
+import edu.mit.jwi.item.IExceptionEntry;
+import edu.mit.jwi.item.IExceptionEntryID;
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.IIndexWordID;
+import edu.mit.jwi.item.ILexFile;
+import edu.mit.jwi.item.IPointer;
+import edu.mit.jwi.item.ISenseEntry;
+import edu.mit.jwi.item.ISenseKey;
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
+import edu.mit.jwi.item.IVerbFrame;
+import edu.mit.jwi.item.IVersion;
+import edu.mit.jwi.item.IWord;
+import edu.mit.jwi.item.IWordID;
+import edu.mit.jwi.item.IndexWord;
+import edu.mit.jwi.item.IndexWordID;
+import edu.mit.jwi.item.LexFile;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.item.Pointer;
+import edu.mit.jwi.item.SenseEntry;
+import edu.mit.jwi.item.SenseKey;
+import edu.mit.jwi.item.Synset;
+import edu.mit.jwi.item.Synset.IWordBuilder;
+import edu.mit.jwi.item.SynsetID;
+import edu.mit.jwi.item.UnknownLexFile;
+import edu.mit.jwi.item.VerbFrame;
+import edu.mit.jwi.item.Version;
+import edu.mit.jwi.item.Word;
+import edu.mit.jwi.item.WordID;
+
+/**
+ * A read-only dictionary backed by a memory-mapped snapshot file. A snapshot
+ * is written by {@link #export(IDictionary, OutputStream)} and holds the whole
+ * dictionary as flat columns of integers: a pool of UTF-8 strings, and for
+ * each part of speech a table of synsets, words, pointers, index words and
+ * exception entries, followed by a table of sense keys. Index words,
+ * exception entries and sense keys are sorted by the bytes of their keys, so
+ * lookups are binary searches over the mapped file.
+ * <p>
+ * Opening a snapshot only maps the file and locates its columns; items are
+ * built from the columns when they are asked for, so the heap holds no more
+ * than the items in use. This makes a snapshot much faster to open, and much
+ * smaller in memory, than the Java-serialized image written by
+ * {@link RAMDictionary#export(OutputStream)}, at the cost of building each
+ * item afresh on every lookup. Wrap the dictionary in a cache if the same
+ * items are retrieved often.
+ * <p>
+ * The file is read with absolute gets only, so this dictionary may be shared
+ * between threads.
+ *
+ * @version 2.4.0
+ * @since JWI 2.4.1
+ */
+public class SnapshotDictionary implements IDictionary {
+
+	/**
+	 * The first four bytes of every snapshot file.
+	 *
+	 * @since JWI 2.4.1
+	 */
+	public static final int MAGIC = 0x4A574953; // "JWIS"
+
+	/**
+	 * The version of the snapshot format written by this class.
+	 *
+	 * @since JWI 2.4.1
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	// marks a missing string, word number or sense entry
+	private static final int NONE = -1;
+
+	// packing of synset ids: part of speech above the offset
+	private static final int POS_SHIFT = 27;
+	private static final int OFFSET_MASK = (1 << POS_SHIFT) - 1;
+
+	// packing of synset and word information
+	private static final int ADJ_SAT = 1 << 8;
+	private static final int ADJ_HEAD = 1 << 9;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final POS[] POS_VALUES = POS.values();
+
+	// immutable fields
+	private final File file;
+	private final Lock lifecycleLock = new ReentrantLock();
+
+	// instance fields
+	private volatile Snapshot snapshot;
+
+	/**
+	 * Constructs a new dictionary that reads the specified snapshot file. The
+	 * file is not touched until the dictionary is opened.
+	 *
+	 * @param file
+	 *            the snapshot file; may not be <code>null</code>
+	 * @throws NullPointerException
+	 *             if the specified file is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public SnapshotDictionary(File file){
+		if(file == null)
+			throw new NullPointerException();
+		this.file = file;
+	}
+
+	/**
+	 * Returns the snapshot file read by this dictionary.
+	 *
+	 * @return the snapshot file
+	 * @since JWI 2.4.1
+	 */
+	public File getFile(){
+		return file;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.data.IHasLifecycle#open()
+	 */
+	public boolean open() throws IOException {
+		try {
+			lifecycleLock.lock();
+			if(isOpen())
+				return true;
+			RandomAccessFile raFile = new RandomAccessFile(file, "r");
+			try {
+				FileChannel channel = raFile.getChannel();
+				snapshot = new Snapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			} finally {
+				// the mapping stays valid after the channel is closed
+				raFile.close();
+			}
+			return true;
+		} finally {
+			lifecycleLock.unlock();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.data.IHasLifecycle#isOpen()
+	 */
+	public boolean isOpen() {
+		return snapshot != null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.data.IClosable#close()
+	 */
+	public void close() {
+		try {
+			lifecycleLock.lock();
+			snapshot = null;
+		} finally {
+			lifecycleLock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the open snapshot.
+	 *
+	 * @return the open snapshot
+	 * @throws ObjectClosedException
+	 *             if the dictionary is closed
+	 * @since JWI 2.4.1
+	 */
+	protected Snapshot checkOpen(){
+		Snapshot s = snapshot;
+		if(s == null)
+			throw new ObjectClosedException();
+		return s;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.item.IHasVersion#getVersion()
+	 */
+	public IVersion getVersion() {
+		return checkOpen().version;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.data.IHasCharset#getCharset()
+	 */
+	public Charset getCharset() {
+		return UTF8;
+	}
+
+	/**
+	 * Does nothing: snapshot strings are always encoded in UTF-8.
+	 *
+	 * @see edu.mit.jwi.IDictionary#setCharset(java.nio.charset.Charset)
+	 */
+	public void setCharset(Charset charset) {
+		// ignored
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getIndexWord(java.lang.String, edu.mit.jwi.item.POS)
+	 */
+	public IIndexWord getIndexWord(String lemma, POS pos) {
+		return getIndexWord(new IndexWordID(lemma, pos));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getIndexWord(edu.mit.jwi.item.IIndexWordID)
+	 */
+	public IIndexWord getIndexWord(IIndexWordID id) {
+		Snapshot s = checkOpen();
+		Section sec = s.sections[id.getPOS().ordinal()];
+		int row = s.find(sec.idxLemma, id.getLemma());
+		return (row < 0) ? null : s.makeIndexWord(id.getPOS(), row);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getIndexWordIterator(edu.mit.jwi.item.POS)
+	 */
+	public Iterator<IIndexWord> getIndexWordIterator(final POS pos) {
+		final Snapshot s = checkOpen();
+		return new RowIterator<IIndexWord>(s.sections[pos.ordinal()].idxLemma.size){
+			protected IIndexWord get(int row) {
+				return s.makeIndexWord(pos, row);
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getWord(edu.mit.jwi.item.IWordID)
+	 */
+	public IWord getWord(IWordID id) {
+		ISynset synset = getSynset(id.getSynsetID());
+		if(synset == null)
+			return null;
+		if(id.getWordNumber() > 0) {
+			return synset.getWord(id.getWordNumber());
+		} else if(id.getLemma() != null) {
+			for(IWord word : synset.getWords())
+				if(word.getLemma().equalsIgnoreCase(id.getLemma()))
+					return word;
+			return null;
+		} else {
+			throw new IllegalArgumentException("Not enough information in IWordID instance to retrieve word.");
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getWord(edu.mit.jwi.item.ISenseKey)
+	 */
+	public IWord getWord(ISenseKey key) {
+		Snapshot s = checkOpen();
+		int row = s.find(s.senseKey, SenseKey.toString(key));
+		return (row < 0) ? null : s.makeWord(row);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getSynset(edu.mit.jwi.item.ISynsetID)
+	 */
+	public ISynset getSynset(ISynsetID id) {
+		Snapshot s = checkOpen();
+		Section sec = s.sections[id.getPOS().ordinal()];
+		int row = sec.findSynset(id.getOffset());
+		return (row < 0) ? null : s.makeSynset(id.getPOS(), row);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getSynsetIterator(edu.mit.jwi.item.POS)
+	 */
+	public Iterator<ISynset> getSynsetIterator(final POS pos) {
+		final Snapshot s = checkOpen();
+		return new RowIterator<ISynset>(s.sections[pos.ordinal()].synOffset.size){
+			protected ISynset get(int row) {
+				return s.makeSynset(pos, row);
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getSenseEntry(edu.mit.jwi.item.ISenseKey)
+	 */
+	public ISenseEntry getSenseEntry(ISenseKey key) {
+		Snapshot s = checkOpen();
+		int row = s.find(s.senseKey, SenseKey.toString(key));
+		return (row < 0) ? null : s.makeSenseEntry(row);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getSenseEntryIterator()
+	 */
+	public Iterator<ISenseEntry> getSenseEntryIterator() {
+		final Snapshot s = checkOpen();
+		return new Iterator<ISenseEntry>(){
+			int row = advance(0);
+			private int advance(int from){
+				while(from < s.senseKey.size && s.senseNum.get(from) == NONE)
+					from++;
+				return from;
+			}
+			public boolean hasNext() {
+				return row < s.senseKey.size;
+			}
+			public ISenseEntry next() {
+				if(!hasNext())
+					throw new NoSuchElementException();
+				ISenseEntry entry = s.makeSenseEntry(row);
+				row = advance(row+1);
+				return entry;
+			}
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getExceptionEntry(java.lang.String, edu.mit.jwi.item.POS)
+	 */
+	public IExceptionEntry getExceptionEntry(String surfaceForm, POS pos) {
+		return getExceptionEntry(new ExceptionEntryID(surfaceForm, pos));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getExceptionEntry(edu.mit.jwi.item.IExceptionEntryID)
+	 */
+	public IExceptionEntry getExceptionEntry(IExceptionEntryID id) {
+		Snapshot s = checkOpen();
+		Section sec = s.sections[id.getPOS().ordinal()];
+		int row = s.find(sec.excSurface, id.getSurfaceForm());
+		return (row < 0) ? null : s.makeExceptionEntry(id.getPOS(), row);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see edu.mit.jwi.IDictionary#getExceptionEntryIterator(edu.mit.jwi.item.POS)
+	 */
+	public Iterator<IExceptionEntry> getExceptionEntryIterator(final POS pos) {
+		final Snapshot s = checkOpen();
+		return new RowIterator<IExceptionEntry>(s.sections[pos.ordinal()].excSurface.size){
+			protected IExceptionEntry get(int row) {
+				return s.makeExceptionEntry(pos, row);
+			}
+		};
+	}
+
+	/**
+	 * Writes a snapshot of the specified dictionary to the specified output
+	 * stream. The dictionary must be open; it is read through its iterators
+	 * and is left open. The stream is flushed but not closed.
+	 *
+	 * @param source
+	 *            the dictionary to be written; may not be <code>null</code>
+	 * @param out
+	 *            the stream to which the snapshot is written; may not be
+	 *            <code>null</code>
+	 * @throws IOException
+	 *             if there is a problem writing to the stream
+	 * @throws NullPointerException
+	 *             if either argument is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public static void export(IDictionary source, OutputStream out) throws IOException {
+		if(out == null)
+			throw new NullPointerException();
+		new SnapshotWriter(source).write(out);
+	}
+
+	/**
+	 * Writes a snapshot of the specified dictionary to the specified file.
+	 *
+	 * @param source
+	 *            the dictionary to be written; may not be <code>null</code>
+	 * @param file
+	 *            the file to which the snapshot is written; may not be
+	 *            <code>null</code>
+	 * @throws IOException
+	 *             if there is a problem writing to the file
+	 * @throws NullPointerException
+	 *             if either argument is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public static void export(IDictionary source, File file) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			export(source, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Packs the specified synset id into a single integer.
+	 *
+	 * @param id
+	 *            the synset id
+	 * @return the packed id
+	 * @since JWI 2.4.1
+	 */
+	protected static int pack(ISynsetID id){
+		return (id.getPOS().ordinal() << POS_SHIFT) | id.getOffset();
+	}
+
+	/**
+	 * Unpacks a synset id packed by {@link #pack(ISynsetID)}.
+	 *
+	 * @param packed
+	 *            the packed id
+	 * @return the synset id
+	 * @since JWI 2.4.1
+	 */
+	protected static ISynsetID unpack(int packed){
+		return new SynsetID(packed & OFFSET_MASK, POS_VALUES[packed >>> POS_SHIFT]);
+	}
+
+	/**
+	 * A column of integers in the mapped file.
+	 *
+	 * @version 2.4.0
+	 * @since JWI 2.4.1
+	 */
+	protected static final class Column {
+
+		// final instance fields
+		private final ByteBuffer buffer;
+		private final int base;
+		public final int size;
+
+		/**
+		 * Reads the length of a column at the specified position, and
+		 * constructs the column that follows it.
+		 *
+		 * @param buffer
+		 *            the mapped file
+		 * @param pos
+		 *            the position of the length of the column
+		 * @since JWI 2.4.1
+		 */
+		Column(ByteBuffer buffer, int pos){
+			this.buffer = buffer;
+			this.size = buffer.getInt(pos);
+			this.base = pos + 4;
+		}
+
+		/**
+		 * Returns the value in the specified row of this column.
+		 *
+		 * @param row
+		 *            the row
+		 * @return the value in the row
+		 * @since JWI 2.4.1
+		 */
+		public int get(int row){
+			return buffer.getInt(base + (row << 2));
+		}
+
+		/**
+		 * Returns the position just after the end of this column.
+		 *
+		 * @return the position of the next column
+		 * @since JWI 2.4.1
+		 */
+		int end(){
+			return base + (size << 2);
+		}
+	}
+
+	/**
+	 * The columns for one part of speech.
+	 *
+	 * @version 2.4.0
+	 * @since JWI 2.4.1
+	 */
+	protected static final class Section {
+
+		// synsets, sorted by offset
+		Column synOffset, synInfo, synGloss, synWordStart, synPtrStart;
+		Column synPtrType, synPtrTarget;
+
+		// words, in synset order
+		Column wordLemma, wordInfo, wordHeadLemma, wordHeadLexID, wordFrameStart, wordPtrStart;
+		Column wordFrame, wordPtrType, wordPtrTarget, wordPtrNum, wordPtrLemma;
+
+		// index words, sorted by lemma
+		Column idxLemma, idxTagCount, idxPtrStart, idxWordStart;
+		Column idxPtrType, idxWordTarget, idxWordNum, idxWordLemma;
+
+		// exception entries, sorted by surface form
+		Column excSurface, excRootStart, excRoot;
+
+		/**
+		 * Returns the row of the synset with the specified offset.
+		 *
+		 * @param offset
+		 *            the offset
+		 * @return the row, or a negative number if there is no such synset
+		 * @since JWI 2.4.1
+		 */
+		int findSynset(int offset){
+			int lo = 0, hi = synOffset.size - 1, mid, cur;
+			while(lo <= hi){
+				mid = (lo + hi) >>> 1;
+				cur = synOffset.get(mid);
+				if(cur < offset){
+					lo = mid + 1;
+				} else if(cur > offset){
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -1;
+		}
+	}
+
+	/**
+	 * An opened snapshot: the mapped file, and the columns located in it.
+	 *
+	 * @version 2.4.0
+	 * @since JWI 2.4.1
+	 */
+	protected static final class Snapshot {
+
+		// final instance fields
+		private final ByteBuffer buffer;
+		private final IVersion version;
+		private final IPointer[] pointers;
+		private final IVerbFrame[] frames;
+		private final Section[] sections;
+		private final Column senseKey, senseSynset, senseWordNum, senseNum, senseTagCount;
+
+		// string pool
+		private final Column strOffset;
+		private final int strBase;
+
+		// read position while opening
+		private int pos;
+
+		/**
+		 * Locates the columns of the snapshot in the specified buffer.
+		 *
+		 * @param buffer
+		 *            the mapped file
+		 * @throws IOException
+		 *             if the buffer does not hold a snapshot of a supported
+		 *             format
+		 * @since JWI 2.4.1
+		 */
+		Snapshot(ByteBuffer buffer) throws IOException {
+			this.buffer = buffer;
+			if(buffer.capacity() < 8 || buffer.getInt(0) != MAGIC)
+				throw new IOException("Not a dictionary snapshot");
+			if(buffer.getInt(4) != FORMAT_VERSION)
+				throw new IOException("Unsupported snapshot format: " + buffer.getInt(4));
+			pos = 8;
+
+			// string pool
+			strOffset = next();
+			strBase = pos + 4;
+			pos = strBase + buffer.getInt(pos);
+
+			// version
+			Column ver = next();
+			version = (ver.get(0) == 0) ? null :
+				Version.getVersion(ver.get(1), ver.get(2), ver.get(3), getString(ver.get(4)));
+
+			// pointer types
+			Column ptrSymbol = next(), ptrName = next();
+			pointers = new IPointer[ptrSymbol.size];
+			for(int i = 0; i < pointers.length; i++)
+				pointers[i] = resolvePointer(getString(ptrSymbol.get(i)), getString(ptrName.get(i)));
+
+			// verb frames
+			Column frameNum = next(), frameTemplate = next();
+			frames = new IVerbFrame[frameNum.size];
+			for(int i = 0; i < frames.length; i++)
+				frames[i] = resolveFrame(frameNum.get(i), getString(frameTemplate.get(i)));
+
+			// parts of speech
+			sections = new Section[POS.values().length];
+			Section sec;
+			for(int i = 0; i < sections.length; i++){
+				sections[i] = sec = new Section();
+				sec.synOffset = next();
+				sec.synInfo = next();
+				sec.synGloss = next();
+				sec.synWordStart = next();
+				sec.synPtrStart = next();
+				sec.synPtrType = next();
+				sec.synPtrTarget = next();
+				sec.wordLemma = next();
+				sec.wordInfo = next();
+				sec.wordHeadLemma = next();
+				sec.wordHeadLexID = next();
+				sec.wordFrameStart = next();
+				sec.wordPtrStart = next();
+				sec.wordFrame = next();
+				sec.wordPtrType = next();
+				sec.wordPtrTarget = next();
+				sec.wordPtrNum = next();
+				sec.wordPtrLemma = next();
+				sec.idxLemma = next();
+				sec.idxTagCount = next();
+				sec.idxPtrStart = next();
+				sec.idxWordStart = next();
+				sec.idxPtrType = next();
+				sec.idxWordTarget = next();
+				sec.idxWordNum = next();
+				sec.idxWordLemma = next();
+				sec.excSurface = next();
+				sec.excRootStart = next();
+				sec.excRoot = next();
+			}
+
+			// sense keys
+			senseKey = next();
+			senseSynset = next();
+			senseWordNum = next();
+			senseNum = next();
+			senseTagCount = next();
+			if(pos != buffer.capacity())
+				throw new IOException("Malformed snapshot");
+		}
+
+		/**
+		 * Returns the column at the read position, and moves the read
+		 * position past it.
+		 *
+		 * @return the column at the read position
+		 * @since JWI 2.4.1
+		 */
+		private Column next(){
+			Column col = new Column(buffer, pos);
+			pos = col.end();
+			return col;
+		}
+
+		/**
+		 * Returns the string with the specified identifier.
+		 *
+		 * @param id
+		 *            the identifier, or {@link #NONE}
+		 * @return the string, or <code>null</code> if the identifier is
+		 *         {@link #NONE}
+		 * @since JWI 2.4.1
+		 */
+		String getString(int id){
+			if(id == NONE)
+				return null;
+			int start = strBase + strOffset.get(id);
+			int end = strBase + strOffset.get(id+1);
+			byte[] bytes = new byte[end - start];
+			for(int i = 0; i < bytes.length; i++)
+				bytes[i] = buffer.get(start + i);
+			return new String(bytes, UTF8);
+		}
+
+		/**
+		 * Compares the string with the specified identifier to the specified
+		 * UTF-8 bytes, byte by byte.
+		 *
+		 * @param id
+		 *            the identifier of the string in the pool
+		 * @param key
+		 *            the UTF-8 bytes of the key
+		 * @return a negative number, zero, or a positive number as the string
+		 *         is less than, equal to, or greater than the key
+		 * @since JWI 2.4.1
+		 */
+		int compare(int id, byte[] key){
+			int start = strBase + strOffset.get(id);
+			int len = strBase + strOffset.get(id+1) - start;
+			int n = Math.min(len, key.length), cmp;
+			for(int i = 0; i < n; i++){
+				cmp = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+				if(cmp != 0)
+					return cmp;
+			}
+			return len - key.length;
+		}
+
+		/**
+		 * Returns the row of the specified string in a column of string
+		 * identifiers sorted by the bytes of their strings.
+		 *
+		 * @param col
+		 *            the sorted column
+		 * @param key
+		 *            the string to find
+		 * @return the row, or a negative number if the string is not in the
+		 *         column
+		 * @since JWI 2.4.1
+		 */
+		int find(Column col, String key){
+			byte[] bytes = key.getBytes(UTF8);
+			int lo = 0, hi = col.size - 1, mid, cmp;
+			while(lo <= hi){
+				mid = (lo + hi) >>> 1;
+				cmp = compare(col.get(mid), bytes);
+				if(cmp < 0){
+					lo = mid + 1;
+				} else if(cmp > 0){
+					hi = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Builds the synset in the specified row.
+		 *
+		 * @param pos
+		 *            the part of speech
+		 * @param row
+		 *            the row
+		 * @return the synset
+		 * @since JWI 2.4.1
+		 */
+		ISynset makeSynset(POS pos, int row){
+			Section sec = sections[pos.ordinal()];
+			ISynsetID id = new SynsetID(sec.synOffset.get(row), pos);
+			int info = sec.synInfo.get(row);
+			int lexNum = info & 0xFF;
+			ILexFile lexFile = LexFile.getLexicalFile(lexNum);
+			if(lexFile == null)
+				lexFile = UnknownLexFile.getUnknownLexicalFile(lexNum);
+
+			// words
+			int wordStart = sec.synWordStart.get(row);
+			int wordEnd = sec.synWordStart.get(row+1);
+			List<IWordBuilder> builders = new ArrayList<IWordBuilder>(wordEnd - wordStart);
+			for(int w = wordStart; w < wordEnd; w++)
+				builders.add(new SnapshotWordBuilder(sec, w, w - wordStart + 1));
+
+			// pointers
+			Map<IPointer, List<ISynsetID>> related = null;
+			int ptrEnd = sec.synPtrStart.get(row+1);
+			IPointer type;
+			List<ISynsetID> targets;
+			for(int p = sec.synPtrStart.get(row); p < ptrEnd; p++){
+				if(related == null)
+					related = new LinkedHashMap<IPointer, List<ISynsetID>>();
+				type = pointers[sec.synPtrType.get(p)];
+				targets = related.get(type);
+				if(targets == null){
+					targets = new ArrayList<ISynsetID>(2);
+					related.put(type, targets);
+				}
+				targets.add(unpack(sec.synPtrTarget.get(p)));
+			}
+
+			ISynset synset = new Synset(id, lexFile, (info & ADJ_SAT) != 0, (info & ADJ_HEAD) != 0,
+					getString(sec.synGloss.get(row)), builders, related);
+
+			// head words of adjective satellites
+			int w = wordStart, headLemma;
+			for(IWord word : synset.getWords()){
+				headLemma = sec.wordHeadLemma.get(w);
+				if(headLemma != NONE && word.getSenseKey().needsHeadSet())
+					word.getSenseKey().setHead(getString(headLemma), sec.wordHeadLexID.get(w));
+				w++;
+			}
+			return synset;
+		}
+
+		/**
+		 * Builds the word in the specified row of the sense key table.
+		 *
+		 * @param row
+		 *            the row
+		 * @return the word
+		 * @since JWI 2.4.1
+		 */
+		IWord makeWord(int row){
+			ISynsetID id = unpack(senseSynset.get(row));
+			Section sec = sections[id.getPOS().ordinal()];
+			int synRow = sec.findSynset(id.getOffset());
+			if(synRow < 0)
+				return null;
+			return makeSynset(id.getPOS(), synRow).getWord(senseWordNum.get(row));
+		}
+
+		/**
+		 * Builds the sense entry in the specified row of the sense key table.
+		 *
+		 * @param row
+		 *            the row
+		 * @return the sense entry, or <code>null</code> if the word in the
+		 *         row has no sense entry
+		 * @since JWI 2.4.1
+		 */
+		ISenseEntry makeSenseEntry(int row){
+			int num = senseNum.get(row);
+			if(num == NONE)
+				return null;
+			IWord word = makeWord(row);
+			if(word == null)
+				return null;
+			return new SenseEntry(word.getSenseKey(), word.getSynset().getOffset(), num, senseTagCount.get(row));
+		}
+
+		/**
+		 * Builds the index word in the specified row.
+		 *
+		 * @param pos
+		 *            the part of speech
+		 * @param row
+		 *            the row
+		 * @return the index word
+		 * @since JWI 2.4.1
+		 */
+		IIndexWord makeIndexWord(POS pos, int row){
+			Section sec = sections[pos.ordinal()];
+			int ptrStart = sec.idxPtrStart.get(row);
+			IPointer[] ptrs = new IPointer[sec.idxPtrStart.get(row+1) - ptrStart];
+			for(int i = 0; i < ptrs.length; i++)
+				ptrs[i] = pointers[sec.idxPtrType.get(ptrStart + i)];
+			int wordStart = sec.idxWordStart.get(row);
+			IWordID[] words = new IWordID[sec.idxWordStart.get(row+1) - wordStart];
+			for(int i = 0; i < words.length; i++)
+				words[i] = makeWordID(sec.idxWordTarget, sec.idxWordNum, sec.idxWordLemma, wordStart + i);
+			return new IndexWord(new IndexWordID(getString(sec.idxLemma.get(row)), pos), sec.idxTagCount.get(row), ptrs, words);
+		}
+
+		/**
+		 * Builds the exception entry in the specified row.
+		 *
+		 * @param pos
+		 *            the part of speech
+		 * @param row
+		 *            the row
+		 * @return the exception entry
+		 * @since JWI 2.4.1
+		 */
+		IExceptionEntry makeExceptionEntry(POS pos, int row){
+			Section sec = sections[pos.ordinal()];
+			int rootStart = sec.excRootStart.get(row);
+			String[] roots = new String[sec.excRootStart.get(row+1) - rootStart];
+			for(int i = 0; i < roots.length; i++)
+				roots[i] = getString(sec.excRoot.get(rootStart + i));
+			return new ExceptionEntry(getString(sec.excSurface.get(row)), pos, roots);
+		}
+
+		/**
+		 * Builds the word id in the specified row of a word id table.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		IWordID makeWordID(Column target, Column num, Column lemma, int row){
+			ISynsetID id = unpack(target.get(row));
+			int n = num.get(row);
+			String l = getString(lemma.get(row));
+			if(n == NONE)
+				return new WordID(id, l);
+			if(l == null)
+				return new WordID(id, n);
+			return new WordID(id, n, l);
+		}
+
+		/**
+		 * Returns the pointer with the specified symbol and name, preferring
+		 * the instances declared in {@link Pointer}.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		static IPointer resolvePointer(String symbol, String name){
+			for(Pointer ptr : Pointer.values())
+				if(ptr.getSymbol().equals(symbol) && ptr.getName().equals(name))
+					return ptr;
+			return new Pointer(symbol, name);
+		}
+
+		/**
+		 * Returns the verb frame with the specified number and template,
+		 * preferring the instances declared in {@link VerbFrame}.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		static IVerbFrame resolveFrame(int num, String template){
+			VerbFrame frame = VerbFrame.getFrame(num);
+			if(frame != null && frame.getTemplate().equals(template))
+				return frame;
+			return new VerbFrame(num, template);
+		}
+
+		/**
+		 * Builds a word of a synset from a row of the word table.
+		 *
+		 * @version 2.4.0
+		 * @since JWI 2.4.1
+		 */
+		private final class SnapshotWordBuilder implements IWordBuilder {
+
+			// final instance fields
+			private final Section sec;
+			private final int row;
+			private final int num;
+
+			/**
+			 * Constructs a builder for the word in the specified row.
+			 *
+			 * @since JWI 2.4.1
+			 */
+			SnapshotWordBuilder(Section sec, int row, int num){
+				this.sec = sec;
+				this.row = row;
+				this.num = num;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 *
+			 * @see edu.mit.jwi.item.Synset.IWordBuilder#toWord(edu.mit.jwi.item.ISynset)
+			 */
+			public IWord toWord(ISynset synset) {
+				int info = sec.wordInfo.get(row);
+				int marker = info >>> 8;
+
+				// verb frames
+				int frameStart = sec.wordFrameStart.get(row);
+				List<IVerbFrame> verbFrames = new ArrayList<IVerbFrame>(sec.wordFrameStart.get(row+1) - frameStart);
+				for(int f = frameStart; f < sec.wordFrameStart.get(row+1); f++)
+					verbFrames.add(frames[sec.wordFrame.get(f)]);
+
+				// pointers
+				Map<IPointer, List<IWordID>> related = null;
+				int ptrEnd = sec.wordPtrStart.get(row+1);
+				IPointer type;
+				List<IWordID> targets;
+				for(int p = sec.wordPtrStart.get(row); p < ptrEnd; p++){
+					if(related == null)
+						related = new LinkedHashMap<IPointer, List<IWordID>>();
+					type = pointers[sec.wordPtrType.get(p)];
+					targets = related.get(type);
+					if(targets == null){
+						targets = new ArrayList<IWordID>(2);
+						related.put(type, targets);
+					}
+					targets.add(makeWordID(sec.wordPtrTarget, sec.wordPtrNum, sec.wordPtrLemma, p));
+				}
+
+				IWordID id = new WordID(synset.getID(), num, getString(sec.wordLemma.get(row)));
+				return new Word(synset, id, info & 0xFF, (marker == 0) ? null : AdjMarker.values()[marker-1], verbFrames, related);
+			}
+
+			/*
+			 * (non-Javadoc)
+			 *
+			 * @see edu.mit.jwi.item.Synset.IWordBuilder#addVerbFrame(edu.mit.jwi.item.IVerbFrame)
+			 */
+			public void addVerbFrame(IVerbFrame frame) {
+				throw new UnsupportedOperationException();
+			}
+
+			/*
+			 * (non-Javadoc)
+			 *
+			 * @see edu.mit.jwi.item.Synset.IWordBuilder#addRelatedWord(edu.mit.jwi.item.IPointer, edu.mit.jwi.item.IWordID)
+			 */
+			public void addRelatedWord(IPointer type, IWordID id) {
+				throw new UnsupportedOperationException();
+			}
+		}
+	}
+
+	/**
+	 * Iterates over the rows of a table.
+	 *
+	 * @param <E>
+	 *            the element type of the iterator
+	 * @version 2.4.0
+	 * @since JWI 2.4.1
+	 */
+	protected abstract static class RowIterator<E> implements Iterator<E> {
+
+		// final instance fields
+		private final int size;
+
+		// instance fields
+		private int row = 0;
+
+		/**
+		 * Constructs an iterator over the specified number of rows.
+		 *
+		 * @param size
+		 *            the number of rows
+		 * @since JWI 2.4.1
+		 */
+		public RowIterator(int size){
+			this.size = size;
+		}
+
+		/**
+		 * Builds the item in the specified row.
+		 *
+		 * @param row
+		 *            the row
+		 * @return the item in the row
+		 * @since JWI 2.4.1
+		 */
+		protected abstract E get(int row);
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.Iterator#hasNext()
+		 */
+		public boolean hasNext() {
+			return row < size;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.Iterator#next()
+		 */
+		public E next() {
+			if(!hasNext())
+				throw new NoSuchElementException();
+			return get(row++);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 *
+		 * @see java.util.Iterator#remove()
+		 */
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * A growable column of integers, used while writing.
+	 *
+	 * @version 2.4.0
+	 * @since JWI 2.4.1
+	 */
+	protected static final class IntList {
+
+		// instance fields
+		private int[] values = new int[16];
+		private int size = 0;
+
+		/**
+		 * Appends the specified value.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		public void add(int value){
+			if(size == values.length)
+				values = Arrays.copyOf(values, size << 1);
+			values[size++] = value;
+		}
+
+		/**
+		 * Returns the number of values in this list.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		public int size(){
+			return size;
+		}
+
+		/**
+		 * Writes the length of this list, followed by its values.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(size);
+			for(int i = 0; i < size; i++)
+				out.writeInt(values[i]);
+		}
+	}
+
+	/**
+	 * Reads a dictionary through its iterators and writes it as a snapshot.
+	 * The columns are gathered in memory, in the order in which
+	 * {@link Snapshot} reads them, so that the string pool and type tables can
+	 * be written ahead of the columns that refer to them.
+	 *
+	 * @version 2.4.0
+	 * @since JWI 2.4.1
+	 */
+	protected static class SnapshotWriter {
+
+		// final instance fields
+		private final IDictionary source;
+		private final Map<String, Integer> stringIDs = new HashMap<String, Integer>();
+		private final List<byte[]> strings = new ArrayList<byte[]>();
+		private final Map<IPointer, Integer> pointerIDs = new LinkedHashMap<IPointer, Integer>();
+		private final Map<IVerbFrame, Integer> frameIDs = new LinkedHashMap<IVerbFrame, Integer>();
+		private final List<IntList> columns = new ArrayList<IntList>();
+		private final List<SenseRow> senses = new ArrayList<SenseRow>();
+
+		/**
+		 * Constructs a writer for the specified dictionary.
+		 *
+		 * @param source
+		 *            the dictionary; may not be <code>null</code>
+		 * @throws NullPointerException
+		 *             if the dictionary is <code>null</code>
+		 * @since JWI 2.4.1
+		 */
+		public SnapshotWriter(IDictionary source){
+			if(source == null)
+				throw new NullPointerException();
+			this.source = source;
+		}
+
+		/**
+		 * Writes the snapshot to the specified stream.
+		 *
+		 * @param out
+		 *            the stream
+		 * @throws IOException
+		 *             if there is a problem writing to the stream
+		 * @since JWI 2.4.1
+		 */
+		public void write(OutputStream out) throws IOException {
+
+			// gather the columns
+			for(POS pos : POS.values())
+				addSection(pos);
+			addSenseKeys();
+
+			// header columns, which refer to strings
+			IntList version = new IntList();
+			IVersion ver = source.getVersion();
+			if(ver == null){
+				for(int i = 0; i < 5; i++)
+					version.add(0);
+			} else {
+				version.add(1);
+				version.add(ver.getMajorVersion());
+				version.add(ver.getMinorVersion());
+				version.add(ver.getBugfixVersion());
+				version.add(intern(ver.getQualifier()));
+			}
+			IntList ptrSymbol = new IntList(), ptrName = new IntList();
+			for(IPointer ptr : pointerIDs.keySet()){
+				ptrSymbol.add(intern(ptr.getSymbol()));
+				ptrName.add(intern(ptr.getName()));
+			}
+			IntList frameNum = new IntList(), frameTemplate = new IntList();
+			for(IVerbFrame frame : frameIDs.keySet()){
+				frameNum.add(frame.getNumber());
+				frameTemplate.add(intern(frame.getTemplate()));
+			}
+
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+			dos.writeInt(MAGIC);
+			dos.writeInt(FORMAT_VERSION);
+
+			// string pool
+			IntList offsets = new IntList();
+			int offset = 0;
+			for(byte[] bytes : strings){
+				offsets.add(offset);
+				offset += bytes.length;
+			}
+			offsets.add(offset);
+			offsets.write(dos);
+			dos.writeInt(offset);
+			for(byte[] bytes : strings)
+				dos.write(bytes);
+
+			version.write(dos);
+			ptrSymbol.write(dos);
+			ptrName.write(dos);
+			frameNum.write(dos);
+			frameTemplate.write(dos);
+			for(IntList col : columns)
+				col.write(dos);
+			dos.flush();
+		}
+
+		/**
+		 * Gathers the columns of the specified part of speech.
+		 *
+		 * @param pos
+		 *            the part of speech
+		 * @since JWI 2.4.1
+		 */
+		protected void addSection(POS pos){
+
+			// synsets, sorted by offset
+			List<ISynset> synsets = new ArrayList<ISynset>();
+			for(Iterator<ISynset> i = source.getSynsetIterator(pos); i.hasNext(); )
+				synsets.add(i.next());
+			Collections.sort(synsets, new Comparator<ISynset>() {
+				public int compare(ISynset s1, ISynset s2) {
+					return s1.getOffset() < s2.getOffset() ? -1 : (s1.getOffset() == s2.getOffset() ? 0 : 1);
+				}
+			});
+
+			IntList synOffset = column(), synInfo = column(), synGloss = column(), synWordStart = column(), synPtrStart = column();
+			IntList synPtrType = column(), synPtrTarget = column();
+			IntList wordLemma = column(), wordInfo = column(), wordHeadLemma = column(), wordHeadLexID = column(), wordFrameStart = column(), wordPtrStart = column();
+			IntList wordFrame = column(), wordPtrType = column(), wordPtrTarget = column(), wordPtrNum = column(), wordPtrLemma = column();
+
+			int info, num;
+			ISenseKey key;
+			for(ISynset synset : synsets){
+				synOffset.add(synset.getOffset());
+				info = synset.getLexicalFile().getNumber();
+				if(synset.isAdjectiveSatellite())
+					info |= ADJ_SAT;
+				if(synset.isAdjectiveHead())
+					info |= ADJ_HEAD;
+				synInfo.add(info);
+				synGloss.add(intern(synset.getGloss()));
+				synWordStart.add(wordLemma.size());
+				synPtrStart.add(synPtrType.size());
+				for(Entry<IPointer, List<ISynsetID>> e : synset.getRelatedMap().entrySet())
+					for(ISynsetID target : e.getValue()){
+						synPtrType.add(pointerID(e.getKey()));
+						synPtrTarget.add(pack(target));
+					}
+
+				num = 0;
+				for(IWord word : synset.getWords()){
+					num++;
+					wordLemma.add(intern(word.getLemma()));
+					info = word.getLexicalID();
+					if(word.getAdjectiveMarker() != null)
+						info |= (word.getAdjectiveMarker().ordinal() + 1) << 8;
+					wordInfo.add(info);
+					key = word.getSenseKey();
+					if(key.isAdjectiveSatellite() && !key.needsHeadSet()){
+						wordHeadLemma.add(intern(key.getHeadWord()));
+						wordHeadLexID.add(key.getHeadID());
+					} else {
+						wordHeadLemma.add(NONE);
+						wordHeadLexID.add(NONE);
+					}
+					wordFrameStart.add(wordFrame.size());
+					for(IVerbFrame frame : word.getVerbFrames())
+						wordFrame.add(frameID(frame));
+					wordPtrStart.add(wordPtrType.size());
+					for(Entry<IPointer, List<IWordID>> e : word.getRelatedMap().entrySet())
+						for(IWordID target : e.getValue()){
+							wordPtrType.add(pointerID(e.getKey()));
+							addWordID(target, wordPtrTarget, wordPtrNum, wordPtrLemma);
+						}
+					senses.add(new SenseRow(SenseKey.toString(key), pack(synset.getID()), num));
+				}
+			}
+			synWordStart.add(wordLemma.size());
+			synPtrStart.add(synPtrType.size());
+			wordFrameStart.add(wordFrame.size());
+			wordPtrStart.add(wordPtrType.size());
+
+			// index words, sorted by lemma
+			List<IIndexWord> idxWords = new ArrayList<IIndexWord>();
+			for(Iterator<IIndexWord> i = source.getIndexWordIterator(pos); i.hasNext(); )
+				idxWords.add(i.next());
+			final Map<IIndexWord, byte[]> lemmas = new HashMap<IIndexWord, byte[]>();
+			for(IIndexWord idxWord : idxWords)
+				lemmas.put(idxWord, bytes(idxWord.getLemma()));
+			Collections.sort(idxWords, new Comparator<IIndexWord>() {
+				public int compare(IIndexWord w1, IIndexWord w2) {
+					return compareBytes(lemmas.get(w1), lemmas.get(w2));
+				}
+			});
+
+			IntList idxLemma = column(), idxTagCount = column(), idxPtrStart = column(), idxWordStart = column();
+			IntList idxPtrType = column(), idxWordTarget = column(), idxWordNum = column(), idxWordLemma = column();
+			for(IIndexWord idxWord : idxWords){
+				idxLemma.add(intern(idxWord.getLemma()));
+				idxTagCount.add(idxWord.getTagSenseCount());
+				idxPtrStart.add(idxPtrType.size());
+				for(IPointer ptr : idxWord.getPointers())
+					idxPtrType.add(pointerID(ptr));
+				idxWordStart.add(idxWordTarget.size());
+				for(IWordID id : idxWord.getWordIDs())
+					addWordID(id, idxWordTarget, idxWordNum, idxWordLemma);
+			}
+			idxPtrStart.add(idxPtrType.size());
+			idxWordStart.add(idxWordTarget.size());
+
+			// exception entries, sorted by surface form
+			List<IExceptionEntry> exceptions = new ArrayList<IExceptionEntry>();
+			for(Iterator<IExceptionEntry> i = source.getExceptionEntryIterator(pos); i.hasNext(); )
+				exceptions.add(i.next());
+			final Map<IExceptionEntry, byte[]> surfaces = new HashMap<IExceptionEntry, byte[]>();
+			for(IExceptionEntry entry : exceptions)
+				surfaces.put(entry, bytes(entry.getSurfaceForm()));
+			Collections.sort(exceptions, new Comparator<IExceptionEntry>() {
+				public int compare(IExceptionEntry e1, IExceptionEntry e2) {
+					return compareBytes(surfaces.get(e1), surfaces.get(e2));
+				}
+			});
+
+			IntList excSurface = column(), excRootStart = column(), excRoot = column();
+			for(IExceptionEntry entry : exceptions){
+				excSurface.add(intern(entry.getSurfaceForm()));
+				excRootStart.add(excRoot.size());
+				for(String root : entry.getRootForms())
+					excRoot.add(intern(root));
+			}
+			excRootStart.add(excRoot.size());
+		}
+
+		/**
+		 * Gathers the columns of the sense key table, which has one row for
+		 * each word of the dictionary, sorted by sense key.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		protected void addSenseKeys(){
+			Map<String, SenseRow> byKey = new HashMap<String, SenseRow>(senses.size() * 2);
+			for(SenseRow row : senses)
+				if(!byKey.containsKey(row.key))
+					byKey.put(row.key, row);
+
+			ISenseEntry entry;
+			SenseRow row;
+			for(Iterator<ISenseEntry> i = source.getSenseEntryIterator(); i.hasNext(); ){
+				entry = i.next();
+				row = byKey.get(SenseKey.toString(entry.getSenseKey()));
+				if(row == null)
+					throw new IllegalStateException("No word for sense key " + entry.getSenseKey());
+				row.senseNum = entry.getSenseNumber();
+				row.tagCount = entry.getTagCount();
+			}
+
+			List<SenseRow> rows = new ArrayList<SenseRow>(byKey.values());
+			Collections.sort(rows);
+			IntList key = column(), synset = column(), wordNum = column(), senseNum = column(), tagCount = column();
+			for(SenseRow r : rows){
+				key.add(intern(r.key));
+				synset.add(r.synset);
+				wordNum.add(r.wordNum);
+				senseNum.add(r.senseNum);
+				tagCount.add(r.tagCount);
+			}
+		}
+
+		/**
+		 * Adds a new column to the snapshot.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		private IntList column(){
+			IntList col = new IntList();
+			columns.add(col);
+			return col;
+		}
+
+		/**
+		 * Adds the specified word id to the specified word id columns.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		private void addWordID(IWordID id, IntList target, IntList num, IntList lemma){
+			target.add(pack(id.getSynsetID()));
+			num.add(id.getWordNumber() > 0 ? id.getWordNumber() : NONE);
+			lemma.add(intern(id.getLemma()));
+		}
+
+		/**
+		 * Returns the identifier of the specified string in the string pool,
+		 * adding it if necessary.
+		 *
+		 * @param str
+		 *            the string; may be <code>null</code>
+		 * @return the identifier of the string, or {@link #NONE} if the string
+		 *         is <code>null</code>
+		 * @since JWI 2.4.1
+		 */
+		protected int intern(String str){
+			if(str == null)
+				return NONE;
+			Integer id = stringIDs.get(str);
+			if(id == null){
+				id = strings.size();
+				strings.add(bytes(str));
+				stringIDs.put(str, id);
+			}
+			return id;
+		}
+
+		/**
+		 * Returns the identifier of the specified pointer type.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		private int pointerID(IPointer ptr){
+			Integer id = pointerIDs.get(ptr);
+			if(id == null){
+				id = pointerIDs.size();
+				pointerIDs.put(ptr, id);
+			}
+			return id;
+		}
+
+		/**
+		 * Returns the identifier of the specified verb frame.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		private int frameID(IVerbFrame frame){
+			Integer id = frameIDs.get(frame);
+			if(id == null){
+				id = frameIDs.size();
+				frameIDs.put(frame, id);
+			}
+			return id;
+		}
+
+		/**
+		 * Returns the UTF-8 bytes of the specified string.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		static byte[] bytes(String str){
+			return str.getBytes(UTF8);
+		}
+
+		/**
+		 * Compares two byte arrays as sequences of unsigned bytes, which for
+		 * UTF-8 is the order of code points.
+		 *
+		 * @since JWI 2.4.1
+		 */
+		static int compareBytes(byte[] b1, byte[] b2){
+			int n = Math.min(b1.length, b2.length), cmp;
+			for(int i = 0; i < n; i++){
+				cmp = (b1[i] & 0xFF) - (b2[i] & 0xFF);
+				if(cmp != 0)
+					return cmp;
+			}
+			return b1.length - b2.length;
+		}
+
+		/**
+		 * A row of the sense key table.
+		 *
+		 * @version 2.4.0
+		 * @since JWI 2.4.1
+		 */
+		private static final class SenseRow implements Comparable<SenseRow> {
+
+			// final instance fields
+			final String key;
+			final byte[] bytes;
+			final int synset;
+			final int wordNum;
+
+			// instance fields
+			int senseNum = NONE;
+			int tagCount = 0;
+
+			SenseRow(String key, int synset, int wordNum){
+				this.key = key;
+				this.bytes = bytes(key);
+				this.synset = synset;
+				this.wordNum = wordNum;
+			}
+
+			/*
+			 * (non-Javadoc)
+			 *
+			 * @see java.lang.Comparable#compareTo(java.lang.Object)
+			 */
+			public int compareTo(SenseRow that) {
+				return compareBytes(this.bytes, that.bytes);
+			}
+		}
+	}
+
+}
@@ -12,8 +12,13 @@ package edu.mit.jwi.data;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.Comparator;
 
+import edu.mit.jwi.data.compare.ExceptionLineComparator;
+import edu.mit.jwi.data.compare.IndexLineComparator;
+import edu.mit.jwi.data.compare.SenseKeyLineComparator;
+
 /**
  * Concrete implementation of a wordnet file data source. This particular
  * implementation is for files on disk, and uses a binary search algorithm to
@@ -28,8 +33,33 @@ import java.util.Comparator;
  */
 public class BinarySearchWordnetFile<T> extends WordnetFile<T> {
 	
+	/**
+	 * The value returned by
+	 * {@link #compareKey(ByteBuffer, int, int, byte[])} when a line cannot be
+	 * compared with a key without being decoded.
+	 * 
+	 * @since JWI 2.4.1
+	 */
+	protected static final int UNDECIDED = Integer.MIN_VALUE;
+	
+	// how keys are compared with lines: by decoding each line, by the
+	// bytes of the first field in lower case, or by its exact bytes
+	private static final int KEY_DECODE = 0;
+	private static final int KEY_LOWER_CASE = 1;
+	private static final int KEY_EXACT = 2;
+	
+	// characters whose encoding is checked to see if a character set is
+	// compatible with ASCII
+	private static final String ASCII_SAMPLE = " \n\r%'-./0123456789:;ABCDEFGHIJKLMNOPQRSTUVWXYZ_abcdefghijklmnopqrstuvwxyz";
+	
 	// the comparator
 	protected final Comparator<String> fComparator;
+	
+	// final instance fields
+	private final int keyMode;
+	
+	// the last character set found to be compatible with ASCII
+	private volatile Charset asciiCompatible;
 
 	/**
 	 * Constructs a new binary search wordnet file, on the specified file with
@@ -47,6 +77,17 @@ public class BinarySearchWordnetFile<T> extends WordnetFile<T> {
 	public BinarySearchWordnetFile(File file, IContentType<T> contentType) {
 		super(file, contentType);
 		fComparator = getContentType().getLineComparator();
+		
+		// only the standard comparators are known to compare the
+		// first field of each line; subclasses may compare otherwise
+		Class<?> c = (fComparator == null) ? null : fComparator.getClass();
+		if(c == IndexLineComparator.class){
+			keyMode = KEY_LOWER_CASE;
+		} else if(c == ExceptionLineComparator.class || c == SenseKeyLineComparator.class){
+			keyMode = KEY_EXACT;
+		} else {
+			keyMode = KEY_DECODE;
+		}
 	}
 	
 	/* 
@@ -56,43 +97,155 @@ public class BinarySearchWordnetFile<T> extends WordnetFile<T> {
 	 */
 	public String getLine(String key) {
 		
+		// the buffer is read with absolute gets only, so lookups
+		// from different threads need not be serialized
 		ByteBuffer buffer = getBuffer();
+		Charset cs = getContentType().getCharset();
+		byte[] keyBytes = getKeyBytes(key, cs);
 		
-		synchronized(buffer) {
-			int start = 0;
-			int midpoint = -1;
-			int stop = buffer.limit();
-			int cmp;
-			String line;
-			while(stop - start > 1) {
+		int start = 0;
+		int midpoint = -1;
+		int stop = buffer.limit();
+		int lineStart, lineEnd;
+		int cmp;
+		String line;
+		while(stop - start > 1) {
 
-				// find the middle of the buffer
-				midpoint = (start + stop) / 2;
-				buffer.position(midpoint);
-				
-				// back up to the beginning of the line
-				rewindToLineStart(buffer);
-				line = getLine(buffer, getContentType().getCharset());
-				
-				// if we get a null, we've reached the end of the file
-				cmp = (line == null) ? 1 : fComparator.compare(line, key);
-				
-				// found our line
+			// find the middle of the buffer
+			midpoint = (start + stop) / 2;
+			
+			// back up to the beginning of the line
+			lineStart = getLineStart(buffer, midpoint);
+			lineEnd = getLineEnd(buffer, lineStart);
+			
+			// compare the bytes of the line with the key, decoding
+			// the line only if they cannot be compared directly
+			cmp = (keyBytes == null) ? UNDECIDED : compareKey(buffer, lineStart, lineEnd, keyBytes);
+			if(cmp == UNDECIDED){
+				line = getLine(buffer, lineStart, lineEnd, cs);
+				cmp = fComparator.compare(line, key);
 				if(cmp == 0)
 					return line;
-				
-				if(cmp > 0){
-					// too far forward
-					stop = midpoint;
-				} else {
-					// too far back
-					start = midpoint;
-				}
+			} else if(cmp == 0){
+				return getLine(buffer, lineStart, lineEnd, cs);
+			}
+			
+			if(cmp > 0){
+				// too far forward
+				stop = midpoint;
+			} else {
+				// too far back
+				start = midpoint;
 			}
 		}
 		return null;
 	}
 	
+	/**
+	 * Returns the bytes of the part of the specified key that the comparator
+	 * of this file compares, if lines of this file may be compared with the
+	 * key byte by byte. This is so for the comparators of the standard index,
+	 * exception and sense files when both the key and the character set are
+	 * compatible with ASCII.
+	 * 
+	 * @param key
+	 *            the key to be found
+	 * @param cs
+	 *            the character set of this file; may be <code>null</code>
+	 * @return the bytes of the key, or <code>null</code> if lines must be
+	 *         decoded and compared with the comparator of this file
+	 * @since JWI 2.4.1
+	 */
+	protected byte[] getKeyBytes(String key, Charset cs){
+		if(keyMode == KEY_DECODE || !isAsciiCompatible(cs))
+			return null;
+		
+		// the comparators look only at the first space-delimited field
+		int idx = key.indexOf(' ');
+		String field = (idx == -1) ? key : key.substring(0, idx);
+		if(keyMode == KEY_LOWER_CASE)
+			field = field.toLowerCase();
+		if(field.length() == 0)
+			return null;
+		
+		byte[] bytes = new byte[field.length()];
+		char c;
+		for(int i = 0; i < bytes.length; i++){
+			c = field.charAt(i);
+			if(c >= 0x80 || (keyMode == KEY_LOWER_CASE && c >= 'A' && c <= 'Z'))
+				return null;
+			bytes[i] = (byte)c;
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Compares the line between the specified indices of the specified buffer
+	 * with the specified key bytes, as the comparator of this file would
+	 * compare the decoded line with the key.
+	 * 
+	 * @param buffer
+	 *            the buffer holding the line
+	 * @param start
+	 *            the index of the first byte of the line
+	 * @param end
+	 *            the index just past the last byte of the line
+	 * @param key
+	 *            the bytes of the key, as returned by
+	 *            {@link #getKeyBytes(String, Charset)}
+	 * @return a negative number, zero, or a positive number as the line comes
+	 *         before, matches, or comes after the key; or {@link #UNDECIDED}
+	 *         if the line holds bytes that must be decoded to be compared
+	 * @since JWI 2.4.1
+	 */
+	protected int compareKey(ByteBuffer buffer, int start, int end, byte[] key){
+		
+		// comment lines in index files begin with two spaces and come
+		// before all other lines
+		if(keyMode == KEY_LOWER_CASE && end - start >= 2 && buffer.get(start) == ' ' && buffer.get(start + 1) == ' ')
+			return -1;
+		
+		int len = 0;
+		byte b;
+		for(int i = start; i < end; i++, len++){
+			b = buffer.get(i);
+			if(b == ' ')
+				break;
+			if(b < 0 || (keyMode == KEY_LOWER_CASE && b >= 'A' && b <= 'Z'))
+				return UNDECIDED;
+			if(len < key.length && b != key[len])
+				return b - key[len];
+		}
+		if(len == 0)
+			return UNDECIDED;
+		return len - key.length;
+	}
+	
+	/**
+	 * Returns true if the specified character set encodes the ASCII
+	 * characters as single bytes of the same value, as the
+	 * {@link WordnetFile#getLine(ByteBuffer, Charset)} method assumes for
+	 * newlines. A <code>null</code> character set reads each byte as a
+	 * character, and so is compatible.
+	 * 
+	 * @param cs
+	 *            the character set; may be <code>null</code>
+	 * @return true if the character set is compatible with ASCII
+	 * @since JWI 2.4.1
+	 */
+	protected boolean isAsciiCompatible(Charset cs){
+		if(cs == null || cs == asciiCompatible)
+			return true;
+		byte[] bytes = ASCII_SAMPLE.getBytes(cs);
+		if(bytes.length != ASCII_SAMPLE.length())
+			return false;
+		for(int i = 0; i < bytes.length; i++)
+			if(bytes[i] != ASCII_SAMPLE.charAt(i))
+				return false;
+		asciiCompatible = cs;
+		return true;
+	}
+	
 
 	/* 
 	 * (non-Javadoc) 
@@ -12,6 +12,7 @@ package edu.mit.jwi.data;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 /**
  * Concrete implementation of a wordnet file data source. This particular
@@ -26,6 +27,12 @@ import java.nio.ByteBuffer;
  * @since JWI 2.0.0
  */
 public class DirectAccessWordnetFile<T> extends WordnetFile<T> {
+	
+	// the characters of a key
+	private static final String DIGITS = "-+0123456789";
+	
+	// the last character set found to encode digits as ASCII does
+	private volatile Charset asciiCompatible;
 
 	/**
 	 * Constructs a new direct access wordnet file, on the specified file with
@@ -52,21 +59,57 @@ public class DirectAccessWordnetFile<T> extends WordnetFile<T> {
 	 * @see edu.mit.jwi.data.IDataSource#getLine(java.lang.String)
 	 */
 	public String getLine(String key) {
+		
+		// the buffer is read with absolute gets only, so lookups
+		// from different threads need not be serialized
 		ByteBuffer buffer = getBuffer();
-		synchronized(buffer){
-			try{
-				int byteOffset = Integer.parseInt(key);
-				if(buffer.limit() <= byteOffset) 
-					return null; 
-				buffer.position(byteOffset);
-				String line = getLine(buffer, getContentType().getCharset());
-				return line.startsWith(key) ? line : null;
-			} catch(NumberFormatException e){
-				return null;
+		Charset cs = getContentType().getCharset();
+		try{
+			int byteOffset = Integer.parseInt(key);
+			if(buffer.limit() <= byteOffset) 
+				return null; 
+			int end = getLineEnd(buffer, byteOffset);
+			
+			// the key is made of digits, so in a character set compatible
+			// with ASCII the line begins with the key only if its bytes do
+			if(isAsciiCompatible(cs)){
+				if(end - byteOffset < key.length())
+					return null;
+				for(int i = 0; i < key.length(); i++)
+					if(buffer.get(byteOffset + i) != key.charAt(i))
+						return null;
+				return getLine(buffer, byteOffset, end, cs);
 			}
+			String line = getLine(buffer, byteOffset, end, cs);
+			return line.startsWith(key) ? line : null;
+		} catch(NumberFormatException e){
+			return null;
 		}
 	}
 	
+	/**
+	 * Returns true if the specified character set encodes the ASCII digits as
+	 * single bytes of the same value. A <code>null</code> character set reads
+	 * each byte as a character, and so is compatible.
+	 * 
+	 * @param cs
+	 *            the character set; may be <code>null</code>
+	 * @return true if the character set encodes digits as ASCII does
+	 * @since JWI 2.4.1
+	 */
+	protected boolean isAsciiCompatible(Charset cs){
+		if(cs == null || cs == asciiCompatible)
+			return true;
+		byte[] bytes = DIGITS.getBytes(cs);
+		if(bytes.length != DIGITS.length())
+			return false;
+		for(int i = 0; i < bytes.length; i++)
+			if(bytes[i] != DIGITS.charAt(i))
+				return false;
+		asciiCompatible = cs;
+		return true;
+	}
+	
 	/* 
 	 * (non-Javadoc) 
 	 *
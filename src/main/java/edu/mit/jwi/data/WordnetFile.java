@@ -460,7 +460,27 @@ public abstract class WordnetFile<T> implements ILoadableDataSource<T> {
 	 * @since JWI 2.2.0
 	 */
 	public static void rewindToLineStart(ByteBuffer buf){
-		int i = buf.position();
+		buf.position(getLineStart(buf, buf.position()));
+	}
+	
+	/**
+	 * Returns the index of the beginning of the line containing the specified
+	 * index, reading the buffer with absolute gets only. The position of the
+	 * buffer is not used or changed, so the buffer may be shared between
+	 * threads.
+	 * 
+	 * @param buf
+	 *            the buffer to be read; may not be <code>null</code>
+	 * @param index
+	 *            an index in the buffer, greater than zero and less than its
+	 *            limit
+	 * @return the index of the first byte of the line containing the index
+	 * @throws NullPointerException
+	 *             if the specified buffer is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public static int getLineStart(ByteBuffer buf, int index){
+		int i = index;
 		
 		// check if the buffer is set in the middle of two-char
 		// newline marker; if so, back up before it begins
@@ -484,9 +504,65 @@ public abstract class WordnetFile<T> implements ILoadableDataSource<T> {
 				break;
 			}
 		}
-		
-		// set the buffer to the beginning of the line
-		buf.position(i);
+		return i;
+	}
+	
+	/**
+	 * Returns the index just past the last byte of the line starting at the
+	 * specified index, that is, the index of the line's newline marker, or the
+	 * limit of the buffer if there is none. Reads the buffer with absolute
+	 * gets only.
+	 * 
+	 * @param buf
+	 *            the buffer to be read; may not be <code>null</code>
+	 * @param start
+	 *            the index of the first byte of the line
+	 * @return the index of the end of the line
+	 * @throws NullPointerException
+	 *             if the specified buffer is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public static int getLineEnd(ByteBuffer buf, int start){
+		int limit = buf.limit();
+		byte b;
+		for(int i = start; i < limit; i++){
+			b = buf.get(i);
+			if(b == 0x0A || b == 0x0D)
+				return i;
+		}
+		return limit;
+	}
+	
+	/**
+	 * Decodes the bytes of the specified buffer between the specified indices
+	 * into a string, as {@link #getLine(ByteBuffer, Charset)} would for a line
+	 * spanning those bytes. Reads the buffer with absolute gets only.
+	 * 
+	 * @param buf
+	 *            the buffer to be read; may not be <code>null</code>
+	 * @param start
+	 *            the index of the first byte of the line
+	 * @param end
+	 *            the index just past the last byte of the line
+	 * @param cs
+	 *            the character set to use for decoding; may be
+	 *            <code>null</code>
+	 * @return the line between the indices
+	 * @throws NullPointerException
+	 *             if the specified buffer is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public static String getLine(ByteBuffer buf, int start, int end, Charset cs){
+		if(cs == null){
+			StringBuilder input = new StringBuilder(end - start);
+			for(int i = start; i < end; i++)
+				input.append((char)buf.get(i));
+			return input.toString();
+		}
+		byte[] bytes = new byte[end - start];
+		for(int i = 0; i < bytes.length; i++)
+			bytes[i] = buf.get(start + i);
+		return new String(bytes, cs);
 	}
 
 	/**
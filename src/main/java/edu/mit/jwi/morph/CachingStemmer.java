@@ -0,0 +1,321 @@
+/********************************************************************************
+ * Java Wordnet Interface Library (JWI) v2.4.0
+ * Copyright (c) 2007-2015 Mark A. Finlayson
+ *
+ * JWI is distributed under the terms of the Creative Commons Attribution 4.0 
+ * International Public License, which means it may be freely used for all 
+ * purposes, as long as proper acknowledgment is made.  See the license file 
+ * included with this distribution for more details.
+ *******************************************************************************/
+
+package edu.mit.jwi.morph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import edu.mit.jwi.IDictionary;
+import edu.mit.jwi.SegmentedLRUMap;
+import edu.mit.jwi.item.IExceptionEntry;
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.POS;
+
+/**
+ * A stemmer that remembers the results of another stemmer. Results are keyed
+ * on the surface form and part of speech passed to
+ * {@link #findStems(String, POS)}, so a word that is stemmed many times, as
+ * happens when scoring or indexing a corpus, goes to the backing stemmer (and,
+ * for a {@link WordnetStemmer}, to the dictionary) only once.
+ * <p>
+ * The cache holds at most a fixed number of results in a
+ * {@link SegmentedLRUMap}, so that threads stemming different words seldom
+ * wait on one another, and words used often are kept over words used once.
+ * The numbers of hits and misses are counted so that the cache may be sized.
+ * The cache may be filled ahead of time from the lemmas and exception entries
+ * of a dictionary with {@link #prewarm(IDictionary)}.
+ * <p>
+ * Each call returns a new list, which the caller may modify. This class is
+ * thread-safe if the backing stemmer is.
+ * 
+ * @version 2.4.0
+ * @since JWI 2.4.1
+ */
+public class CachingStemmer implements IStemmer {
+	
+	/**
+	 * The default maximum number of results held by the cache.
+	 *
+	 * @since JWI 2.4.1
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1 << 16;
+	
+	// final instance fields
+	private final IStemmer backing;
+	private final SegmentedLRUMap<Key, List<String>> cache;
+	
+	/**
+	 * Constructs a cache of the default maximum size around the specified
+	 * stemmer.
+	 * 
+	 * @param backing
+	 *            the stemmer whose results should be cached; may not be
+	 *            <code>null</code>
+	 * @throws NullPointerException
+	 *             if the stemmer is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public CachingStemmer(IStemmer backing){
+		this(backing, DEFAULT_MAXIMUM_SIZE);
+	}
+	
+	/**
+	 * Constructs a cache of the specified maximum size around the specified
+	 * stemmer.
+	 * 
+	 * @param backing
+	 *            the stemmer whose results should be cached; may not be
+	 *            <code>null</code>
+	 * @param maxSize
+	 *            the maximum number of results held by the cache
+	 * @throws NullPointerException
+	 *             if the stemmer is <code>null</code>
+	 * @throws IllegalArgumentException
+	 *             if the maximum size is less than one
+	 * @since JWI 2.4.1
+	 */
+	public CachingStemmer(IStemmer backing, int maxSize){
+		if(backing == null)
+			throw new NullPointerException();
+		if(maxSize < 1)
+			throw new IllegalArgumentException("maximum size must be positive: " + maxSize);
+		this.backing = backing;
+		this.cache = new SegmentedLRUMap<Key, List<String>>(maxSize);
+	}
+	
+	/**
+	 * Returns the stemmer whose results are cached; will not return
+	 * <code>null</code>.
+	 * 
+	 * @return the stemmer whose results are cached
+	 * @since JWI 2.4.1
+	 */
+	public IStemmer getBackingStemmer(){
+		return backing;
+	}
+	
+	/* 
+	 * (non-Javadoc) 
+	 *
+	 * @see edu.mit.jwi.morph.IStemmer#findStems(java.lang.String, edu.mit.jwi.item.POS)
+	 */
+	public List<String> findStems(String surfaceForm, POS pos) {
+		if(surfaceForm == null)
+			throw new NullPointerException();
+		Key key = new Key(surfaceForm, pos);
+		List<String> stems = cache.get(key);
+		if(stems == null){
+			// two threads may both compute a missing result
+			stems = Collections.unmodifiableList(new ArrayList<String>(backing.findStems(surfaceForm, pos)));
+			cache.put(key, stems);
+		}
+		return new ArrayList<String>(stems);
+	}
+	
+	/**
+	 * Fills the cache with the stems of the lemmas of all the index words in
+	 * the specified dictionary, and of the surface forms of all its exception
+	 * entries, under their own part of speech and under no part of speech.
+	 * Stops when the cache is full.
+	 * 
+	 * @param dict
+	 *            the dictionary whose words should be stemmed; may not be
+	 *            <code>null</code>, and must be open
+	 * @return the number of results computed
+	 * @throws NullPointerException
+	 *             if the dictionary is <code>null</code>
+	 * @since JWI 2.4.1
+	 */
+	public int prewarm(IDictionary dict){
+		if(dict == null)
+			throw new NullPointerException();
+		int count = 0;
+		for(POS pos : POS.values()){
+			for(Iterator<IExceptionEntry> i = dict.getExceptionEntryIterator(pos); i.hasNext() && size() < getMaximumSize(); )
+				count += warm(i.next().getSurfaceForm(), pos);
+			for(Iterator<IIndexWord> i = dict.getIndexWordIterator(pos); i.hasNext() && size() < getMaximumSize(); )
+				count += warm(i.next().getLemma(), pos);
+		}
+		return count;
+	}
+	
+	/**
+	 * Computes and caches the stems of the specified word under the specified
+	 * part of speech and under no part of speech, if they are not already
+	 * cached. Does not count as a hit or a miss.
+	 * 
+	 * @param word
+	 *            the word
+	 * @param pos
+	 *            the part of speech
+	 * @return the number of results computed
+	 * @since JWI 2.4.1
+	 */
+	protected int warm(String word, POS pos){
+		return warmOne(word, pos) + warmOne(word, null);
+	}
+	
+	/**
+	 * Computes and caches the stems of the specified word and part of speech,
+	 * if they are not already cached.
+	 * 
+	 * @param word
+	 *            the word
+	 * @param pos
+	 *            the part of speech, or <code>null</code>
+	 * @return one if the stems were computed, zero otherwise
+	 * @since JWI 2.4.1
+	 */
+	private int warmOne(String word, POS pos){
+		Key key = new Key(word, pos);
+		if(cache.containsKey(key))
+			return 0;
+		cache.put(key, Collections.unmodifiableList(new ArrayList<String>(backing.findStems(word, pos))));
+		return 1;
+	}
+	
+	/**
+	 * Returns the maximum number of results held by the cache.
+	 * 
+	 * @return the maximum number of results held by the cache
+	 * @since JWI 2.4.1
+	 */
+	public int getMaximumSize(){
+		return cache.getMaximumSize();
+	}
+	
+	/**
+	 * Returns the number of results held by the cache.
+	 * 
+	 * @return the number of results held by the cache
+	 * @since JWI 2.4.1
+	 */
+	public int size(){
+		return cache.size();
+	}
+	
+	/**
+	 * Returns the number of calls answered from the cache.
+	 * 
+	 * @return the number of calls answered from the cache
+	 * @since JWI 2.4.1
+	 */
+	public long getHitCount(){
+		return cache.getHitCount();
+	}
+	
+	/**
+	 * Returns the number of calls passed to the backing stemmer.
+	 * 
+	 * @return the number of calls passed to the backing stemmer
+	 * @since JWI 2.4.1
+	 */
+	public long getMissCount(){
+		return cache.getMissCount();
+	}
+	
+	/**
+	 * Returns the number of results discarded to make room for others.
+	 * 
+	 * @return the number of results discarded from the cache
+	 * @since JWI 2.4.1
+	 */
+	public long getEvictionCount(){
+		return cache.getEvictionCount();
+	}
+	
+	/**
+	 * Returns the fraction of calls answered from the cache, or zero if there
+	 * have been no calls.
+	 * 
+	 * @return the hit rate of the cache, between zero and one inclusive
+	 * @since JWI 2.4.1
+	 */
+	public double getHitRate(){
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0.0 : (double)hits / total;
+	}
+	
+	/**
+	 * Sets the hit, miss and eviction counts to zero.
+	 * 
+	 * @since JWI 2.4.1
+	 */
+	public void resetStatistics(){
+		cache.resetStatistics();
+	}
+	
+	/**
+	 * Removes all results from the cache. Does not reset the statistics.
+	 * 
+	 * @since JWI 2.4.1
+	 */
+	public void clear(){
+		cache.clear();
+	}
+	
+	/**
+	 * A surface form and part of speech.
+	 * 
+	 * @since JWI 2.4.1
+	 */
+	private static final class Key {
+		
+		// final instance fields
+		private final String word;
+		private final POS pos;
+		private final int hash;
+		
+		/**
+		 * Constructs a key for the specified surface form and part of speech.
+		 * 
+		 * @param word
+		 *            the surface form
+		 * @param pos
+		 *            the part of speech, or <code>null</code>
+		 * @since JWI 2.4.1
+		 */
+		public Key(String word, POS pos){
+			this.word = word;
+			this.pos = pos;
+			this.hash = 31 * word.hashCode() + (pos == null ? 0 : pos.ordinal() + 1);
+		}
+		
+		/* 
+		 * (non-Javadoc) 
+		 *
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode(){
+			return hash;
+		}
+		
+		/* 
+		 * (non-Javadoc) 
+		 *
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj){
+			if(this == obj)
+				return true;
+			if(!(obj instanceof Key))
+				return false;
+			Key other = (Key)obj;
+			return hash == other.hash && pos == other.pos && word.equals(other.word);
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+package edu.stanford.nlp.pipeline;
+
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.Token;
+import edu.stanford.nlp.ling.CoreLabel;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An {@link IToken} view of a {@link CoreLabel}, used by {@link JMWEAnnotator}
+ * in place of copying each label into a {@link Token}.
+ *
+ * The form is the original text of the label and the single stem is its
+ * lemma, lower-cased, with each _ symbol replaced by the underscore
+ * replacement, as jMWE does not accept underscores in tokens. The text is
+ * only copied when it actually contains an underscore or needs trimming; the
+ * stem is computed on first use and then cached. The offset is the label's
+ * begin character offset, held as a primitive.
+ *
+ * Like {@link Token}, the view uses identity equality, so a label must be
+ * wrapped only once per sentence passed to a detector.
+ */
+public class CoreLabelToken implements IToken {
+
+    // the label backing this view
+    private final CoreLabel label;
+    // the string that replaces each underscore
+    private final String underscoreReplacement;
+    // the checked form of the label's original text
+    private final String form;
+    // the begin character offset, or -1 if the label has none
+    private final int offset;
+    // the stems, computed on first use; null until then
+    private List<String> stems;
+
+    /**
+     * Creates a view of the specified label.
+     *
+     * @param label
+     *            the label; may not be null, and must have its original text
+     *            set
+     * @param underscoreReplacement
+     *            the replacement for each _ symbol in the text and lemma;
+     *            may not be null
+     * @throws NullPointerException
+     *             if the label, its original text, or the replacement is null
+     * @throws IllegalArgumentException
+     *             if the text is empty or contains whitespace once trimmed,
+     *             as for {@link Token#checkString(String)}
+     */
+    public CoreLabelToken(CoreLabel label, String underscoreReplacement) {
+        if (underscoreReplacement == null) {
+            throw new NullPointerException();
+        }
+        this.label = label;
+        this.underscoreReplacement = underscoreReplacement;
+        this.form = clean(label.originalText(), underscoreReplacement);
+        this.offset = label.beginPosition();
+    }
+
+    /**
+     * Returns the label backing this view.
+     *
+     * @return the label backing this view
+     */
+    public CoreLabel getLabel() {
+        return label;
+    }
+
+    @Override
+    public String getForm() {
+        return form;
+    }
+
+    @Override
+    public String getTag() {
+        return label.tag();
+    }
+
+    @Override
+    public List<String> getStems() {
+        List<String> result = stems;
+        if (result == null) {
+            String lemma = label.lemma();
+            if (lemma == null) {
+                // not yet lemmatized, so no stemming has been attempted
+                return null;
+            }
+            result = Collections.singletonList(clean(lemma, underscoreReplacement).toLowerCase());
+            stems = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Long getOffset() {
+        return offset < 0 ? null : Long.valueOf(offset);
+    }
+
+    /**
+     * Returns the begin character offset of the label without boxing it.
+     *
+     * @return the begin character offset, or -1 if the label has none
+     */
+    public int getBeginOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return form + "_" + getTag();
+    }
+
+    /**
+     * Replaces each underscore in the specified text and checks the result
+     * as {@link Token#checkString(String)} does. Text that contains no
+     * underscore and has no surrounding whitespace is returned as is.
+     *
+     * @param text
+     *            the text to clean
+     * @param underscoreReplacement
+     *            the replacement for each _ symbol
+     * @return the cleaned text
+     * @throws NullPointerException
+     *             if the text is null
+     * @throws IllegalArgumentException
+     *             if the text is empty or contains whitespace once trimmed
+     */
+    public static String clean(String text, String underscoreReplacement) {
+        int length = text.length();
+        if (length > 0 && !Character.isWhitespace(text.charAt(0))
+                && !Character.isWhitespace(text.charAt(length - 1))) {
+            boolean clean = true;
+            for (int i = 0; i < length && clean; i++) {
+                char c = text.charAt(i);
+                clean = c != '_' && !Character.isWhitespace(c);
+            }
+            if (clean) {
+                return text;
+            }
+        }
+
+        // slow path: replace underscores, then trim and check as Token does
+        StringBuilder sb = new StringBuilder(length + 8);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '_') {
+                sb.append(underscoreReplacement);
+            } else {
+                sb.append(c);
+            }
+        }
+        return Token.checkString(sb.toString());
+    }
+}
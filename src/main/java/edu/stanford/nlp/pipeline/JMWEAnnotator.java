@@ -2,13 +2,11 @@ package edu.stanford.nlp.pipeline;
 
 import edu.mit.jmwe.data.IMWE;
 import edu.mit.jmwe.data.IToken;
-import edu.mit.jmwe.data.Token;
 import edu.mit.jmwe.detect.*;
 import edu.mit.jmwe.index.IMWEIndex;
-import edu.mit.jmwe.index.MWEIndex;
+import edu.mit.jmwe.index.MWEIndexRegistry;
 import edu.stanford.nlp.ling.CoreAnnotation;
 import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.ling.CoreAnnotations.PartOfSpeechAnnotation;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.util.CoreMap;
 import edu.stanford.nlp.util.ErasureUtils;
@@ -17,6 +15,7 @@ import edu.stanford.nlp.util.PropertiesUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Annotator to capture Multi-Word Expressions (MWE) via "jMWE", see
@@ -46,14 +45,21 @@ public class JMWEAnnotator implements Annotator {
 
     // print verbose output
     private final boolean verbose;
-    // the class name of the detector
+    // the detector specification, see getDetector
     private final String detectorName;
+    // the detector built from the specification, shared by every annotate call
+    private final IMWEDetector detector;
     // the index data for jMWE, loaded from for instance the file
-    // mweindex_wordnet3.0_Semcor1.6.data
+    // mweindex_wordnet3.0_Semcor1.6.data, shared with every other annotator
+    // in the JVM that uses the same file
     private final IMWEIndex index;
     // the String that will replace an underscore in the signal, necessary since
     // jMWE throws an Exception if an underscore is part of the signal
     private final String underscoreReplacement;
+    // the number of threads over which the sentences of a document are spread
+    private final int threads;
+    // the pool running the sentences when more than one thread is used, or null
+    private final ForkJoinPool pool;
 
     /**
      * Annotator to capture Multi-Word Expressions (MWE).
@@ -81,45 +87,88 @@ public class JMWEAnnotator implements Annotator {
         if (!indexFile.exists()) {
             throw new RuntimeException("index file " + indexFile.getAbsoluteFile() + " does not exist");
         }
-
-        this.index = new MWEIndex(indexFile);
-        // set detector
+        // read the detector specification and threads before the index is acquired,
+        // so that a missing or bad value leaks no reference on the shared index
         if (!PropertiesUtils.hasProperty(props, "customAnnotatorClass.jmwe.detector")) {
             throw new RuntimeException("No customAnnotatorClass.jmwe.detector key in properties found");
         }
         this.detectorName = (String) props.get("customAnnotatorClass.jmwe.detector");
+        try {
+            this.threads = PropertiesUtils.getInt(props, "customAnnotatorClass.jmwe.threads", 1);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("customAnnotatorClass.jmwe.threads must be an integer", e);
+        }
+        if (this.threads < 1) {
+            throw new RuntimeException("customAnnotatorClass.jmwe.threads must be at least 1, was " + this.threads);
+        }
+
+        // acquire the shared index, loading it if this is the first annotator to use it
+        try {
+            if (PropertiesUtils.getBool(props, "customAnnotatorClass.jmwe.warmUp", false)) {
+                // keep the index resident even when no annotator is using it
+                MWEIndexRegistry.getInstance().warmUp(indexFile);
+            }
+            this.index = MWEIndexRegistry.getInstance().acquire(indexFile);
+        } catch (IOException e) {
+            throw new RuntimeException("unable to open IMWEIndex index " + indexFile.getAbsoluteFile(), e);
+        }
+        if (PropertiesUtils.getBool(props, "customAnnotatorClass.jmwe.shutdownHook", true)) {
+            MWEIndexRegistry.getInstance().registerShutdownHook();
+        }
+        // set detector
+        try {
+            this.detector = getDetector(index, detectorName);
+        } catch (RuntimeException e) {
+            index.close();
+            throw e;
+        }
+        this.pool = this.threads > 1 ? new ForkJoinPool(this.threads) : null;
 
         if (this.verbose) {
             System.out.println("verbose: " + this.verbose);
             System.out.println("underscoreReplacement: " + this.underscoreReplacement);
             System.out.println("indexData: " + this.index);
             System.out.println("detectorName: " + this.detectorName);
+            System.out.println("threads: " + this.threads);
         }
     }
 
     @Override
     public void annotate(Annotation annotation) {
         if (annotation.has(CoreAnnotations.SentencesAnnotation.class)) {
-            // open index
-            try {
-                index.open();
-            } catch (IOException e) {
-                throw new RuntimeException("unable to open IMWEIndex index");
+            if (!index.isOpen()) {
+                throw new IllegalStateException("IMWEIndex index has been released");
             }
-            // create the detector
-            IMWEDetector detector = getDetector(index, detectorName);
-            // capture jMWE per sentence
-            for (CoreMap sentence : annotation.get(CoreAnnotations.SentencesAnnotation.class)) {
-                List<IMWE<IToken>> mwes = getjMWEInSentence(sentence, index, detector, verbose);
-                sentence.set(JMWEAnnotation.class, mwes);
+            IMWEDetector detector = this.detector;
+            // capture jMWE for all sentences in one batch
+            List<CoreMap> sentences = annotation.get(CoreAnnotations.SentencesAnnotation.class);
+            if (pool != null && sentences.size() > 1) {
+                // spread the sentences over the pool, about four chunks per thread
+                int chunkSize = Math.max(1, (sentences.size() + 4 * threads - 1) / (4 * threads));
+                detector = new Parallel(detector, pool, chunkSize);
+            }
+            List<List<IMWE<IToken>>> mwes = getjMWEInSentences(sentences, detector, verbose);
+            for (int i = 0; i < sentences.size(); i++) {
+                sentences.get(i).set(JMWEAnnotation.class, mwes.get(i));
             }
-            // close index
-            index.close();
         } else {
             throw new RuntimeException("unable to find words/tokens in: " + annotation);
         }
     }
 
+    /**
+     * Releases this annotator's reference on the shared index. The index itself
+     * is closed once every annotator using it has been released, unless it was
+     * pinned via {@link MWEIndexRegistry#warmUp(File)}. After this call the
+     * annotator may no longer be used.
+     */
+    public void release() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        index.close();
+    }
+
     @Override
     public Set<Requirement> requirementsSatisfied() {
         return Collections.singleton(JMWE_REQUIREMENT);
@@ -163,45 +212,65 @@ public class JMWEAnnotator implements Annotator {
         return mwes;
     }
 
+    /**
+     * Get the MWE of each of the sentences, passing them to the detector as a
+     * single batch so that it can share work across the sentences.
+     *
+     * @param sentences
+     *            the sentences
+     * @param detector
+     *            the detector
+     * @param verbose
+     *            the verbosity
+     * @return the MWE of each sentence, in the order of the sentences
+     */
+    public List<List<IMWE<IToken>>> getjMWEInSentences(List<CoreMap> sentences, IMWEDetector detector,
+                                                       boolean verbose) {
+        List<List<IToken>> tokens = new ArrayList<List<IToken>>(sentences.size());
+        for (CoreMap sentence : sentences) {
+            tokens.add(getITokens(sentence.get(CoreAnnotations.TokensAnnotation.class)));
+        }
+
+        List<List<IMWE<IToken>>> mwes = detector.detectAll(tokens);
+        if (verbose) {
+            for (List<IMWE<IToken>> sentenceMwes : mwes) {
+                for (IMWE<IToken> token : sentenceMwes) {
+                    System.out.println("IMWE<IToken>: " + token);
+                }
+            }
+        }
+        return mwes;
+    }
+
     /**
      * Get the detector.
      *
      * @param index
      *            the index
      * @param detector
-     *            the detector, \"Consecutive\", \"Exhaustive\", \"ProperNouns\", \"Complex\" or \"CompositeConsecutiveProperNouns\" are supported
+     *            the detector, either a specification such as
+     *            \"Longest(InflectionPattern(Consecutive))\" as described in
+     *            {@link DetectorSpec}, or one of the named combinations
+     *            \"Complex\" or \"CompositeConsecutiveProperNouns\"
      * @return the detector
+     * @throws IllegalArgumentException
+     *             if the detector specification is invalid
      */
     public IMWEDetector getDetector(IMWEIndex index, String detector) {
-        IMWEDetector iMWEdetector = null;
         switch (detector) {
-            case "Consecutive":
-                iMWEdetector = new Consecutive(index);
-                break;
-            case "Exhaustive":
-                iMWEdetector = new Exhaustive(index);
-                break;
-            case "ProperNouns":
-                iMWEdetector = ProperNouns.getInstance();
-                break;
             case "Complex":
-                iMWEdetector = new CompositeDetector(ProperNouns.getInstance(),
-                        new MoreFrequentAsMWE(new InflectionPattern(new Consecutive(index))));
-                break;
+                return DetectorSpec.parse("CompositeDetector(ProperNouns, MoreFrequentAsMWE(InflectionPattern(Consecutive)))", index);
             case "CompositeConsecutiveProperNouns":
-                iMWEdetector = new CompositeDetector(new Consecutive(index), ProperNouns.getInstance());
-                break;
+                return DetectorSpec.parse("CompositeDetector(Consecutive, ProperNouns)", index);
             default:
-                throw new IllegalArgumentException("Invalid detector argument " + detector
-                        + ", only \"Consecutive\", \"Exhaustive\", \"ProperNouns\", \"Complex\" or \"CompositeConsecutiveProperNouns\" are supported.");
+                return DetectorSpec.parse(detector, index);
         }
-        return iMWEdetector;
     }
 
     /**
      * Create a list of IToken from the list of CoreLabel tokens.
      *
-     * Each IToken is created by passing the original text, the POS, and the
+     * Each IToken is a {@link CoreLabelToken} view of the original text, the POS, and the
      * lemma of the CoreLabel token. A _ symbol is replaced with the underscoreReplacement String,
      * as JMWE 1.0.2 throws an IllegalArgumentException when given a _ symbol
      *
@@ -216,7 +285,7 @@ public class JMWEAnnotator implements Annotator {
     /**
      * Create a list of IToken from the list of CoreLabel tokens.
      *
-     * Each IToken is created by passing the original text, the POS, and the
+     * Each IToken is a {@link CoreLabelToken} view of the original text, the POS, and the
      * lemma of the CoreLabel token. A _ symbol is replaced with the underscoreReplacement String,
      * as JMWE 1.0.2 throws an IllegalArgumentException when given a _ symbol
      *
@@ -227,9 +296,9 @@ public class JMWEAnnotator implements Annotator {
      * @return list of IToken
      */
     public List<IToken> getITokens(List<CoreLabel> tokens, String underscoreReplacement) {
-        List<IToken> sentence = new ArrayList<IToken>();
+        List<IToken> sentence = new ArrayList<IToken>(tokens.size());
         for (CoreLabel token : tokens) {
-            sentence.add(new Token(token.originalText().replaceAll("_", underscoreReplacement), token.get(PartOfSpeechAnnotation.class), Long.valueOf(token.get(CoreAnnotations.CharacterOffsetBeginAnnotation.class)), token.lemma().replaceAll("_", underscoreReplacement)));
+            sentence.add(new CoreLabelToken(token, underscoreReplacement));
         }
         return sentence;
     }
@@ -0,0 +1,115 @@
+package edu.mit.jmwe.data.concordance;
+
+import edu.mit.jmwe.index.IndexBuilder.ReadProgress;
+import edu.mit.jmwe.util.AbstractFileSelector;
+import edu.mit.jsemcor.element.ContextID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class TaggedConcordanceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> lines(int count) {
+        List<String> lines = new ArrayList<String>();
+        for (int s = 1; s <= count; s++) {
+            List<IConcordanceToken> tokens = Arrays.<IConcordanceToken>asList(
+                    new ConcordanceToken("looked", "VBD", 0, 0, "look"),
+                    new ConcordanceToken("up", "RP", 1, 0, "up"));
+            lines.add(new ConcordanceSentence(new ContextID("br-a01", "brown1"), s, tokens).toString());
+        }
+        return lines;
+    }
+
+    private File write(List<String> lines) throws Exception {
+        File file = folder.newFile("tagged.txt");
+        Writer w = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        w.write("// comment\n\n");
+        for (String line : lines)
+            w.write(line + "\n");
+        w.close();
+        return file;
+    }
+
+    @Test
+    public void readsTheFileEachTimeAndCountsBytes() throws Exception {
+        List<String> lines = lines(2000);
+        File file = write(lines);
+        TaggedConcordance concordance = new TaggedConcordance(file);
+        assertEquals(file.length(), concordance.length());
+        for (int pass = 0; pass < 2; pass++) {
+            TaggedConcordanceIterator i = concordance.iterator();
+            int count = 0;
+            while (i.hasNext())
+                assertEquals(lines.get(count++), i.next().toString());
+            assertEquals(lines.size(), count);
+            assertEquals(file.length(), i.getBytesRead());
+        }
+    }
+
+    @Test
+    public void reportsProgressInSentencesWhenLengthIsUnknown() throws Exception {
+        List<String> lines = lines(3);
+        TaggedConcordanceIterator i = new TaggedConcordanceIterator(new StringReader(lines.get(0) + "\n" + lines.get(1)));
+        assertEquals(-1, i.getBytesRead());
+        ReadProgress progress = new ReadProgress(Collections.emptyList(), i, 2);
+        while (i.hasNext()) {
+            i.next();
+            progress.increment();
+        }
+        progress.finish();
+        assertEquals(2, progress.getSentenceCount());
+    }
+
+    private static class Selector extends AbstractFileSelector {
+        File get(Class<?> key) {
+            return chooseFile("Select", key);
+        }
+    }
+
+    @Test
+    public void headlessSelectorReturnsOnlyPresetFiles() {
+        Selector selector = new Selector();
+        selector.setInteractive(false);
+        File file = new File("wordnet");
+        selector.setSelection(String.class, file);
+        assertEquals(file, selector.get(String.class));
+        assertNull(selector.get(Integer.class));
+        assertFalse(selector.isInteractive());
+    }
+
+    @Test
+    public void parsesOptions() {
+        Map<String, String> options = AbstractFileSelector.parseOptions(
+                new String[]{"-wordnet", "dict", "-data", "out.txt"}, "wordnet", "data", "semcor");
+        assertEquals(Arrays.asList("wordnet", "data"), new ArrayList<String>(options.keySet()));
+        assertEquals("out.txt", options.get("data"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownOptions() {
+        AbstractFileSelector.parseOptions(new String[]{"-wordnet", "dict", "-bogus", "x"}, "wordnet");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsMissingValues() {
+        AbstractFileSelector.parseOptions(new String[]{"-wordnet"}, "wordnet");
+    }
+}
@@ -0,0 +1,58 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWE;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.RootMWEDesc;
+import edu.mit.jmwe.data.Token;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompositeDetectorTest {
+
+    private static IMWE<IToken> mwe(IMWEDesc desc, IToken... tokens) {
+        Map<IToken, IMWEDesc.IPart> parts = new LinkedHashMap<IToken, IMWEDesc.IPart>();
+        for (int i = 0; i < tokens.length; i++)
+            parts.put(tokens[i], desc.getParts().get(i));
+        return new MWE<IToken>(parts);
+    }
+
+    private static IMWEDetector fixed(final IMWE<IToken> mwe) {
+        return new IMWEDetector() {
+            @SuppressWarnings("unchecked")
+            public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
+                return Collections.singletonList((IMWE<T>) mwe);
+            }
+        };
+    }
+
+    @Test
+    public void keepsFirstOfSameTokensAndPOS() {
+        IToken look = new Token("look", "VB", 0L);
+        IToken up = new Token("up", "RP", 5L);
+        List<IToken> sentence = Arrays.asList(look, up);
+
+        IMWE<IToken> preferred = mwe(new RootMWEDesc("look_up", MWEPOS.VERB), look, up);
+        IMWE<IToken> duplicate = mwe(new RootMWEDesc("look_up", MWEPOS.VERB), look, up);
+        IMWE<IToken> noun = mwe(new RootMWEDesc("look_up", MWEPOS.NOUN), look, up);
+
+        CompositeDetector composite = new CompositeDetector(fixed(preferred), fixed(duplicate), fixed(noun));
+        List<IMWE<IToken>> found = composite.detect(sentence);
+        assertEquals(2, found.size());
+        assertTrue(found.contains(noun));
+        for (IMWE<IToken> mwe : found)
+            assertNotSame(duplicate, mwe);
+        assertEquals(found, composite.detectAll(Collections.singletonList(sentence)).get(0));
+    }
+}
@@ -0,0 +1,67 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.Token;
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.MWEIndex;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConsecutiveAutomatonTest {
+
+    @Test
+    public void sameResultsAsConsecutive() throws IOException {
+
+        IMWEIndex index = new MWEIndex(new File("src/test/resources/mweindex_wordnet3.0_semcor1.6.data"));
+        index.open();
+
+        List<IRootMWEDesc> roots = new ArrayList<IRootMWEDesc>();
+        for (Iterator<IRootMWEDesc> i = index.getRootIterator(); i.hasNext(); )
+            roots.add(i.next());
+
+        IMWEDetector expected = new Consecutive(index);
+        IMWEDetector actual = new ConsecutiveAutomaton(index);
+
+        // sentences of MWE parts and filler words, some given only as stems
+        Random random = new Random(42);
+        String[] fillers = {"the", "of", "a", "up", "run", "Out", "."};
+        int found = 0;
+        for (int s = 0; s < 500; s++) {
+            List<IToken> sentence = new ArrayList<IToken>();
+            long offset = 0;
+            while (sentence.size() < 25) {
+                if (random.nextInt(3) == 0) {
+                    sentence.add(new Token(fillers[random.nextInt(fillers.length)], "NN", offset++));
+                    continue;
+                }
+                IRootMWEDesc root = roots.get(random.nextInt(roots.size()));
+                for (IRootMWEDesc.IRootPart part : root.getParts()) {
+                    if (random.nextInt(4) == 0)
+                        sentence.add(new Token(part.getForm().toUpperCase() + "s", "VBZ", offset++, part.getForm()));
+                    else
+                        sentence.add(new Token(part.getForm(), "NN", offset++));
+                }
+            }
+            List<IMWE<IToken>> want = expected.detect(sentence);
+            List<IMWE<IToken>> got = actual.detect(sentence);
+            assertEquals(new HashSet<IMWE<IToken>>(want), new HashSet<IMWE<IToken>>(got));
+            assertEquals(want.size(), got.size());
+            found += got.size();
+        }
+        assertEquals(true, found > 500);
+
+        index.close();
+    }
+
+}
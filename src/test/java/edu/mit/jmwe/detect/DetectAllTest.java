@@ -0,0 +1,107 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.Token;
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.MWEIndex;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DetectAllTest {
+
+    @Test
+    public void batchMatchesSingleSentences() throws IOException {
+
+        IMWEIndex index = new MWEIndex(new File("src/test/resources/mweindex_wordnet3.0_semcor1.6.data"));
+        index.open();
+
+        List<IRootMWEDesc> roots = new ArrayList<IRootMWEDesc>();
+        for (Iterator<IRootMWEDesc> i = index.getRootIterator(); i.hasNext(); )
+            roots.add(i.next());
+
+        // a document in which some MWEs and words recur
+        Random random = new Random(7);
+        List<List<IToken>> sentences = new ArrayList<List<IToken>>();
+        for (int s = 0; s < 200; s++) {
+            List<IToken> sentence = new ArrayList<IToken>();
+            long offset = 0;
+            while (sentence.size() < 15) {
+                if (random.nextInt(3) == 0) {
+                    sentence.add(new Token("the", "DT", offset++));
+                    continue;
+                }
+                IRootMWEDesc root = roots.get(random.nextInt(50));
+                for (IRootMWEDesc.IRootPart part : root.getParts())
+                    sentence.add(new Token(part.getForm(), "NN", offset++, part.getForm()));
+            }
+            sentences.add(sentence);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            IMWEDetector[] detectors = {
+                    new Consecutive(index),
+                    new ConsecutiveAutomaton(index),
+                    new Exhaustive(index),
+                    new Longest(new InflectionPattern(new Consecutive(index))),
+                    new CompositeDetector(new Consecutive(index), ProperNouns.getInstance()),
+                    new Parallel(new Longest(new Exhaustive(index)), executor, 16)
+            };
+            for (IMWEDetector detector : detectors) {
+                List<List<IMWE<IToken>>> batch = detector.detectAll(sentences);
+                assertEquals(sentences.size(), batch.size());
+                for (int i = 0; i < sentences.size(); i++)
+                    assertEquals(detector.detect(sentences.get(i)), batch.get(i));
+            }
+        } finally {
+            executor.shutdown();
+            index.close();
+        }
+    }
+
+    // constrains its results by overriding detect, as subclasses did before filter was added
+    private static class DropAll extends HasMWEDetector {
+        DropAll(IMWEDetector detector) {
+            super(detector);
+        }
+
+        @Override
+        public <T extends IToken> List<IMWE<T>> detect(List<T> sentence) {
+            super.detect(sentence);
+            return Collections.emptyList();
+        }
+    }
+
+    @Test
+    public void batchUsesOverriddenDetect() throws IOException {
+        IMWEIndex index = new MWEIndex(new File("src/test/resources/mweindex_wordnet3.0_semcor1.6.data"));
+        index.open();
+        try {
+            List<IToken> sentence = Arrays.<IToken>asList(new Token("look", "VB", 0L, "look"), new Token("up", "RP", 1L, "up"));
+            IMWEDetector consecutive = new Consecutive(index);
+            assertEquals(1, consecutive.detect(sentence).size());
+            List<List<IMWE<IToken>>> batch = new DropAll(consecutive).detectAll(Arrays.asList(sentence, sentence));
+            assertEquals(2, batch.size());
+            for (List<IMWE<IToken>> found : batch)
+                assertTrue(found.isEmpty());
+        } finally {
+            index.close();
+        }
+    }
+
+}
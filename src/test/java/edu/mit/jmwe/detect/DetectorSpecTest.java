@@ -0,0 +1,52 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.MWEIndex;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DetectorSpecTest {
+
+    private final IMWEIndex index = new MWEIndex(new File("src/test/resources/mweindex_wordnet3.0_semcor1.6.data"));
+
+    @Test
+    public void nested() {
+        IMWEDetector detector = DetectorSpec.parse("Longest(InflectionPattern(Consecutive))", index);
+        assertTrue(detector instanceof Longest);
+        IMWEDetector inner = ((Longest) detector).getWrappedDetector();
+        assertTrue(inner instanceof InflectionPattern);
+        assertTrue(((InflectionPattern) inner).getWrappedDetector() instanceof Consecutive);
+    }
+
+    @Test
+    public void compositeWithArguments() {
+        IMWEDetector detector = DetectorSpec.parse(
+                " CompositeDetector( ConstrainLength(Exhaustive, 3, true) , ProperNouns() ) ", index);
+        assertTrue(detector instanceof CompositeDetector);
+        CompositeDetector composite = (CompositeDetector) detector;
+        assertEquals(2, composite.size());
+        assertTrue(composite.get(0) instanceof ConstrainLength);
+        assertSame(ProperNouns.getInstance(), composite.get(1));
+    }
+
+    @Test
+    public void errors() {
+        String[] bad = {"", "Unknown", "Longest", "Longest(Consecutive", "Consecutive(Exhaustive)",
+                "Longest(3)", "ConstrainLength(Exhaustive, true, 3)", "Composite()", "Consecutive)"};
+        for (String spec : bad) {
+            try {
+                DetectorSpec.parse(spec, index);
+                fail("accepted " + spec);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+}
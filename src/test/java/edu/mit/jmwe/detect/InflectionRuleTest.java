@@ -0,0 +1,108 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWE;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.RootMWEDesc;
+import edu.mit.jmwe.data.Token;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class InflectionRuleTest {
+
+    private static final MWEPOS[] POS = {MWEPOS.NOUN, MWEPOS.VERB, MWEPOS.ADJECTIVE};
+
+    // the old regular expression check of a rule, for reference
+    private static boolean isValidByRegex(InflectionRule rule, IMWE<IToken> mwe) {
+        Matcher matcher = rule.getPattern().matcher(rule.getTagPattern(mwe));
+        if (!matcher.matches())
+            throw new IllegalArgumentException();
+        int j = 0;
+        for (int i = 1; i <= matcher.groupCount(); i++) {
+            if (matcher.group(i) == null) continue;
+            if (InflectionRule.inflects(mwe.getTokens().get(j), mwe) && !rule.isInflecting(i - 1))
+                return false;
+            j++;
+        }
+        return true;
+    }
+
+    private static IMWE<IToken> mwe(List<String> tags, int inflected, MWEPOS pos) {
+        List<String> parts = new ArrayList<String>();
+        for (int i = 0; i < tags.size(); i++)
+            parts.add("p" + i);
+        IRootMWEDesc desc = new RootMWEDesc(parts, pos);
+        Map<IToken, IMWEDesc.IPart> map = new LinkedHashMap<IToken, IMWEDesc.IPart>();
+        for (int i = 0; i < tags.size(); i++) {
+            String form = (inflected & (1 << i)) != 0 ? "q" + i : "p" + i;
+            map.put(new Token(form, tags.get(i), (long) i), desc.getParts().get(i));
+        }
+        return new MWE<IToken>(map);
+    }
+
+    private static void check(List<String> tags, int inflected, MWEPOS pos) {
+        IMWE<IToken> mwe = mwe(tags, inflected, pos);
+        boolean any = false;
+        for (InflectionRule rule : InflectionRule.values()) {
+            boolean syntax = rule.getPattern().matcher(rule.getTagPattern(mwe)).matches();
+            assertEquals(rule + " " + mwe, syntax && rule.getPOS() == pos, rule.matches(mwe));
+            if (syntax) {
+                boolean valid = isValidByRegex(rule, mwe);
+                assertEquals(rule + " " + mwe, valid, rule.isValid(mwe));
+                any |= valid && rule.getPOS() == pos;
+            } else {
+                try {
+                    rule.isValid(mwe);
+                    fail(rule + " " + mwe);
+                } catch (IllegalArgumentException expected) {
+                    // expected
+                }
+            }
+        }
+        assertEquals(mwe.toString(), any, InflectionRule.isInflectedByPattern(mwe));
+    }
+
+    @Test
+    public void sameAsRegularExpressions() {
+        Set<String> alphabet = new LinkedHashSet<String>();
+        for (InflectionRule rule : InflectionRule.values())
+            for (String element : rule.getElements())
+                alphabet.addAll(InflectionAutomaton.expand(element));
+        alphabet.add("NNP");
+        alphabet.add("VBX");
+        alphabet.add(",");
+        List<String> tags = new ArrayList<String>(alphabet);
+
+        // every pair of tags
+        for (String a : tags)
+            for (String b : tags)
+                for (MWEPOS pos : POS)
+                    for (int inf = 0; inf < 4; inf++)
+                        check(Arrays.asList(a, b), inf, pos);
+
+        // random longer sequences
+        Random random = new Random(11);
+        for (int n = 0; n < 20000; n++) {
+            List<String> seq = new ArrayList<String>();
+            int length = 3 + random.nextInt(4);
+            for (int i = 0; i < length; i++)
+                seq.add(tags.get(random.nextInt(tags.size())));
+            check(seq, random.nextInt(1 << length), POS[random.nextInt(POS.length)]);
+        }
+    }
+}
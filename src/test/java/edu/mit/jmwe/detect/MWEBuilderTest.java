@@ -0,0 +1,105 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.RootMWEDesc;
+import edu.mit.jmwe.data.Token;
+import edu.mit.jmwe.util.ListComparator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MWEBuilderTest {
+
+    @Test
+    public void fillSlotsKeepsEachCombination() {
+        IMWEDesc desc = new RootMWEDesc("look_up", MWEPOS.VERB);
+        List<IToken> sentence = Arrays.<IToken>asList(
+                new Token("look", "VB", 0L), new Token("up", "RP", 5L), new Token("up", "RP", 8L));
+
+        Set<MWEBuilder<IToken>> records = new HashSet<MWEBuilder<IToken>>();
+        records.add(new MWEBuilder<IToken>(desc, sentence));
+        for (IToken token : sentence)
+            MWEBuilder.fillSlots(records, token);
+
+        Set<List<IToken>> found = new HashSet<List<IToken>>();
+        for (MWEBuilder<IToken> record : records) {
+            assertTrue(record.isFull());
+            found.add(record.toMWE().getTokens());
+        }
+        Set<List<IToken>> expected = new HashSet<List<IToken>>();
+        expected.add(Arrays.asList(sentence.get(0), sentence.get(1)));
+        expected.add(Arrays.asList(sentence.get(0), sentence.get(2)));
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void repeatedPartsFillInOrder() {
+        IMWEDesc desc = new RootMWEDesc("by_and_by", MWEPOS.ADVERB);
+        List<IToken> sentence = Arrays.<IToken>asList(
+                new Token("by", "IN", 0L), new Token("and", "CC", 3L), new Token("by", "IN", 7L));
+
+        MWEBuilder<IToken> builder = new MWEBuilder<IToken>(desc, sentence);
+        for (IToken token : sentence)
+            assertTrue(MWEBuilder.fillNextSlot(builder, token));
+        assertTrue(builder.isFull());
+        assertTrue(builder.hasMultiple());
+
+        IMWE<IToken> mwe = builder.toMWE();
+        assertEquals(sentence, new ArrayList<IToken>(mwe.getTokens()));
+    }
+
+    @Test
+    public void cloneIsEqualUntilFilled() {
+        IMWEDesc desc = new RootMWEDesc("look_up", MWEPOS.VERB);
+        List<IToken> sentence = Arrays.<IToken>asList(new Token("look", "VB", 0L), new Token("up", "RP", 5L));
+
+        MWEBuilder<IToken> builder = new MWEBuilder<IToken>(desc, sentence);
+        MWEBuilder.fillNextSlot(builder, sentence.get(0));
+        MWEBuilder<IToken> clone = builder.clone();
+        assertEquals(builder, clone);
+        assertEquals(builder.hashCode(), clone.hashCode());
+
+        MWEBuilder.fillNextSlot(clone, sentence.get(1));
+        assertNotEquals(builder, clone);
+        assertFalse(builder.isFull());
+        assertTrue(clone.isFull());
+    }
+
+    @Test
+    public void cachedLayoutBuildsTheSameRecords() {
+        IMWEDesc desc = new RootMWEDesc("look_up", MWEPOS.VERB);
+        List<IToken> sentence = Arrays.<IToken>asList(new Token("look", "VB", 0L), new Token("up", "RP", 5L));
+        ListComparator<IToken> comparator = new ListComparator<IToken>(sentence);
+        MWEBuilder.LayoutCache layouts = new MWEBuilder.LayoutCache();
+
+        MWEBuilder<IToken> direct = new MWEBuilder<IToken>(desc, comparator);
+        MWEBuilder<IToken> cached = new MWEBuilder<IToken>(desc, comparator, layouts);
+        MWEBuilder<IToken> again = new MWEBuilder<IToken>(desc, comparator, layouts);
+        for (IToken token : sentence) {
+            assertTrue(MWEBuilder.fillNextSlot(direct, token));
+            assertTrue(MWEBuilder.fillNextSlot(cached, token));
+            assertTrue(MWEBuilder.fillNextSlot(again, token));
+        }
+        assertEquals(direct, cached);
+        assertEquals(direct.toMWE(), again.toMWE());
+
+        // a description with the same ID, as after an index reload, gets its own layout
+        IMWEDesc reloaded = new RootMWEDesc("look_up", MWEPOS.VERB);
+        MWEBuilder<IToken> builder = new MWEBuilder<IToken>(reloaded, comparator, layouts);
+        assertSame(reloaded, builder.getEntry());
+        assertSame(reloaded, builder.getSlots().firstKey().getParent());
+    }
+}
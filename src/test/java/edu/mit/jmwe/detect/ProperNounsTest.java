@@ -0,0 +1,107 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.Token;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ProperNounsTest {
+
+    // a token equal to any other with the same form and tag, as in callers that define value equality
+    private static class ValueToken extends Token {
+        ValueToken(String text, String tag) {
+            super(text, tag, null);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ValueToken)) return false;
+            ValueToken other = (ValueToken) obj;
+            return getForm().equals(other.getForm()) && getTag().equals(other.getTag());
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * getForm().hashCode() + getTag().hashCode();
+        }
+    }
+
+    // accepts a preposition inside a run, as the commented out rules once did
+    private static class WithPrepositions extends ProperNouns {
+        @Override
+        protected <T extends IToken> boolean isValidInterstitial(T token, LinkedList<T> tokens) {
+            return "IN".equals(token.getTag());
+        }
+    }
+
+    private static List<IToken> sentence(String... wordsAndTags) {
+        List<IToken> sentence = new ArrayList<IToken>();
+        for (int i = 0; i < wordsAndTags.length; i += 2)
+            sentence.add(new Token(wordsAndTags[i], wordsAndTags[i + 1], (long) i));
+        return sentence;
+    }
+
+    private static List<List<String>> forms(List<IMWE<IToken>> mwes) {
+        List<List<String>> result = new ArrayList<List<String>>();
+        for (IMWE<IToken> mwe : mwes) {
+            List<String> forms = new ArrayList<String>();
+            for (IToken token : mwe.getTokens())
+                forms.add(token.getForm());
+            result.add(forms);
+        }
+        return result;
+    }
+
+    @Test
+    public void runEndingAtLastTokenIsFound() {
+        List<IToken> sentence = sentence("She", "PRP", "visited", "VBD", "New", "NNP", "York", "NNP");
+        assertEquals(Arrays.asList(Arrays.asList("New", "York")), forms(new ProperNouns().detect(sentence)));
+    }
+
+    @Test
+    public void invalidInterstitialBreaksRun() {
+        List<IToken> sentence = sentence("Bank", "NNP", "of", "IN", "America", "NNP", "and", "CC",
+                "Wells", "NNP", "Fargo", "NNP", "said", "VBD");
+        assertEquals(Arrays.asList(Arrays.asList("Wells", "Fargo")), forms(new ProperNouns().detect(sentence)));
+
+        // with prepositions allowed, the run continues over "of" but not over "and",
+        // and a preposition left at the end of a run is dropped
+        assertEquals(Arrays.asList(Arrays.asList("Bank", "of", "America"), Arrays.asList("Wells", "Fargo")),
+                forms(new WithPrepositions().detect(sentence)));
+        List<IToken> trailing = sentence("Bank", "NNP", "Street", "NNP", "of", "IN", "old", "JJ");
+        assertEquals(Arrays.asList(Arrays.asList("Bank", "Street")), forms(new WithPrepositions().detect(trailing)));
+    }
+
+    @Test
+    public void repeatedTokenAtSentenceEnd() {
+        List<IToken> sentence = Arrays.<IToken>asList(
+                new ValueToken("New", "NNP"), new ValueToken("York", "NNP"), new ValueToken("is", "VBZ"),
+                new ValueToken("New", "NNP"), new ValueToken("York", "NNP"));
+        List<IMWE<IToken>> mwes = new ProperNouns().detect(sentence);
+        assertEquals(Arrays.asList(Arrays.asList("New", "York"), Arrays.asList("New", "York")), forms(mwes));
+    }
+
+    @Test
+    public void descriptionIsReusedAcrossCase() {
+        ProperNouns detector = new ProperNouns();
+        List<IMWE<IToken>> first = detector.detect(sentence("New", "NNP", "York", "NNP", "is", "VBZ"));
+        List<IMWE<IToken>> second = detector.detect(sentence("NEW", "NNP", "YORK", "NNP", "is", "VBZ"));
+        assertEquals(1, first.size());
+        assertEquals(1, second.size());
+        assertSame(first.get(0).getEntry(), second.get(0).getEntry());
+        assertEquals(Arrays.asList("NEW", "YORK"), forms(second).get(0));
+
+        // a different run gets a different description
+        List<IMWE<IToken>> other = detector.detect(sentence("New", "NNP", "Jersey", "NNP"));
+        assertTrue(first.get(0).getEntry() != other.get(0).getEntry());
+    }
+}
@@ -0,0 +1,200 @@
+package edu.mit.jmwe.detect;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWE;
+import edu.mit.jmwe.data.MWEComparator;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.RootMWEDesc;
+import edu.mit.jmwe.data.Token;
+import edu.mit.jmwe.detect.score.IScorer;
+import edu.mit.jmwe.detect.score.LengthScore;
+import edu.mit.jmwe.detect.score.StartingIndexScore;
+import edu.mit.jmwe.detect.score.VarianceScore;
+import edu.mit.jmwe.index.MWEIndex;
+import edu.mit.jmwe.util.CompositeComparator;
+import edu.mit.jmwe.util.ListComparator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResolverEquivalenceTest {
+
+    // the old resolution of ResolveByScore, for reference
+    private static List<IMWE<IToken>> resolveByQueue(List<IToken> sentence, List<IMWE<IToken>> results,
+                                                     IScorer<IMWE<IToken>> scorer, boolean chooseLargest) {
+        Comparator<IMWE<IToken>> scoreComp = scorer;
+        if (chooseLargest)
+            scoreComp = Collections.reverseOrder(scoreComp);
+        Comparator<IMWE<IToken>> mweComp = new MWEComparator<IToken>(sentence);
+        Comparator<IMWE<IToken>> c = new CompositeComparator<IMWE<IToken>>(scoreComp, mweComp);
+
+        Collections.sort(results, c);
+        LinkedList<IMWE<IToken>> queue = new LinkedList<IMWE<IToken>>(results);
+
+        IMWE<IToken> mwe;
+        Set<IMWE<IToken>> resultSet = new LinkedHashSet<IMWE<IToken>>();
+        while (!queue.isEmpty()) {
+            mwe = queue.removeFirst();
+            if (resultSet.add(mwe))
+                for (Iterator<IMWE<IToken>> i = queue.iterator(); i.hasNext(); )
+                    if (MWE.overlap(mwe, i.next()) > 0)
+                        i.remove();
+        }
+
+        results = new ArrayList<IMWE<IToken>>(resultSet);
+        Collections.sort(results, mweComp);
+        return results;
+    }
+
+    // the old resolution of LMLR, for reference
+    private static List<IMWE<IToken>> resolveByTokenMap(List<IToken> s, List<IMWE<IToken>> results) {
+        Map<IToken, IMWE<IToken>> map = new LinkedHashMap<IToken, IMWE<IToken>>(s.size());
+        for (IToken token : s)
+            map.put(token, null);
+
+        IToken first;
+        IMWE<IToken> filler;
+        Comparator<IToken> c = new ListComparator<IToken>(s);
+        Map<IMWE<IToken>, IToken> firstTokens = new HashMap<IMWE<IToken>, IToken>(results.size());
+        for (IMWE<IToken> mwe : results) {
+            first = LMLR.getFirstToken(mwe.getTokens(), c);
+            firstTokens.put(mwe, first);
+            filler = map.get(first);
+            filler = LMLR.longest(filler, mwe, c);
+            map.put(first, filler);
+        }
+
+        IMWE<IToken> mwe;
+        for (IToken token : s) {
+            mwe = map.get(token);
+            if (mwe == null)
+                continue;
+            first = firstTokens.get(mwe);
+            for (IToken mweToken : mwe.getTokens())
+                if (mweToken != first)
+                    map.put(mweToken, null);
+        }
+
+        results.retainAll(map.values());
+        return results;
+    }
+
+    // orders by the position of the last token, and is not an AbstractScorer,
+    // so the resolver sorts with it as a comparator
+    private static class LastTokenScore implements IScorer<IMWE<IToken>> {
+        private final ListComparator<IToken> comparator;
+
+        LastTokenScore(List<IToken> sentence) {
+            this.comparator = new ListComparator<IToken>(sentence);
+        }
+
+        public double score(IMWE<IToken> mwe) {
+            int last = -1;
+            for (IToken token : mwe.getTokens())
+                last = Math.max(last, comparator.getIndexMap().get(token));
+            return last;
+        }
+
+        public int compare(IMWE<IToken> one, IMWE<IToken> two) {
+            return Double.compare(score(one), score(two));
+        }
+    }
+
+    private static class Latest extends ResolveByScore {
+        private final IScorer<?> scorer;
+
+        Latest(IMWEDetector detector, IScorer<?> scorer) {
+            super(detector, true);
+            this.scorer = scorer;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <T extends IToken> IScorer<IMWE<T>> getScorer(List<T> sentence) {
+            return (IScorer<IMWE<T>>) scorer;
+        }
+    }
+
+    // candidates of two to four tokens at random positions, most of them discontinuous,
+    // with many equal in length, start and spread
+    private static List<IMWE<IToken>> candidates(List<IToken> sentence, Random random) {
+        List<IMWE<IToken>> result = new ArrayList<IMWE<IToken>>();
+        int count = 1 + random.nextInt(12);
+        for (int m = 0; m < count; m++) {
+            int length = 2 + random.nextInt(3);
+            int start = random.nextInt(sentence.size() - length + 1);
+            int span = Math.min(sentence.size() - start, length + random.nextInt(4));
+            TreeSet<Integer> positions = new TreeSet<Integer>();
+            positions.add(start);
+            while (positions.size() < length)
+                positions.add(start + random.nextInt(span));
+
+            List<String> parts = new ArrayList<String>();
+            for (int p : positions)
+                parts.add(sentence.get(p).getForm());
+            IRootMWEDesc desc = new RootMWEDesc(parts, MWEPOS.NOUN);
+            Map<IToken, IMWEDesc.IPart> map = new LinkedHashMap<IToken, IMWEDesc.IPart>();
+            int i = 0;
+            for (int p : positions)
+                map.put(sentence.get(p), desc.getParts().get(i++));
+            result.add(new MWE<IToken>(map));
+        }
+        return result;
+    }
+
+    @Test
+    public void sameResultsAsBefore() {
+        // the resolvers are given the candidates directly
+        IMWEDetector none = new Consecutive(new MWEIndex(new HashMap<IMWEDescID, IRootMWEDesc>()));
+        Longest longest = new Longest(none);
+        Leftmost leftmost = new Leftmost(none);
+        SmallestVariance smallestVariance = new SmallestVariance(none);
+        LMLR lmlr = new LMLR(none);
+
+        Random random = new Random(15);
+        int dropped = 0;
+        for (int s = 0; s < 2000; s++) {
+            List<IToken> sentence = new ArrayList<IToken>();
+            int size = 4 + random.nextInt(12);
+            for (int i = 0; i < size; i++)
+                sentence.add(new Token("w" + i, "NN", (long) i));
+            List<IMWE<IToken>> candidates = candidates(sentence, random);
+
+            assertEquals(resolveByQueue(sentence, new ArrayList<IMWE<IToken>>(candidates), LengthScore.<IToken>getInstance(), true),
+                    longest.filter(sentence, new ArrayList<IMWE<IToken>>(candidates)));
+            assertEquals(resolveByQueue(sentence, new ArrayList<IMWE<IToken>>(candidates), new StartingIndexScore<IToken>(sentence), false),
+                    leftmost.filter(sentence, new ArrayList<IMWE<IToken>>(candidates)));
+            assertEquals(resolveByQueue(sentence, new ArrayList<IMWE<IToken>>(candidates), new VarianceScore<IToken>(sentence), false),
+                    smallestVariance.filter(sentence, new ArrayList<IMWE<IToken>>(candidates)));
+            assertEquals(resolveByTokenMap(sentence, new ArrayList<IMWE<IToken>>(candidates)),
+                    lmlr.filter(sentence, new ArrayList<IMWE<IToken>>(candidates)));
+
+            // the comparator path, for a scorer that is not an AbstractScorer
+            LastTokenScore scorer = new LastTokenScore(sentence);
+            List<IMWE<IToken>> kept = new Latest(none, scorer).filter(sentence, new ArrayList<IMWE<IToken>>(candidates));
+            assertEquals(resolveByQueue(sentence, new ArrayList<IMWE<IToken>>(candidates), scorer, true), kept);
+            dropped += candidates.size() - kept.size();
+        }
+        // the candidates overlap often enough for the resolvers to have work to do
+        assertTrue(dropped > 2000);
+    }
+}
@@ -0,0 +1,206 @@
+package edu.mit.jmwe.detect.score;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWE;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.RootMWEDesc;
+import edu.mit.jmwe.data.Token;
+import edu.mit.jwi.IDictionary;
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.IWord;
+import edu.mit.jwi.item.IWordID;
+import edu.mit.jwi.item.POS;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LeskSignaturesTest {
+
+    // a dictionary of a few lemmas, each with its glosses, keyed by POS tag and lemma
+    private static final Map<String, String[]> GLOSSES = new LinkedHashMap<String, String[]>();
+
+    static {
+        GLOSSES.put("nlook_up", new String[]{"the act of looking a word up in a book", "- a dog that looks up"});
+        GLOSSES.put("vlook_up", new String[]{"search for words in a book or dictionary", "visit dogs and cats"});
+        GLOSSES.put("ndog", new String[]{"a domestic animal that barks at cats"});
+        GLOSSES.put("ncat", new String[]{"a small domestic animal"});
+        GLOSSES.put("nbook", new String[]{"a written work"});
+        GLOSSES.put("nword", new String[]{"a unit of language"});
+        GLOSSES.put("vlook", new String[]{"perceive with attention"});
+        GLOSSES.put("vsearch", new String[]{"try to find something"});
+        GLOSSES.put("nsearch", new String[]{"the activity of looking for something"});
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, final Map<String, Object> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("hashCode"))
+                    return System.identityHashCode(proxy);
+                if (method.getName().equals("equals"))
+                    return proxy == args[0];
+                if (method.getName().equals("getIndexWord"))
+                    return answers.get(((POS) args[1]).getTag() + ((String) args[0]).toLowerCase().replace(' ', '_'));
+                if (method.getName().equals("getWord"))
+                    return answers.get("id" + System.identityHashCode(args[0]));
+                if (method.getName().equals("getIndexWordIterator")) {
+                    List<Object> words = new ArrayList<Object>();
+                    for (Map.Entry<String, Object> e : answers.entrySet())
+                        if (e.getKey().charAt(0) == ((POS) args[0]).getTag())
+                            words.add(e.getValue());
+                    return words.iterator();
+                }
+                return answers.get(method.getName());
+            }
+        });
+    }
+
+    private static IDictionary dictionary() {
+        Map<String, Object> answers = new HashMap<String, Object>();
+        for (Map.Entry<String, String[]> e : GLOSSES.entrySet()) {
+            List<IWordID> ids = new ArrayList<IWordID>();
+            for (String gloss : e.getValue()) {
+                IWordID id = stub(IWordID.class, new HashMap<String, Object>());
+                ISynset synset = stub(ISynset.class, Collections.<String, Object>singletonMap("getGloss", gloss));
+                IWord word = stub(IWord.class, Collections.<String, Object>singletonMap("getSynset", synset));
+                answers.put("id" + System.identityHashCode(id), word);
+                ids.add(id);
+            }
+            Map<String, Object> index = new HashMap<String, Object>();
+            index.put("getLemma", e.getKey().substring(1));
+            index.put("getWordIDs", ids);
+            answers.put(e.getKey(), stub(IIndexWord.class, index));
+        }
+        return stub(IDictionary.class, answers);
+    }
+
+    private static IMWE<IToken> mwe(String form, MWEPOS pos, IToken... tokens) {
+        IMWEDesc desc = new RootMWEDesc(form, pos);
+        Map<IToken, IMWEDesc.IPart> parts = new LinkedHashMap<IToken, IMWEDesc.IPart>();
+        for (int i = 0; i < tokens.length; i++)
+            parts.put(tokens[i], desc.getParts().get(i));
+        return new MWE<IToken>(parts);
+    }
+
+    private static List<IToken> sentence(String... forms) {
+        List<IToken> sentence = new ArrayList<IToken>();
+        for (String form : forms)
+            sentence.add(new Token(form, "NN", 0L));
+        return sentence;
+    }
+
+    private static List<IMWE<IToken>> mwes(List<IToken> sentence) {
+        IToken look = sentence.get(0), up = sentence.get(1);
+        return Arrays.asList(
+                mwe("look_up", MWEPOS.VERB, look, up),
+                mwe("look_up", MWEPOS.NOUN, look, up),
+                mwe("look_up", MWEPOS.PROPER_NOUN, look, up),
+                mwe("look_up", MWEPOS.ADJECTIVE, look, up),
+                mwe("give_up", MWEPOS.VERB, look, up));
+    }
+
+    @Test
+    public void signaturesScoreLikeGlosses() throws Exception {
+        IDictionary dict = dictionary();
+        LeskSignatures signatures = new LeskSignatures(dict);
+        List<List<IToken>> sentences = Arrays.asList(
+                sentence("look", "up", "the", "dogs", "in", "a", "book", "."),
+                sentence("Look", "up", "(", "words", ")", "for", "cats"),
+                sentence("look", "up", "nothing", "here"),
+                sentence("look", "up", ",", "searching", "domestic", "books", "and", "visits"));
+        double total = 0;
+        for (List<IToken> sentence : sentences) {
+            LeskScore<IToken> legacy = new LeskScore<IToken>(sentence, dict);
+            LeskScore<IToken> stored = new LeskScore<IToken>(sentence, signatures);
+            for (IMWE<IToken> mwe : mwes(sentence))
+            {
+                assertEquals(mwe.getEntry() + " in " + sentence, legacy.score(mwe), stored.score(mwe), 0.0);
+                total += legacy.score(mwe);
+            }
+        }
+        assertTrue(total > 0);
+    }
+
+    @Test
+    public void savedSignaturesScoreTheSame() throws Exception {
+        IDictionary dict = dictionary();
+        LeskSignatures signatures = new LeskSignatures(dict);
+        assertEquals(GLOSSES.size(), signatures.buildAll());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        signatures.save(out);
+        LeskSignatures loaded = LeskSignatures.load(new ByteArrayInputStream(out.toByteArray()), dict);
+        assertEquals(signatures.size(), loaded.size());
+        assertEquals(signatures.getVocabularySize(), loaded.getVocabularySize());
+
+        List<IToken> sentence = sentence("look", "up", "the", "dogs", "in", "a", "book", "and", "search");
+        LeskScore<IToken> before = new LeskScore<IToken>(sentence, signatures);
+        LeskScore<IToken> after = new LeskScore<IToken>(sentence, loaded);
+        for (IMWE<IToken> mwe : mwes(sentence))
+            assertEquals(before.score(mwe), after.score(mwe), 0.0);
+    }
+
+    @Test
+    public void vocabularySizeCountsOnlyVisibleWords() throws Exception {
+        final LeskSignatures signatures = new LeskSignatures(dictionary());
+        final List<String> words = new ArrayList<String>();
+        for (int i = 0; i < 20000; i++)
+            words.add("w" + i);
+
+        // three threads intern the words while this one looks them up, as
+        // scorers sharing the store do
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<?>> writers = new ArrayList<Future<?>>();
+        try {
+            for (int t = 0; t < 3; t++) {
+                final int first = t;
+                writers.add(executor.submit(new Runnable() {
+                    public void run() {
+                        for (int i = first; i < words.size(); i += 3)
+                            signatures.intern(words.get(i));
+                    }
+                }));
+            }
+            boolean done = false;
+            while (!done) {
+                done = true;
+                for (Future<?> writer : writers)
+                    done &= writer.isDone();
+                int size = signatures.getVocabularySize();
+                assertTrue(signatures.lookup(words).length >= size);
+            }
+            for (Future<?> writer : writers)
+                writer.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(words.size(), signatures.getVocabularySize());
+        assertEquals(words.size(), signatures.lookup(words).length);
+    }
+
+    @Test
+    public void overlapCountsCommonIds() {
+        assertEquals(0, LeskSignatures.overlap(new int[0], new int[]{1, 2}));
+        assertEquals(2, LeskSignatures.overlap(new int[]{1, 3, 5, 7}, new int[]{2, 3, 4, 7, 9}));
+    }
+}
@@ -0,0 +1,75 @@
+package edu.mit.jmwe.index;
+
+import edu.mit.jmwe.data.IMWEDesc;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.MWEPOS;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CompiledMWEIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void matchesTextIndex() throws IOException {
+
+        File idxData = new File("src/test/resources/mweindex_wordnet3.0_semcor1.6.data");
+        File compiled = folder.newFile("mweindex.bin");
+        IndexCompiler.compile(idxData, compiled);
+        assertTrue(CompiledMWEIndex.isCompiled(compiled));
+        assertFalse(CompiledMWEIndex.isCompiled(idxData));
+
+        IMWEIndex text = new MWEIndex(idxData);
+        IMWEIndex binary = new CompiledMWEIndex(compiled);
+        text.open();
+        binary.open();
+
+        // every part maps to the same descriptions, with the same counts
+        for (Iterator<String> i = text.getIndexIterator(); i.hasNext(); ) {
+            String part = i.next();
+            List<String> expected = describe(text.getAll(part));
+            List<String> actual = describe(binary.getAll(part));
+            assertEquals(part, expected, actual);
+        }
+        assertTrue(binary.getAll("notapartofanything").isEmpty());
+
+        // roots come back in the same order
+        Iterator<IRootMWEDesc> expected = text.getRootIterator();
+        Iterator<IRootMWEDesc> actual = binary.getRootIterator();
+        while (expected.hasNext()) {
+            IRootMWEDesc root = expected.next();
+            assertEquals(root.getID(), actual.next().getID());
+            assertEquals(root, binary.get(root.getID()));
+        }
+        assertFalse(actual.hasNext());
+
+        IRootMWEDesc lookUp = text.getRootMWEDesc("look_up", MWEPOS.VERB);
+        assertEquals(lookUp, binary.getRootMWEDesc("Look_Up", MWEPOS.VERB));
+        assertNull(binary.getRootMWEDesc("look_up", MWEPOS.NOUN));
+
+        binary.close();
+        text.close();
+    }
+
+    private static List<String> describe(Iterable<? extends IMWEDesc> descs) {
+        List<String> result = new ArrayList<String>();
+        for (IMWEDesc desc : descs)
+            result.add(desc.getID() + Arrays.toString(desc.getCounts()) + desc.getParts());
+        return result;
+    }
+
+}
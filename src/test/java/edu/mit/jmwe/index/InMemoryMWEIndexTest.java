@@ -0,0 +1,83 @@
+package edu.mit.jmwe.index;
+
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IRootMWEDesc;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.index.IndexBuilder.MutableRootMWEDesc;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InMemoryMWEIndexTest {
+
+    // an index whose data is whatever map was last set on it
+    private static class SettableIndex extends InMemoryMWEIndex {
+
+        Map<IMWEDescID, IRootMWEDesc> data = Collections.emptyMap();
+
+        void set(String... forms) {
+            data = new HashMap<IMWEDescID, IRootMWEDesc>();
+            for (String form : forms) {
+                MutableRootMWEDesc desc = new MutableRootMWEDesc(form, MWEPOS.VERB);
+                data.put(desc.getID(), desc);
+            }
+        }
+
+        @Override
+        protected Map<IMWEDescID, ? extends IRootMWEDesc> createData() {
+            return data;
+        }
+    }
+
+    @Test
+    public void reloadReplacesTheSnapshot() throws Exception {
+        SettableIndex index = new SettableIndex();
+        assertFalse(index.open());
+        assertFalse(index.isOpen());
+
+        index.set("look_up", "give_up");
+        assertTrue(index.open());
+        assertEquals(2, index.getAll("up").size());
+        assertEquals(1, index.getAll("look").size());
+        assertTrue(index.getAll("take").isEmpty());
+
+        // lookups after the reload see the new data
+        index.set("take_up");
+        assertTrue(index.reload());
+        assertEquals(1, index.getAll("up").size());
+        assertTrue(index.getAll("look").isEmpty());
+        assertEquals(1, index.getAll("take").size());
+
+        // empty data keeps the current snapshot
+        index.set();
+        assertFalse(index.reload());
+        assertTrue(index.isOpen());
+        assertEquals(1, index.getAll("take").size());
+    }
+
+    @Test
+    public void closedIndexThrows() throws Exception {
+        SettableIndex index = new SettableIndex();
+        index.set("look_up");
+        assertTrue(index.open());
+        index.close();
+        assertFalse(index.isOpen());
+        try {
+            index.getAll("look");
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("index is closed", e.getMessage());
+        }
+
+        // reloading a closed index opens it
+        assertTrue(index.reload());
+        assertEquals(1, index.getAll("look").size());
+    }
+}
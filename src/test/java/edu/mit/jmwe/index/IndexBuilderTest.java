@@ -0,0 +1,232 @@
+package edu.mit.jmwe.index;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.data.Token;
+import edu.mit.jmwe.data.concordance.ConcordanceSentence;
+import edu.mit.jmwe.data.concordance.ConcordanceToken;
+import edu.mit.jmwe.data.concordance.IConcordanceSentence;
+import edu.mit.jmwe.data.concordance.IConcordanceToken;
+import edu.mit.jmwe.detect.ConsecutiveAutomaton;
+import edu.mit.jmwe.detect.IMWEDetector;
+import edu.mit.jmwe.index.IndexBuilder.CountTable;
+import edu.mit.jmwe.index.IndexBuilder.MutableInfMWEDesc;
+import edu.mit.jmwe.index.IndexBuilder.MutableRootMWEDesc;
+import edu.mit.jsemcor.element.ContextID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexBuilderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Map<IMWEDescID, MutableRootMWEDesc> data() {
+        Map<IMWEDescID, MutableRootMWEDesc> data = new TreeMap<IMWEDescID, MutableRootMWEDesc>();
+        for (String form : new String[]{"look_up", "hot_dog", "give_up", "dog_days"}) {
+            MutableRootMWEDesc desc = new MutableRootMWEDesc(form, form.equals("look_up") || form.equals("give_up") ? MWEPOS.VERB : MWEPOS.NOUN);
+            data.put(desc.getID(), desc);
+        }
+        MutableRootMWEDesc lookUp = data.get(new MutableRootMWEDesc("look_up", MWEPOS.VERB).getID());
+        lookUp.getInflected().put("looked_up", new MutableInfMWEDesc(lookUp, "looked_up"));
+        return data;
+    }
+
+    private static List<IConcordanceSentence> sentences() {
+        String[][] words = {{"look", "look"}, {"looked", "look"}, {"looks", "look"}, {"up", "up"}, {"hot", "hot"},
+                {"dog", "dog"}, {"dogs", "dog"}, {"days", "day"}, {"gave", "give"}, {"give", "give"}, {"the", "the"}};
+        Random random = new Random(11);
+        List<IConcordanceSentence> sentences = new ArrayList<IConcordanceSentence>();
+        for (int s = 0; s < 300; s++) {
+            List<IConcordanceToken> tokens = new ArrayList<IConcordanceToken>();
+            for (int t = 0; t < 12; t++) {
+                String[] word = words[random.nextInt(words.length)];
+                tokens.add(new ConcordanceToken(word[0], "NN", t, 0, word[1]));
+            }
+            sentences.add(new ConcordanceSentence(new ContextID("br-a01", "brown1"), s + 1, tokens));
+        }
+        return sentences;
+    }
+
+    // marks the first MWE found in every fifth sentence as an answer
+    private static List<List<IMWE<IConcordanceToken>>> answers(IMWEDetector detector, List<IConcordanceSentence> sentences) {
+        List<List<IMWE<IConcordanceToken>>> answers = new ArrayList<List<IMWE<IConcordanceToken>>>();
+        for (int i = 0; i < sentences.size(); i++) {
+            List<IMWE<IConcordanceToken>> found = detector.detect(sentences.get(i));
+            answers.add(i % 5 == 0 && !found.isEmpty() ? found.subList(0, 1) : Collections.<IMWE<IConcordanceToken>>emptyList());
+        }
+        return answers;
+    }
+
+    private static IndexBuilder builder(final int threads) {
+        return new IndexBuilder() {
+            @Override
+            protected int getThreadCount() {
+                return threads;
+            }
+        };
+    }
+
+    @Test
+    public void shardedUnmarkedCountsMatchSerialCounts() throws Exception {
+        List<IConcordanceSentence> sentences = sentences();
+
+        // one sentence at a time
+        Map<IMWEDescID, MutableRootMWEDesc> serial = data();
+        IMWEIndex serialIndex = new MWEIndex(serial);
+        serialIndex.open();
+        IndexBuilder builder = builder(1);
+        IMWEDetector detector = builder.getUmarkedDetector(serialIndex);
+        List<List<IMWE<IConcordanceToken>>> serialAnswers = answers(detector, sentences);
+        for (int i = 0; i < sentences.size(); i++)
+            builder.countUnmarked(detector, sentences.get(i), serialAnswers.get(i));
+
+        // shared among threads
+        Map<IMWEDescID, MutableRootMWEDesc> sharded = data();
+        IMWEIndex shardedIndex = new MWEIndex(sharded);
+        shardedIndex.open();
+        builder = builder(4);
+        builder.countUnmarked(shardedIndex, sentences, answers(builder.getUmarkedDetector(shardedIndex), sentences), null);
+
+        int total = 0;
+        for (MutableRootMWEDesc expected : serial.values()) {
+            MutableRootMWEDesc actual = sharded.get(expected.getID());
+            assertArrayEquals(expected.getID().toString(), expected.getCounts(), actual.getCounts());
+            for (MutableInfMWEDesc inf : expected.getInflected().values())
+                assertArrayEquals(inf.getForm(), inf.getCounts(), actual.getInflected().get(inf.getForm()).getCounts());
+            for (int count : expected.getCounts())
+                total += count;
+        }
+        assertTrue(total > 100);
+    }
+
+    @Test
+    public void mergesCountTables() {
+        MutableRootMWEDesc root = new MutableRootMWEDesc("look_up", MWEPOS.VERB);
+        MutableInfMWEDesc inf = new MutableInfMWEDesc(root, "looked_up");
+        CountTable first = new CountTable(), second = new CountTable();
+        first.increment(root, IndexBuilder.UNMARKED_EXACT);
+        first.increment(root, IndexBuilder.UNMARKED_INFLECTED);
+        second.increment(root, IndexBuilder.UNMARKED_EXACT);
+        second.increment(inf, IndexBuilder.UNMARKED_PATTERN);
+        first.addAll(second);
+        assertEquals(2, first.size());
+        assertEquals(2, first.get(root, IndexBuilder.UNMARKED_EXACT));
+
+        root.incrementMarkedContinuous();
+        first.addTo();
+        assertEquals(0, first.size());
+        assertEquals(Arrays.toString(new int[]{1, 0, 2, 0, 1}), Arrays.toString(root.getCounts()));
+        assertEquals(Arrays.toString(new int[]{0, 0, 0, 1, 0}), Arrays.toString(inf.getCounts()));
+    }
+
+    @Test
+    public void countsOfNewSentencesAddToCopiedCounts() throws Exception {
+        List<IConcordanceSentence> sentences = sentences();
+        List<IConcordanceSentence> first = sentences.subList(0, 120), second = sentences.subList(120, sentences.size());
+        IndexBuilder builder = builder(2);
+
+        // all sentences at once
+        Map<IMWEDescID, MutableRootMWEDesc> all = data();
+        IMWEIndex allIndex = new MWEIndex(all);
+        allIndex.open();
+        builder.countUnmarked(allIndex, sentences, answers(builder.getUmarkedDetector(allIndex), sentences), null);
+
+        // first batch, then second batch on a copy
+        Map<IMWEDescID, MutableRootMWEDesc> base = data();
+        IMWEIndex baseIndex = new MWEIndex(base);
+        baseIndex.open();
+        builder.countUnmarked(baseIndex, first, answers(builder.getUmarkedDetector(baseIndex), first), null);
+        Map<IMWEDescID, MutableRootMWEDesc> merged = IndexBuilder.copy(baseIndex);
+        IMWEIndex mergedIndex = new MWEIndex(merged);
+        mergedIndex.open();
+        List<List<IMWE<IConcordanceToken>>> secondAnswers = new ArrayList<List<IMWE<IConcordanceToken>>>();
+        secondAnswers.addAll(answers(builder.getUmarkedDetector(allIndex), sentences).subList(120, sentences.size()));
+        builder.countUnmarked(mergedIndex, second, secondAnswers, null);
+
+        assertEquals(all.keySet(), merged.keySet());
+        for (MutableRootMWEDesc expected : all.values()) {
+            MutableRootMWEDesc actual = merged.get(expected.getID());
+            assertArrayEquals(expected.getID().toString(), expected.getCounts(), actual.getCounts());
+            assertEquals(expected.getInflected().keySet(), actual.getInflected().keySet());
+            for (MutableInfMWEDesc inf : expected.getInflected().values())
+                assertArrayEquals(inf.getForm(), inf.getCounts(), actual.getInflected().get(inf.getForm()).getCounts());
+        }
+    }
+
+    @Test
+    public void registrySwapsReplacedDataFile() throws Exception {
+        File file = folder.newFile("mwe.data");
+        Map<IMWEDescID, MutableRootMWEDesc> data = data();
+        IMWEIndex index = new MWEIndex(data);
+        index.open();
+        IndexBuilder.replaceDataFile(index, file, null);
+
+        MWEIndexRegistry registry = new MWEIndexRegistry();
+        IMWEIndex handle = registry.acquire(file);
+        assertEquals(0, handle.getRootMWEDesc("look_up", MWEPOS.VERB).getMarkedContinuous());
+
+        data.get(new MutableRootMWEDesc("look_up", MWEPOS.VERB).getID()).incrementMarkedContinuous();
+        IndexBuilder.replaceDataFile(index, file, Collections.singletonList("merged"));
+        assertEquals(0, handle.getRootMWEDesc("look_up", MWEPOS.VERB).getMarkedContinuous());
+        assertTrue(registry.reload(file));
+        assertEquals(1, handle.getRootMWEDesc("look_up", MWEPOS.VERB).getMarkedContinuous());
+        assertEquals(1, folder.getRoot().list().length);
+
+        handle.close();
+        assertFalse(registry.reload(file));
+    }
+
+    @Test
+    public void automatonSeesReloadedIndex() throws Exception {
+        File file = folder.newFile("mwe.data");
+        Map<IMWEDescID, MutableRootMWEDesc> data = data();
+        IMWEIndex index = new MWEIndex(data);
+        index.open();
+        IndexBuilder.replaceDataFile(index, file, null);
+
+        MWEIndexRegistry registry = new MWEIndexRegistry();
+        IMWEIndex handle = registry.acquire(file);
+        IMWEDetector detector = new ConsecutiveAutomaton(handle);
+        List<IToken> sentence = Arrays.<IToken>asList(new Token("look", "VB", 0L), new Token("up", "RP", 1L),
+                new Token("hot", "JJ", 2L), new Token("potato", "NN", 3L));
+        List<IMWE<IToken>> found = detector.detect(sentence);
+        assertEquals(1, found.size());
+        assertEquals(0, found.get(0).getEntry().getMarkedContinuous());
+
+        // a new MWE, and new counts for an old one
+        MutableRootMWEDesc hotPotato = new MutableRootMWEDesc("hot_potato", MWEPOS.NOUN);
+        data.put(hotPotato.getID(), hotPotato);
+        data.get(new MutableRootMWEDesc("look_up", MWEPOS.VERB).getID()).incrementMarkedContinuous();
+        index = new MWEIndex(data);
+        index.open();
+        IndexBuilder.replaceDataFile(index, file, null);
+        assertEquals(1, detector.detect(sentence).size());
+        assertTrue(registry.reload(file));
+
+        found = detector.detect(sentence);
+        assertEquals(2, found.size());
+        assertEquals(new MutableRootMWEDesc("look_up", MWEPOS.VERB).getID(), found.get(0).getEntry().getID());
+        assertEquals(1, found.get(0).getEntry().getMarkedContinuous());
+        assertEquals(hotPotato.getID(), found.get(1).getEntry().getID());
+        assertEquals(2, detector.detectAll(Collections.singletonList(sentence)).get(0).size());
+        handle.close();
+    }
+}
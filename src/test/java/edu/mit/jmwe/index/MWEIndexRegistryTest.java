@@ -0,0 +1,109 @@
+package edu.mit.jmwe.index;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MWEIndexRegistryTest {
+
+    @Test
+    public void sharedUntilLastRelease() throws IOException {
+
+        File idxData = new File("src/test/resources/mweindex_wordnet3.0_semcor1.6.data");
+        URL url = MWEIndexRegistry.toURL(idxData);
+        MWEIndexRegistry registry = new MWEIndexRegistry();
+
+        IMWEIndex first = registry.acquire(idxData);
+        IMWEIndex second = registry.acquire(idxData.getAbsoluteFile());
+        assertTrue(registry.isLoaded(url));
+        assertFalse(first.getAll("record").isEmpty());
+
+        // releasing one handle leaves the index loaded for the other
+        first.close();
+        first.close();
+        assertFalse(first.isOpen());
+        assertTrue(second.isOpen());
+        assertTrue(registry.isLoaded(url));
+
+        second.close();
+        assertFalse(registry.isLoaded(url));
+
+        // pinned indexes survive the release of their last handle
+        registry.warmUp(idxData);
+        registry.acquire(idxData).close();
+        assertTrue(registry.isLoaded(url));
+        registry.closeAll();
+        assertFalse(registry.isLoaded(url));
+    }
+
+    @Test
+    public void loadDoesNotBlockOtherIndexes() throws Exception {
+
+        File idxData = new File("src/test/resources/mweindex_wordnet3.0_semcor1.6.data");
+        final File slowData = new File("target/no-such-index.data");
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final MWEIndexRegistry registry = new MWEIndexRegistry() {
+            @Override
+            protected IMWEIndex createIndex(URL url) throws IOException {
+                if (url.getPath().endsWith(slowData.getName())) {
+                    loading.countDown();
+                    try {
+                        proceed.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return super.createIndex(url);
+            }
+        };
+        registry.acquire(idxData).close();
+        registry.warmUp(idxData);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<IMWEIndex> slow = executor.submit(() -> registry.acquire(slowData));
+            Future<IMWEIndex> waiting = executor.submit(() -> {
+                loading.await();
+                return registry.acquire(slowData);
+            });
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+            // the loaded index is handed out while the other one is loading
+            IMWEIndex handle = registry.acquire(idxData);
+            assertFalse(handle.getAll("record").isEmpty());
+            handle.close();
+            assertFalse(registry.isLoaded(MWEIndexRegistry.toURL(slowData)));
+
+            // a failed load is reported to every caller, and not registered
+            proceed.countDown();
+            for (Future<IMWEIndex> future : Arrays.asList(slow, waiting)) {
+                try {
+                    future.get(10, TimeUnit.SECONDS);
+                    fail("expected the load to fail");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IOException);
+                }
+            }
+            assertFalse(registry.isLoaded(MWEIndexRegistry.toURL(slowData)));
+        } finally {
+            proceed.countDown();
+            executor.shutdownNow();
+            registry.closeAll();
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package edu.mit.jsemcor.data;
+
+import edu.mit.jsemcor.element.IPunc;
+import edu.mit.jsemcor.element.IWordform;
+import edu.mit.jsemcor.element.Punc;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ContextParserTest {
+
+    static final String[] LINES = {
+            "<wf cmd=ignore pos=DT>The</wf>",
+            "<wf cmd=done pos=NN lemma=jury wnsn=1 lexsn=1:14:00::>jury</wf>",
+            "<wf cmd=done pos=NNP lemma=person wnsn=1 lexsn=1:03:00:: pn=person rdf=person>Fulton</wf>",
+            "<wf cmd=done pos=VB lemma=say wnsn=1;2 lexsn=2:32:00::;2:32:01:: dc=2>said</wf>",
+            "<wf cmd=tag pos=JJ ot=notag>Friday</wf>",
+            "<wf cmd=done pos=RB lemma=no_longer wnsn=1 lexsn=4:02:00:: sep=\"a b\">no_longer</wf>",
+            "<wf cmd=done  pos=NN   lemma=place wnsn=0 lexsn=1:15:00:: tagnote=sns_miss note=\"no sense\" ot=idiom>place</wf>",
+            "<wf cmd=unknowncmd pos=XYZ foo=bar>odd</wf>",
+            "<wf cmd=done pos=NN dc=-1 sep=\" \">x</wf>",
+    };
+
+    static String describe(IWordform w) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(w.getNumber()).append('|').append(w.getTokenIndex()).append('|');
+        sb.append(w.getCommand().getData()).append('|').append(w.getDistance()).append('|');
+        sb.append(w.getRedefinition()).append('|').append(w.getSeparatorString()).append('|');
+        sb.append(w.getPOSTag().getData()).append('|');
+        sb.append(w.getSemanticTag() == null ? null : w.getSemanticTag().getData()).append('|');
+        sb.append(w.getOtherTag() == null ? null : w.getOtherTag().getData()).append('|');
+        sb.append(w.getTagNote() == null ? null : w.getTagNote().getData() + "/" + w.getTagNote().getType().getData()).append('|');
+        sb.append(w.getText());
+        return sb.toString();
+    }
+
+    @Test
+    public void tokenizerParsesLikeAttributeMap() {
+        ContextParser legacy = new LegacyContextParser();
+        ContextParser parser = ContextParser.getInstance();
+        SGMLLineTokenizer tokens = new SGMLLineTokenizer();
+        for (int i = 0; i < LINES.length; i++) {
+            String expected = describe(legacy.parseWordFormLine(i + 1, i, LINES[i], null));
+            assertEquals(LINES[i], expected, describe(parser.parseWordFormLine(i + 1, i, new StringBuilder(LINES[i]), tokens)));
+            assertEquals(LINES[i], expected, describe(parser.parseWordFormLine(i + 1, i, LINES[i])));
+        }
+    }
+
+    @Test
+    public void repeatedValuesShareStrings() {
+        SGMLLineTokenizer tokens = new SGMLLineTokenizer();
+        ContextParser parser = ContextParser.getInstance();
+        IWordform first = parser.parseWordFormLine(1, 0, new StringBuilder(LINES[1]), tokens);
+        IWordform second = parser.parseWordFormLine(2, 1, new StringBuilder(LINES[1]), tokens);
+        assertSame(first.getText(), second.getText());
+        assertSame(first.getSemanticTag().getLemma(), second.getSemanticTag().getLemma());
+
+        // a small table is emptied rather than grown
+        tokens = new SGMLLineTokenizer(4);
+        for (int i = 0; i < 100; i++)
+            assertEquals("w" + i, tokens.toString("w" + i, 0, ("w" + i).length()));
+    }
+
+    @Test
+    public void tokenizerReadsAttributesInPlace() {
+        SGMLLineTokenizer tokens = new SGMLLineTokenizer();
+        tokens.reset("<wf cmd=done sep=\"a b\" dc=12>word</wf>");
+        assertTrue(tokens.isTag("wf"));
+        assertFalse(tokens.isTag("w"));
+        assertTrue(tokens.nextAttribute());
+        assertTrue(tokens.isKey("cmd"));
+        assertEquals("done", tokens.getValue());
+        assertTrue(tokens.nextAttribute());
+        assertEquals("sep", tokens.getKey());
+        assertEquals("a b", tokens.getValue());
+        assertTrue(tokens.nextAttribute());
+        assertEquals(12, tokens.getIntValue());
+        assertFalse(tokens.nextAttribute());
+        assertEquals("word", tokens.getText());
+    }
+
+    @Test
+    public void rejectsMalformedLines() {
+        ContextParser parser = ContextParser.getInstance();
+        for (String line : new String[]{"<wf cmd=done pos=NN>word</w>", "<wf cmd=done pos=NN>word",
+                "<wf cmd=done cmd=tag pos=NN>word</wf>", "<wf cmd=done pos=NN dc=x>word</wf>", "<wf pos=NN>word</wf>"}) {
+            try {
+                parser.parseWordFormLine(1, 0, line, new SGMLLineTokenizer());
+                fail(line);
+            } catch (MalformedLineException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void parsesPunctuation() {
+        SGMLLineTokenizer tokens = new SGMLLineTokenizer();
+        assertSame(Punc.PERIOD, ContextParser.getInstance().parsePuncLine(new StringBuilder("<punc>.</punc>"), tokens));
+        IPunc unknown = ContextParser.getInstance().parsePuncLine("<punc>~</punc>", tokens);
+        assertEquals("<punc>~</punc>", unknown.getData());
+        assertSame(Punc.COMMA, ContextParser.getInstance().parsePuncLine("<punc>,</punc>"));
+    }
+}
@@ -0,0 +1,64 @@
+package edu.mit.jsemcor.data;
+
+import edu.mit.jsemcor.element.ISemanticTag;
+import edu.mit.jsemcor.element.IWordform;
+import edu.mit.jsemcor.element.SemanticTag;
+import edu.mit.jsemcor.element.Wordform;
+import edu.mit.jsemcor.term.ICategory;
+import edu.mit.jsemcor.term.ICommand;
+import edu.mit.jsemcor.term.INote;
+import edu.mit.jsemcor.term.INoteType;
+import edu.mit.jsemcor.term.IOtherTag;
+import edu.mit.jsemcor.term.IPOSTag;
+import edu.mit.jsemcor.term.Note;
+
+import java.util.Map;
+
+/**
+ * Parses word form lines through the attribute map of
+ * {@link ContextParser#parseSGMLLine(CharSequence)}, as the parser did before
+ * it read attributes in place with an {@link SGMLLineTokenizer}.
+ */
+public class LegacyContextParser extends ContextParser {
+
+    @Override
+    public IWordform parseWordFormLine(int wordNum, int tokIdx, CharSequence line, SGMLLineTokenizer tokens) {
+        Map<String, String> attrs = parseSGMLLine(line);
+
+        ICommand cmd = resolveCommand(attrs.get(ICommand.ATTR_CMD));
+        if (cmd == null)
+            throw new MalformedLineException("cmd is null");
+
+        int distance = IWordform.DEFAULT_DC;
+        if (attrs.containsKey(IWordform.ATTR_DC)) {
+            try {
+                distance = Integer.parseInt(attrs.get(IWordform.ATTR_DC));
+            } catch (NumberFormatException e) {
+                throw new MalformedLineException("problem parsing distance", e);
+            }
+        }
+
+        String redef = checkAttribute(attrs.get(IWordform.ATTR_RDF), IWordform.ATTR_RDF);
+        String sep = trimQuotes(checkAttribute(attrs.get(IWordform.ATTR_SEP), IWordform.ATTR_SEP));
+
+        IPOSTag pos = resolvePOSTag(attrs.get(IPOSTag.ATTR_POS));
+        if (pos == null)
+            throw new MalformedLineException("pos is null");
+
+        ISemanticTag semTag = null;
+        String lemma = attrs.get(ISemanticTag.ATTR_LEMMA);
+        String wnsn = attrs.get(ISemanticTag.ATTR_WNSN);
+        String lexsn = attrs.get(ISemanticTag.ATTR_LEXSN);
+        ICategory category = resolveCategory(attrs.get(ICategory.ATTR_PN));
+        if (lemma != null && wnsn != null && lexsn != null)
+            semTag = new SemanticTag(lemma, wnsn, lexsn, category);
+
+        IOtherTag otherTag = resolveOtherTag(attrs.get(IOtherTag.ATTR_OT));
+
+        INoteType type = resolveNoteType(attrs.get(INoteType.ATTR_TAGNOTE));
+        String noteMsg = trimQuotes(checkAttribute(attrs.get(INote.ATTR), INote.ATTR));
+        INote note = (type != null) ? new Note(noteMsg, type) : null;
+
+        return new Wordform(wordNum, tokIdx, cmd, distance, redef, sep, pos, semTag, otherTag, note, attrs.get(IWordform.TAG_WF_VALUE));
+    }
+}
@@ -0,0 +1,133 @@
+package edu.mit.jsemcor.main;
+
+import edu.mit.jsemcor.data.ContextOffsetIndex;
+import edu.mit.jsemcor.data.ContextParser;
+import edu.mit.jsemcor.element.ContextID;
+import edu.mit.jsemcor.element.IContext;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FileConcordanceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String context(String filename, boolean paras, int sentences) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<context filename=").append(filename).append(paras ? " paras=yes>\n" : " paras=no>\n");
+        if (paras)
+            sb.append("<p pnum=1>\n");
+        for (int s = 1; s <= sentences; s++) {
+            sb.append("<s snum=").append(s).append(">\n");
+            sb.append("<wf cmd=ignore pos=DT>The</wf>\n");
+            sb.append("<wf cmd=done pos=NN lemma=jury wnsn=1 lexsn=1:14:00::>jury</wf>\n");
+            sb.append("<wf cmd=done pos=VB lemma=say wnsn=1 lexsn=2:32:00::>said</wf>\n");
+            sb.append("<punc>.</punc>\n");
+            sb.append("</s>\n");
+        }
+        if (paras)
+            sb.append("</p>\n");
+        sb.append("</context>\n");
+        return sb.toString();
+    }
+
+    private static String contextFile(String... contexts) {
+        StringBuilder sb = new StringBuilder("<contextfile concordance=brown1>\n");
+        for (String context : contexts)
+            sb.append(context);
+        return sb.append("</contextfile>\n").toString();
+    }
+
+    private static void write(File file, String text) throws Exception {
+        Writer w = new OutputStreamWriter(new FileOutputStream(file), "US-ASCII");
+        w.write(text);
+        w.close();
+    }
+
+    private File concordance() throws Exception {
+        File base = folder.newFolder("brown1");
+        File tagfiles = new File(base, FileConcordance.DIR_NAME_TAGFILES);
+        assertTrue(tagfiles.mkdir());
+        write(new File(tagfiles, "br-a01"), contextFile(context("br-a01", true, 3)));
+        write(new File(tagfiles, "br-a02"), contextFile(context("br-a02", false, 2)));
+        return base;
+    }
+
+    @Test
+    public void indexesEachContextInAFile() throws Exception {
+        String first = context("br-a01", true, 2), second = context("br-a02", false, 3);
+        String text = contextFile(first, second);
+        ContextOffsetIndex index = ContextOffsetIndex.build(ByteBuffer.wrap(text.getBytes("US-ASCII")));
+        assertEquals("brown1", index.getConcordanceName());
+        assertEquals(Arrays.asList("br-a01", "br-a02"), new ArrayList<String>(index.getContextNames()));
+        assertEquals(first, text.substring(index.getStart("br-a01"), index.getEnd("br-a01")));
+        assertEquals(second, text.substring(index.getStart("br-a02"), index.getEnd("br-a02")));
+        assertFalse(index.contains("br-a03"));
+
+        // the region of the second context parses the same as the whole file
+        ContextID id = new ContextID("br-a02", "brown1");
+        IContext whole = ContextParser.getInstance().parse(id, new BufferedReader(new StringReader(text)));
+        IContext region = ContextParser.getInstance().parseContext(id, "brown1", new BufferedReader(new StringReader(second)));
+        assertEquals(whole.getData(), region.getData());
+        assertEquals(3, region.getSentences().size());
+        assertNull(ContextParser.getInstance().parseContext(new ContextID("br-a01", "brown1"), "brown1", new BufferedReader(new StringReader(second))));
+    }
+
+    @Test
+    public void indexedContextsMatchParsedFiles() throws Exception {
+        File base = concordance();
+        FileConcordance indexed = new FileConcordance(base.toURI().toURL(), false);
+        FileConcordance scanned = new FileConcordance(base.toURI().toURL(), false);
+        scanned.setIndexing(false);
+        assertTrue(indexed.open());
+        assertTrue(scanned.open());
+        for (String name : new String[]{"br-a01", "br-a02"}) {
+            IContext expected = scanned.getContext(name), actual = indexed.getContext(name);
+            assertNotNull(actual);
+            assertEquals(expected.getData(), actual.getData());
+            assertEquals(expected.hasParagraphs(), actual.hasParagraphs());
+            assertEquals(expected.getCorpus(), actual.getCorpus());
+        }
+        assertTrue(new File(base, "tagfiles/br-a01" + ContextOffsetIndex.SUFFIX).isFile());
+        assertEquals(2, indexed.getContextIDs().size());
+        indexed.close();
+        scanned.close();
+    }
+
+    @Test
+    public void staleOffsetsAreRebuilt() throws Exception {
+        File base = concordance();
+        File file = new File(base, "tagfiles/br-a01");
+        File offsets = new File(file.getPath() + ContextOffsetIndex.SUFFIX);
+        FileConcordance concordance = new FileConcordance(base.toURI().toURL(), false);
+        assertTrue(concordance.open());
+        assertEquals(3, concordance.getContext("br-a01").getSentences().size());
+        concordance.close();
+        assertNotNull(ContextOffsetIndex.load(file, offsets));
+
+        write(file, contextFile(context("br-a01", true, 5)));
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertNull(ContextOffsetIndex.load(file, offsets));
+        assertTrue(concordance.open());
+        assertEquals(5, concordance.getContext("br-a01").getSentences().size());
+        assertNotNull(ContextOffsetIndex.load(file, offsets));
+        concordance.close();
+    }
+}
@@ -0,0 +1,92 @@
+package edu.mit.jwi;
+
+import edu.mit.jwi.item.LexFile;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.item.SenseKey;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedLRUMapTest {
+
+    @Test
+    public void keepsHotEntriesThroughScans() {
+        SegmentedLRUMap<Integer, String> map = new SegmentedLRUMap<Integer, String>(20);
+        for (int i = 0; i < 10; i++) {
+            map.put(i, "hot" + i);
+            map.get(i);
+        }
+        for (int i = 100; i < 1000; i++)
+            map.put(i, "cold" + i);
+        assertEquals(20, map.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals("hot" + i, map.get(i));
+        assertEquals(900 - 10, map.getEvictionCount());
+        assertNull(map.get(100));
+        assertEquals(20, map.getHitCount());
+        assertEquals(1, map.getMissCount());
+    }
+
+    @Test
+    public void shrinksAndGrows() {
+        SegmentedLRUMap<Integer, Integer> map = new SegmentedLRUMap<Integer, Integer>(0);
+        for (int i = 0; i < 5000; i++)
+            map.put(i, i);
+        assertEquals(5000, map.size());
+        map.setMaximumSize(1000);
+        assertTrue(map.size() <= 1000);
+        assertEquals(map.size(), map.entrySet().size());
+        assertEquals(Integer.valueOf(4999), map.get(4999));
+        assertFalse(map.containsKey(0));
+        assertEquals(Integer.valueOf(4999), map.remove(4999));
+        assertFalse(map.containsKey(4999));
+    }
+
+    @Test
+    public void staysBoundedUnderConcurrentUse() throws Exception {
+        final SegmentedLRUMap<Integer, Integer> map = new SegmentedLRUMap<Integer, Integer>(512);
+        final AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 2000;
+                        Integer value = map.get(key);
+                        if (value == null)
+                            map.put(key, key);
+                        else if (value != key)
+                            wrong.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(0, wrong.get());
+        assertTrue(map.size() <= 512);
+        assertEquals(8 * 20000, map.getHitCount() + map.getMissCount());
+    }
+
+    @Test
+    public void itemCacheSizedByMemoryBudget() throws Exception {
+        CachingDictionary.ItemCache cache = new CachingDictionary.ItemCache();
+        assertEquals(CachingDictionary.ItemCache.DEFAULT_MAXIMUM_CAPACITY, cache.getMaximumCapacity());
+        cache.setMemoryBudget(3L * CachingDictionary.ItemCache.ESTIMATED_ITEM_SIZE * 2048);
+        assertEquals(2048, cache.getMaximumCapacity());
+        cache.open();
+        assertEquals(0, cache.size());
+        assertNull(cache.retrieveWord(new SenseKey("dog", 1, POS.NOUN, false, LexFile.NOUN_ANIMAL)));
+        assertEquals(1, cache.getMissCount());
+    }
+}
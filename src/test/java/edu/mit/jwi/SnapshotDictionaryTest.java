@@ -0,0 +1,216 @@
+package edu.mit.jwi;
+
+import edu.mit.jwi.data.IHasLifecycle;
+import edu.mit.jwi.item.AdjMarker;
+import edu.mit.jwi.item.ExceptionEntry;
+import edu.mit.jwi.item.IExceptionEntry;
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.IPointer;
+import edu.mit.jwi.item.ISenseEntry;
+import edu.mit.jwi.item.ISynset;
+import edu.mit.jwi.item.ISynsetID;
+import edu.mit.jwi.item.IWord;
+import edu.mit.jwi.item.IWordID;
+import edu.mit.jwi.item.IndexWord;
+import edu.mit.jwi.item.LexFile;
+import edu.mit.jwi.item.POS;
+import edu.mit.jwi.item.Pointer;
+import edu.mit.jwi.item.SenseEntry;
+import edu.mit.jwi.item.SenseKey;
+import edu.mit.jwi.item.Synset;
+import edu.mit.jwi.item.Synset.IWordBuilder;
+import edu.mit.jwi.item.Synset.WordBuilder;
+import edu.mit.jwi.item.SynsetID;
+import edu.mit.jwi.item.VerbFrame;
+import edu.mit.jwi.item.Version;
+import edu.mit.jwi.item.WordID;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class SnapshotDictionaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<ISynset> synsets = new ArrayList<ISynset>();
+    private final List<IIndexWord> indexWords = new ArrayList<IIndexWord>();
+    private final List<IExceptionEntry> exceptions = new ArrayList<IExceptionEntry>();
+    private final List<ISenseEntry> senses = new ArrayList<ISenseEntry>();
+
+    private static Map<IPointer, List<ISynsetID>> related(IPointer type, ISynsetID... ids) {
+        return Collections.singletonMap(type, Arrays.asList(ids));
+    }
+
+    private ISynset synset(int offset, POS pos, LexFile lexFile, boolean adjSat, boolean adjHead, String gloss,
+                           Map<IPointer, List<ISynsetID>> related, WordBuilder... words) {
+        ISynset synset = new Synset(new SynsetID(offset, pos), lexFile, adjSat, adjHead, gloss,
+                Arrays.<IWordBuilder>asList(words), related);
+        synsets.add(synset);
+        return synset;
+    }
+
+    // builds a small dictionary, with words out of lemma order and a sense entry for most words
+    private IDictionary source() {
+        ISynsetID dog = new SynsetID(2084071, POS.NOUN), animal = new SynsetID(15388, POS.NOUN);
+        ISynsetID big = new SynsetID(1382086, POS.ADJECTIVE), small = new SynsetID(1391351, POS.ADJECTIVE);
+        synset(2084071, POS.NOUN, LexFile.NOUN_ANIMAL, false, false, "a member of the genus Canis; été",
+                related(Pointer.HYPERNYM, animal),
+                new WordBuilder(1, "dog", 0, null), new WordBuilder(2, "domestic_dog", 0, null), new WordBuilder(3, "Canis_familiaris", 0, null));
+        synset(15388, POS.NOUN, LexFile.NOUN_TOPS, false, false, "a living organism",
+                related(Pointer.HYPONYM, dog), new WordBuilder(1, "animal", 0, null));
+
+        WordBuilder bigWord = new WordBuilder(1, "big", 0, null);
+        bigWord.addRelatedWord(Pointer.ANTONYM, new WordID(small, 1));
+        synset(1382086, POS.ADJECTIVE, LexFile.ADJ_ALL, false, true, "above average in size", null, bigWord);
+        WordBuilder smallWord = new WordBuilder(1, "small", 0, AdjMarker.PREDICATE);
+        smallWord.addRelatedWord(Pointer.ANTONYM, new WordID(big, 1, "big"));
+        synset(1391351, POS.ADJECTIVE, LexFile.ADJ_ALL, false, true, "limited in size", null, smallWord);
+        ISynset huge = synset(1387319, POS.ADJECTIVE, LexFile.ADJ_ALL, true, false, "unusually great in size",
+                related(Pointer.SIMILAR_TO, big), new WordBuilder(1, "huge", 0, null), new WordBuilder(2, "immense", 1, null));
+        for (IWord word : huge.getWords())
+            word.getSenseKey().setHead("big", 0);
+
+        WordBuilder run = new WordBuilder(1, "run", 2, null);
+        run.addVerbFrame(VerbFrame.NUM_02);
+        run.addVerbFrame(VerbFrame.NUM_08);
+        run.addRelatedWord(Pointer.DERIVATIONALLY_RELATED, new WordID(dog, "dog"));
+        synset(1926311, POS.VERB, LexFile.VERB_MOTION, false, false, "move fast by using one's feet", null, run);
+
+        for (ISynset synset : synsets)
+            for (IWord word : synset.getWords())
+                if (!word.getLemma().equals("immense"))
+                    senses.add(new SenseEntry(word.getSenseKey(), synset.getOffset(), 1, word.getLemma().length()));
+        for (ISynset synset : synsets)
+            for (IWord word : synset.getWords())
+                indexWords.add(new IndexWord(word.getLemma(), synset.getPOS(), 1,
+                        synset.getRelatedMap().keySet().toArray(new IPointer[0]), new WordID(synset.getID(), word.getLemma())));
+
+        exceptions.add(new ExceptionEntry("ran", POS.VERB, "run"));
+        exceptions.add(new ExceptionEntry("mice", POS.NOUN, "mouse"));
+        exceptions.add(new ExceptionEntry("axes", POS.NOUN, "ax", "axis", "axe"));
+
+        return (IDictionary) Proxy.newProxyInstance(IDictionary.class.getClassLoader(), new Class<?>[]{IDictionary.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                String name = method.getName();
+                if (name.equals("getVersion"))
+                    return Version.ver30;
+                if (name.equals("getSenseEntryIterator"))
+                    return senses.iterator();
+                List<Object> result = new ArrayList<Object>();
+                List<?> all = name.equals("getSynsetIterator") ? synsets : name.equals("getIndexWordIterator") ? indexWords : exceptions;
+                for (Object item : all)
+                    if (item instanceof ISynset ? ((ISynset) item).getPOS() == args[0] :
+                            item instanceof IIndexWord ? ((IIndexWord) item).getPOS() == args[0] : ((IExceptionEntry) item).getPOS() == args[0])
+                        result.add(item);
+                return result.iterator();
+            }
+        });
+    }
+
+    private SnapshotDictionary snapshot() throws Exception {
+        File file = folder.newFile("wordnet.snapshot");
+        SnapshotDictionary.export(source(), file);
+        SnapshotDictionary dict = new SnapshotDictionary(file);
+        dict.open();
+        return dict;
+    }
+
+    @Test
+    public void roundTripsSynsetsAndWords() throws Exception {
+        SnapshotDictionary dict = snapshot();
+        assertEquals(Version.ver30, dict.getVersion());
+        for (ISynset expected : synsets) {
+            ISynset actual = dict.getSynset(expected.getID());
+            assertEquals(expected, actual);
+            assertEquals(expected.getLexicalFile(), actual.getLexicalFile());
+            assertEquals(expected.isAdjectiveHead(), actual.isAdjectiveHead());
+            assertEquals(expected.getRelatedSynsets(), actual.getRelatedSynsets());
+            for (IWord word : expected.getWords()) {
+                IWord other = actual.getWord(word.getID().getWordNumber());
+                assertEquals(word.getSenseKey().toString(), other.getSenseKey().toString());
+                assertEquals(word.getVerbFrames(), other.getVerbFrames());
+                assertEquals(word, dict.getWord(word.getSenseKey()));
+                assertEquals(word, dict.getWord(new WordID(expected.getID(), word.getLemma())));
+            }
+        }
+        assertNull(dict.getSynset(new SynsetID(1234, POS.NOUN)));
+        assertNull(dict.getSynset(new SynsetID(1234, POS.ADVERB)));
+        assertEquals(VerbFrame.NUM_08, dict.getSynset(new SynsetID(1926311, POS.VERB)).getWords().get(0).getVerbFrames().get(1));
+    }
+
+    @Test
+    public void roundTripsIndexWordsAndExceptions() throws Exception {
+        SnapshotDictionary dict = snapshot();
+        for (IIndexWord expected : indexWords) {
+            IIndexWord actual = dict.getIndexWord(expected.getLemma(), expected.getPOS());
+            assertEquals(expected, actual);
+            assertEquals(expected.getPointers(), actual.getPointers());
+            assertEquals(expected.getWordIDs(), actual.getWordIDs());
+        }
+        assertEquals("canis_familiaris", dict.getIndexWord("Canis familiaris", POS.NOUN).getLemma());
+        assertNull(dict.getIndexWord("cat", POS.NOUN));
+        assertNull(dict.getIndexWord("dog", POS.VERB));
+
+        assertEquals(Arrays.asList("ax", "axis", "axe"), dict.getExceptionEntry("Axes", POS.NOUN).getRootForms());
+        assertEquals(Collections.singletonList("run"), dict.getExceptionEntry("ran", POS.VERB).getRootForms());
+        assertNull(dict.getExceptionEntry("ran", POS.NOUN));
+    }
+
+    @Test
+    public void roundTripsSenseEntries() throws Exception {
+        SnapshotDictionary dict = snapshot();
+        for (ISenseEntry expected : senses) {
+            ISenseEntry actual = dict.getSenseEntry(expected.getSenseKey());
+            assertEquals(expected, actual);
+            assertEquals(expected.getTagCount(), actual.getTagCount());
+        }
+        ISynset huge = dict.getSynset(new SynsetID(1387319, POS.ADJECTIVE));
+        assertNull(dict.getSenseEntry(huge.getWord(2).getSenseKey()));
+        assertEquals(huge.getWord(2), dict.getWord(huge.getWord(2).getSenseKey()));
+        assertNull(dict.getSenseEntry(new SenseKey("cat", 0, POS.NOUN, false, LexFile.NOUN_ANIMAL)));
+    }
+
+    @Test
+    public void iteratesInKeyOrder() throws Exception {
+        SnapshotDictionary dict = snapshot();
+        List<String> lemmas = new ArrayList<String>();
+        for (Iterator<IIndexWord> i = dict.getIndexWordIterator(POS.NOUN); i.hasNext(); )
+            lemmas.add(i.next().getLemma());
+        assertEquals(Arrays.asList("animal", "canis_familiaris", "dog", "domestic_dog"), lemmas);
+
+        List<Integer> offsets = new ArrayList<Integer>();
+        for (Iterator<ISynset> i = dict.getSynsetIterator(POS.ADJECTIVE); i.hasNext(); )
+            offsets.add(i.next().getOffset());
+        assertEquals(Arrays.asList(1382086, 1387319, 1391351), offsets);
+
+        int count = 0;
+        for (Iterator<ISenseEntry> i = dict.getSenseEntryIterator(); i.hasNext(); i.next())
+            count++;
+        assertEquals(senses.size(), count);
+        assertFalse(dict.getSynsetIterator(POS.ADVERB).hasNext());
+        assertFalse(dict.getExceptionEntryIterator(POS.ADJECTIVE).hasNext());
+    }
+
+    @Test(expected = IHasLifecycle.ObjectClosedException.class)
+    public void rejectsLookupsWhenClosed() throws Exception {
+        SnapshotDictionary dict = snapshot();
+        dict.close();
+        dict.getSynset(new SynsetID(15388, POS.NOUN));
+    }
+}
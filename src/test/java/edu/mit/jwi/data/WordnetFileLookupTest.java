@@ -0,0 +1,120 @@
+package edu.mit.jwi.data;
+
+import edu.mit.jwi.item.IExceptionEntryProxy;
+import edu.mit.jwi.item.IIndexWord;
+import edu.mit.jwi.item.ISynset;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class WordnetFileLookupTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final String HEADER = "  1 This software and database is being provided to you, the LICENSEE, by  \n"
+            + "  2 Princeton University under the following license.\n";
+
+    private File write(String content) throws Exception {
+        File file = folder.newFile();
+        OutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes("US-ASCII"));
+        out.close();
+        return file;
+    }
+
+    private static String randomWord(Random random) {
+        String chars = "abcdefghijklmnopqrstuvwxyz_-.'0123456789";
+        StringBuilder sb = new StringBuilder();
+        int len = 1 + random.nextInt(12);
+        for (int i = 0; i < len; i++)
+            sb.append(chars.charAt(random.nextInt(i == 0 ? 26 : chars.length())));
+        return sb.toString();
+    }
+
+    @Test
+    public void findsIndexLinesByLemma() throws Exception {
+        Random random = new Random(7);
+        TreeMap<String, String> lines = new TreeMap<String, String>();
+        while (lines.size() < 3000) {
+            String lemma = randomWord(random);
+            lines.put(lemma, lemma + " n 1 1 @ 1 0 0000" + random.nextInt(10000));
+        }
+        StringBuilder sb = new StringBuilder(HEADER);
+        for (String line : lines.values())
+            sb.append(line).append(random.nextBoolean() ? "\n" : "\r\n");
+        final BinarySearchWordnetFile<?> file = new BinarySearchWordnetFile<IIndexWord>(write(sb.toString()), ContentType.INDEX_NOUN);
+        file.open();
+
+        for (String lemma : lines.keySet()) {
+            assertEquals(lines.get(lemma), file.getLine(lemma));
+            assertEquals(lines.get(lemma), file.getLine(lemma.toUpperCase()));
+        }
+        for (int i = 0; i < 3000; i++) {
+            String key = randomWord(random);
+            assertEquals(lines.get(key), file.getLine(key));
+        }
+
+        // lookups from many threads at once see the same lines
+        final List<String> keys = new ArrayList<String>(lines.keySet());
+        final List<String> expected = new ArrayList<String>(lines.values());
+        final AtomicInteger wrong = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int seed = t;
+            threads.add(new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        int k = (i * 7 + seed * 131) % keys.size();
+                        if (!expected.get(k).equals(file.getLine(keys.get(k))))
+                            wrong.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    public void findsExceptionLinesExactly() throws Exception {
+        String content = "Aberdonians aberdonian\nacci acci\nbases base basis\ncorpora corpus\ngeese goose\n";
+        BinarySearchWordnetFile<?> file = new BinarySearchWordnetFile<IExceptionEntryProxy>(write(content), ContentType.EXCEPTION_NOUN);
+        file.open();
+        assertEquals("bases base basis", file.getLine("bases"));
+        assertEquals("geese goose", file.getLine("geese"));
+        assertEquals("Aberdonians aberdonian", file.getLine("Aberdonians"));
+        assertNull(file.getLine("aberdonians"));
+        assertNull(file.getLine("base"));
+    }
+
+    @Test
+    public void findsDataLinesByOffset() throws Exception {
+        int offset = HEADER.length();
+        String first = String.format("%08d", offset) + " 03 n 01 entity 0 | that which is perceived";
+        String second = String.format("%08d", offset + first.length() + 1) + " 03 n 01 physical_entity 0 | an entity";
+        String content = HEADER + first + "\n" + second + "\n";
+        DirectAccessWordnetFile<?> file = new DirectAccessWordnetFile<ISynset>(write(content), ContentType.DATA_NOUN);
+        file.open();
+        assertEquals(first, file.getLine(String.format("%08d", offset)));
+        assertEquals(second, file.getLine(String.format("%08d", offset + first.length() + 1)));
+        assertNull(file.getLine(String.format("%08d", offset + 1)));
+        assertNull(file.getLine("99999999"));
+        assertNull(file.getLine("entity"));
+    }
+}
@@ -0,0 +1,60 @@
+package edu.mit.jwi.morph;
+
+import edu.mit.jwi.item.POS;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachingStemmerTest {
+
+    private static class CountingStemmer extends SimpleStemmer {
+        int calls = 0;
+
+        @Override
+        public List<String> findStems(String word, POS pos) {
+            calls++;
+            return super.findStems(word, pos);
+        }
+    }
+
+    @Test
+    public void answersRepeatsFromCache() {
+        CountingStemmer backing = new CountingStemmer();
+        CachingStemmer stemmer = new CachingStemmer(backing);
+        SimpleStemmer plain = new SimpleStemmer();
+        String[] words = {"dogs", "running", "boxesful", "look up", "dogs", "dogs", "running"};
+        for (String word : words)
+            for (POS pos : new POS[]{POS.NOUN, POS.VERB, null})
+                assertEquals(plain.findStems(word, pos), stemmer.findStems(word, pos));
+        assertEquals(12, stemmer.getMissCount());
+        assertEquals(9, stemmer.getHitCount());
+        assertEquals(9.0 / 21, stemmer.getHitRate(), 1e-9);
+
+
+        int calls = backing.calls;
+        for (String word : words)
+            stemmer.findStems(word, null);
+        assertEquals(calls, backing.calls);
+
+        // callers may modify what they are given
+        stemmer.findStems("dogs", POS.NOUN).clear();
+        assertEquals(plain.findStems("dogs", POS.NOUN), stemmer.findStems("dogs", POS.NOUN));
+    }
+
+    @Test
+    public void staysWithinMaximumSize() {
+        CachingStemmer stemmer = new CachingStemmer(new SimpleStemmer(), 40);
+        for (int i = 0; i < 1000; i++)
+            stemmer.findStems("word" + i + "s", POS.NOUN);
+        assertTrue(stemmer.size() <= 40);
+        assertEquals(1000 - stemmer.size(), stemmer.getEvictionCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void passesOnBadWords() {
+        new CachingStemmer(new SimpleStemmer()).findStems(" ", POS.NOUN);
+    }
+}
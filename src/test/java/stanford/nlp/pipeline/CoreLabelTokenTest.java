@@ -0,0 +1,49 @@
+package stanford.nlp.pipeline;
+
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.CoreLabelToken;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CoreLabelTokenTest {
+
+    private static CoreLabel label(String text, String lemma, int begin) {
+        CoreLabel label = new CoreLabel();
+        label.setOriginalText(text);
+        label.setLemma(lemma);
+        label.setTag("NN");
+        if (begin >= 0)
+            label.setBeginPosition(begin);
+        return label;
+    }
+
+    @Test
+    public void view() {
+        CoreLabel label = label("Records", "record", 12);
+        CoreLabelToken token = new CoreLabelToken(label, "-");
+        assertSame(label.originalText(), token.getForm());
+        assertEquals("NN", token.getTag());
+        assertEquals(Collections.singletonList("record"), token.getStems());
+        assertSame(token.getStems(), token.getStems());
+        assertEquals(Long.valueOf(12), token.getOffset());
+    }
+
+    @Test
+    public void underscores() {
+        CoreLabelToken token = new CoreLabelToken(label("New_York", "New_York", -1), "-");
+        assertEquals("New-York", token.getForm());
+        assertEquals(Collections.singletonList("new-york"), token.getStems());
+        assertNull(token.getOffset());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void whitespace() {
+        new CoreLabelToken(label("a b", "a b", 0), "-");
+    }
+
+}
@@ -0,0 +1,137 @@
+package stanford.nlp.pipeline;
+
+import edu.mit.jmwe.data.IMWE;
+import edu.mit.jmwe.data.IMWEDescID;
+import edu.mit.jmwe.data.IToken;
+import edu.mit.jmwe.data.MWEPOS;
+import edu.mit.jmwe.index.IMWEIndex;
+import edu.mit.jmwe.index.IndexBuilder;
+import edu.mit.jmwe.index.IndexBuilder.MutableRootMWEDesc;
+import edu.mit.jmwe.index.MWEIndex;
+import edu.mit.jmwe.index.MWEIndexRegistry;
+import edu.mit.jmwe.util.StreamAdapter;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.CoreLabelToken;
+import edu.stanford.nlp.pipeline.JMWEAnnotator;
+import edu.stanford.nlp.util.ArrayCoreMap;
+import edu.stanford.nlp.util.CoreMap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JMWEAnnotatorThreadsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File indexFile() throws Exception {
+        Map<IMWEDescID, MutableRootMWEDesc> data = new HashMap<IMWEDescID, MutableRootMWEDesc>();
+        for (MutableRootMWEDesc desc : new MutableRootMWEDesc[]{
+                new MutableRootMWEDesc("look_up", MWEPOS.VERB), new MutableRootMWEDesc("world_record", MWEPOS.NOUN)})
+            data.put(desc.getID(), desc);
+        IMWEIndex index = new MWEIndex(data);
+        index.open();
+        File file = folder.newFile("mwe.data");
+        IndexBuilder.replaceDataFile(index, file, null);
+        index.close();
+        return file;
+    }
+
+    private static Properties props(File index, String threads) {
+        Properties props = new Properties();
+        props.setProperty("customAnnotatorClass.jmwe.underscoreReplacement", "-");
+        props.setProperty("customAnnotatorClass.jmwe.indexData", index.getAbsolutePath());
+        props.setProperty("customAnnotatorClass.jmwe.detector", "Consecutive");
+        props.setProperty("customAnnotatorClass.jmwe.shutdownHook", "false");
+        props.setProperty("customAnnotatorClass.jmwe.threads", threads);
+        return props;
+    }
+
+    private static CoreLabel label(String text, String tag, int begin) {
+        CoreLabel label = new CoreLabel();
+        label.setOriginalText(text);
+        label.setWord(text);
+        label.setLemma(text);
+        label.setTag(tag);
+        label.setBeginPosition(begin);
+        return label;
+    }
+
+    // sentence i holds "look up" when i is even and "world record" when i is divisible by three
+    private static Annotation document(int count) {
+        List<CoreMap> sentences = new ArrayList<CoreMap>();
+        for (int i = 0; i < count; i++) {
+            List<CoreLabel> tokens = new ArrayList<CoreLabel>();
+            tokens.add(label("the", "DT", tokens.size()));
+            if (i % 2 == 0) {
+                tokens.add(label("look", "VB", tokens.size()));
+                tokens.add(label("up", "RP", tokens.size()));
+            }
+            if (i % 3 == 0) {
+                tokens.add(label("world", "NN", tokens.size()));
+                tokens.add(label("record", "NN", tokens.size()));
+            }
+            CoreMap sentence = new ArrayCoreMap();
+            sentence.set(CoreAnnotations.TokensAnnotation.class, tokens);
+            sentences.add(sentence);
+        }
+        Annotation document = new Annotation("");
+        document.set(CoreAnnotations.SentencesAnnotation.class, sentences);
+        return document;
+    }
+
+    @Test
+    public void threadedResultsAreAttachedInSentenceOrder() throws Exception {
+        File index = indexFile();
+        Annotation document = document(200);
+        JMWEAnnotator annotator = new JMWEAnnotator("jmwe", props(index, "4"));
+        try {
+            annotator.annotate(document);
+        } finally {
+            annotator.release();
+        }
+
+        List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+        for (int i = 0; i < sentences.size(); i++) {
+            CoreMap sentence = sentences.get(i);
+            List<IMWE<IToken>> mwes = sentence.get(JMWEAnnotator.JMWEAnnotation.class);
+            List<String> forms = new ArrayList<String>();
+            for (IMWE<IToken> mwe : mwes) {
+                forms.add(mwe.getEntry().getForm());
+                for (IToken token : mwe.getTokens())
+                    assertTrue(sentence.get(CoreAnnotations.TokensAnnotation.class).contains(((CoreLabelToken) token).getLabel()));
+            }
+            assertEquals("sentence " + i, (i % 2 == 0 ? 1 : 0) + (i % 3 == 0 ? 1 : 0), forms.size());
+            assertEquals(i % 2 == 0, forms.contains("look_up"));
+            assertEquals(i % 3 == 0, forms.contains("world_record"));
+        }
+    }
+
+    @Test
+    public void badThreadsLeakNoIndexReference() throws Exception {
+        File index = indexFile();
+        for (String threads : new String[]{"0", "many"}) {
+            try {
+                new JMWEAnnotator("jmwe", props(index, threads));
+                fail(threads);
+            } catch (RuntimeException e) {
+                assertTrue(e.getMessage().contains("threads"));
+            }
+            assertFalse(MWEIndexRegistry.getInstance().isLoaded(StreamAdapter.toURL(index.getCanonicalFile())));
+        }
+    }
+}